@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * Base class of the mapper implementations generated when
+ * {@link org.apache.ibatis.session.Configuration#isMapperClassGenerationEnabled()} is on.
+ * <p>
+ * Every abstract mapper method of the generated subclass is compiled into a direct call of
+ * {@link #execute(int, Object[])} with the index of the method, so no {@link java.lang.reflect.Proxy},
+ * {@link java.lang.reflect.InvocationHandler} or method cache lookup is involved in the call.
+ *
+ * @since 3.5.9
+ */
+public abstract class GeneratedMapper {
+
+    private final SqlSession sqlSession;
+    private final MapperProxyFactory<?> mapperProxyFactory;
+
+    protected GeneratedMapper(SqlSession sqlSession, MapperProxyFactory<?> mapperProxyFactory) {
+        this.sqlSession = sqlSession;
+        this.mapperProxyFactory = mapperProxyFactory;
+    }
+
+    protected final Object execute(int methodIndex, Object[] args) {
+        return mapperProxyFactory.getMapperMethod(methodIndex, sqlSession.getConfiguration()).execute(sqlSession, args);
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratedMapper(" + mapperProxyFactory.getMapperInterface().getName() + ")";
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import org.apache.ibatis.session.SqlSession;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a {@link GeneratedMapper} subclass implementing a mapper interface with Javassist.
+ *
+ * @since 3.5.9
+ */
+final class MapperClassGenerator {
+
+    private static final String CLASS_NAME_SUFFIX = "$$MapperImpl";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private MapperClassGenerator() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * 生成的 Mapper 类，methods 的下标即生成代码中调用 execute 时传入的下标
+     */
+    static final class MapperClass {
+
+        private final Constructor<?> constructor;
+        private final Method[] methods;
+
+        MapperClass(Constructor<?> constructor, Method[] methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+
+        Constructor<?> getConstructor() {
+            return constructor;
+        }
+
+        Method[] getMethods() {
+            return methods;
+        }
+    }
+
+    static MapperClass generate(Class<?> mapperInterface) throws Exception {
+        final List<Method> methods = new ArrayList<>();
+        final Set<String> signatures = new HashSet<>();
+        for (Method method : mapperInterface.getMethods()) {
+            // 默认方法和静态方法保留接口自身的实现
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (signatures.add(signature(method))) {
+                methods.add(method);
+            }
+        }
+
+        final ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new ClassClassPath(GeneratedMapper.class));
+        if (mapperInterface.getClassLoader() != null) {
+            pool.appendClassPath(new LoaderClassPath(mapperInterface.getClassLoader()));
+        }
+        // 与接口放在同一个包中，这样包级私有的 Mapper 接口也可以被实现
+        final CtClass ctClass = pool.makeClass(mapperInterface.getName() + CLASS_NAME_SUFFIX + CLASS_COUNTER.incrementAndGet());
+        try {
+            ctClass.setSuperclass(pool.get(GeneratedMapper.class.getName()));
+            ctClass.addInterface(pool.get(mapperInterface.getName()));
+            ctClass.addConstructor(CtNewConstructor.make(
+                    new CtClass[]{pool.get(SqlSession.class.getName()), pool.get(MapperProxyFactory.class.getName())},
+                    new CtClass[0], "{ super($1, $2); }", ctClass));
+            for (int i = 0; i < methods.size(); i++) {
+                final Method method = methods.get(i);
+                final Class<?>[] parameterTypes = method.getParameterTypes();
+                final CtClass[] ctParameterTypes = new CtClass[parameterTypes.length];
+                for (int j = 0; j < parameterTypes.length; j++) {
+                    ctParameterTypes[j] = pool.get(typeName(parameterTypes[j]));
+                }
+                // $args 为装箱后的参数数组，($r) 负责把结果转换（或拆箱）为方法的返回类型
+                final String body = void.class.equals(method.getReturnType())
+                        ? "{ execute(" + i + ", $args); }"
+                        : "{ return ($r) execute(" + i + ", $args); }";
+                ctClass.addMethod(CtNewMethod.make(Modifier.PUBLIC, pool.get(typeName(method.getReturnType())),
+                        method.getName(), ctParameterTypes, new CtClass[0], body, ctClass));
+            }
+            final Class<?> generatedClass = ctClass.toClass(mapperInterface);
+            return new MapperClass(generatedClass.getConstructor(SqlSession.class, MapperProxyFactory.class),
+                    methods.toArray(new Method[0]));
+        } finally {
+            ctClass.detach();
+        }
+    }
+
+    private static String signature(Method method) {
+        final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            sb.append(typeName(parameterType)).append(',');
+        }
+        return sb.append(')').append(typeName(method.getReturnType())).toString();
+    }
+
+    private static String typeName(Class<?> type) {
+        return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+    }
+
+}
@@ -18,16 +18,23 @@ package org.apache.ibatis.binding;
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
+import org.apache.ibatis.cursor.defaults.CursorPublisher;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Slice;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
+import org.apache.ibatis.session.AsyncSqlSession;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
@@ -37,6 +44,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author Clinton Begin
@@ -55,6 +64,15 @@ public class MapperMethod {
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
+        if (method.returnsFuture()) {
+            // 在独立的 SqlSession 中异步执行，不参与当前 sqlSession 的事务
+            return new AsyncSqlSession(new DefaultSqlSessionFactory(sqlSession.getConfiguration()))
+                    .execute(asyncSqlSession -> executeNow(asyncSqlSession, args));
+        }
+        return executeNow(sqlSession, args);
+    }
+
+    private Object executeNow(SqlSession sqlSession, Object[] args) {
         Object result;
         switch (command.getType()) {
             case INSERT: {
@@ -80,8 +98,12 @@ public class MapperMethod {
                     result = executeForMany(sqlSession, args);
                 } else if (method.returnsMap()) {
                     result = executeForMap(sqlSession, args);
+                } else if (method.returnsSlice()) {
+                    result = executeForSlice(sqlSession, args);
                 } else if (method.returnsCursor()) {
                     result = executeForCursor(sqlSession, args);
+                } else if (method.returnsPublisher()) {
+                    result = new CursorPublisher<>(() -> executeForCursor(sqlSession, args));
                 } else {
                     Object param = method.convertArgsToSqlCommandParam(args);
                     result = sqlSession.selectOne(command.getName(), param);
@@ -157,6 +179,19 @@ public class MapperMethod {
         return result;
     }
 
+    private <E> Slice<E> executeForSlice(SqlSession sqlSession, Object[] args) {
+        RowBounds rowBounds = method.extractRowBounds(args);
+        if (!(rowBounds instanceof PageRequest)) {
+            throw new BindingException("Mapper method '" + command.getName() + "' returns a "
+                    + method.getReturnType().getSimpleName() + " and requires a PageRequest, but was " + rowBounds);
+        }
+        Object param = method.convertArgsToSqlCommandParam(args);
+        if (Page.class.equals(method.getReturnType())) {
+            return sqlSession.selectPage(command.getName(), param, (PageRequest) rowBounds);
+        }
+        return sqlSession.selectSlice(command.getName(), param, (PageRequest) rowBounds);
+    }
+
     private <T> Cursor<T> executeForCursor(SqlSession sqlSession, Object[] args) {
         Cursor<T> result;
         Object param = method.convertArgsToSqlCommandParam(args);
@@ -206,6 +241,19 @@ public class MapperMethod {
 
         private static final long serialVersionUID = -2212268410512043556L;
 
+        public ParamMap() {
+        }
+
+        /**
+         * Creates a map sized to hold the given number of parameters without rehashing.
+         *
+         * @param expectedSize the expected number of entries
+         * @since 3.5.9
+         */
+        public ParamMap(int expectedSize) {
+            super((int) (expectedSize / 0.75f) + 1);
+        }
+
         @Override
         public V get(Object key) {
             if (!super.containsKey(key)) {
@@ -277,6 +325,9 @@ public class MapperMethod {
         private final boolean returnsVoid;
         private final boolean returnsCursor;
         private final boolean returnsOptional;
+        private final boolean returnsFuture;
+        private final boolean returnsPublisher;
+        private final boolean returnsSlice;
         private final Class<?> returnType;
         private final String mapKey;
         private final Integer resultHandlerIndex;
@@ -285,20 +336,37 @@ public class MapperMethod {
 
         public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
             Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+            this.returnsFuture = CompletableFuture.class.equals(method.getReturnType())
+                    || CompletionStage.class.equals(method.getReturnType());
+            if (this.returnsFuture) {
+                // 按照 future 的结果类型执行
+                resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+                        ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+            }
             if (resolvedReturnType instanceof Class<?>) {
                 this.returnType = (Class<?>) resolvedReturnType;
             } else if (resolvedReturnType instanceof ParameterizedType) {
                 this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
             } else {
-                this.returnType = method.getReturnType();
+                this.returnType = this.returnsFuture ? Object.class : method.getReturnType();
             }
-            this.returnsVoid = void.class.equals(this.returnType);
+            this.returnsVoid = void.class.equals(this.returnType) || (this.returnsFuture && Void.class.equals(this.returnType));
             this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
             this.returnsCursor = Cursor.class.equals(this.returnType);
             this.returnsOptional = Optional.class.equals(this.returnType);
+            this.returnsPublisher = Flow.Publisher.class.equals(this.returnType);
+            if (this.returnsFuture && (this.returnsCursor || this.returnsPublisher)) {
+                throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+                        + "' cannot return a Cursor or Publisher asynchronously because the session is closed when the future completes.");
+            }
             this.mapKey = getMapKey(method);
             this.returnsMap = this.mapKey != null;
             this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
+            this.returnsSlice = Slice.class.equals(this.returnType) || Page.class.equals(this.returnType);
+            if (this.returnsSlice && this.rowBoundsIndex == null) {
+                throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+                        + "' returns a " + this.returnType.getSimpleName() + " and must have a PageRequest parameter.");
+            }
             this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
             this.paramNameResolver = new ParamNameResolver(configuration, method);
         }
@@ -352,6 +420,35 @@ public class MapperMethod {
             return returnsOptional;
         }
 
+        /**
+         * return whether return type is {@code java.util.concurrent.CompletableFuture} or
+         * {@code java.util.concurrent.CompletionStage}. The other methods then describe the result type of the future.
+         * @return return {@code true}, if the method is executed asynchronously
+         * @since 3.5.9
+         */
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
+        /**
+         * return whether return type is {@code org.apache.ibatis.cursor.Flow.Publisher}.
+         * @return return {@code true}, if the results are published from a cursor on demand
+         * @since 3.5.9
+         */
+        public boolean returnsPublisher() {
+            return returnsPublisher;
+        }
+
+        /**
+         * return whether return type is {@code org.apache.ibatis.pagination.Slice} or
+         * {@code org.apache.ibatis.pagination.Page}.
+         * @return return {@code true}, if the rows of a {@code PageRequest} are returned
+         * @since 3.5.9
+         */
+        public boolean returnsSlice() {
+            return returnsSlice;
+        }
+
         private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
             Integer index = null;
             final Class<?>[] argTypes = method.getParameterTypes();
@@ -373,7 +470,7 @@ public class MapperMethod {
 
         private String getMapKey(Method method) {
             String mapKey = null;
-            if (Map.class.isAssignableFrom(method.getReturnType())) {
+            if (Map.class.isAssignableFrom(returnType)) {
                 final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
                 if (mapKeyAnnotation != null) {
                     mapKey = mapKeyAnnotation.value();
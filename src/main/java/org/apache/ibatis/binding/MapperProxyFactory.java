@@ -15,7 +15,12 @@
  */
 package org.apache.ibatis.binding;
 
+import org.apache.ibatis.binding.MapperClassGenerator.MapperClass;
 import org.apache.ibatis.binding.MapperProxy.MapperMethodInvoker;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 
 import java.lang.reflect.Method;
@@ -30,6 +35,12 @@ public class MapperProxyFactory<T> {
 
     private final Class<T> mapperInterface;
     private final Map<Method, MapperMethodInvoker> methodCache = new ConcurrentHashMap<>();
+    /**
+     * 生成的实现类，只在开启 mapperClassGeneration 后首次获取 Mapper 时生成一次
+     */
+    private volatile MapperClass mapperClass;
+    private volatile boolean mapperClassUnavailable;
+    private MapperMethod[] mapperMethods;
 
     public MapperProxyFactory(Class<T> mapperInterface) {
         this.mapperInterface = mapperInterface;
@@ -49,8 +60,64 @@ public class MapperProxyFactory<T> {
     }
 
     public T newInstance(SqlSession sqlSession) {
+        if (sqlSession.getConfiguration().isMapperClassGenerationEnabled()) {
+            final MapperClass generated = getMapperClass();
+            if (generated != null) {
+                return newInstance(generated, sqlSession);
+            }
+        }
         final MapperProxy<T> mapperProxy = new MapperProxy<>(sqlSession, mapperInterface, methodCache);
         return newInstance(mapperProxy);
     }
 
+    @SuppressWarnings("unchecked")
+    private T newInstance(MapperClass generated, SqlSession sqlSession) {
+        try {
+            return (T) generated.getConstructor().newInstance(sqlSession, this);
+        } catch (Exception e) {
+            throw new BindingException("Error instantiating generated mapper for " + mapperInterface.getName()
+                    + ". Cause: " + ExceptionUtil.unwrapThrowable(e), e);
+        }
+    }
+
+    private MapperClass getMapperClass() {
+        MapperClass generated = mapperClass;
+        if (generated == null && !mapperClassUnavailable) {
+            synchronized (this) {
+                generated = mapperClass;
+                if (generated == null && !mapperClassUnavailable) {
+                    try {
+                        generated = MapperClassGenerator.generate(mapperInterface);
+                        mapperMethods = new MapperMethod[generated.getMethods().length];
+                        mapperClass = generated;
+                    } catch (Exception | LinkageError e) {
+                        // 生成失败时（例如类加载器不可见）退回到 JDK 动态代理
+                        mapperClassUnavailable = true;
+                        LogHolder.log.warn("Could not generate a mapper class for " + mapperInterface.getName()
+                                + ", falling back to a JDK proxy. Cause: " + e);
+                    }
+                }
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * 生成类按下标调用，MapperMethod 在首次调用时才创建，与代理方式一样，
+     * 未绑定语句的方法只有被调用时才会抛出异常。
+     * MapperMethod 的字段都是 final 的，并发创建时重复赋值也没有问题。
+     */
+    MapperMethod getMapperMethod(int index, Configuration configuration) {
+        MapperMethod mapperMethod = mapperMethods[index];
+        if (mapperMethod == null) {
+            mapperMethod = new MapperMethod(mapperInterface, mapperClass.getMethods()[index], configuration);
+            mapperMethods[index] = mapperMethod;
+        }
+        return mapperMethod;
+    }
+
+    private static class LogHolder {
+        private static final Log log = LogFactory.getLog(MapperProxyFactory.class);
+    }
+
 }
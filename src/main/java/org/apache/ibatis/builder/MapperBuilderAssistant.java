@@ -20,6 +20,7 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -108,6 +109,20 @@ public class MapperBuilderAssistant extends BaseBuilder {
                              boolean readWrite,
                              boolean blocking,
                              Properties props) {
+        return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, null);
+    }
+
+    /**
+     * @since 3.5.9
+     */
+    public Cache useNewCache(Class<? extends Cache> typeClass,
+                             Class<? extends Cache> evictionClass,
+                             Long flushInterval,
+                             Integer size,
+                             boolean readWrite,
+                             boolean blocking,
+                             Properties props,
+                             Serializer serializer) {
         Cache cache = new CacheBuilder(currentNamespace)
                 .implementation(valueOrDefault(typeClass, PerpetualCache.class))
                 .addDecorator(valueOrDefault(evictionClass, LruCache.class))
@@ -115,6 +130,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .size(size)
                 .readWrite(readWrite)
                 .blocking(blocking)
+                .serializer(valueOrDefault(serializer, configuration.getDefaultSerializer()))
                 .properties(props)
                 .build();
         configuration.addCache(cache);
@@ -383,6 +399,31 @@ public class MapperBuilderAssistant extends BaseBuilder {
             String resultSet,
             String foreignColumn,
             boolean lazy) {
+        return buildResultMapping(resultType, property, column, javaType, jdbcType, nestedSelect, nestedResultMap, notNullColumn,
+                columnPrefix, typeHandler, flags, resultSet, foreignColumn, lazy, null);
+    }
+
+    /**
+     * Builds a result mapping.
+     *
+     * @since 3.5.9
+     */
+    public ResultMapping buildResultMapping(
+            Class<?> resultType,
+            String property,
+            String column,
+            Class<?> javaType,
+            JdbcType jdbcType,
+            String nestedSelect,
+            String nestedResultMap,
+            String notNullColumn,
+            String columnPrefix,
+            Class<? extends TypeHandler<?>> typeHandler,
+            List<ResultFlag> flags,
+            String resultSet,
+            String foreignColumn,
+            boolean lazy,
+            Integer batchSize) {
         Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
         TypeHandler<?> typeHandlerInstance = resolveTypeHandler(javaTypeClass, typeHandler);
         List<ResultMapping> composites;
@@ -403,6 +444,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .columnPrefix(columnPrefix)
                 .foreignColumn(foreignColumn)
                 .lazy(lazy)
+                .batchSize(batchSize)
                 .build();
     }
 
@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of parsing the {@code #{}} placeholders of a generated SQL statement. A plan can be reused for another
+ * invocation that generated the same SQL for the same parameter type, as long as the additional parameters that
+ * the parameter mappings were resolved against still have the same types ({@link #matches(Map)}).
+ *
+ * @since 3.5.9
+ * @see SqlSourceBuilder#parsePlan(String, Class, Map)
+ */
+public class SqlPlan {
+
+    private final Configuration configuration;
+    private final StaticSqlSource sqlSource;
+    private final String[] properties;
+    /**
+     * 从附加参数中取得类型的参数映射记录其类型，否则为 null
+     */
+    private final Class<?>[] additionalParameterTypes;
+
+    SqlPlan(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Class<?>[] additionalParameterTypes) {
+        this.configuration = configuration;
+        this.sqlSource = new StaticSqlSource(configuration, sql, parameterMappings);
+        this.properties = new String[parameterMappings.size()];
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = parameterMappings.get(i).getProperty();
+        }
+        this.additionalParameterTypes = additionalParameterTypes;
+    }
+
+    public StaticSqlSource getSqlSource() {
+        return sqlSource;
+    }
+
+    public BoundSql getBoundSql(Object parameterObject) {
+        return sqlSource.getBoundSql(parameterObject);
+    }
+
+    /**
+     * Checks that every parameter mapping would be resolved to the same type against the given additional
+     * parameters.
+     * @param additionalParameters the additional parameters of the current invocation
+     * @return {@code true} if the plan can be reused
+     */
+    public boolean matches(Map<String, Object> additionalParameters) {
+        if (properties.length == 0) {
+            return true;
+        }
+        // 与 SqlSourceBuilder 中解析参数类型的逻辑保持一致
+        MetaObject metaParameters = configuration.newMetaObject(additionalParameters);
+        for (int i = 0; i < properties.length; i++) {
+            Class<?> expectedType = additionalParameterTypes[i];
+            if (metaParameters.hasGetter(properties[i])) {
+                if (expectedType == null || expectedType != metaParameters.getGetterType(properties[i])) {
+                    return false;
+                }
+            } else if (expectedType != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
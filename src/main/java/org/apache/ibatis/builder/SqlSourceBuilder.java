@@ -41,6 +41,16 @@ public class SqlSourceBuilder extends BaseBuilder {
     }
 
     public SqlSource parse(String originalSql, Class<?> parameterType, Map<String, Object> additionalParameters) {
+        return parsePlan(originalSql, parameterType, additionalParameters).getSqlSource();
+    }
+
+    /**
+     * Parses the sql like {@link #parse(String, Class, Map)} and keeps what is needed to check whether the result
+     * can be reused for another invocation.
+     *
+     * @since 3.5.9
+     */
+    public SqlPlan parsePlan(String originalSql, Class<?> parameterType, Map<String, Object> additionalParameters) {
         ParameterMappingTokenHandler handler = new ParameterMappingTokenHandler(configuration, parameterType, additionalParameters);
         GenericTokenParser parser = new GenericTokenParser("#{", "}", handler);
         String sql;
@@ -49,7 +59,7 @@ public class SqlSourceBuilder extends BaseBuilder {
         } else {
             sql = parser.parse(originalSql);
         }
-        return new StaticSqlSource(configuration, sql, handler.getParameterMappings());
+        return new SqlPlan(configuration, sql, handler.getParameterMappings(), handler.getAdditionalParameterTypes());
     }
 
     public static String removeExtraWhitespaces(String original) {
@@ -69,6 +79,7 @@ public class SqlSourceBuilder extends BaseBuilder {
     private static class ParameterMappingTokenHandler extends BaseBuilder implements TokenHandler {
 
         private final List<ParameterMapping> parameterMappings = new ArrayList<>();
+        private final List<Class<?>> additionalParameterTypes = new ArrayList<>();
         private final Class<?> parameterType;
         private final MetaObject metaParameters;
 
@@ -82,6 +93,10 @@ public class SqlSourceBuilder extends BaseBuilder {
             return parameterMappings;
         }
 
+        public Class<?>[] getAdditionalParameterTypes() {
+            return additionalParameterTypes.toArray(new Class<?>[0]);
+        }
+
         @Override
         public String handleToken(String content) {
             parameterMappings.add(buildParameterMapping(content));
@@ -92,8 +107,10 @@ public class SqlSourceBuilder extends BaseBuilder {
             Map<String, String> propertiesMap = parseParameterMapping(content);
             String property = propertiesMap.get("property");
             Class<?> propertyType;
+            Class<?> additionalParameterType = null;
             if (metaParameters.hasGetter(property)) { // issue #448 get type from additional params
                 propertyType = metaParameters.getGetterType(property);
+                additionalParameterType = propertyType;
             } else if (typeHandlerRegistry.hasTypeHandler(parameterType)) {
                 propertyType = parameterType;
             } else if (JdbcType.CURSOR.name().equals(propertiesMap.get("jdbcType"))) {
@@ -140,6 +157,7 @@ public class SqlSourceBuilder extends BaseBuilder {
             if (typeHandlerAlias != null) {
                 builder.typeHandler(resolveTypeHandler(javaType, typeHandlerAlias));
             }
+            additionalParameterTypes.add(additionalParameterType);
             return builder.build();
         }
 
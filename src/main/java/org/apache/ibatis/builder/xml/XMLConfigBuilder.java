@@ -21,10 +21,13 @@ import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.metrics.MetricsCollector;
+import org.apache.ibatis.pagination.PaginationDialect;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.plugin.Interceptor;
@@ -40,7 +43,16 @@ import org.apache.ibatis.type.JdbcType;
 import javax.sql.DataSource;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Clinton Begin
@@ -241,6 +253,7 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
         configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
         configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
+        configuration.setDefaultSerializer((Serializer) createInstance(props.getProperty("defaultSerializer")));
         configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
         configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
         configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
@@ -266,6 +279,19 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
         configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
         configuration.setNullableOnForEach(booleanValueOf(props.getProperty("nullableOnForEach"), false));
+        configuration.setDynamicSqlPlanCacheSize(integerValueOf(props.getProperty("dynamicSqlPlanCacheSize"), 64));
+        configuration.setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), false));
+        configuration.setBatchFlushSize(integerValueOf(props.getProperty("batchFlushSize"), 0));
+        configuration.setDefaultNestedSelectBatchSize(integerValueOf(props.getProperty("defaultNestedSelectBatchSize"), 0));
+        configuration.setParallelResultMappingChunkSize(integerValueOf(props.getProperty("parallelResultMappingChunkSize"), 0));
+        configuration.setDefaultPaginationDialect((PaginationDialect) createInstance(props.getProperty("defaultPaginationDialect")));
+        configuration.setMetricsCollector((MetricsCollector) createInstance(props.getProperty("metricsCollector")));
+        configuration.setStatementLogSampleRate(integerValueOf(props.getProperty("statementLogSampleRate"), 1));
+        configuration.setStatementLogSlowThreshold(integerValueOf(props.getProperty("statementLogSlowThreshold"), 0));
+        configuration.setSlowQueryThreshold(integerValueOf(props.getProperty("slowQueryThreshold"), 0));
+        configuration.setSlowQueryCapacity(integerValueOf(props.getProperty("slowQueryCapacity"), 100));
+        configuration.setMapperClassGenerationEnabled(booleanValueOf(props.getProperty("mapperClassGenerationEnabled"), false));
+        configuration.setParallelMapperLoadingEnabled(booleanValueOf(props.getProperty("parallelMapperLoadingEnabled"), false));
     }
 
     private void environmentsElement(XNode context) throws Exception {
@@ -359,6 +385,10 @@ public class XMLConfigBuilder extends BaseBuilder {
 
     private void mapperElement(XNode parent) throws Exception {
         if (parent != null) {
+            if (configuration.isParallelMapperLoadingEnabled()) {
+                parallelMapperElement(parent);
+                return;
+            }
             for (XNode child : parent.getChildren()) {
                 if ("package".equals(child.getName())) {
                     String mapperPackage = child.getStringAttribute("name");
@@ -390,6 +420,100 @@ public class XMLConfigBuilder extends BaseBuilder {
         }
     }
 
+    /**
+     * Reads and parses the mapper XML files on a dedicated pool, then builds the mappers on the calling thread in the
+     * declared order. The configuration is only changed by the calling thread, so it ends up the same as with the
+     * sequential loading. Elements referencing a later mapper are retried before each mapper class or package and
+     * after the last mapper.
+     */
+    private void parallelMapperElement(XNode parent) throws Exception {
+        final List<XNode> children = parent.getChildren();
+        final List<XNode> mapperDocuments = new ArrayList<>();
+        for (XNode child : children) {
+            String resource = child.getStringAttribute("resource");
+            String url = child.getStringAttribute("url");
+            String mapperClass = child.getStringAttribute("class");
+            if (!"package".equals(child.getName()) && mapperClass == null && (resource == null) != (url == null)) {
+                mapperDocuments.add(child);
+            }
+        }
+        final Map<XNode, Future<XPathParser>> documents = new IdentityHashMap<>();
+        final ExecutorService executor = mapperDocuments.isEmpty() ? null
+                : newMapperLoadingExecutor(Math.min(mapperDocuments.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (XNode child : mapperDocuments) {
+                String resource = child.getStringAttribute("resource");
+                String url = child.getStringAttribute("url");
+                documents.put(child, executor.submit(() -> parseMapperDocument(resource, url)));
+            }
+            XMLMapperBuilder lastMapperParser = null;
+            for (XNode child : children) {
+                String resource = child.getStringAttribute("resource");
+                String url = child.getStringAttribute("url");
+                String mapperClass = child.getStringAttribute("class");
+                if (!documents.containsKey(child) && lastMapperParser != null) {
+                    // 与顺序加载一致，Mapper 接口加载前先处理已加载的 XML 中未完成的元素
+                    lastMapperParser.parsePendingElements();
+                }
+                if ("package".equals(child.getName())) {
+                    configuration.addMappers(child.getStringAttribute("name"));
+                } else if (documents.containsKey(child)) {
+                    String location = resource != null ? resource : url;
+                    ErrorContext.instance().resource(location);
+                    XMLMapperBuilder mapperParser = new XMLMapperBuilder(joinDocument(documents.get(child)), configuration, location,
+                            configuration.getSqlFragments());
+                    mapperParser.parseMapper();
+                    lastMapperParser = mapperParser;
+                } else if (resource == null && url == null && mapperClass != null) {
+                    Class<?> mapperInterface = Resources.classForName(mapperClass);
+                    configuration.addMapper(mapperInterface);
+                } else {
+                    throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+                }
+            }
+            if (lastMapperParser != null) {
+                lastMapperParser.parsePendingElements();
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 工作线程使用调用线程的上下文类加载器，与顺序加载时查找资源和 XML 解析器的方式相同
+     */
+    private static ExecutorService newMapperLoadingExecutor(int threads) {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mybatis-mapper-loading-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        });
+    }
+
+    private XPathParser parseMapperDocument(String resource, String url) throws Exception {
+        try (InputStream inputStream = resource != null ? Resources.getResourceAsStream(resource) : Resources.getUrlAsStream(url)) {
+            return new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver());
+        }
+    }
+
+    private static XPathParser joinDocument(Future<XPathParser> document) throws Exception {
+        try {
+            return document.get();
+        } catch (ExecutionException e) {
+            // 与顺序加载时抛出相同的异常
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
     private boolean isSpecifiedEnvironment(String id) {
         if (environment == null) {
             throw new BuilderException("No environment specified.");
@@ -19,6 +19,7 @@ import org.apache.ibatis.builder.*;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.parsing.XPathParser;
@@ -64,7 +65,10 @@ public class XMLMapperBuilder extends BaseBuilder {
                 configuration, resource, sqlFragments);
     }
 
-    private XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
+    /**
+     * Creates a builder for a mapper document that has already been parsed, used by the parallel mapper loading.
+     */
+    XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
         super(configuration);
         this.builderAssistant = new MapperBuilderAssistant(configuration, resource);
         this.parser = parser;
@@ -73,12 +77,25 @@ public class XMLMapperBuilder extends BaseBuilder {
     }
 
     public void parse() {
+        parseMapper();
+        parsePendingElements();
+    }
+
+    /**
+     * Builds the elements of the mapper without retrying the elements that are still incomplete.
+     */
+    void parseMapper() {
         if (!configuration.isResourceLoaded(resource)) {
             configurationElement(parser.evalNode("/mapper"));
             configuration.addLoadedResource(resource);
             bindMapperForNamespace();
         }
+    }
 
+    /**
+     * Retries the result maps, cache refs and statements that referenced elements which were not loaded yet.
+     */
+    void parsePendingElements() {
         parsePendingResultMaps();
         parsePendingCacheRefs();
         parsePendingStatements();
@@ -191,8 +208,9 @@ public class XMLMapperBuilder extends BaseBuilder {
             Integer size = context.getIntAttribute("size");
             boolean readWrite = !context.getBooleanAttribute("readOnly", false);
             boolean blocking = context.getBooleanAttribute("blocking", false);
+            Serializer serializer = (Serializer) createInstance(context.getStringAttribute("serializer"));
             Properties props = context.getChildrenAsProperties();
-            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, serializer);
         }
     }
 
@@ -369,10 +387,11 @@ public class XMLMapperBuilder extends BaseBuilder {
         String resultSet = context.getStringAttribute("resultSet");
         String foreignColumn = context.getStringAttribute("foreignColumn");
         boolean lazy = "lazy".equals(context.getStringAttribute("fetchType", configuration.isLazyLoadingEnabled() ? "lazy" : "eager"));
+        Integer batchSize = context.getIntAttribute("batchSize");
         Class<?> javaTypeClass = resolveClass(javaType);
         Class<? extends TypeHandler<?>> typeHandlerClass = resolveClass(typeHandler);
         JdbcType jdbcTypeEnum = resolveJdbcType(jdbcType);
-        return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy);
+        return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy, batchSize);
     }
 
     private String processNestedResultMappings(XNode context, List<ResultMapping> resultMappings, Class<?> enclosingType) {
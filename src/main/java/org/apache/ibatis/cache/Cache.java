@@ -92,4 +92,16 @@ public interface Cache {
         return null;
     }
 
+    /**
+     * Optional. Whether this cache can be called from several threads at once without any external locking.
+     * <p>
+     * When the cache (including all of its decorators) is thread safe, it will not be wrapped with
+     * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+     * @return true if the cache is thread safe
+     * @since 3.5.9
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
 }
@@ -17,8 +17,13 @@ package org.apache.ibatis.cache;
 
 import org.apache.ibatis.reflection.ArrayUtil;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -29,6 +34,17 @@ public class CacheKey implements Cloneable, Serializable {
 
     private static final long serialVersionUID = 1146682552656046210L;
 
+    /**
+     * 序列化格式与使用 ArrayList 保存 updateList 时保持一致
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("multiplier", int.class),
+            new ObjectStreamField("hashcode", int.class),
+            new ObjectStreamField("checksum", long.class),
+            new ObjectStreamField("count", int.class),
+            new ObjectStreamField("updateList", List.class)
+    };
+
     public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
         @Override
@@ -44,41 +60,51 @@ public class CacheKey implements Cloneable, Serializable {
 
     private static final int DEFAULT_MULTIPLIER = 37;
     private static final int DEFAULT_HASHCODE = 17;
+    /**
+     * 语句 id、offset、limit、SQL、若干参数和环境 id，一般不需要扩容
+     */
+    private static final int DEFAULT_CAPACITY = 8;
 
-    private final int multiplier;
     private int hashcode;
     private long checksum;
     private int count;
-    // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
-    // is not always true and thus should not be marked transient.
-    private List<Object> updateList;
+    private Object[] updateList;
+    /**
+     * clone 之后两个 key 共用 updateList，再次 update 时才复制
+     */
+    private boolean shared;
 
     public CacheKey() {
         this.hashcode = DEFAULT_HASHCODE;
-        this.multiplier = DEFAULT_MULTIPLIER;
         this.count = 0;
-        this.updateList = new ArrayList<>();
+        this.updateList = new Object[DEFAULT_CAPACITY];
     }
 
     public CacheKey(Object[] objects) {
-        this();
+        this.hashcode = DEFAULT_HASHCODE;
+        this.count = 0;
+        this.updateList = new Object[Math.max(objects.length, DEFAULT_CAPACITY)];
         updateAll(objects);
     }
 
     public int getUpdateCount() {
-        return updateList.size();
+        return count;
     }
 
     public void update(Object object) {
         int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
 
+        if (shared || count == updateList.length) {
+            updateList = Arrays.copyOf(updateList, count == updateList.length ? count << 1 : updateList.length);
+            shared = false;
+        }
+        updateList[count] = object;
+
         count++;
         checksum += baseHashCode;
         baseHashCode *= count;
 
-        hashcode = multiplier * hashcode + baseHashCode;
-
-        updateList.add(object);
+        hashcode = DEFAULT_MULTIPLIER * hashcode + baseHashCode;
     }
 
     public void updateAll(Object[] objects) {
@@ -108,10 +134,12 @@ public class CacheKey implements Cloneable, Serializable {
             return false;
         }
 
-        for (int i = 0; i < updateList.size(); i++) {
-            Object thisObject = updateList.get(i);
-            Object thatObject = cacheKey.updateList.get(i);
-            if (!ArrayUtil.equals(thisObject, thatObject)) {
+        final Object[] thatList = cacheKey.updateList;
+        for (int i = 0; i < count; i++) {
+            Object thisObject = updateList[i];
+            Object thatObject = thatList[i];
+            // 语句 id 和 SQL 一般是同一个 String 实例
+            if (thisObject != thatObject && !ArrayUtil.equals(thisObject, thatObject)) {
                 return false;
             }
         }
@@ -128,15 +156,41 @@ public class CacheKey implements Cloneable, Serializable {
         StringJoiner returnValue = new StringJoiner(":");
         returnValue.add(String.valueOf(hashcode));
         returnValue.add(String.valueOf(checksum));
-        updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+        for (int i = 0; i < count; i++) {
+            returnValue.add(ArrayUtil.toString(updateList[i]));
+        }
         return returnValue.toString();
     }
 
     @Override
     public CacheKey clone() throws CloneNotSupportedException {
         CacheKey clonedCacheKey = (CacheKey) super.clone();
-        clonedCacheKey.updateList = new ArrayList<>(updateList);
+        shared = true;
+        clonedCacheKey.shared = true;
         return clonedCacheKey;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        List<Object> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(updateList[i]);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("multiplier", DEFAULT_MULTIPLIER);
+        fields.put("hashcode", hashcode);
+        fields.put("checksum", checksum);
+        fields.put("count", count);
+        fields.put("updateList", list);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        hashcode = fields.get("hashcode", DEFAULT_HASHCODE);
+        checksum = fields.get("checksum", 0L);
+        List<?> list = (List<?>) fields.get("updateList", null);
+        updateList = list == null ? new Object[DEFAULT_CAPACITY] : list.toArray(new Object[Math.max(list.size(), DEFAULT_CAPACITY)]);
+        count = list == null ? 0 : list.size();
+    }
+
 }
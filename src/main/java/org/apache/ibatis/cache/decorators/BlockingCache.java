@@ -84,6 +84,11 @@ public class BlockingCache implements Cache {
         delegate.clear();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
     private void acquireLock(Object key) {
         CountDownLatch newLatch = new CountDownLatch(1);
         while (true) {
@@ -19,14 +19,24 @@ import org.apache.ibatis.cache.Cache;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Lru (least recently used) cache decorator.
+ * <p>
+ * The access order is guarded by an internal lock, so the decorator is thread safe whenever the cache it decorates
+ * is, and a thread safe base cache with the default LRU eviction does not need a {@link SynchronizedCache}. Reads
+ * never wait for that lock: a read that finds it held does not update the access order, so under contention the
+ * eviction order is only approximately least recently used.
  * @author Clinton Begin
  */
 public class LruCache implements Cache {
 
     private final Cache delegate;
+    /**
+     * 访问顺序的 LinkedHashMap 读取时也会修改链表，所有操作都要加锁，读取只在拿到锁时更新访问顺序
+     */
+    private final ReentrantLock lock = new ReentrantLock();
     private Map<Object, Object> keyMap;
     private Object eldestKey;
 
@@ -46,7 +56,16 @@ public class LruCache implements Cache {
     }
 
     public void setSize(final int size) {
-        keyMap = new LinkedHashMap<Object, Object>(size, .75F, true) {
+        lock.lock();
+        try {
+            keyMap = newKeyMap(size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<Object, Object> newKeyMap(final int size) {
+        return new LinkedHashMap<Object, Object>(size, .75F, true) {
             private static final long serialVersionUID = 4267176411845948333L;
 
             @Override
@@ -62,13 +81,25 @@ public class LruCache implements Cache {
 
     @Override
     public void putObject(Object key, Object value) {
-        delegate.putObject(key, value);
-        cycleKeyList(key);
+        lock.lock();
+        try {
+            delegate.putObject(key, value);
+            cycleKeyList(key);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public Object getObject(Object key) {
-        keyMap.get(key); // touch
+        // 锁被占用时跳过这次 touch，读取不互相阻塞
+        if (lock.tryLock()) {
+            try {
+                keyMap.get(key); // touch
+            } finally {
+                lock.unlock();
+            }
+        }
         return delegate.getObject(key);
     }
 
@@ -79,8 +110,18 @@ public class LruCache implements Cache {
 
     @Override
     public void clear() {
-        delegate.clear();
-        keyMap.clear();
+        lock.lock();
+        try {
+            delegate.clear();
+            keyMap.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
     }
 
     private void cycleKeyList(Object key) {
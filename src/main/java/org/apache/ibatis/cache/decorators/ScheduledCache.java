@@ -26,7 +26,7 @@ public class ScheduledCache implements Cache {
 
     private final Cache delegate;
     protected long clearInterval;
-    protected long lastClear;
+    protected volatile long lastClear;
 
     public ScheduledCache(Cache delegate) {
         this.delegate = delegate;
@@ -72,6 +72,11 @@ public class ScheduledCache implements Cache {
         delegate.clear();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
     @Override
     public int hashCode() {
         return delegate.hashCode();
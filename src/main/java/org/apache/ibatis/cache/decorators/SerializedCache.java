@@ -17,8 +17,9 @@ package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.JavaSerializer;
 import org.apache.ibatis.io.Resources;
-import org.apache.ibatis.io.SerialFilterChecker;
+import org.apache.ibatis.io.Serializer;
 
 import java.io.*;
 
@@ -28,9 +29,20 @@ import java.io.*;
 public class SerializedCache implements Cache {
 
     private final Cache delegate;
+    private final Serializer serializer;
 
     public SerializedCache(Cache delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param delegate the cache to decorate
+     * @param serializer the serializer used to copy the cached objects, {@code null} means Java serialization
+     * @since 3.5.9
+     */
+    public SerializedCache(Cache delegate, Serializer serializer) {
         this.delegate = delegate;
+        this.serializer = serializer == null ? new JavaSerializer() : serializer;
     }
 
     @Override
@@ -68,6 +80,11 @@ public class SerializedCache implements Cache {
         delegate.clear();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
     @Override
     public int hashCode() {
         return delegate.hashCode();
@@ -78,23 +95,22 @@ public class SerializedCache implements Cache {
         return delegate.equals(obj);
     }
 
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
     private byte[] serialize(Serializable value) {
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-            oos.writeObject(value);
-            oos.flush();
-            return bos.toByteArray();
+        try {
+            return serializer.serialize(value);
         } catch (Exception e) {
             throw new CacheException("Error serializing object.  Cause: " + e, e);
         }
     }
 
     private Serializable deserialize(byte[] value) {
-        SerialFilterChecker.check();
         Serializable result;
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-             ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-            result = (Serializable) ois.readObject();
+        try {
+            result = (Serializable) serializer.deserialize(value);
         } catch (Exception e) {
             throw new CacheException("Error deserializing object.  Cause: " + e, e);
         }
@@ -0,0 +1,444 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU (window tiny least frequently used) cache decorator.
+ * <p>
+ * New entries go into a small LRU-like admission window. When the window overflows its oldest entry has to
+ * compete with the eviction victim of the main area, and only the one that was requested more often (according
+ * to a compact frequency sketch that also counts misses) is kept. This keeps hot entries in the cache while a
+ * scan over many rarely used keys passes through.
+ * <p>
+ * Reads only update the frequency sketch and a reference bit, so they never take a lock; writes are serialized
+ * by an internal lock. The cache can be bounded by number of entries ({@link #setSize(int)}) and optionally by
+ * the estimated weight of the cached values ({@link #setMaxWeight(long)}).
+ *
+ * @since 3.5.9
+ */
+public class TinyLfuCache implements Cache {
+
+    /**
+     * 无法估算大小的对象按这个值计算
+     */
+    private static final int DEFAULT_ELEMENT_WEIGHT = 64;
+
+    private final Cache delegate;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Map<Object, Node> nodes = new ConcurrentHashMap<>();
+    private final NodeQueue window = new NodeQueue();
+    private final NodeQueue main = new NodeQueue();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile FrequencySketch sketch;
+    private int size;
+    private int windowSize;
+    private long maxWeight;
+    private volatile long weight;
+
+    public TinyLfuCache(Cache delegate) {
+        this.delegate = delegate;
+        setSize(1024);
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    /**
+     * Sets the maximum number of entries.
+     * @param size the maximum number of entries
+     */
+    public void setSize(int size) {
+        evictionLock.lock();
+        try {
+            this.size = Math.max(1, size);
+            this.windowSize = Math.max(1, this.size / 100);
+            this.sketch = new FrequencySketch(this.size);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum total weight of the cached values, see {@link #weigh(Object)}.
+     * @param maxWeight the maximum total weight, 0 means no limit
+     */
+    public void setMaxWeight(long maxWeight) {
+        evictionLock.lock();
+        try {
+            this.maxWeight = maxWeight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 0 : (double) hitCount / (double) requestCount;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        long entryWeight = weigh(value);
+        evictionLock.lock();
+        try {
+            delegate.putObject(key, value);
+            Node node = nodes.get(key);
+            if (node == null) {
+                node = new Node(key, entryWeight);
+                nodes.put(key, node);
+                window.addLast(node);
+            } else {
+                weight -= node.weight;
+                node.weight = entryWeight;
+                node.referenced = true;
+            }
+            weight += entryWeight;
+            sketch.increment(key);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        Object value = delegate.getObject(key);
+        sketch.increment(key);
+        if (value != null) {
+            hits.increment();
+            Node node = nodes.get(key);
+            if (node != null) {
+                node.referenced = true;
+            }
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        evictionLock.lock();
+        try {
+            Node node = nodes.remove(key);
+            if (node != null) {
+                unlink(node);
+                weight -= node.weight;
+            }
+            return delegate.removeObject(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            delegate.clear();
+            nodes.clear();
+            window.clear();
+            main.clear();
+            weight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    /**
+     * Estimates the weight of a cached value. The default implementation returns the length of a {@code byte[]}
+     * (the value stored by a read-write cache) and a rough per element estimate for other values.
+     * @param value the cached value
+     * @return the estimated weight
+     */
+    protected long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        } else if (value instanceof Collection) {
+            return (long) DEFAULT_ELEMENT_WEIGHT * Math.max(1, ((Collection<?>) value).size());
+        } else if (value instanceof Map) {
+            return (long) DEFAULT_ELEMENT_WEIGHT * Math.max(1, ((Map<?, ?>) value).size());
+        }
+        return DEFAULT_ELEMENT_WEIGHT;
+    }
+
+    /**
+     * 只能在持有 evictionLock 时调用
+     */
+    private void evict() {
+        int mainSize = size - windowSize;
+        while (window.count > windowSize) {
+            Node candidate = window.first;
+            window.remove(candidate);
+            if (main.count < mainSize && !isOverweight()) {
+                main.addLast(candidate);
+                continue;
+            }
+            Node victim = selectVictim();
+            if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                main.remove(victim);
+                evictNode(victim);
+                main.addLast(candidate);
+            } else {
+                evictNode(candidate);
+            }
+        }
+        while (nodes.size() > size || isOverweight()) {
+            Node victim = main.count > 0 ? selectVictim() : window.first;
+            if (victim == null) {
+                break;
+            }
+            unlink(victim);
+            evictNode(victim);
+        }
+    }
+
+    /**
+     * 在主区域中按 second chance 选出淘汰对象
+     */
+    private Node selectVictim() {
+        for (int i = main.count; i > 0; i--) {
+            Node node = main.first;
+            if (!node.referenced) {
+                return node;
+            }
+            node.referenced = false;
+            main.remove(node);
+            main.addLast(node);
+        }
+        return main.first;
+    }
+
+    private boolean isOverweight() {
+        return maxWeight > 0 && weight > maxWeight;
+    }
+
+    private void unlink(Node node) {
+        if (node.queue != null) {
+            node.queue.remove(node);
+        }
+    }
+
+    private void evictNode(Node node) {
+        nodes.remove(node.key, node);
+        delegate.removeObject(node.key);
+        weight -= node.weight;
+        evictions.increment();
+    }
+
+    private static final class Node {
+        final Object key;
+        long weight;
+        volatile boolean referenced;
+        NodeQueue queue;
+        Node prev;
+        Node next;
+
+        Node(Object key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 双向链表，只能在持有 evictionLock 时访问
+     */
+    private static final class NodeQueue {
+        Node first;
+        Node last;
+        int count;
+
+        void addLast(Node node) {
+            node.queue = this;
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            count++;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            count--;
+        }
+
+        void clear() {
+            first = null;
+            last = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch with 4-bit counters, 16 counters are packed into each long. All counters are halved
+     * periodically so that the frequencies reflect recent history.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final AtomicLongArray table;
+        private final int tableMask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+        private final AtomicBoolean resetting = new AtomicBoolean();
+
+        FrequencySketch(int capacity) {
+            int length = Integer.highestOneBit(Math.max(8, Math.min(capacity, 1 << 30)) - 1) << 1;
+            this.table = new AtomicLongArray(length);
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * Math.min(capacity, Integer.MAX_VALUE / 10);
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table.get(index) >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && additions.incrementAndGet() >= sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int offset = counter << 2;
+            long mask = 0xfL << offset;
+            for (;;) {
+                long value = table.get(index);
+                if ((value & mask) == mask) {
+                    return false;
+                }
+                if (table.compareAndSet(index, value, value + (1L << offset))) {
+                    return true;
+                }
+            }
+        }
+
+        private void reset() {
+            if (!resetting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                for (int i = 0; i < table.length(); i++) {
+                    long value;
+                    do {
+                        value = table.get(i);
+                    } while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+                }
+                additions.set(sampleSize >>> 1);
+            } finally {
+                resetting.set(false);
+            }
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link PerpetualCache} backed by a {@link ConcurrentHashMap}.
+ * <p>
+ * It declares itself thread safe, so it is not wrapped with a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache} as long as every decorator in front of it is thread
+ * safe too, and reads of different keys never contend with each other.
+ *
+ * @since 3.5.9
+ */
+public class ConcurrentPerpetualCache extends PerpetualCache {
+
+    /**
+     * {@link ConcurrentHashMap} 不接受 null 值，用它代替
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    public ConcurrentPerpetualCache(String id) {
+        super(id, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        super.putObject(key, value == null ? NULL_VALUE : value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return unmask(super.getObject(key));
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        return unmask(super.removeObject(key));
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.io.SerialFilterChecker;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A base cache that keeps the serialized values outside of the java heap.
+ * <p>
+ * Memory is reserved in segments of {@link #setSegmentSize(int) segmentSize} bytes, either direct
+ * {@link ByteBuffer}s or, when a {@link #setDirectory(String) directory} is set, regions of a memory-mapped temporary
+ * file. A slab allocator assigns each segment to one chunk size (powers of two starting at 64 bytes) and every value
+ * is stored in the smallest chunk it fits in. When no memory can be reserved any more (see
+ * {@link #setMaxMemory(long)}) the oldest entries of the same chunk size are evicted. If there are none, a segment of
+ * the chunk size that holds the most segments is emptied and reassigned, so a new chunk size is never locked out.
+ * Only the keys and a small descriptor per entry stay on the heap.
+ * <p>
+ * Values that already are a {@code byte[]} (the form a read-write cache passes down from {@link SerializedCache})
+ * are stored as is; other values are serialized and read back with {@link SerializedCache.CustomObjectInputStream},
+ * so every read returns a copy.
+ *
+ * @since 3.5.9
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+    private static final Log log = LogFactory.getLog(OffHeapCache.class);
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    /**
+     * 每个 chunk 的头部：数据长度(int) + 是否为原始 byte[](byte)
+     */
+    private static final int HEADER_SIZE = 5;
+
+    private final String id;
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final Map<Object, Slot> index = new HashMap<>();
+
+    private long maxMemory = 64L * 1024 * 1024;
+    private int segmentSize = 4 * 1024 * 1024;
+    private String directory;
+
+    private SlabAllocator allocator;
+
+    public OffHeapCache(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Sets the maximum number of bytes reserved outside of the heap.
+     * @param maxMemory the maximum number of bytes
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Sets the size of a segment, that is also the largest value that can be cached.
+     * @param segmentSize the size of a segment in bytes
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Sets the directory of the file backing the memory-mapped segments. Direct buffers are used when not set.
+     * @param directory the directory
+     */
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void initialize() {
+        readWriteLock.writeLock().lock();
+        try {
+            index.clear();
+            if (allocator != null) {
+                allocator.close();
+            }
+            allocator = new SlabAllocator(maxMemory, segmentSize, directory);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int getSize() {
+        readWriteLock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently reserved outside of the heap.
+     * @return the number of reserved bytes
+     */
+    public long getReservedMemory() {
+        readWriteLock.readLock().lock();
+        try {
+            return allocator == null ? 0 : allocator.reservedMemory();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        boolean raw = value instanceof byte[];
+        byte[] data = raw ? (byte[]) value : serialize(value);
+        readWriteLock.writeLock().lock();
+        try {
+            if (allocator == null) {
+                initialize();
+            }
+            Slot previous = index.remove(key);
+            if (previous != null) {
+                allocator.free(previous);
+            }
+            Slot slot = allocator.allocate(key, HEADER_SIZE + data.length, index);
+            if (slot == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Value of " + data.length + " bytes does not fit in off-heap cache [" + id + "], not cached.");
+                }
+                return;
+            }
+            ByteBuffer buffer = allocator.segment(slot).duplicate();
+            ((Buffer) buffer).position(slot.offset);
+            buffer.putInt(data.length);
+            buffer.put(raw ? (byte) 1 : (byte) 0);
+            buffer.put(data);
+            index.put(key, slot);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        byte[] data;
+        boolean raw;
+        readWriteLock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot == null) {
+                return null;
+            }
+            ByteBuffer buffer = allocator.segment(slot).duplicate();
+            ((Buffer) buffer).position(slot.offset);
+            data = new byte[buffer.getInt()];
+            raw = buffer.get() == 1;
+            buffer.get(data);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+        return raw ? data : deserialize(data);
+    }
+
+    /**
+     * Removes an entry without reading it back. The value is not returned, as the caller would pay for copying it
+     * from off-heap memory and deserializing it; the decorators evicting entries and the rollback of a transactional
+     * cache ignore it.
+     *
+     * @param key the key
+     * @return always {@code null}
+     */
+    @Override
+    public Object removeObject(Object key) {
+        readWriteLock.writeLock().lock();
+        try {
+            Slot slot = index.remove(key);
+            if (slot != null) {
+                allocator.free(slot);
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        readWriteLock.writeLock().lock();
+        try {
+            index.clear();
+            if (allocator != null) {
+                allocator.reset();
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+
+        Cache otherCache = (Cache) o;
+        return getId().equals(otherCache.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        return getId().hashCode();
+    }
+
+    private byte[] serialize(Object value) {
+        if (value != null && !(value instanceof Serializable)) {
+            throw new CacheException("OffHeapCache failed to make a copy of a non-serializable object: " + value);
+        }
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+            oos.flush();
+            return bos.toByteArray();
+        } catch (Exception e) {
+            throw new CacheException("Error serializing object.  Cause: " + e, e);
+        }
+    }
+
+    private Object deserialize(byte[] value) {
+        SerialFilterChecker.check();
+        try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
+             ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(bis)) {
+            return ois.readObject();
+        } catch (Exception e) {
+            throw new CacheException("Error deserializing object.  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 缓存条目在堆外内存中的位置
+     */
+    private static final class Slot {
+        final Object key;
+        final int segment;
+        final int offset;
+        final int slabClass;
+
+        Slot(Object key, int segment, int offset, int slabClass) {
+            this.key = key;
+            this.segment = segment;
+            this.offset = offset;
+            this.slabClass = slabClass;
+        }
+    }
+
+    /**
+     * Slab 分配器，只能在持有写锁时调用（{@link #segment(Slot)} 除外）
+     */
+    private static final class SlabAllocator {
+
+        private final int segmentSize;
+        private final int maxSegments;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        /**
+         * 每个 segment 分配给了哪个 slab class，-1 表示尚未分配
+         */
+        private final int[] segmentClasses;
+        /**
+         * 每个 segment 中正在使用的 chunk 数量
+         */
+        private final int[] usedChunks;
+        private final ArrayDeque<Slot>[] freeChunks;
+        /**
+         * 每个 slab class 中的条目，按写入顺序排列，用于淘汰
+         */
+        private final LinkedHashSet<Slot>[] entries;
+        private final FileChannel channel;
+        private final File file;
+
+        @SuppressWarnings("unchecked")
+        SlabAllocator(long maxMemory, int segmentSize, String directory) {
+            if (segmentSize < MIN_CHUNK_SIZE) {
+                throw new CacheException("The segment size of an off-heap cache must be at least " + MIN_CHUNK_SIZE + " bytes.");
+            }
+            this.segmentSize = segmentSize;
+            this.maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / segmentSize));
+            this.segmentClasses = new int[maxSegments];
+            this.usedChunks = new int[maxSegments];
+            Arrays.fill(segmentClasses, -1);
+            int classes = 1;
+            while (((long) MIN_CHUNK_SIZE << classes) <= segmentSize) {
+                classes++;
+            }
+            this.freeChunks = new ArrayDeque[classes];
+            this.entries = new LinkedHashSet[classes];
+            for (int i = 0; i < classes; i++) {
+                freeChunks[i] = new ArrayDeque<>();
+                entries[i] = new LinkedHashSet<>();
+            }
+            if (directory == null) {
+                this.file = null;
+                this.channel = null;
+            } else {
+                try {
+                    this.file = File.createTempFile("mybatis-offheap-", ".cache", new File(directory));
+                    this.file.deleteOnExit();
+                    this.channel = new RandomAccessFile(file, "rw").getChannel();
+                } catch (IOException e) {
+                    throw new CacheException("Could not create the file of an off-heap cache in " + directory + ".  Cause: " + e, e);
+                }
+            }
+        }
+
+        ByteBuffer segment(Slot slot) {
+            return segments.get(slot.segment);
+        }
+
+        long reservedMemory() {
+            return (long) segments.size() * segmentSize;
+        }
+
+        Slot allocate(Object key, int size, Map<Object, Slot> index) {
+            if (size > segmentSize) {
+                return null;
+            }
+            int slabClass = slabClassOf(size);
+            Slot chunk = freeChunks[slabClass].poll();
+            if (chunk == null && assignSegment(slabClass)) {
+                chunk = freeChunks[slabClass].poll();
+            }
+            if (chunk == null && entries[slabClass].isEmpty() && reclaimSegment(slabClass, index)
+                    && assignSegment(slabClass)) {
+                chunk = freeChunks[slabClass].poll();
+            }
+            if (chunk == null) {
+                // 同一个 slab class 中最早写入的条目被淘汰
+                Iterator<Slot> eldest = entries[slabClass].iterator();
+                if (!eldest.hasNext()) {
+                    return null;
+                }
+                chunk = eldest.next();
+                eldest.remove();
+                index.remove(chunk.key);
+                usedChunks[chunk.segment]--;
+            }
+            Slot slot = new Slot(key, chunk.segment, chunk.offset, slabClass);
+            entries[slabClass].add(slot);
+            usedChunks[slot.segment]++;
+            return slot;
+        }
+
+        void free(Slot slot) {
+            entries[slot.slabClass].remove(slot);
+            freeChunks[slot.slabClass].push(slot);
+            usedChunks[slot.segment]--;
+        }
+
+        void reset() {
+            for (int i = 0; i < freeChunks.length; i++) {
+                freeChunks[i].clear();
+                entries[i].clear();
+            }
+            Arrays.fill(segmentClasses, -1);
+            Arrays.fill(usedChunks, 0);
+        }
+
+        void close() {
+            segments.clear();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+
+        /**
+         * 本 slab class 没有可以淘汰的条目时，从占用 segment 最多的其他 slab class 中，清空最早写入的条目所在的 segment，
+         * 之后 {@link #assignSegment(int)} 会把这个空闲的 segment 重新分配
+         */
+        private boolean reclaimSegment(int slabClass, Map<Object, Slot> index) {
+            int[] segmentCounts = new int[entries.length];
+            for (int i = 0; i < segments.size(); i++) {
+                if (segmentClasses[i] != -1) {
+                    segmentCounts[segmentClasses[i]]++;
+                }
+            }
+            int victimClass = -1;
+            for (int i = 0; i < entries.length; i++) {
+                if (i != slabClass && !entries[i].isEmpty()
+                        && (victimClass == -1 || segmentCounts[i] > segmentCounts[victimClass])) {
+                    victimClass = i;
+                }
+            }
+            if (victimClass == -1) {
+                return false;
+            }
+            int segment = entries[victimClass].iterator().next().segment;
+            for (Iterator<Slot> iterator = entries[victimClass].iterator(); iterator.hasNext(); ) {
+                Slot slot = iterator.next();
+                if (slot.segment == segment) {
+                    iterator.remove();
+                    index.remove(slot.key);
+                }
+            }
+            usedChunks[segment] = 0;
+            return true;
+        }
+
+        /**
+         * 依次尝试：尚未分配的 segment、新申请 segment、已经完全空闲的其他 slab class 的 segment
+         */
+        private boolean assignSegment(int slabClass) {
+            int segment = -1;
+            for (int i = 0; i < segments.size(); i++) {
+                if (segmentClasses[i] == -1) {
+                    segment = i;
+                    break;
+                }
+            }
+            if (segment == -1 && segments.size() < maxSegments) {
+                segment = segments.size();
+                segments.add(newSegment(segment));
+            }
+            if (segment == -1) {
+                for (int i = 0; i < segments.size(); i++) {
+                    if (usedChunks[i] == 0 && segmentClasses[i] != slabClass) {
+                        final int emptySegment = i;
+                        freeChunks[segmentClasses[i]].removeIf(chunk -> chunk.segment == emptySegment);
+                        segment = i;
+                        break;
+                    }
+                }
+            }
+            if (segment == -1) {
+                return false;
+            }
+            segmentClasses[segment] = slabClass;
+            int chunkSize = MIN_CHUNK_SIZE << slabClass;
+            for (int offset = 0; offset + chunkSize <= segmentSize; offset += chunkSize) {
+                freeChunks[slabClass].add(new Slot(null, segment, offset, slabClass));
+            }
+            return true;
+        }
+
+        private ByteBuffer newSegment(int segment) {
+            if (channel == null) {
+                return ByteBuffer.allocateDirect(segmentSize);
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentSize, segmentSize);
+            } catch (IOException e) {
+                throw new CacheException("Could not map a segment of an off-heap cache.  Cause: " + e, e);
+            }
+        }
+
+        private int slabClassOf(int size) {
+            int slabClass = 0;
+            while ((MIN_CHUNK_SIZE << slabClass) < size) {
+                slabClass++;
+            }
+            return slabClass;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * Interfaces for demand driven streams of results, with the same methods as {@code java.util.concurrent.Flow} of
+ * Java 9 and the Reactive Streams API, so that they can be adapted to either one with a thin wrapper. They are
+ * declared here because MyBatis still runs on Java 8.
+ *
+ * @since 3.5.9
+ * @see org.apache.ibatis.cursor.defaults.CursorPublisher
+ */
+public final class Flow {
+
+    private Flow() {
+        // Prevent Instantiation
+    }
+
+    /**
+     * A producer of items that are received by subscribers.
+     *
+     * @param <T> the item type
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Adds a subscriber. {@link Subscriber#onSubscribe(Subscription)} is called first, items are only sent after
+         * they have been requested.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items.
+     *
+     * @param <T> the item type
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Links a publisher and a subscriber.
+     */
+    public interface Subscription {
+
+        /**
+         * Requests up to {@code n} more items.
+         *
+         * @param n the number of items, must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items and releases the resources of the subscription.
+         */
+        void cancel();
+    }
+
+}
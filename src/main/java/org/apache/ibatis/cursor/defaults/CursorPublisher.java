@@ -0,0 +1,225 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the items of a {@link Cursor} on demand.
+ * <p>
+ * The cursor is opened when the subscriber requests the first items, and rows are only fetched while there is
+ * outstanding demand. The fetch size of the result set follows the demand (up to a maximum), and the cursor is closed
+ * when it is consumed, fails or the subscription is cancelled. Items are sent on the thread that calls
+ * {@link Flow.Subscription#request(long)}, so that thread blocks while rows are read from the database. The cursor can
+ * only be read once, so a publisher accepts a single subscriber.
+ * <p>
+ * Like a cursor, the publisher must be consumed before its session is closed.
+ *
+ * @param <T> the item type
+ * @since 3.5.9
+ */
+public class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * The default maximum fetch size set for the demand.
+     */
+    public static final int DEFAULT_MAX_FETCH_SIZE = 1000;
+
+    private final Supplier<Cursor<T>> cursorSupplier;
+    private final int maxFetchSize;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * @param cursorSupplier opens the cursor, called on the first request
+     */
+    public CursorPublisher(Supplier<Cursor<T>> cursorSupplier) {
+        this(cursorSupplier, DEFAULT_MAX_FETCH_SIZE);
+    }
+
+    /**
+     * @param cursorSupplier opens the cursor, called on the first request
+     * @param maxFetchSize the maximum fetch size set for the demand, 0 leaves the fetch size unchanged
+     */
+    public CursorPublisher(Supplier<Cursor<T>> cursorSupplier, int maxFetchSize) {
+        this.cursorSupplier = cursorSupplier;
+        this.maxFetchSize = maxFetchSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // nothing to request
+                }
+
+                @Override
+                public void cancel() {
+                    // nothing to cancel
+                }
+            });
+            subscriber.onError(new IllegalStateException("A CursorPublisher can only be subscribed once."));
+            return;
+        }
+        subscriber.onSubscribe(new CursorSubscription(subscriber));
+    }
+
+    private class CursorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * 只有把它从 0 增加的线程才能读取游标，其他线程只记录新的请求
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        private Cursor<T> cursor;
+        private Iterator<T> iterator;
+        private int fetchSize;
+        private boolean done;
+
+        CursorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("The number of requested items must be positive but was " + n + ".");
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                try {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (invalidRequest != null) {
+                        finish();
+                        subscriber.onError(invalidRequest);
+                        return;
+                    }
+                    long demand = requested.get();
+                    if (demand > 0) {
+                        emit(demand);
+                    }
+                } catch (Throwable t) {
+                    boolean alreadyDone = done;
+                    finish();
+                    if (!alreadyDone && !cancelled) {
+                        subscriber.onError(t);
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit(long demand) {
+            if (cursor == null) {
+                cursor = cursorSupplier.get();
+                iterator = cursor.iterator();
+            }
+            adjustFetchSize(demand);
+            long emitted = 0;
+            while (emitted != demand) {
+                if (cancelled) {
+                    return;
+                }
+                if (!iterator.hasNext()) {
+                    complete();
+                    return;
+                }
+                subscriber.onNext(iterator.next());
+                emitted++;
+            }
+            // 需求已经满足，数据读完时不必等到下一次请求才结束
+            if (!cancelled && !iterator.hasNext()) {
+                complete();
+                return;
+            }
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        private void adjustFetchSize(long demand) {
+            if (maxFetchSize > 0 && cursor instanceof DefaultCursor) {
+                int newFetchSize = (int) Math.min(demand, maxFetchSize);
+                if (newFetchSize != fetchSize) {
+                    ((DefaultCursor<T>) cursor).setFetchSize(newFetchSize);
+                    fetchSize = newFetchSize;
+                }
+            }
+        }
+
+        private void complete() {
+            finish();
+            subscriber.onComplete();
+        }
+
+        private void finish() {
+            done = true;
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+}
@@ -120,6 +120,20 @@ public class DefaultCursor<T> implements Cursor<T> {
         }
     }
 
+    /**
+     * 提示驱动每次从数据库读取的行数
+     */
+    void setFetchSize(int fetchSize) {
+        ResultSet rs = rsw.getResultSet();
+        try {
+            if (!isClosed() && rs != null && !rs.isClosed()) {
+                rs.setFetchSize(fetchSize);
+            }
+        } catch (SQLException e) {
+            // ignore, the fetch size is only a hint
+        }
+    }
+
     protected T fetchNextUsingRowBound() {
         T result = fetchNextObjectFromDatabase();
         while (objectWrapperResultHandler.fetched && indexWithRowBound < rowBounds.getOffset()) {
@@ -0,0 +1,99 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link PoolState} of a {@link ConcurrentPooledDataSource}.
+ * <p>
+ * 统计信息使用 {@link LongAdder} 累加，读写均不需要获取 PoolState 的监视器锁。
+ *
+ * @since 3.5.9
+ */
+public class ConcurrentPoolState extends PoolState {
+
+    final AtomicInteger totalConnections = new AtomicInteger();
+    final AtomicInteger idleConnectionCount = new AtomicInteger();
+    final LongAdder requestCounter = new LongAdder();
+    final LongAdder requestTime = new LongAdder();
+    final LongAdder checkoutTime = new LongAdder();
+    final LongAdder claimedOverdueCounter = new LongAdder();
+    final LongAdder checkoutTimeOfOverdueConnections = new LongAdder();
+    final LongAdder waitTime = new LongAdder();
+    final LongAdder hadToWaitCounter = new LongAdder();
+    final LongAdder badConnectionCounter = new LongAdder();
+
+    public ConcurrentPoolState(ConcurrentPooledDataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCounter.sum();
+    }
+
+    @Override
+    public long getAverageRequestTime() {
+        long count = requestCounter.sum();
+        return count == 0 ? 0 : requestTime.sum() / count;
+    }
+
+    @Override
+    public long getAverageWaitTime() {
+        long count = hadToWaitCounter.sum();
+        return count == 0 ? 0 : waitTime.sum() / count;
+    }
+
+    @Override
+    public long getHadToWaitCount() {
+        return hadToWaitCounter.sum();
+    }
+
+    @Override
+    public long getBadConnectionCount() {
+        return badConnectionCounter.sum();
+    }
+
+    @Override
+    public long getClaimedOverdueConnectionCount() {
+        return claimedOverdueCounter.sum();
+    }
+
+    @Override
+    public long getAverageOverdueCheckoutTime() {
+        long count = claimedOverdueCounter.sum();
+        return count == 0 ? 0 : checkoutTimeOfOverdueConnections.sum() / count;
+    }
+
+    @Override
+    public long getAverageCheckoutTime() {
+        long count = requestCounter.sum();
+        return count == 0 ? 0 : checkoutTime.sum() / count;
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+        return idleConnectionCount.get();
+    }
+
+    @Override
+    public int getActiveConnectionCount() {
+        return Math.max(0, totalConnections.get() - idleConnectionCount.get());
+    }
+
+}
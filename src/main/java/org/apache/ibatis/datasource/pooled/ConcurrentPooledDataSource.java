@@ -0,0 +1,524 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A lock-free variant of {@link PooledDataSource}.
+ * <p>
+ * Checkout and return never take a pool wide monitor: every physical connection is a {@link PoolEntry} whose
+ * state is switched with CAS, each thread first retries the entry it returned last, then scans the shared
+ * entries starting from its own stripe. Threads that have to wait are served in FIFO order through a fair
+ * hand-off queue.
+ *
+ * <p>
+ * 无锁的连接池实现：连接的借出与归还只做 CAS，不再竞争同一把锁。
+ *
+ * @since 3.5.9
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+    private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+    /**
+     * 归还连接的线程等待接收者的最长时间，只需覆盖等待线程从计数到开始等待之间的间隙
+     */
+    private static final long HANDOFF_TIMEOUT_MILLIS = 1;
+
+    private final ConcurrentPoolState concurrentState = new ConcurrentPoolState(this);
+
+    /**
+     * 所有的物理连接（空闲 + 活跃）
+     */
+    private final List<PoolEntry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * 线程最近一次归还的连接，再次获取时优先尝试
+     */
+    private final ThreadLocal<PoolEntry> lastReturned = new ThreadLocal<>();
+
+    /**
+     * 公平的交接队列，等待的线程按先进先出顺序获得归还的连接
+     */
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public ConcurrentPooledDataSource() {
+        super();
+    }
+
+    public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+        super(dataSource);
+    }
+
+    public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+        super(driver, url, username, password);
+    }
+
+    public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+        super(driver, url, driverProperties);
+    }
+
+    public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+        super(driverClassLoader, driver, url, username, password);
+    }
+
+    public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+        super(driverClassLoader, driver, url, driverProperties);
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        return concurrentState;
+    }
+
+    /**
+     * Closes all active and idle connections in the pool.
+     */
+    @Override
+    public void forceCloseAll() {
+        expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+        for (PoolEntry entry : entries) {
+            int previous = entry.remove();
+            if (previous == PoolEntry.REMOVED) {
+                continue;
+            }
+            if (previous == PoolEntry.IDLE) {
+                concurrentState.idleConnectionCount.decrementAndGet();
+            }
+            discard(entry);
+            PooledConnection current = entry.current;
+            if (current != null) {
+                current.invalidate();
+            }
+            try {
+                Connection realConn = entry.realConnection;
+                if (!realConn.getAutoCommit()) {
+                    realConn.rollback();
+                }
+                realConn.close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+        }
+    }
+
+    /**
+     * 连接放入池中
+     */
+    @Override
+    protected void pushConnection(PooledConnection conn) throws SQLException {
+        PoolEntry entry = conn instanceof EntryConnection ? ((EntryConnection) conn).entry : null;
+        if (entry == null || !reserve(entry, conn)) {
+            // 已经被回收或强制关闭的连接
+            if (log.isDebugEnabled()) {
+                log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+            }
+            concurrentState.badConnectionCounter.increment();
+            return;
+        }
+        concurrentState.checkoutTime.add(conn.getCheckoutTime());
+        if (!conn.isValid()) {
+            if (log.isDebugEnabled()) {
+                log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+            }
+            concurrentState.badConnectionCounter.increment();
+            discardBroken(entry);
+            return;
+        }
+
+        // 事务非自动提交的，执行回滚
+        try {
+            if (!entry.realConnection.getAutoCommit()) {
+                entry.realConnection.rollback();
+            }
+        } catch (SQLException e) {
+            // 回滚失败的连接不能再放回池中，关闭后释放其占用的名额
+            if (log.isDebugEnabled()) {
+                log.debug("A bad connection (" + conn.getRealHashCode() + ") could not be rolled back, discarding connection.");
+            }
+            concurrentState.badConnectionCounter.increment();
+            conn.invalidate();
+            discardBroken(entry);
+            throw e;
+        }
+        entry.lastUsedTimestamp = conn.getLastUsedTimestamp();
+        entry.current = null;
+        conn.invalidate();
+
+        boolean sameType = conn.getConnectionTypeCode() == expectedConnectionTypeCode;
+        if (sameType && concurrentState.idleConnectionCount.incrementAndGet() <= poolMaximumIdleConnections) {
+            if (!entry.compareAndSet(PoolEntry.RESERVED, PoolEntry.IDLE)) {
+                // forceCloseAll() 并发移除了该连接
+                concurrentState.idleConnectionCount.decrementAndGet();
+                return;
+            }
+            lastReturned.set(entry);
+            if (log.isDebugEnabled()) {
+                log.debug("Returned connection " + entry.realHashCode + " to pool.");
+            }
+            // 有线程在等待时，尝试直接交接给最早等待的线程。没有线程及时接收时连接保持 IDLE，
+            // 等待的线程开始等待之前会再检查一次空闲连接
+            if (waiters.get() > 0 && entry.state == PoolEntry.IDLE) {
+                try {
+                    handoffQueue.offer(entry, HANDOFF_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } else {
+            if (sameType) {
+                concurrentState.idleConnectionCount.decrementAndGet();
+            }
+            if (entry.remove() != PoolEntry.REMOVED) {
+                discard(entry);
+                entry.realConnection.close();
+                if (log.isDebugEnabled()) {
+                    log.debug("Closed connection " + entry.realHashCode + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * 弹出一个连接
+     */
+    @Override
+    protected PooledConnection popConnection(String username, String password) throws SQLException {
+        boolean countedWait = false;
+        PooledConnection conn = null;
+        long t = System.currentTimeMillis();
+        int localBadConnectionCount = 0;
+
+        while (conn == null) {
+            PoolEntry entry = borrowIdle();
+            if (entry == null) {
+                entry = createEntry();
+            }
+            if (entry == null) {
+                entry = claimOverdue();
+            }
+            if (entry == null) {
+                // Must wait
+                if (!countedWait) {
+                    concurrentState.hadToWaitCounter.increment();
+                    countedWait = true;
+                }
+                try {
+                    entry = awaitHandoff();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (entry == null) {
+                    continue;
+                }
+            }
+
+            conn = new EntryConnection(entry, this);
+            conn.setCreatedTimestamp(entry.createdTimestamp);
+            conn.setLastUsedTimestamp(entry.lastUsedTimestamp);
+
+            // ping to server and check the connection is valid or not
+            if (conn.isValid() && rollbackBorrowed(entry)) {
+                conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+                conn.setCheckoutTimestamp(System.currentTimeMillis());
+                conn.setLastUsedTimestamp(System.currentTimeMillis());
+                // 设置完借出时间后再发布，避免被误判为超时连接
+                entry.current = conn;
+                concurrentState.requestCounter.increment();
+                concurrentState.requestTime.add(System.currentTimeMillis() - t);
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("A bad connection (" + entry.realHashCode + ") was returned from the pool, getting another connection.");
+                }
+                concurrentState.badConnectionCounter.increment();
+                localBadConnectionCount++;
+                conn.invalidate();
+                conn = null;
+                discardBroken(entry);
+                // 如果尝试 N 次后连接还是坏的，则抛异常
+                if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+                    }
+                    throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+                }
+            }
+        }
+
+        if (conn == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+            }
+            throw new SQLException("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+        }
+
+        return conn;
+    }
+
+    /**
+     * 先尝试当前线程最近归还的连接，再从本线程对应的分段开始扫描所有连接
+     */
+    private PoolEntry borrowIdle() {
+        PoolEntry entry = lastReturned.get();
+        if (entry != null) {
+            lastReturned.remove();
+            if (tryBorrow(entry)) {
+                return entry;
+            }
+        }
+        Object[] snapshot = entries.toArray();
+        int size = snapshot.length;
+        if (size == 0) {
+            return null;
+        }
+        int start = (int) (Thread.currentThread().getId() % size);
+        for (int i = 0; i < size; i++) {
+            entry = (PoolEntry) snapshot[(start + i) % size];
+            if (tryBorrow(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 如果不是自动提交的话，将之前的事务进行回滚，失败时按坏连接处理
+     */
+    private boolean rollbackBorrowed(PoolEntry entry) {
+        try {
+            if (!entry.realConnection.getAutoCommit()) {
+                entry.realConnection.rollback();
+            }
+            return true;
+        } catch (SQLException e) {
+            log.debug("Bad connection. Could not roll back");
+            return false;
+        }
+    }
+
+    private boolean tryBorrow(PoolEntry entry) {
+        if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+            concurrentState.idleConnectionCount.decrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Checked out connection " + entry.realHashCode + " from pool.");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private PoolEntry createEntry() throws SQLException {
+        AtomicInteger total = concurrentState.totalConnections;
+        for (;;) {
+            int count = total.get();
+            if (count >= poolMaximumActiveConnections) {
+                return null;
+            }
+            if (total.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        PoolEntry entry;
+        try {
+            entry = new PoolEntry(dataSource.getConnection(), newStatementCache());
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+        entries.add(entry);
+        if (log.isDebugEnabled()) {
+            log.debug("Created connection " + entry.realHashCode + ".");
+        }
+        return entry;
+    }
+
+    /**
+     * 检查是否有借出超时的连接，有的话强制收回
+     */
+    private PoolEntry claimOverdue() {
+        for (PoolEntry entry : entries) {
+            PooledConnection current = entry.current;
+            if (current == null || entry.state != PoolEntry.IN_USE) {
+                continue;
+            }
+            long longestCheckoutTime = current.getCheckoutTime();
+            if (longestCheckoutTime <= poolMaximumCheckoutTime || !reserve(entry, current)) {
+                continue;
+            }
+            concurrentState.claimedOverdueCounter.increment();
+            concurrentState.checkoutTimeOfOverdueConnections.add(longestCheckoutTime);
+            concurrentState.checkoutTime.add(longestCheckoutTime);
+            entry.current = null;
+            current.invalidate();
+            try {
+                if (!entry.realConnection.getAutoCommit()) {
+                    entry.realConnection.rollback();
+                }
+            } catch (SQLException e) {
+                log.debug("Bad connection. Could not roll back");
+            }
+            entry.lastUsedTimestamp = current.getLastUsedTimestamp();
+            if (!entry.compareAndSet(PoolEntry.RESERVED, PoolEntry.IN_USE)) {
+                // forceCloseAll() 并发移除了该连接
+                continue;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Claimed overdue connection " + entry.realHashCode + ".");
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private PoolEntry awaitHandoff() throws InterruptedException {
+        if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+        }
+        long wt = System.currentTimeMillis();
+        waiters.incrementAndGet();
+        try {
+            // 在等待之前再检查一次，避免错过刚刚归还的连接
+            PoolEntry entry = borrowIdle();
+            if (entry != null) {
+                return entry;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(poolTimeToWait);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                entry = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (entry == null) {
+                    return null;
+                }
+                if (tryBorrow(entry)) {
+                    return entry;
+                }
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+            concurrentState.waitTime.add(System.currentTimeMillis() - wt);
+        }
+    }
+
+    /**
+     * 取得连接的归还/回收权，只有当前借出的代理连接才能成功
+     */
+    private boolean reserve(PoolEntry entry, PooledConnection conn) {
+        if (entry.current != conn || !entry.compareAndSet(PoolEntry.IN_USE, PoolEntry.RESERVED)) {
+            return false;
+        }
+        if (entry.current != conn) {
+            // 在检查和 CAS 之间已经被回收并重新借出
+            entry.compareAndSet(PoolEntry.RESERVED, PoolEntry.IN_USE);
+            return false;
+        }
+        return true;
+    }
+
+    private void discard(PoolEntry entry) {
+        if (entries.remove(entry)) {
+            concurrentState.totalConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * 移除坏连接并关闭其物理连接，释放占用的名额
+     */
+    private void discardBroken(PoolEntry entry) {
+        entry.current = null;
+        if (entry.remove() != PoolEntry.REMOVED) {
+            discard(entry);
+            try {
+                entry.realConnection.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * 一个物理连接，状态通过 CAS 切换
+     */
+    static final class PoolEntry {
+
+        static final int IDLE = 0;
+        static final int IN_USE = 1;
+        static final int RESERVED = 2;
+        static final int REMOVED = -1;
+
+        private static final AtomicIntegerFieldUpdater<PoolEntry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(PoolEntry.class, "state");
+
+        final Connection realConnection;
+        final int realHashCode;
+        final long createdTimestamp;
+        volatile long lastUsedTimestamp;
+        volatile int state = IN_USE;
+        /**
+         * 当前借出的代理连接，每次借出都会新建
+         */
+        volatile PooledConnection current;
+        final StatementCache statementCache;
+
+        PoolEntry(Connection realConnection, StatementCache statementCache) {
+            this.realConnection = realConnection;
+            this.statementCache = statementCache;
+            this.realHashCode = realConnection.hashCode();
+            this.createdTimestamp = System.currentTimeMillis();
+            this.lastUsedTimestamp = createdTimestamp;
+        }
+
+        boolean compareAndSet(int expect, int update) {
+            return STATE.compareAndSet(this, expect, update);
+        }
+
+        int remove() {
+            return STATE.getAndSet(this, REMOVED);
+        }
+
+    }
+
+    private static final class EntryConnection extends PooledConnection {
+
+        private final PoolEntry entry;
+
+        EntryConnection(PoolEntry entry, ConcurrentPooledDataSource dataSource) {
+            super(entry.realConnection, dataSource, entry.statementCache);
+            this.entry = entry;
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.datasource.pooled;
 
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 import java.lang.reflect.InvocationHandler;
@@ -22,6 +23,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Clinton Begin
@@ -40,7 +42,8 @@ class PooledConnection implements InvocationHandler {
     private long createdTimestamp;
     private long lastUsedTimestamp;
     private int connectionTypeCode;
-    private boolean valid;
+    private volatile boolean valid;
+    private final StatementCache statementCache;
 
     /**
      * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -48,7 +51,18 @@ class PooledConnection implements InvocationHandler {
      * @param dataSource - the dataSource that the connection is from
      */
     public PooledConnection(Connection connection, PooledDataSource dataSource) {
+        this(connection, dataSource, dataSource.newStatementCache());
+    }
+
+    /**
+     * Constructor for a connection that keeps the statement cache of the physical connection.
+     * @param connection     - the connection that is to be presented as a pooled connection
+     * @param dataSource     - the dataSource that the connection is from
+     * @param statementCache - the statement cache of the connection, or null if statements are not cached
+     */
+    PooledConnection(Connection connection, PooledDataSource dataSource, StatementCache statementCache) {
         this.hashCode = connection.hashCode();
+        this.statementCache = statementCache;
         this.realConnection = connection;
         this.dataSource = dataSource;
         this.createdTimestamp = System.currentTimeMillis();
@@ -64,6 +78,22 @@ class PooledConnection implements InvocationHandler {
         valid = false;
     }
 
+    /**
+     * Returns whether the connection has not been returned to the pool or invalidated, without pinging the database.
+     * @return True if the connection has not been invalidated
+     */
+    boolean isOpen() {
+        return valid;
+    }
+
+    /**
+     * Getter for the statement cache of the physical connection.
+     * @return The statement cache, or null if statements are not cached
+     */
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
     /**
      * Method to see if the connection is usable.
      * @return True if the connection is usable
@@ -217,6 +247,10 @@ class PooledConnection implements InvocationHandler {
         String methodName = method.getName();
         // 是关闭的方法的话，将连接放回连接池
         if (CLOSE.equals(methodName)) {
+            MetricsCollector collector = dataSource.getMetricsCollector();
+            if (collector != null && valid) {
+                collector.connectionReleased(TimeUnit.MILLISECONDS.toNanos(getCheckoutTime()));
+            }
             dataSource.pushConnection(this);
             return null;
         }
@@ -226,6 +260,9 @@ class PooledConnection implements InvocationHandler {
                 // issue #579 toString() should never fail
                 // throw an SQLException instead of a Runtime
                 checkConnection();
+                if (statementCache != null && StatementCache.isCacheable(method)) {
+                    return statementCache.prepare(this, method, args);
+                }
             }
             return method.invoke(realConnection, args);
         } catch (Throwable t) {
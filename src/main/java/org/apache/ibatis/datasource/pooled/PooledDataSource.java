@@ -18,6 +18,7 @@ package org.apache.ibatis.datasource.pooled;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.metrics.MetricsCollector;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
@@ -28,6 +29,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -48,7 +50,7 @@ public class PooledDataSource implements DataSource {
     /**
      * 使用这个数据库连接池获取连接，不需要再次封装
      */
-    private final UnpooledDataSource dataSource;
+    final UnpooledDataSource dataSource;
 
     // OPTIONAL CONFIGURATION FIELDS
     /**
@@ -88,10 +90,20 @@ public class PooledDataSource implements DataSource {
      */
     protected int poolPingConnectionsNotUsedFor;
 
+    /**
+     * 每个物理连接缓存的 PreparedStatement 数量，0 表示不缓存
+     */
+    protected int poolMaximumCachedStatements;
+
+    /**
+     * 接收获取连接等待时间和借出时长
+     */
+    private volatile MetricsCollector metricsCollector;
+
     /**
      * ("" + url + username + password).hashCode()
      */
-    private int expectedConnectionTypeCode;
+    int expectedConnectionTypeCode;
 
     public PooledDataSource() {
         dataSource = new UnpooledDataSource();
@@ -123,12 +135,23 @@ public class PooledDataSource implements DataSource {
 
     @Override
     public Connection getConnection() throws SQLException {
-        return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+        return acquireConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
     }
 
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
-        return popConnection(username, password).getProxyConnection();
+        return acquireConnection(username, password).getProxyConnection();
+    }
+
+    private PooledConnection acquireConnection(String username, String password) throws SQLException {
+        MetricsCollector collector = metricsCollector;
+        if (collector == null) {
+            return popConnection(username, password);
+        }
+        long start = System.nanoTime();
+        PooledConnection conn = popConnection(username, password);
+        collector.connectionAcquired(System.nanoTime() - start);
+        return conn;
     }
 
     @Override
@@ -272,6 +295,17 @@ public class PooledDataSource implements DataSource {
         forceCloseAll();
     }
 
+    /**
+     * The maximum number of idle prepared statements that are cached by each physical connection. Cached statements
+     * are reused by all sessions that use the connection; 0 disables the cache.
+     * @param poolMaximumCachedStatements the maximum number of cached statements per connection
+     * @since 3.5.9
+     */
+    public void setPoolMaximumCachedStatements(int poolMaximumCachedStatements) {
+        this.poolMaximumCachedStatements = poolMaximumCachedStatements;
+        forceCloseAll();
+    }
+
     public String getDriver() {
         return dataSource.getDriver();
     }
@@ -341,11 +375,38 @@ public class PooledDataSource implements DataSource {
         return poolPingConnectionsNotUsedFor;
     }
 
+    public int getPoolMaximumCachedStatements() {
+        return poolMaximumCachedStatements;
+    }
+
+    public MetricsCollector getMetricsCollector() {
+        return metricsCollector;
+    }
+
+    /**
+     * Sets the collector that receives the time spent waiting for a connection and the time connections are
+     * checked out. Unlike the other settings this does not close the connections of the pool.
+     *
+     * @param metricsCollector the metrics collector, {@code null} to disable the instrumentation
+     * @since 3.5.9
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
+    /**
+     * 为新的物理连接创建语句缓存
+     */
+    StatementCache newStatementCache() {
+        return poolMaximumCachedStatements > 0 ? new StatementCache(poolMaximumCachedStatements, getPoolState()) : null;
+    }
+
     /**
      * Closes all active and idle connections in the pool.
      */
     public void forceCloseAll() {
-        synchronized (state) {
+        state.lock.lock();
+        try {
             expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
             for (int i = state.activeConnections.size(); i > 0; i--) {
                 try {
@@ -375,6 +436,8 @@ public class PooledDataSource implements DataSource {
                     // ignore
                 }
             }
+        } finally {
+            state.lock.unlock();
         }
         if (log.isDebugEnabled()) {
             log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -385,7 +448,7 @@ public class PooledDataSource implements DataSource {
         return state;
     }
 
-    private int assembleConnectionTypeCode(String url, String username, String password) {
+    int assembleConnectionTypeCode(String url, String username, String password) {
         return ("" + url + username + password).hashCode();
     }
 
@@ -393,7 +456,8 @@ public class PooledDataSource implements DataSource {
      * 连接放入池中
      */
     protected void pushConnection(PooledConnection conn) throws SQLException {
-        synchronized (state) {
+        state.lock.lock();
+        try {
             // 从活跃队列中移除
             state.activeConnections.remove(conn);
             if (conn.isValid()) {
@@ -408,7 +472,8 @@ public class PooledDataSource implements DataSource {
                     }
 
                     // 使用真实的连接新创建一个 PooledConnection
-                    PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+                    // 语句缓存跟随物理连接
+                    PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this, conn.getStatementCache());
                     // 添加到空闲集合中
                     state.idleConnections.add(newConn);
                     newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
@@ -420,7 +485,7 @@ public class PooledDataSource implements DataSource {
                         log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
                     }
                     // 唤醒等待获取连接的线程
-                    state.notifyAll();
+                    state.connectionAvailable.signalAll();
                 } else {
                     state.accumulatedCheckoutTime += conn.getCheckoutTime();
 
@@ -443,13 +508,15 @@ public class PooledDataSource implements DataSource {
                 }
                 state.badConnectionCount++;
             }
+        } finally {
+            state.lock.unlock();
         }
     }
 
     /**
      * 弹出一个连接
      */
-    private PooledConnection popConnection(String username, String password) throws SQLException {
+    protected PooledConnection popConnection(String username, String password) throws SQLException {
         boolean countedWait = false;
         PooledConnection conn = null;
         long t = System.currentTimeMillis();
@@ -457,7 +524,8 @@ public class PooledDataSource implements DataSource {
 
         while (conn == null) {
             // 同步获取连接
-            synchronized (state) {
+            state.lock.lock();
+            try {
                 if (!state.idleConnections.isEmpty()) {
                     // 还有空闲连接，将弹出一个来，直接返回
                     conn = state.idleConnections.remove(0);
@@ -497,7 +565,7 @@ public class PooledDataSource implements DataSource {
                                     log.debug("Bad connection. Could not roll back");
                                 }
                             }
-                            conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+                            conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this, oldestActiveConnection.getStatementCache());
                             conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
                             conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
 
@@ -517,7 +585,11 @@ public class PooledDataSource implements DataSource {
                                     log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                                 }
                                 long wt = System.currentTimeMillis();
-                                state.wait(poolTimeToWait);
+                                if (poolTimeToWait > 0) {
+                                    state.connectionAvailable.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                                } else {
+                                    state.connectionAvailable.await();
+                                }
                                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
                             } catch (InterruptedException e) {
                                 break;
@@ -561,6 +633,8 @@ public class PooledDataSource implements DataSource {
                         }
                     }
                 }
+            } finally {
+                state.lock.unlock();
             }
 
         }
@@ -0,0 +1,269 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caches the prepared statements of one physical connection, so that they are reused by all sessions (and pooled
+ * connection wrappers) that use the connection, whatever executor type they use.
+ * <p>
+ * {@code prepareStatement} and {@code prepareCall} return a statement from the cache if an idle statement with the
+ * same SQL and options exists. Closing the returned statement clears its parameters and batch, restores the settings
+ * changed by the caller and puts it back into the cache instead of closing it. A statement is never shared while it
+ * is open, every checkout returns a new proxy that stays closed once the checkout ends, and the least recently used
+ * idle statements are closed when the cache is full.
+ *
+ * @since 3.5.9
+ */
+final class StatementCache {
+
+    private static final Set<String> STATEMENT_SETTERS = new HashSet<>(Arrays.asList(
+            "setFetchSize", "setFetchDirection", "setQueryTimeout", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize"));
+
+    private final int maxSize;
+    private final PoolState poolState;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 空闲的语句，按访问顺序排列
+     */
+    private final LinkedHashMap<StatementKey, CachedStatement> idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(int maxSize, PoolState poolState) {
+        this.maxSize = maxSize;
+        this.poolState = poolState;
+    }
+
+    static boolean isCacheable(Method method) {
+        String methodName = method.getName();
+        return "prepareStatement".equals(methodName) || "prepareCall".equals(methodName);
+    }
+
+    int getSize() {
+        lock.lock();
+        try {
+            return idleStatements.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a statement from the cache or prepares a new one.
+     */
+    Object prepare(PooledConnection connection, Method method, Object[] args) throws Throwable {
+        StatementKey key = new StatementKey(method.getName(), args);
+        CachedStatement cachedStatement;
+        lock.lock();
+        try {
+            cachedStatement = idleStatements.remove(key);
+        } finally {
+            lock.unlock();
+        }
+        if (cachedStatement != null) {
+            poolState.statementCacheHitCount.increment();
+        } else {
+            poolState.statementCacheMissCount.increment();
+            PreparedStatement statement;
+            try {
+                statement = (PreparedStatement) method.invoke(connection.getRealConnection(), args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+            cachedStatement = new CachedStatement(this, key, statement, method.getReturnType());
+        }
+        return cachedStatement.open(connection);
+    }
+
+    private void release(CachedStatement cachedStatement) {
+        if (!cachedStatement.connection.isOpen() || !cachedStatement.reset()) {
+            // 连接已经归还（可能被其他线程使用）或语句无法复用，直接关闭
+            closeQuietly(cachedStatement.statement);
+            return;
+        }
+        CachedStatement duplicate;
+        lock.lock();
+        try {
+            duplicate = idleStatements.putIfAbsent(cachedStatement.key, cachedStatement);
+            Iterator<CachedStatement> eldest = idleStatements.values().iterator();
+            while (idleStatements.size() > maxSize) {
+                closeQuietly(eldest.next().statement);
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (duplicate != null) {
+            closeQuietly(cachedStatement.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    private static final class StatementKey {
+
+        private final String methodName;
+        private final Object[] args;
+        private final int hashCode;
+
+        StatementKey(String methodName, Object[] args) {
+            this.methodName = methodName;
+            this.args = args;
+            this.hashCode = 31 * methodName.hashCode() + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) obj;
+            return hashCode == other.hashCode && methodName.equals(other.methodName) && Arrays.deepEquals(args, other.args);
+        }
+    }
+
+    /**
+     * A statement kept by the cache. Every checkout gets its own {@link Checkout} proxy.
+     */
+    private static final class CachedStatement {
+
+        private final StatementCache cache;
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final Class<?>[] interfaces;
+        private PooledConnection connection;
+        private boolean batched;
+        private int[] defaultSettings;
+
+        CachedStatement(StatementCache cache, StatementKey key, PreparedStatement statement, Class<?> statementType) {
+            this.cache = cache;
+            this.key = key;
+            this.statement = statement;
+            this.interfaces = CallableStatement.class.equals(statementType)
+                    ? new Class<?>[]{CallableStatement.class} : new Class<?>[]{PreparedStatement.class};
+        }
+
+        Statement open(PooledConnection connection) {
+            this.connection = connection;
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), interfaces, new Checkout(this));
+        }
+
+        /**
+         * 清理语句的状态，返回是否可以放回缓存
+         */
+        boolean reset() {
+            try {
+                statement.clearParameters();
+                if (batched) {
+                    statement.clearBatch();
+                    batched = false;
+                }
+                if (defaultSettings != null) {
+                    statement.setFetchSize(defaultSettings[0]);
+                    statement.setFetchDirection(defaultSettings[1]);
+                    statement.setQueryTimeout(defaultSettings[2]);
+                    statement.setMaxRows(defaultSettings[3]);
+                    statement.setMaxFieldSize(defaultSettings[4]);
+                    defaultSettings = null;
+                }
+                statement.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The proxy handed out for one checkout of a cached statement, {@code close()} returns the statement to the cache.
+     * The proxy stays closed afterwards, so a stale reference cannot reach the statement of the next checkout.
+     */
+    private static final class Checkout implements InvocationHandler {
+
+        private final CachedStatement cachedStatement;
+        private volatile boolean closed;
+
+        Checkout(CachedStatement cachedStatement) {
+            this.cachedStatement = cachedStatement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return cachedStatement.statement.toString();
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cachedStatement.cache.release(cachedStatement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed.");
+            }
+            PreparedStatement statement = cachedStatement.statement;
+            if ("getConnection".equals(methodName)) {
+                return cachedStatement.connection.getProxyConnection();
+            } else if ("addBatch".equals(methodName)) {
+                cachedStatement.batched = true;
+            } else if (cachedStatement.defaultSettings == null && STATEMENT_SETTERS.contains(methodName)) {
+                cachedStatement.defaultSettings = new int[]{statement.getFetchSize(), statement.getFetchDirection(),
+                        statement.getQueryTimeout(), statement.getMaxRows(), statement.getMaxFieldSize()};
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 /**
@@ -39,7 +40,8 @@ public class UnpooledDataSource implements DataSource {
     private Properties driverProperties;
     private static final Map<String, Driver> registeredDrivers = new ConcurrentHashMap<>();
 
-    private String driver;
+    private final ReentrantLock driverInitializationLock = new ReentrantLock();
+    private volatile String driver;
     private String url;
     private String username;
     private String password;
@@ -135,11 +137,11 @@ public class UnpooledDataSource implements DataSource {
         this.driverProperties = driverProperties;
     }
 
-    public synchronized String getDriver() {
+    public String getDriver() {
         return driver;
     }
 
-    public synchronized void setDriver(String driver) {
+    public void setDriver(String driver) {
         this.driver = driver;
     }
 
@@ -230,27 +232,35 @@ public class UnpooledDataSource implements DataSource {
         return connection;
     }
 
-    private synchronized void initializeDriver() throws SQLException {
-        // driver 必须是全类名
-        if (!registeredDrivers.containsKey(driver)) {
-            Class<?> driverType;
-            try {
-                if (driverClassLoader != null) {
-                    driverType = Class.forName(driver, true, driverClassLoader);
-                } else {
-                    driverType = Resources.classForName(driver);
+    private void initializeDriver() throws SQLException {
+        if (registeredDrivers.containsKey(driver)) {
+            return;
+        }
+        driverInitializationLock.lock();
+        try {
+            // driver 必须是全类名
+            if (!registeredDrivers.containsKey(driver)) {
+                Class<?> driverType;
+                try {
+                    if (driverClassLoader != null) {
+                        driverType = Class.forName(driver, true, driverClassLoader);
+                    } else {
+                        driverType = Resources.classForName(driver);
+                    }
+                    // DriverManager requires the driver to be loaded via the system ClassLoader.
+                    // http://www.kfu.com/~nsayer/Java/dyn-jdbc.html
+                    // 通过系统类加载器重新实例化对象，并封装一下，重新注册？？？
+                    Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
+                    DriverManager.registerDriver(new DriverProxy(driverInstance));
+
+                    // 使用新实例替换掉  DriverManager.getDrivers() 返回的实例
+                    registeredDrivers.put(driver, driverInstance);
+                } catch (Exception e) {
+                    throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
                 }
-                // DriverManager requires the driver to be loaded via the system ClassLoader.
-                // http://www.kfu.com/~nsayer/Java/dyn-jdbc.html
-                // 通过系统类加载器重新实例化对象，并封装一下，重新注册？？？
-                Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
-                DriverManager.registerDriver(new DriverProxy(driverInstance));
-
-                // 使用新实例替换掉  DriverManager.getDrivers() 返回的实例
-                registeredDrivers.put(driver, driverInstance);
-            } catch (Exception e) {
-                throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
             }
+        } finally {
+            driverInitializationLock.unlock();
         }
     }
 
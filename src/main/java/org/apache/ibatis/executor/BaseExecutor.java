@@ -23,6 +23,9 @@ import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
 import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.metrics.MetricsCollector;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Paginator;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
@@ -37,6 +40,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
 
@@ -110,7 +114,15 @@ public abstract class BaseExecutor implements Executor {
             throw new ExecutorException("Executor was closed.");
         }
         clearLocalCache();
-        return doUpdate(ms, parameter);
+        MetricsCollector metricsCollector = configuration.getMetricsCollector();
+        if (metricsCollector == null) {
+            return doUpdate(ms, parameter);
+        }
+        long start = System.nanoTime();
+        int updateCount = doUpdate(ms, parameter);
+        // 批量执行时返回的不是影响行数
+        metricsCollector.statementExecuted(ms, System.nanoTime() - start, Math.max(updateCount, 0));
+        return updateCount;
     }
 
     @Override
@@ -128,6 +140,11 @@ public abstract class BaseExecutor implements Executor {
     @Override
     public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
         BoundSql boundSql = ms.getBoundSql(parameter);
+        if (rowBounds instanceof PageRequest) {
+            // 分页改写 SQL，剩余的 rowBounds 由结果集处理
+            boundSql = Paginator.paginate(configuration, boundSql, (PageRequest) rowBounds);
+            rowBounds = Paginator.getRemainingRowBounds(configuration, (PageRequest) rowBounds);
+        }
         CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
         return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
     }
@@ -172,6 +189,11 @@ public abstract class BaseExecutor implements Executor {
     @Override
     public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
         BoundSql boundSql = ms.getBoundSql(parameter);
+        if (rowBounds instanceof PageRequest) {
+            // 分页改写 SQL，剩余的 rowBounds 由结果集处理
+            boundSql = Paginator.paginate(configuration, boundSql, (PageRequest) rowBounds);
+            rowBounds = Paginator.getRemainingRowBounds(configuration, (PageRequest) rowBounds);
+        }
         return doQueryCursor(ms, parameter, rowBounds, boundSql);
     }
 
@@ -200,6 +222,9 @@ public abstract class BaseExecutor implements Executor {
         cacheKey.update(boundSql.getSql());
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
+        // 参数对象的判断和 MetaObject 对所有参数只做一次
+        boolean simpleParameter = parameterObject != null && typeHandlerRegistry.hasTypeHandler(parameterObject.getClass());
+        MetaObject metaObject = null;
         // mimic DefaultParameterHandler logic
         for (ParameterMapping parameterMapping : parameterMappings) {
             if (parameterMapping.getMode() != ParameterMode.OUT) {
@@ -209,10 +234,12 @@ public abstract class BaseExecutor implements Executor {
                     value = boundSql.getAdditionalParameter(propertyName);
                 } else if (parameterObject == null) {
                     value = null;
-                } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                } else if (simpleParameter) {
                     value = parameterObject;
                 } else {
-                    MetaObject metaObject = configuration.newMetaObject(parameterObject);
+                    if (metaObject == null) {
+                        metaObject = configuration.newMetaObject(parameterObject);
+                    }
                     value = metaObject.getValue(propertyName);
                 }
                 cacheKey.update(value);
@@ -315,12 +342,17 @@ public abstract class BaseExecutor implements Executor {
     private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds,
                                           ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
         List<E> list;
+        MetricsCollector metricsCollector = configuration.getMetricsCollector();
+        long start = metricsCollector == null ? 0 : System.nanoTime();
         localCache.putObject(key, EXECUTION_PLACEHOLDER);
         try {
             list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
         } finally {
             localCache.removeObject(key);
         }
+        if (metricsCollector != null) {
+            metricsCollector.statementExecuted(ms, System.nanoTime() - start, list.size());
+        }
         localCache.putObject(key, list);
         if (ms.getStatementType() == StatementType.CALLABLE) {
             localOutputParameterCache.putObject(key, parameter);
@@ -330,13 +362,19 @@ public abstract class BaseExecutor implements Executor {
 
     protected Connection getConnection(Log statementLog) throws SQLException {
         Connection connection = transaction.getConnection();
-        if (statementLog.isDebugEnabled()) {
-            return ConnectionLogger.newInstance(connection, statementLog, queryStack);
+        if (statementLog.isDebugEnabled() && isLogSampled()) {
+            return ConnectionLogger.newInstance(connection, statementLog, queryStack, configuration.getStatementLogSlowThreshold());
         } else {
             return connection;
         }
     }
 
+    private boolean isLogSampled() {
+        // 随机抽样，避免多个线程竞争同一个计数器
+        int sampleRate = configuration.getStatementLogSampleRate();
+        return sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
     @Override
     public void setExecutorWrapper(Executor wrapper) {
         this.wrapper = wrapper;
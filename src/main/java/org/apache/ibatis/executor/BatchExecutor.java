@@ -22,6 +22,7 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.metrics.SlowQueryRecorder;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -44,8 +45,11 @@ public class BatchExecutor extends BaseExecutor {
 
     private final List<Statement> statementList = new ArrayList<>();
     private final List<BatchResult> batchResultList = new ArrayList<>();
+    // results of statements that were already executed because the batch size was reached
+    private final List<BatchResult> executedBatchResultList = new ArrayList<>();
     private String currentSql;
     private MappedStatement currentStatement;
+    private int currentBatchSize;
 
     public BatchExecutor(Configuration configuration, Transaction transaction) {
         super(configuration, transaction);
@@ -65,6 +69,7 @@ public class BatchExecutor extends BaseExecutor {
             handler.parameterize(stmt);// fix Issues 322
             BatchResult batchResult = batchResultList.get(last);
             batchResult.addParameterObject(parameterObject);
+            batchResult.setBoundSql(boundSql);
         } else {
             Connection connection = getConnection(ms.getStatementLog());
             stmt = handler.prepare(connection, transaction.getTimeout());
@@ -72,12 +77,101 @@ public class BatchExecutor extends BaseExecutor {
             currentSql = sql;
             currentStatement = ms;
             statementList.add(stmt);
-            batchResultList.add(new BatchResult(ms, sql, parameterObject));
+            BatchResult batchResult = new BatchResult(ms, sql, parameterObject);
+            batchResult.setBoundSql(boundSql);
+            batchResultList.add(batchResult);
+            currentBatchSize = 0;
         }
         handler.batch(stmt);
+        int batchFlushSize = configuration.getBatchFlushSize();
+        if (batchFlushSize > 0 && ++currentBatchSize >= batchFlushSize) {
+            executePendingBatches();
+        }
         return BATCH_UPDATE_RETURN_VALUE;
     }
 
+    /**
+     * Executes all pending batches in the order they were added. The statement of the current batch stays open
+     * so that following updates are added to it, its update counts are accumulated in the same {@link BatchResult}
+     * and its parameter objects are released.
+     */
+    private void executePendingBatches() throws SQLException {
+        int last = statementList.size() - 1;
+        for (int i = 0; i < last; i++) {
+            Statement stmt = statementList.get(i);
+            BatchResult batchResult = batchResultList.get(i);
+            executeBatch(stmt, batchResult, executedBatchResultList);
+            closeStatement(stmt);
+            executedBatchResultList.add(batchResult);
+        }
+        Statement currentStmt = statementList.get(last);
+        BatchResult currentBatchResult = batchResultList.get(last);
+        executeBatch(currentStmt, currentBatchResult, executedBatchResultList);
+        currentBatchResult.clearParameterObjects();
+        statementList.clear();
+        batchResultList.clear();
+        statementList.add(currentStmt);
+        batchResultList.add(currentBatchResult);
+        currentBatchSize = 0;
+    }
+
+    private void executeBatch(Statement stmt, BatchResult batchResult, List<BatchResult> results) throws SQLException {
+        applyTransactionTimeout(stmt);
+        try {
+            batchResult.addUpdateCounts(executeBatchStatement(stmt, batchResult));
+            MappedStatement ms = batchResult.getMappedStatement();
+            List<Object> parameterObjects = batchResult.getParameterObjects();
+            KeyGenerator keyGenerator = ms.getKeyGenerator();
+            if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+                Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+                jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+            } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+                for (Object parameter : parameterObjects) {
+                    keyGenerator.processAfter(this, ms, stmt, parameter);
+                }
+            }
+        } catch (BatchUpdateException e) {
+            int i = results.size();
+            StringBuilder message = new StringBuilder();
+            message.append(batchResult.getMappedStatement().getId())
+                    .append(" (batch index #")
+                    .append(i + 1)
+                    .append(")")
+                    .append(" failed.");
+            if (i > 0) {
+                message.append(" ")
+                        .append(i)
+                        .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+            }
+            throw new BatchExecutorException(message.toString(), e, results, batchResult);
+        }
+    }
+
+    /**
+     * 批量语句在这里真正执行，慢查询也在这里计时
+     */
+    private int[] executeBatchStatement(Statement stmt, BatchResult batchResult) throws SQLException {
+        SlowQueryRecorder recorder = configuration.getSlowQueryRecorder();
+        if (!recorder.isEnabled()) {
+            return stmt.executeBatch();
+        }
+        long start = System.nanoTime();
+        int[] updateCounts = stmt.executeBatch();
+        long elapsed = System.nanoTime() - start;
+        if (recorder.isSlow(elapsed)) {
+            int rows = 0;
+            for (int updateCount : updateCounts) {
+                if (updateCount < 0) {
+                    rows = -1;
+                    break;
+                }
+                rows += updateCount;
+            }
+            recorder.record(batchResult.getMappedStatement(), batchResult.getBoundSql(), stmt.getConnection(), elapsed, rows);
+        }
+        return updateCounts;
+    }
+
     @Override
     public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
             throws SQLException {
@@ -111,43 +205,16 @@ public class BatchExecutor extends BaseExecutor {
     @Override
     public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
         try {
-            List<BatchResult> results = new ArrayList<>();
+            List<BatchResult> results = new ArrayList<>(executedBatchResultList);
             if (isRollback) {
                 return Collections.emptyList();
             }
             for (int i = 0, n = statementList.size(); i < n; i++) {
                 Statement stmt = statementList.get(i);
-                applyTransactionTimeout(stmt);
                 BatchResult batchResult = batchResultList.get(i);
-                try {
-                    batchResult.setUpdateCounts(stmt.executeBatch());
-                    MappedStatement ms = batchResult.getMappedStatement();
-                    List<Object> parameterObjects = batchResult.getParameterObjects();
-                    KeyGenerator keyGenerator = ms.getKeyGenerator();
-                    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-                        Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-                        jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-                    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-                        for (Object parameter : parameterObjects) {
-                            keyGenerator.processAfter(this, ms, stmt, parameter);
-                        }
-                    }
-                    // Close statement to close cursor #1109
-                    closeStatement(stmt);
-                } catch (BatchUpdateException e) {
-                    StringBuilder message = new StringBuilder();
-                    message.append(batchResult.getMappedStatement().getId())
-                            .append(" (batch index #")
-                            .append(i + 1)
-                            .append(")")
-                            .append(" failed.");
-                    if (i > 0) {
-                        message.append(" ")
-                                .append(i)
-                                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-                    }
-                    throw new BatchExecutorException(message.toString(), e, results, batchResult);
-                }
+                executeBatch(stmt, batchResult, results);
+                // Close statement to close cursor #1109
+                closeStatement(stmt);
                 results.add(batchResult);
             }
             return results;
@@ -156,8 +223,10 @@ public class BatchExecutor extends BaseExecutor {
                 closeStatement(stmt);
             }
             currentSql = null;
+            currentBatchSize = 0;
             statementList.clear();
             batchResultList.clear();
+            executedBatchResultList.clear();
         }
     }
 
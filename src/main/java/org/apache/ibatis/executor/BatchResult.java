@@ -15,9 +15,11 @@
  */
 package org.apache.ibatis.executor;
 
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -30,6 +32,14 @@ public class BatchResult {
     private final List<Object> parameterObjects;
 
     private int[] updateCounts;
+    /**
+     * 分段执行时每次 executeBatch 的结果，读取时才合并，避免每段都复制已有的结果
+     */
+    private List<int[]> pendingUpdateCounts;
+    /**
+     * 最后加入的一次更新的 SQL，记录慢批量时使用
+     */
+    private BoundSql boundSql;
 
     public BatchResult(MappedStatement mappedStatement, String sql) {
         super();
@@ -61,15 +71,56 @@ public class BatchResult {
     }
 
     public int[] getUpdateCounts() {
+        if (pendingUpdateCounts != null) {
+            int length = updateCounts == null ? 0 : updateCounts.length;
+            for (int[] counts : pendingUpdateCounts) {
+                length += counts.length;
+            }
+            int[] merged = updateCounts == null ? new int[length] : Arrays.copyOf(updateCounts, length);
+            int offset = updateCounts == null ? 0 : updateCounts.length;
+            for (int[] counts : pendingUpdateCounts) {
+                System.arraycopy(counts, 0, merged, offset, counts.length);
+                offset += counts.length;
+            }
+            updateCounts = merged;
+            pendingUpdateCounts = null;
+        }
         return updateCounts;
     }
 
     public void setUpdateCounts(int[] updateCounts) {
         this.updateCounts = updateCounts;
+        this.pendingUpdateCounts = null;
     }
 
     public void addParameterObject(Object parameterObject) {
         this.parameterObjects.add(parameterObject);
     }
 
+    /**
+     * 追加一次 executeBatch 的结果，批量语句被分段执行时使用
+     */
+    void addUpdateCounts(int[] counts) {
+        if (updateCounts == null && pendingUpdateCounts == null) {
+            updateCounts = counts;
+        } else {
+            if (pendingUpdateCounts == null) {
+                pendingUpdateCounts = new ArrayList<>();
+            }
+            pendingUpdateCounts.add(counts);
+        }
+    }
+
+    BoundSql getBoundSql() {
+        return boundSql;
+    }
+
+    void setBoundSql(BoundSql boundSql) {
+        this.boundSql = boundSql;
+    }
+
+    void clearParameterObjects() {
+        parameterObjects.clear();
+    }
+
 }
@@ -20,6 +20,9 @@ import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.metrics.MetricsCollector;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Paginator;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -82,6 +85,10 @@ public class CachingExecutor implements Executor {
     public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds,
                              ResultHandler resultHandler) throws SQLException {
         BoundSql boundSql = ms.getBoundSql(parameterObject);
+        if (rowBounds instanceof PageRequest) {
+            boundSql = Paginator.paginate(ms.getConfiguration(), boundSql, (PageRequest) rowBounds);
+            rowBounds = Paginator.getRemainingRowBounds(ms.getConfiguration(), (PageRequest) rowBounds);
+        }
         CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
         return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
     }
@@ -96,6 +103,10 @@ public class CachingExecutor implements Executor {
                 ensureNoOutParams(ms, boundSql);
                 @SuppressWarnings("unchecked")
                 List<E> list = (List<E>) tcm.getObject(cache, key);
+                MetricsCollector metricsCollector = ms.getConfiguration().getMetricsCollector();
+                if (metricsCollector != null) {
+                    metricsCollector.cacheAccessed(cache, list != null);
+                }
                 if (list == null) {
                     list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
                     tcm.putObject(cache, key, list); // issue #578 and #116
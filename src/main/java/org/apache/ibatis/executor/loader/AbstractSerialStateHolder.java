@@ -15,8 +15,12 @@
  */
 package org.apache.ibatis.executor.loader;
 
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.JavaSerializer;
 import org.apache.ibatis.io.SerialFilterChecker;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
 
 import java.io.*;
 import java.util.Arrays;
@@ -38,6 +42,14 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     private ObjectFactory objectFactory;
     private Class<?>[] constructorArgTypes;
     private Object[] constructorArgs;
+    /**
+     * 为 null 时使用原有的 Java 序列化格式
+     */
+    private Serializer serializer;
+    /**
+     * 反序列化时通过它取回 Configuration，只接受其中配置的序列化器
+     */
+    private Class<?> configurationFactory;
 
     public AbstractSerialStateHolder() {
     }
@@ -48,15 +60,43 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
             final ObjectFactory objectFactory,
             List<Class<?>> constructorArgTypes,
             List<Object> constructorArgs) {
+        this(userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs, null);
+    }
+
+    /**
+     * Writes the state with the default serializer of the configuration. The serializer is looked up again through
+     * the configuration factory on deserialization, so without a configuration factory the Java format is used.
+     *
+     * @since 3.5.9
+     */
+    public AbstractSerialStateHolder(
+            final Object userBean,
+            final Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+            final ObjectFactory objectFactory,
+            List<Class<?>> constructorArgTypes,
+            List<Object> constructorArgs,
+            Configuration configuration) {
         this.userBean = userBean;
         this.unloadedProperties = new HashMap<>(unloadedProperties);
         this.objectFactory = objectFactory;
         this.constructorArgTypes = constructorArgTypes.toArray(new Class<?>[0]);
         this.constructorArgs = constructorArgs.toArray(new Object[0]);
+        if (configuration != null && configuration.getConfigurationFactory() != null
+                && !(configuration.getDefaultSerializer() instanceof JavaSerializer)) {
+            this.serializer = configuration.getDefaultSerializer();
+            this.configurationFactory = configuration.getConfigurationFactory();
+        }
     }
 
     @Override
     public final void writeExternal(final ObjectOutput out) throws IOException {
+        if (serializer != null) {
+            // 先写序列化器的类名，读取时据此区分两种格式
+            out.writeObject(serializer.getClass().getName());
+            out.writeObject(configurationFactory);
+            out.writeObject(serializer.serialize(new Object[]{userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs}));
+            return;
+        }
         boolean firstRound = false;
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ObjectOutputStream os = stream.get();
@@ -83,14 +123,16 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     @Override
     public final void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
         final Object data = in.readObject();
-        if (data.getClass().isArray()) {
+        if (data instanceof String) {
+            this.serializer = getSerializer((String) data, in.readObject());
+            this.userBeanBytes = (byte[]) in.readObject();
+        } else if (data.getClass().isArray()) {
             this.userBeanBytes = (byte[]) data;
         } else {
             this.userBean = data;
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected final Object readResolve() throws ObjectStreamException {
         /* Second run */
         if (this.userBean != null && this.userBeanBytes.length == 0) {
@@ -100,6 +142,37 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
         SerialFilterChecker.check();
 
         /* First run */
+        if (this.serializer != null) {
+            readState();
+        } else {
+            readJavaState();
+        }
+
+        final Map<String, ResultLoaderMap.LoadPair> arrayProps = new HashMap<>(this.unloadedProperties);
+        final List<Class<?>> arrayTypes = Arrays.asList(this.constructorArgTypes);
+        final List<Object> arrayValues = Arrays.asList(this.constructorArgs);
+
+        return this.createDeserializationProxy(userBean, arrayProps, objectFactory, arrayTypes, arrayValues);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readState() throws ObjectStreamException {
+        try {
+            final Object[] state = (Object[]) this.serializer.deserialize(this.userBeanBytes);
+            this.userBean = state[0];
+            this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) state[1];
+            this.objectFactory = (ObjectFactory) state[2];
+            this.constructorArgTypes = (Class<?>[]) state[3];
+            this.constructorArgs = (Object[]) state[4];
+        } catch (final IOException ex) {
+            throw (ObjectStreamException) new StreamCorruptedException().initCause(ex);
+        } catch (final ClassNotFoundException ex) {
+            throw (ObjectStreamException) new InvalidClassException(ex.getLocalizedMessage()).initCause(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readJavaState() throws ObjectStreamException {
         try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(this.userBeanBytes))) {
             this.userBean = in.readObject();
             this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) in.readObject();
@@ -111,12 +184,23 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
         } catch (final ClassNotFoundException ex) {
             throw (ObjectStreamException) new InvalidClassException(ex.getLocalizedMessage()).initCause(ex);
         }
+    }
 
-        final Map<String, ResultLoaderMap.LoadPair> arrayProps = new HashMap<>(this.unloadedProperties);
-        final List<Class<?>> arrayTypes = Arrays.asList(this.constructorArgTypes);
-        final List<Object> arrayValues = Arrays.asList(this.constructorArgs);
-
-        return this.createDeserializationProxy(userBean, arrayProps, objectFactory, arrayTypes, arrayValues);
+    private static Serializer getSerializer(String className, Object configurationFactory) throws IOException {
+        if (!(configurationFactory instanceof Class)) {
+            throw new InvalidClassException(className, "Missing configuration factory");
+        }
+        final Serializer serializer;
+        try {
+            serializer = ResultLoaderMap.LoadPair.getConfiguration((Class<?>) configurationFactory).getDefaultSerializer();
+        } catch (ExecutorException ex) {
+            throw (IOException) new InvalidClassException(className, ex.getMessage()).initCause(ex);
+        }
+        // 只接受 Configuration 中配置的序列化器，不会按流中的类名创建任意类的实例
+        if (serializer instanceof JavaSerializer || !serializer.getClass().getName().equals(className)) {
+            throw new InvalidClassException(className, "Not the configured serializer");
+        }
+        return serializer;
     }
 
     protected abstract Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory,
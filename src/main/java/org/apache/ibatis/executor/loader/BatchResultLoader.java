@@ -0,0 +1,296 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads the results of a nested select for many parent objects with a single query.
+ * <p>
+ * The keys of all parent objects are passed to the nested select as one collection (available as {@code list} and
+ * {@code collection}, e.g. for an {@code IN} clause built with {@code <foreach>}). The results are then grouped by
+ * the value of the key property and set on the parent objects.
+ * <p>
+ * Lazy loaders created with {@link #newResultLoader(Object, Object, CacheKey, BoundSql)} share this loader as well:
+ * the first one that is triggered also loads the keys of up to {@code batchSize - 1} siblings that have not been
+ * loaded yet, and the siblings pick up their results without another query.
+ *
+ * @since 3.5.9
+ */
+public class BatchResultLoader {
+
+    protected final Configuration configuration;
+    protected final Executor executor;
+    protected final MappedStatement mappedStatement;
+    protected final Class<?> targetType;
+    protected final String keyProperty;
+    protected final ResultExtractor resultExtractor;
+    protected final int batchSize;
+    protected final long creatorThreadId;
+
+    private final Map<Object, PendingKey> pendingKeys = new LinkedHashMap<>();
+    private final Map<Object, LazyKey> lazyKeys = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param config the configuration
+     * @param executor the executor that runs the nested select
+     * @param mappedStatement the nested select, it receives the keys as a collection
+     * @param targetType the type of the parent property
+     * @param keyProperty the property of the nested results that holds the key
+     * @param batchSize the maximum number of keys loaded together by lazy loaders
+     */
+    public BatchResultLoader(Configuration config, Executor executor, MappedStatement mappedStatement, Class<?> targetType, String keyProperty, int batchSize) {
+        this.configuration = config;
+        this.executor = executor;
+        this.mappedStatement = mappedStatement;
+        this.targetType = targetType;
+        this.keyProperty = keyProperty;
+        this.resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+        this.batchSize = Math.max(1, batchSize);
+        this.creatorThreadId = Thread.currentThread().getId();
+    }
+
+    /**
+     * Registers a parent property whose value is loaded with the next {@link #load()}.
+     *
+     * @param key the key passed to the nested select
+     * @param metaObject the parent object
+     * @param property the property of the parent object
+     */
+    public void addTarget(Object key, MetaObject metaObject, String property) {
+        Object normalizedKey = normalizeKey(key);
+        PendingKey pendingKey = pendingKeys.get(normalizedKey);
+        if (pendingKey == null) {
+            pendingKey = new PendingKey(key);
+            pendingKeys.put(normalizedKey, pendingKey);
+        }
+        pendingKey.targets.add(new Target(metaObject, property));
+    }
+
+    /**
+     * @return the number of distinct keys waiting to be loaded
+     */
+    public int size() {
+        return pendingKeys.size();
+    }
+
+    /**
+     * Runs the nested select once for all registered keys and sets the results on the parent objects.
+     *
+     * @throws SQLException if the nested select fails
+     */
+    public void load() throws SQLException {
+        if (pendingKeys.isEmpty()) {
+            return;
+        }
+        List<Object> keys = new ArrayList<>(pendingKeys.size());
+        for (PendingKey pendingKey : pendingKeys.values()) {
+            keys.add(pendingKey.key);
+        }
+        Map<Object, List<Object>> groupedResults = groupByKey(selectList(keys));
+        for (Map.Entry<Object, PendingKey> entry : pendingKeys.entrySet()) {
+            List<Object> results = groupedResults.getOrDefault(entry.getKey(), Collections.emptyList());
+            for (Target target : entry.getValue().targets) {
+                // 每个父对象使用独立的 list，与逐条查询时一致
+                Object value = resultExtractor.extractObjectFromList(new ArrayList<>(results), targetType);
+                target.setValue(value);
+            }
+        }
+        pendingKeys.clear();
+    }
+
+    /**
+     * Creates a lazy loader for one parent object. It loads its key together with the keys of sibling loaders
+     * created by this method that have not been loaded yet.
+     *
+     * @param key the key passed to the nested select
+     * @param parameterObject the parameter of the nested select for this key alone, used after deserialization
+     * @param cacheKey the cache key of the nested select for this key alone
+     * @param boundSql the bound sql of the nested select for this key alone
+     * @return the lazy loader
+     */
+    public ResultLoader newResultLoader(Object key, Object parameterObject, CacheKey cacheKey, BoundSql boundSql) {
+        lock.lock();
+        try {
+            Object normalizedKey = normalizeKey(key);
+            LazyKey lazyKey = lazyKeys.get(normalizedKey);
+            if (lazyKey == null) {
+                lazyKey = new LazyKey(key, normalizedKey);
+                lazyKeys.put(normalizedKey, lazyKey);
+            }
+            lazyKey.loaders++;
+        } finally {
+            lock.unlock();
+        }
+        return new SiblingResultLoader(key, parameterObject, cacheKey, boundSql);
+    }
+
+    /**
+     * 懒加载可能发生在任意线程，因此需要同步
+     */
+    private List<Object> loadLazily(Object key) throws SQLException {
+        lock.lock();
+        try {
+            Object normalizedKey = normalizeKey(key);
+            LazyKey lazyKey = lazyKeys.get(normalizedKey);
+            if (lazyKey == null) {
+                // 结果已经被取走，单独查询
+                lazyKey = new LazyKey(key, normalizedKey);
+                lazyKey.loaders = 1;
+            }
+            if (lazyKey.results == null) {
+                List<LazyKey> batch = new ArrayList<>();
+                batch.add(lazyKey);
+                for (LazyKey sibling : lazyKeys.values()) {
+                    if (batch.size() >= batchSize) {
+                        break;
+                    }
+                    if (sibling != lazyKey && sibling.results == null) {
+                        batch.add(sibling);
+                    }
+                }
+                List<Object> keys = new ArrayList<>(batch.size());
+                for (LazyKey batchKey : batch) {
+                    keys.add(batchKey.key);
+                }
+                Map<Object, List<Object>> groupedResults = groupByKey(selectList(keys));
+                for (LazyKey batchKey : batch) {
+                    batchKey.results = groupedResults.getOrDefault(batchKey.normalizedKey, Collections.emptyList());
+                }
+            }
+            List<Object> results = new ArrayList<>(lazyKey.results);
+            if (--lazyKey.loaders <= 0) {
+                lazyKeys.remove(normalizedKey, lazyKey);
+            }
+            return results;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected List<Object> selectList(List<Object> keys) throws SQLException {
+        Executor localExecutor = executor;
+        if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+            localExecutor = ResultLoader.newExecutor(configuration);
+        }
+        try {
+            return localExecutor.query(mappedStatement, ParamNameResolver.wrapToMapIfCollection(keys, null), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        } finally {
+            if (localExecutor != executor) {
+                localExecutor.close(false);
+            }
+        }
+    }
+
+    private Map<Object, List<Object>> groupByKey(List<Object> results) {
+        Map<Object, List<Object>> groupedResults = new HashMap<>();
+        for (Object result : results) {
+            if (result != null) {
+                Object key = normalizeKey(configuration.newMetaObject(result).getValue(keyProperty));
+                groupedResults.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+            }
+        }
+        return groupedResults;
+    }
+
+    /**
+     * 列的类型和属性的类型可能不同（例如 Integer 和 Long），数字统一按数值比较
+     */
+    private static Object normalizeKey(Object key) {
+        if (key instanceof Number) {
+            try {
+                return new BigDecimal(key.toString()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                // NaN, Infinity
+                return key;
+            }
+        }
+        return key;
+    }
+
+    private static class PendingKey {
+        private final Object key;
+        private final List<Target> targets = new ArrayList<>();
+
+        PendingKey(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static class LazyKey {
+        private final Object key;
+        private final Object normalizedKey;
+        private int loaders;
+        private List<Object> results;
+
+        LazyKey(Object key, Object normalizedKey) {
+            this.key = key;
+            this.normalizedKey = normalizedKey;
+        }
+    }
+
+    private class SiblingResultLoader extends ResultLoader {
+        private final Object key;
+
+        SiblingResultLoader(Object key, Object parameterObject, CacheKey cacheKey, BoundSql boundSql) {
+            super(BatchResultLoader.this.configuration, BatchResultLoader.this.executor, BatchResultLoader.this.mappedStatement,
+                    parameterObject, BatchResultLoader.this.targetType, cacheKey, boundSql);
+            this.key = key;
+        }
+
+        @Override
+        public Object loadResult() throws SQLException {
+            resultObject = resultExtractor.extractObjectFromList(loadLazily(key), targetType);
+            return resultObject;
+        }
+    }
+
+    private class Target {
+        private final MetaObject metaObject;
+        private final String property;
+
+        Target(MetaObject metaObject, String property) {
+            this.metaObject = metaObject;
+            this.property = property;
+        }
+
+        void setValue(Object value) {
+            if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
+                metaObject.setValue(property, value);
+            }
+        }
+    }
+
+}
@@ -36,6 +36,8 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Clinton Begin
@@ -44,6 +46,7 @@ import java.util.*;
 public class ResultLoaderMap {
 
     private final Map<String, LoadPair> loaderMap = new HashMap<>();
+    private final Lock lock = new ReentrantLock();
 
     public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
         String upperFirst = getUppercaseFirstProperty(property);
@@ -55,6 +58,16 @@ public class ResultLoaderMap {
         loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
     }
 
+    /**
+     * Gets the lock that lazy loading proxies hold while they load the properties of their object.
+     *
+     * @return the lock
+     * @since 3.5.9
+     */
+    public Lock getLock() {
+        return lock;
+    }
+
     public final Map<String, LoadPair> getProperties() {
         return new HashMap<>(this.loaderMap);
     }
@@ -188,7 +201,7 @@ public class ResultLoaderMap {
                             + this.mappedStatement + "] is not serializable.");
                 }
 
-                final Configuration config = this.getConfiguration();
+                final Configuration config = getConfiguration(this.configurationFactory);
                 final MappedStatement ms = config.getMappedStatement(this.mappedStatement);
                 if (ms == null) {
                     throw new ExecutorException("Cannot lazy load property [" + this.property
@@ -215,17 +228,17 @@ public class ResultLoaderMap {
             this.metaResultObject.setValue(property, this.resultLoader.loadResult());
         }
 
-        private Configuration getConfiguration() {
-            if (this.configurationFactory == null) {
+        static Configuration getConfiguration(Class<?> configurationFactory) {
+            if (configurationFactory == null) {
                 throw new ExecutorException("Cannot get Configuration as configuration factory was not set.");
             }
 
             Object configurationObject;
             try {
-                final Method factoryMethod = this.configurationFactory.getDeclaredMethod(FACTORY_METHOD);
+                final Method factoryMethod = configurationFactory.getDeclaredMethod(FACTORY_METHOD);
                 if (!Modifier.isStatic(factoryMethod.getModifiers())) {
                     throw new ExecutorException("Cannot get Configuration as factory method ["
-                            + this.configurationFactory + "]#["
+                            + configurationFactory + "]#["
                             + FACTORY_METHOD + "] is not static.");
                 }
 
@@ -245,21 +258,21 @@ public class ResultLoaderMap {
                 throw ex;
             } catch (final NoSuchMethodException ex) {
                 throw new ExecutorException("Cannot get Configuration as factory class ["
-                        + this.configurationFactory + "] is missing factory method of name ["
+                        + configurationFactory + "] is missing factory method of name ["
                         + FACTORY_METHOD + "].", ex);
             } catch (final PrivilegedActionException ex) {
                 throw new ExecutorException("Cannot get Configuration as factory method ["
-                        + this.configurationFactory + "]#["
+                        + configurationFactory + "]#["
                         + FACTORY_METHOD + "] threw an exception.", ex.getCause());
             } catch (final Exception ex) {
                 throw new ExecutorException("Cannot get Configuration as factory method ["
-                        + this.configurationFactory + "]#["
+                        + configurationFactory + "]#["
                         + FACTORY_METHOD + "] threw an exception.", ex);
             }
 
             if (!(configurationObject instanceof Configuration)) {
                 throw new ExecutorException("Cannot get Configuration as factory method ["
-                        + this.configurationFactory + "]#["
+                        + configurationFactory + "]#["
                         + FACTORY_METHOD + "] didn't return [" + Configuration.class + "] but ["
                         + (configurationObject == null ? "null" : configurationObject.getClass()) + "].");
             }
@@ -101,6 +101,7 @@ public class CglibProxyFactory implements ProxyFactory {
         private final ObjectFactory objectFactory;
         private final List<Class<?>> constructorArgTypes;
         private final List<Object> constructorArgs;
+        private final Configuration configuration;
 
         private EnhancedResultObjectProxyImpl(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory,
                                               List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
@@ -111,6 +112,7 @@ public class CglibProxyFactory implements ProxyFactory {
             this.objectFactory = objectFactory;
             this.constructorArgTypes = constructorArgTypes;
             this.constructorArgs = constructorArgs;
+            this.configuration = configuration;
         }
 
         public static Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory,
@@ -127,7 +129,8 @@ public class CglibProxyFactory implements ProxyFactory {
         public Object intercept(Object enhanced, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
             final String methodName = method.getName();
             try {
-                synchronized (lazyLoader) {
+                lazyLoader.getLock().lock();
+                try {
                     if (WRITE_REPLACE_METHOD.equals(methodName)) {
                         Object original;
                         if (constructorArgTypes.isEmpty()) {
@@ -137,7 +140,7 @@ public class CglibProxyFactory implements ProxyFactory {
                         }
                         PropertyCopier.copyBeanProperties(type, enhanced, original);
                         if (lazyLoader.size() > 0) {
-                            return new CglibSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs);
+                            return new CglibSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs, configuration);
                         } else {
                             return original;
                         }
@@ -156,6 +159,8 @@ public class CglibProxyFactory implements ProxyFactory {
                             }
                         }
                     }
+                } finally {
+                    lazyLoader.getLock().unlock();
                 }
                 return methodProxy.invokeSuper(enhanced, args);
             } catch (Throwable t) {
@@ -18,6 +18,7 @@ package org.apache.ibatis.executor.loader.cglib;
 import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
 
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,16 @@ class CglibSerialStateHolder extends AbstractSerialStateHolder {
         super(userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs);
     }
 
+    public CglibSerialStateHolder(
+            final Object userBean,
+            final Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+            final ObjectFactory objectFactory,
+            List<Class<?>> constructorArgTypes,
+            List<Object> constructorArgs,
+            Configuration configuration) {
+        super(userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs, configuration);
+    }
+
     @Override
     protected Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory,
                                                 List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
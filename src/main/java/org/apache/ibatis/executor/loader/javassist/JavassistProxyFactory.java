@@ -102,6 +102,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         private final ObjectFactory objectFactory;
         private final List<Class<?>> constructorArgTypes;
         private final List<Object> constructorArgs;
+        private final Configuration configuration;
 
         private EnhancedResultObjectProxyImpl(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
             this.type = type;
@@ -111,6 +112,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
             this.objectFactory = objectFactory;
             this.constructorArgTypes = constructorArgTypes;
             this.constructorArgs = constructorArgs;
+            this.configuration = configuration;
         }
 
         public static Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
@@ -125,7 +127,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
             final String methodName = method.getName();
             try {
-                synchronized (lazyLoader) {
+                lazyLoader.getLock().lock();
+                try {
                     if (WRITE_REPLACE_METHOD.equals(methodName)) {
                         Object original;
                         if (constructorArgTypes.isEmpty()) {
@@ -135,7 +138,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
                         }
                         PropertyCopier.copyBeanProperties(type, enhanced, original);
                         if (lazyLoader.size() > 0) {
-                            return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs);
+                            return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs, configuration);
                         } else {
                             return original;
                         }
@@ -154,6 +157,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
                             }
                         }
                     }
+                } finally {
+                    lazyLoader.getLock().unlock();
                 }
                 return methodProxy.invoke(enhanced, args);
             } catch (Throwable t) {
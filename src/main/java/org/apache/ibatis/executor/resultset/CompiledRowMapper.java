@@ -0,0 +1,288 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the rows of one result set to a flat result map. Column indexes, type handlers and setters are resolved
+ * when the mapper is compiled, so each row is mapped with index based {@link ResultSet} access and without
+ * {@link org.apache.ibatis.reflection.MetaObject} or column name lookups.
+ * <p>
+ * Types without a default constructor, such as records and other immutable classes, are created with the
+ * constructor arguments resolved at compile time. With the {@link DefaultObjectFactory} the constructor is called
+ * through a {@link MethodHandle} instead of being looked up for every row.
+ *
+ * @since 3.5.9
+ */
+final class CompiledRowMapper {
+
+    private final Class<?> type;
+    private final ObjectFactory objectFactory;
+    private final int[] columnIndexes;
+    private final TypeHandler<?>[] typeHandlers;
+    private final String[] properties;
+    private final Invoker[] setters;
+    private final boolean[] primitives;
+    private final boolean callSettersOnNulls;
+    private final boolean returnInstanceForEmptyRow;
+    private final int[] argColumnIndexes;
+    private final TypeHandler<?>[] argTypeHandlers;
+    private final ResultMapping[] argMappings;
+    private final List<Class<?>> argTypes;
+    private final MethodHandle constructorHandle;
+
+    private CompiledRowMapper(Builder builder) {
+        this.type = builder.type;
+        this.objectFactory = builder.objectFactory;
+        int size = builder.columnIndexes.size();
+        this.columnIndexes = new int[size];
+        this.typeHandlers = builder.typeHandlers.toArray(new TypeHandler<?>[0]);
+        this.properties = builder.properties.toArray(new String[0]);
+        this.setters = builder.setters.toArray(new Invoker[0]);
+        this.primitives = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            columnIndexes[i] = builder.columnIndexes.get(i);
+            primitives[i] = builder.primitives.get(i);
+        }
+        this.callSettersOnNulls = builder.callSettersOnNulls;
+        this.returnInstanceForEmptyRow = builder.returnInstanceForEmptyRow;
+        int argCount = builder.argColumnIndexes.size();
+        this.argColumnIndexes = new int[argCount];
+        for (int i = 0; i < argCount; i++) {
+            argColumnIndexes[i] = builder.argColumnIndexes.get(i);
+        }
+        this.argTypeHandlers = builder.argTypeHandlers.toArray(new TypeHandler<?>[0]);
+        this.argMappings = builder.argMappings.toArray(new ResultMapping[0]);
+        this.argTypes = Collections.unmodifiableList(new ArrayList<>(builder.argTypes));
+        this.constructorHandle = argCount > 0 ? resolveConstructorHandle(type, objectFactory, builder.argTypes) : null;
+    }
+
+    /**
+     * 只有默认的 ObjectFactory 才直接调用构造方法，自定义的 ObjectFactory 仍然通过其 create 方法创建对象
+     */
+    private static MethodHandle resolveConstructorHandle(Class<?> type, ObjectFactory objectFactory, List<Class<?>> argTypes) {
+        if (objectFactory.getClass() != DefaultObjectFactory.class) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor(argTypes.toArray(new Class[0]));
+            if (!constructor.isAccessible()) {
+                if (!Reflector.canControlMemberAccessible()) {
+                    return null;
+                }
+                constructor.setAccessible(true);
+            }
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.genericMethodType(argTypes.size()))
+                    .asSpreader(Object[].class, argTypes.size());
+        } catch (Exception e) {
+            // 交给 ObjectFactory 在创建对象时报告错误
+            return null;
+        }
+    }
+
+    Object map(ResultSet rs) throws SQLException {
+        final int argCount = argColumnIndexes.length;
+        Object rowValue;
+        boolean foundValues = false;
+        if (argCount > 0) {
+            // 构造参数直接读入参数数组，不经过 read 和 build 的中间数组
+            Object[] args = new Object[argCount];
+            for (int i = 0; i < argCount; i++) {
+                args[i] = readArgument(rs, i);
+                foundValues = args[i] != null || foundValues;
+            }
+            if (!foundValues) {
+                return null;
+            }
+            rowValue = instantiate(args);
+        } else {
+            rowValue = objectFactory.create(type);
+        }
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = typeHandlers[i].getResult(rs, columnIndexes[i]);
+            if (value != null) {
+                foundValues = true;
+            }
+            if (value != null || (callSettersOnNulls && !primitives[i])) {
+                // gcode issue #377, call setter on nulls (value is not 'found')
+                setValue(rowValue, i, value);
+            }
+        }
+        return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+    }
+
+    /**
+     * Reads the values of a row, the result set must stay on the calling thread. The constructor arguments come
+     * first, followed by the property values.
+     */
+    Object[] read(ResultSet rs) throws SQLException {
+        final int argCount = argColumnIndexes.length;
+        Object[] values = new Object[argCount + columnIndexes.length];
+        for (int i = 0; i < argCount; i++) {
+            values[i] = readArgument(rs, i);
+        }
+        for (int i = 0; i < columnIndexes.length; i++) {
+            values[argCount + i] = typeHandlers[i].getResult(rs, columnIndexes[i]);
+        }
+        return values;
+    }
+
+    private Object readArgument(ResultSet rs, int i) throws SQLException {
+        if (argMappings[i] == null) {
+            return argTypeHandlers[i].getResult(rs, argColumnIndexes[i]);
+        }
+        try {
+            return argTypeHandlers[i].getResult(rs, argColumnIndexes[i]);
+        } catch (ResultMapException | SQLException e) {
+            throw new ExecutorException("Could not process result for mapping: " + argMappings[i], e);
+        }
+    }
+
+    /**
+     * Creates the result object of a row read by {@link #read(ResultSet)}, may be called on any thread.
+     */
+    Object build(Object[] values) {
+        final int argCount = argColumnIndexes.length;
+        Object rowValue;
+        boolean foundValues = false;
+        if (argCount > 0) {
+            Object[] args = Arrays.copyOf(values, argCount);
+            for (Object arg : args) {
+                foundValues = arg != null || foundValues;
+            }
+            if (!foundValues) {
+                return null;
+            }
+            rowValue = instantiate(args);
+        } else {
+            rowValue = objectFactory.create(type);
+        }
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = values[argCount + i];
+            if (value != null) {
+                foundValues = true;
+            }
+            if (value != null || (callSettersOnNulls && !primitives[i])) {
+                setValue(rowValue, i, value);
+            }
+        }
+        return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+    }
+
+    private Object instantiate(Object[] args) {
+        if (constructorHandle == null) {
+            return objectFactory.create(type, argTypes, Arrays.asList(args));
+        }
+        try {
+            return (Object) constructorHandle.invokeExact(args);
+        } catch (Throwable t) {
+            String types = argTypes.stream().map(Class::getSimpleName).collect(Collectors.joining(","));
+            String values = Arrays.stream(args).map(String::valueOf).collect(Collectors.joining(","));
+            throw new ReflectionException("Error instantiating " + type + " with invalid types (" + types + ") or values (" + values + "). Cause: " + t, t);
+        }
+    }
+
+    private void setValue(Object rowValue, int i, Object value) {
+        try {
+            try {
+                setters[i].invoke(rowValue, new Object[]{value});
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        } catch (Throwable t) {
+            throw new ReflectionException("Could not set property '" + properties[i] + "' of '" + rowValue.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+        }
+    }
+
+    static class Builder {
+        private final Class<?> type;
+        private final ObjectFactory objectFactory;
+        private final List<Integer> columnIndexes = new ArrayList<>();
+        private final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+        private final List<String> properties = new ArrayList<>();
+        private final List<Invoker> setters = new ArrayList<>();
+        private final List<Boolean> primitives = new ArrayList<>();
+        private boolean callSettersOnNulls;
+        private boolean returnInstanceForEmptyRow;
+        private final List<Integer> argColumnIndexes = new ArrayList<>();
+        private final List<TypeHandler<?>> argTypeHandlers = new ArrayList<>();
+        private final List<ResultMapping> argMappings = new ArrayList<>();
+        private final List<Class<?>> argTypes = new ArrayList<>();
+
+        Builder(Class<?> type, ObjectFactory objectFactory) {
+            this.type = type;
+            this.objectFactory = objectFactory;
+        }
+
+        Builder callSettersOnNulls(boolean callSettersOnNulls) {
+            this.callSettersOnNulls = callSettersOnNulls;
+            return this;
+        }
+
+        Builder returnInstanceForEmptyRow(boolean returnInstanceForEmptyRow) {
+            this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+            return this;
+        }
+
+        Builder addColumn(int columnIndex, TypeHandler<?> typeHandler, String property, Invoker setter, boolean primitive) {
+            columnIndexes.add(columnIndex);
+            typeHandlers.add(typeHandler);
+            properties.add(property);
+            setters.add(setter);
+            primitives.add(primitive);
+            return this;
+        }
+
+        /**
+         * Adds a constructor argument, the mapping is used in error messages and is null for automatic mappings.
+         */
+        Builder addConstructorArg(int columnIndex, TypeHandler<?> typeHandler, Class<?> argType, ResultMapping mapping) {
+            argColumnIndexes.add(columnIndex);
+            argTypeHandlers.add(typeHandler);
+            argTypes.add(argType);
+            argMappings.add(mapping);
+            return this;
+        }
+
+        CompiledRowMapper build() {
+            return new CompiledRowMapper(this);
+        }
+    }
+
+}
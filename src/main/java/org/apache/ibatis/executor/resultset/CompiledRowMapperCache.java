@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.type.JdbcType;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the row mappers compiled for flat result maps across statement executions. A row mapper is compiled once
+ * per result map and column set, the column set being the label, JDBC type and class name of every column.
+ *
+ * @since 3.5.9
+ */
+public class CompiledRowMapperCache {
+
+    /**
+     * 不能编译的结果映射保存为空的 Optional，避免每次执行都重新尝试
+     */
+    private final ConcurrentMap<String, Optional<CompiledRowMapper>> rowMappers = new ConcurrentHashMap<>();
+
+    Optional<CompiledRowMapper> get(String key) {
+        return rowMappers.get(key);
+    }
+
+    void put(String key, CompiledRowMapper rowMapper) {
+        rowMappers.putIfAbsent(key, Optional.ofNullable(rowMapper));
+    }
+
+    static String key(ResultSetWrapper rsw, ResultMap resultMap) {
+        final List<String> columnNames = rsw.getColumnNames();
+        final List<JdbcType> jdbcTypes = rsw.getJdbcTypes();
+        final List<String> classNames = rsw.getClassNames();
+        final StringBuilder key = new StringBuilder(resultMap.getId());
+        for (int i = 0; i < columnNames.size(); i++) {
+            key.append('|').append(columnNames.get(i))
+                    .append(':').append(jdbcTypes.get(i))
+                    .append(':').append(classNames.get(i));
+        }
+        return key.toString();
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -32,8 +33,10 @@ import org.apache.ibatis.executor.result.ResultMapException;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.*;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -46,6 +49,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * @author Clinton Begin
@@ -80,6 +85,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // Cached Automappings
     private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
+    // compiled row mappers of the current result set, null if the result map cannot be compiled
+    private final Map<String, CompiledRowMapper> compiledRowMappers = new HashMap<>();
+    private ResultSetWrapper compiledRowMappersResultSet;
+
+    // batched nested selects, loaded before handleResultSets returns
+    private final Map<ResultMapping, BatchResultLoader> batchResultLoaders = new IdentityHashMap<>();
+    private boolean batchNestedQueries;
+    private boolean parallelMapping;
+
     // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
     private boolean useConstructorMappings;
 
@@ -167,6 +181,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
         final List<Object> multipleResults = new ArrayList<>();
+        // rows passed to a custom result handler must be complete
+        batchNestedQueries = resultHandler == null;
+        parallelMapping = resultHandler == null && configuration.getParallelResultMappingChunkSize() > 0;
 
         int resultSetCount = 0;
         ResultSetWrapper rsw = getFirstResultSet(stmt);
@@ -197,6 +214,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             }
         }
 
+        loadBatchedNestedQueries();
         return collapseSingleResultList(multipleResults);
     }
 
@@ -334,13 +352,75 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
         ResultSet resultSet = rsw.getResultSet();
         skipRows(resultSet, rowBounds);
+        final CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap);
+        if (rowMapper != null && parentMapping == null && parallelMapping) {
+            handleRowValuesInParallel(rowMapper, resultSet, resultHandler, resultContext, rowBounds);
+            return;
+        }
         while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
-            ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-            Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+            Object rowValue;
+            if (rowMapper != null) {
+                rowValue = rowMapper.map(resultSet);
+            } else {
+                ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
+                rowValue = getRowValue(rsw, discriminatedResultMap, null);
+            }
             storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
     }
 
+    /**
+     * Reads the rows on the calling thread and maps each full chunk of rows with a task of the common fork-join
+     * pool. The results are passed to the result handler in the order of the rows.
+     */
+    private void handleRowValuesInParallel(CompiledRowMapper rowMapper, ResultSet resultSet, ResultHandler<?> resultHandler,
+                                           DefaultResultContext<Object> resultContext, RowBounds rowBounds) throws SQLException {
+        final int chunkSize = configuration.getParallelResultMappingChunkSize();
+        final Deque<ForkJoinTask<Object[]>> pendingChunks = new ArrayDeque<>();
+        Object[][] chunk = new Object[chunkSize][];
+        int chunkRows = 0;
+        int readRows = 0;
+        try {
+            while (readRows < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+                chunk[chunkRows++] = rowMapper.read(resultSet);
+                readRows++;
+                if (chunkRows == chunkSize) {
+                    final Object[][] rows = chunk;
+                    pendingChunks.add(ForkJoinPool.commonPool().submit(() -> buildRowValues(rowMapper, rows, rows.length)));
+                    chunk = new Object[chunkSize][];
+                    chunkRows = 0;
+                    // 已经完成的分块先交给 resultHandler，减少最后的等待
+                    while (!pendingChunks.isEmpty() && pendingChunks.peekFirst().isDone()) {
+                        callResultHandlerForEach(resultHandler, resultContext, pendingChunks.pollFirst().join());
+                    }
+                }
+            }
+            while (!pendingChunks.isEmpty()) {
+                callResultHandlerForEach(resultHandler, resultContext, pendingChunks.pollFirst().join());
+            }
+        } finally {
+            for (ForkJoinTask<Object[]> pendingChunk : pendingChunks) {
+                pendingChunk.cancel(false);
+            }
+        }
+        // 不足一个分块的行直接在当前线程映射
+        callResultHandlerForEach(resultHandler, resultContext, buildRowValues(rowMapper, chunk, chunkRows));
+    }
+
+    private static Object[] buildRowValues(CompiledRowMapper rowMapper, Object[][] rows, int rowCount) {
+        Object[] rowValues = new Object[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rowValues[i] = rowMapper.build(rows[i]);
+        }
+        return rowValues;
+    }
+
+    private void callResultHandlerForEach(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object[] rowValues) {
+        for (Object rowValue : rowValues) {
+            callResultHandler(resultHandler, resultContext, rowValue);
+        }
+    }
+
     private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
         if (parentMapping != null) {
             linkToParents(rs, parentMapping, rowValue);
@@ -393,6 +473,142 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return rowValue;
     }
 
+    //
+    // COMPILED ROW MAPPER FOR FLAT RESULT MAP
+    //
+
+    private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        if (!configuration.isCompiledRowMappingEnabled()) {
+            return null;
+        }
+        // a cursor handles one row per call, so keep the mappers until the result set changes
+        if (compiledRowMappersResultSet != rsw) {
+            compiledRowMappers.clear();
+            compiledRowMappersResultSet = rsw;
+        }
+        final String mapKey = resultMap.getId();
+        if (compiledRowMappers.containsKey(mapKey)) {
+            return compiledRowMappers.get(mapKey);
+        }
+        // 同一个结果映射和列集合在多次执行之间共用编译好的映射器
+        final CompiledRowMapperCache cache = configuration.getCompiledRowMapperCache();
+        final String cacheKey = CompiledRowMapperCache.key(rsw, resultMap);
+        final Optional<CompiledRowMapper> cached = cache.get(cacheKey);
+        CompiledRowMapper rowMapper;
+        if (cached != null) {
+            rowMapper = cached.orElse(null);
+        } else {
+            rowMapper = compileRowMapper(rsw, resultMap);
+            cache.put(cacheKey, rowMapper);
+        }
+        compiledRowMappers.put(mapKey, rowMapper);
+        return rowMapper;
+    }
+
+    private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        final Class<?> resultType = resultMap.getType();
+        if (!configuration.isUseColumnLabel()
+                || resultMap.getDiscriminator() != null
+                || resultMap.hasNestedResultMaps()
+                || resultMap.hasNestedQueries()
+                || resultType.isInterface()
+                || Map.class.isAssignableFrom(resultType)
+                || Collection.class.isAssignableFrom(resultType)
+                || configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class
+                || hasTypeHandlerForResultObject(rsw, resultType)) {
+            return null;
+        }
+        final MetaClass metaType = MetaClass.forClass(resultType, reflectorFactory);
+        final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+        for (ResultMapping propertyMapping : propertyMappings) {
+            if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null) {
+                return null;
+            }
+        }
+        final CompiledRowMapper.Builder builder = new CompiledRowMapper.Builder(resultType, objectFactory)
+                .callSettersOnNulls(configuration.isCallSettersOnNulls())
+                .returnInstanceForEmptyRow(configuration.isReturnInstanceForEmptyRow());
+        if (!addCompiledConstructorArgs(builder, rsw, resultMap, metaType)) {
+            return null;
+        }
+        if (shouldApplyAutomaticMappings(resultMap, false)) {
+            final List<String> columnNames = rsw.getColumnNames();
+            for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaType, null)) {
+                if (!addCompiledColumn(builder, metaType, columnNames.indexOf(mapping.column) + 1, mapping.typeHandler, mapping.property)) {
+                    return null;
+                }
+            }
+        }
+        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+        for (ResultMapping propertyMapping : propertyMappings) {
+            final String column = propertyMapping.getColumn();
+            final String property = propertyMapping.getProperty();
+            if (column == null || property == null || !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+                continue;
+            }
+            if (!addCompiledColumn(builder, metaType, findColumnIndex(rsw, column), propertyMapping.getTypeHandler(), property)) {
+                return null;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Resolves the constructor arguments the same way as {@link #createResultObject(ResultSetWrapper, ResultMap, List, List, String)},
+     * returns false when the result object has to be created by the row-by-row mapping.
+     */
+    private boolean addCompiledConstructorArgs(CompiledRowMapper.Builder builder, ResultSetWrapper rsw, ResultMap resultMap, MetaClass metaType) throws SQLException {
+        final Class<?> resultType = resultMap.getType();
+        final List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+        if (!constructorMappings.isEmpty()) {
+            for (ResultMapping constructorMapping : constructorMappings) {
+                if (constructorMapping.getNestedQueryId() != null || constructorMapping.getNestedResultMapId() != null
+                        || constructorMapping.getColumn() == null || constructorMapping.isCompositeResult()) {
+                    return false;
+                }
+                final int columnIndex = findColumnIndex(rsw, constructorMapping.getColumn());
+                if (columnIndex < 1) {
+                    return false;
+                }
+                builder.addConstructorArg(columnIndex, constructorMapping.getTypeHandler(), constructorMapping.getJavaType(), constructorMapping);
+            }
+            return true;
+        } else if (metaType.hasDefaultConstructor()) {
+            return true;
+        } else if (!shouldApplyAutomaticMappings(resultMap, false)) {
+            return false;
+        }
+        final Constructor<?> constructor = findAutomapConstructor(rsw, resultType);
+        if (constructor == null || constructor.getParameterCount() > rsw.getColumnNames().size()) {
+            return false;
+        }
+        final Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            final TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterTypes[i], rsw.getColumnNames().get(i));
+            builder.addConstructorArg(i + 1, typeHandler, parameterTypes[i], null);
+        }
+        return true;
+    }
+
+    private boolean addCompiledColumn(CompiledRowMapper.Builder builder, MetaClass metaType, int columnIndex, TypeHandler<?> typeHandler, String property) {
+        // nested properties are set through MetaObject
+        if (columnIndex < 1 || property.indexOf('.') >= 0 || property.indexOf('[') >= 0 || !metaType.hasSetter(property)) {
+            return false;
+        }
+        builder.addColumn(columnIndex, typeHandler, property, metaType.getSetInvoker(property), metaType.getSetterType(property).isPrimitive());
+        return true;
+    }
+
+    private int findColumnIndex(ResultSetWrapper rsw, String column) {
+        final List<String> columnNames = rsw.getColumnNames();
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(column)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
     //
     // GET VALUE FROM ROW FOR NESTED RESULT MAP
     //
@@ -498,6 +714,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
+        return createAutomaticMappings(rsw, resultMap, metaObject, null, columnPrefix);
+    }
+
+    /**
+     * The compiled row mapper resolves the properties by the result type, because the result object may not be
+     * created before its constructor arguments have been read.
+     */
+    private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaClass metaType, String columnPrefix) throws SQLException {
+        return createAutomaticMappings(rsw, resultMap, null, metaType, columnPrefix);
+    }
+
+    private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, MetaClass metaType,
+                                                                    String columnPrefix) throws SQLException {
         final String mapKey = resultMap.getId() + ":" + columnPrefix;
         List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
         if (autoMapping == null) {
@@ -514,12 +743,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                         continue;
                     }
                 }
-                final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
-                if (property != null && metaObject.hasSetter(property)) {
+                final String property = metaObject != null
+                        ? metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase())
+                        : metaType.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
+                if (property != null && (metaObject != null ? metaObject.hasSetter(property) : metaType.hasSetter(property))) {
                     if (resultMap.getMappedProperties().contains(property)) {
                         continue;
                     }
-                    final Class<?> propertyType = metaObject.getSetterType(property);
+                    final Class<?> propertyType = metaObject != null ? metaObject.getSetterType(property) : metaType.getSetterType(property);
                     if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
                         final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
                         autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
@@ -673,18 +904,25 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     private Object createByConstructorSignature(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) throws SQLException {
+        final Constructor<?> constructor = findAutomapConstructor(rsw, resultType);
+        if (constructor != null) {
+            return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructor);
+        }
+        throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
+    }
+
+    private Constructor<?> findAutomapConstructor(ResultSetWrapper rsw, Class<?> resultType) {
         final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
         final Constructor<?> defaultConstructor = findDefaultConstructor(constructors);
         if (defaultConstructor != null) {
-            return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, defaultConstructor);
-        } else {
-            for (Constructor<?> constructor : constructors) {
-                if (allowedConstructorUsingTypeHandlers(constructor, rsw.getJdbcTypes())) {
-                    return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructor);
-                }
+            return defaultConstructor;
+        }
+        for (Constructor<?> constructor : constructors) {
+            if (allowedConstructorUsingTypeHandlers(constructor, rsw.getJdbcTypes())) {
+                return constructor;
             }
         }
-        throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
+        return null;
     }
 
     private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs, Constructor<?> constructor) throws SQLException {
@@ -767,8 +1005,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         final String property = propertyMapping.getProperty();
         final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
         final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+        Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+        final Object nestedQueryKey = nestedQueryParameterObject;
+        final boolean batched = nestedQueryParameterObject != null && getNestedSelectBatchSize(propertyMapping) > 0;
         Object value = null;
+        if (batched) {
+            if (isBatchedNestedQuery(propertyMapping)) {
+                final BatchResultLoader batchResultLoader = getBatchResultLoader(propertyMapping, nestedQuery);
+                batchResultLoader.addTarget(nestedQueryParameterObject, metaResultObject, property);
+                if (batchResultLoader.size() >= getNestedSelectBatchSize(propertyMapping)) {
+                    batchResultLoader.load();
+                }
+                return DEFERRED;
+            }
+            // the nested select expects a collection of keys
+            nestedQueryParameterObject = ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(nestedQueryParameterObject), null);
+        }
         if (nestedQueryParameterObject != null) {
             final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
             final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
@@ -777,7 +1029,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
                 value = DEFERRED;
             } else {
-                final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+                final ResultLoader resultLoader = batched && isBatchedLazyQuery(propertyMapping)
+                        ? getBatchResultLoader(propertyMapping, nestedQuery).newResultLoader(nestedQueryKey, nestedQueryParameterObject, key, nestedBoundSql)
+                        : new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
                 if (propertyMapping.isLazy()) {
                     lazyLoader.addLoader(property, metaResultObject, resultLoader);
                     value = DEFERRED;
@@ -789,6 +1043,81 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return value;
     }
 
+    //
+    // BATCHED NESTED QUERIES
+    //
+
+    private int getNestedSelectBatchSize(ResultMapping propertyMapping) {
+        final Integer batchSize = propertyMapping.getBatchSize();
+        return batchSize != null ? batchSize : configuration.getDefaultNestedSelectBatchSize();
+    }
+
+    /**
+     * Whether the keys of a nested select are collected and loaded together. Nested selects with a batch size always
+     * receive a collection of keys, a single one if they cannot be batched.
+     */
+    private boolean isBatchedNestedQuery(ResultMapping propertyMapping) {
+        return batchNestedQueries
+                && !propertyMapping.isLazy()
+                && !propertyMapping.isCompositeResult()
+                && propertyMapping.getProperty() != null;
+    }
+
+    /**
+     * Whether the lazy loaders of a nested select share a {@link BatchResultLoader}, so that loading one of them also
+     * loads its siblings.
+     */
+    private boolean isBatchedLazyQuery(ResultMapping propertyMapping) {
+        return propertyMapping.isLazy()
+                && !propertyMapping.isCompositeResult()
+                && propertyMapping.getProperty() != null;
+    }
+
+    private BatchResultLoader getBatchResultLoader(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+        BatchResultLoader batchResultLoader = batchResultLoaders.get(propertyMapping);
+        if (batchResultLoader == null) {
+            batchResultLoader = new BatchResultLoader(configuration, executor, nestedQuery, propertyMapping.getJavaType(),
+                    resolveBatchKeyProperty(propertyMapping, nestedQuery), getNestedSelectBatchSize(propertyMapping));
+            batchResultLoaders.put(propertyMapping, batchResultLoader);
+        }
+        return batchResultLoader;
+    }
+
+    /**
+     * Finds the property of the nested select results that holds the key: the property mapped to the
+     * {@code foreignColumn}, or the single id property of the nested result map.
+     */
+    private String resolveBatchKeyProperty(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+        final ResultMap nestedResultMap = nestedQuery.getResultMaps().get(0);
+        final String foreignColumn = propertyMapping.getForeignColumn();
+        if (foreignColumn == null) {
+            final List<ResultMapping> idResultMappings = nestedResultMap.getIdResultMappings();
+            if (idResultMappings.size() == 1 && idResultMappings.get(0).getProperty() != null) {
+                return idResultMappings.get(0).getProperty();
+            }
+        } else {
+            for (ResultMapping resultMapping : nestedResultMap.getResultMappings()) {
+                if (foreignColumn.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null) {
+                    return resultMapping.getProperty();
+                }
+            }
+            final String property = MetaClass.forClass(nestedResultMap.getType(), reflectorFactory)
+                    .findProperty(foreignColumn, configuration.isMapUnderscoreToCamelCase());
+            if (property != null) {
+                return property;
+            }
+        }
+        throw new ExecutorException("Could not find the key property in the results of '" + nestedQuery.getId()
+                + "' for batched nested select of property '" + propertyMapping.getProperty()
+                + "'. Specify the key column of the nested results with foreignColumn.");
+    }
+
+    private void loadBatchedNestedQueries() throws SQLException {
+        for (BatchResultLoader batchResultLoader : batchResultLoaders.values()) {
+            batchResultLoader.load();
+        }
+    }
+
     private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
         if (resultMapping.isCompositeResult()) {
             return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
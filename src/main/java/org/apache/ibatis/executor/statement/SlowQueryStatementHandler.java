@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.metrics.SlowQueryRecorder;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Statement handler that times the executions of its delegate and hands the slow ones to a
+ * {@link SlowQueryRecorder}. It wraps the statement handler returned by the plugins, so plugins still intercept the
+ * {@link RoutingStatementHandler}. Batched statements are timed by the batch executor when they are executed.
+ *
+ * @since 3.5.9
+ */
+public class SlowQueryStatementHandler implements StatementHandler {
+
+    private final StatementHandler delegate;
+    private final MappedStatement mappedStatement;
+    private final SlowQueryRecorder recorder;
+
+    public SlowQueryStatementHandler(StatementHandler delegate, MappedStatement mappedStatement, SlowQueryRecorder recorder) {
+        this.delegate = delegate;
+        this.mappedStatement = mappedStatement;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
+        return delegate.prepare(connection, transactionTimeout);
+    }
+
+    @Override
+    public void parameterize(Statement statement) throws SQLException {
+        delegate.parameterize(statement);
+    }
+
+    @Override
+    public void batch(Statement statement) throws SQLException {
+        delegate.batch(statement);
+    }
+
+    @Override
+    public int update(Statement statement) throws SQLException {
+        long start = System.nanoTime();
+        int updateCount = delegate.update(statement);
+        afterExecute(statement, start, updateCount);
+        return updateCount;
+    }
+
+    @Override
+    public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
+        long start = System.nanoTime();
+        List<E> list = delegate.query(statement, resultHandler);
+        // 结果交给 ResultHandler 处理时返回的是空集合
+        afterExecute(statement, start, resultHandler == null ? list.size() : -1);
+        return list;
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+        long start = System.nanoTime();
+        Cursor<E> cursor = delegate.queryCursor(statement);
+        afterExecute(statement, start, -1);
+        return cursor;
+    }
+
+    @Override
+    public BoundSql getBoundSql() {
+        return delegate.getBoundSql();
+    }
+
+    @Override
+    public ParameterHandler getParameterHandler() {
+        return delegate.getParameterHandler();
+    }
+
+    private void afterExecute(Statement statement, long start, int rows) throws SQLException {
+        long elapsed = System.nanoTime() - start;
+        if (recorder.isSlow(elapsed)) {
+            recorder.record(mappedStatement, delegate.getBoundSql(), statement.getConnection(), elapsed, rows);
+        }
+    }
+
+}
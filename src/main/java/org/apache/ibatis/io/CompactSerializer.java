@@ -0,0 +1,1012 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Compact binary {@link Serializer} for the types that usually end up in a result: beans, lists, sets, maps,
+ * arrays, boxed primitives, strings, numbers, enums and {@code java.util}/{@code java.sql}/{@code java.time} dates.
+ * Numbers are written as variable length integers, class names and strings are written once per graph and
+ * shared and cyclic references are preserved.
+ * <p>
+ * A bean is written field by field when its class implements {@link Serializable}, has a no-arg constructor and
+ * does not customize Java serialization ({@code writeObject}, {@code readObject}, {@code writeReplace},
+ * {@code readResolve}, {@code serialPersistentFields} or {@link Externalizable}). It is restored by calling the
+ * no-arg constructor, resetting transient fields to their default value and then setting the serialized fields.
+ * Every other object, lazy loading proxies included, is embedded using standard Java serialization.
+ * <p>
+ * Like an {@link ObjectInputStream}, reading checks every class named in the stream against the process-wide JEP-290
+ * serial filter before it is initialized or instantiated.
+ *
+ * @since 3.5.9
+ */
+public class CompactSerializer implements Serializer {
+
+    private static final int MAGIC = 0xC5;
+
+    private static final int NULL = 0;
+    private static final int REF = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int BYTE = 4;
+    private static final int SHORT = 5;
+    private static final int CHAR = 6;
+    private static final int INT = 7;
+    private static final int LONG = 8;
+    private static final int FLOAT = 9;
+    private static final int DOUBLE = 10;
+    private static final int STRING = 11;
+    private static final int STRING_REF = 12;
+    private static final int BIG_INTEGER = 13;
+    private static final int BIG_DECIMAL = 14;
+    private static final int DATE = 15;
+    private static final int SQL_DATE = 16;
+    private static final int SQL_TIME = 17;
+    private static final int SQL_TIMESTAMP = 18;
+    private static final int LOCAL_DATE = 19;
+    private static final int LOCAL_TIME = 20;
+    private static final int LOCAL_DATE_TIME = 21;
+    private static final int INSTANT = 22;
+    private static final int OFFSET_DATE_TIME = 23;
+    private static final int ZONED_DATE_TIME = 24;
+    private static final int UUID_VALUE = 25;
+    private static final int ENUM = 26;
+    private static final int CLASS = 27;
+    private static final int BYTE_ARRAY = 28;
+    private static final int ARRAY = 29;
+    private static final int ARRAY_LIST = 30;
+    private static final int LINKED_LIST = 31;
+    private static final int HASH_SET = 32;
+    private static final int LINKED_HASH_SET = 33;
+    private static final int TREE_SET = 34;
+    private static final int HASH_MAP = 35;
+    private static final int LINKED_HASH_MAP = 36;
+    private static final int TREE_MAP = 37;
+    private static final int BEAN = 38;
+    private static final int JAVA = 39;
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : Arrays.asList(boolean.class, byte.class, short.class, char.class, int.class, long.class,
+                float.class, double.class, void.class)) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private static final ClassValue<BeanCodec> BEAN_CODECS = new ClassValue<BeanCodec>() {
+        @Override
+        protected BeanCodec computeValue(Class<?> type) {
+            return BeanCodec.forClass(type);
+        }
+    };
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        Output out = new Output();
+        out.writeByte(MAGIC);
+        out.writeObject(value);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (bytes.length == 0 || (bytes[0] & 0xFF) != MAGIC) {
+            throw new StreamCorruptedException("Not a compact serialized stream");
+        }
+        try {
+            return new Input(bytes).readObject();
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw (StreamCorruptedException) new StreamCorruptedException("Truncated or corrupted stream").initCause(e);
+        }
+    }
+
+    /**
+     * 加载类时不执行静态初始化，并先经过 JEP-290 过滤器的检查，之后才会创建实例
+     */
+    private static Class<?> resolveClass(String name) throws IOException, ClassNotFoundException {
+        Class<?> type = PRIMITIVE_TYPES.get(name);
+        if (type != null) {
+            return type;
+        }
+        type = loadClass(name);
+        SerialFilterChecker.checkClass(type);
+        return type;
+    }
+
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        ClassLoader[] classLoaders = {Resources.getDefaultClassLoader(), Thread.currentThread().getContextClassLoader(),
+                CompactSerializer.class.getClassLoader(), ClassLoader.getSystemClassLoader()};
+        for (ClassLoader classLoader : classLoaders) {
+            if (classLoader != null) {
+                try {
+                    return Class.forName(name, false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    // 尝试下一个类加载器
+                }
+            }
+        }
+        throw new ClassNotFoundException("Cannot find class: " + name);
+    }
+
+    private static boolean isCollectionWithoutComparator(Object value) {
+        Comparator<?> comparator = value instanceof TreeSet ? ((TreeSet<?>) value).comparator() : ((TreeMap<?, ?>) value).comparator();
+        return comparator == null;
+    }
+
+    /**
+     * 写入端，每次序列化新建一个
+     */
+    private static final class Output {
+
+        private byte[] buf = new byte[256];
+        private int pos;
+        private final Map<Object, Integer> handles = new IdentityHashMap<>();
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        void writeObject(Object value) throws IOException {
+            if (value == null) {
+                writeByte(NULL);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                writeString((String) value);
+            } else if (type == Integer.class) {
+                writeByte(INT);
+                writeVarInt(zigZag((Integer) value));
+            } else if (type == Long.class) {
+                writeByte(LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (type == Boolean.class) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (type == Double.class) {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (type == Float.class) {
+                writeByte(FLOAT);
+                writeInt(Float.floatToRawIntBits((Float) value));
+            } else if (type == Short.class) {
+                writeByte(SHORT);
+                writeVarInt(zigZag((Short) value));
+            } else if (type == Byte.class) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            } else if (type == Character.class) {
+                writeByte(CHAR);
+                writeVarInt((Character) value);
+            } else if (!writeValue(type, value)) {
+                writeReference(type, value);
+            }
+        }
+
+        /**
+         * 写入不需要保留引用的不可变类型
+         */
+        private boolean writeValue(Class<?> type, Object value) {
+            if (type == BigDecimal.class) {
+                BigDecimal decimal = (BigDecimal) value;
+                writeByte(BIG_DECIMAL);
+                writeBytes(decimal.unscaledValue().toByteArray());
+                writeVarInt(zigZag(decimal.scale()));
+            } else if (type == BigInteger.class) {
+                writeByte(BIG_INTEGER);
+                writeBytes(((BigInteger) value).toByteArray());
+            } else if (type == Date.class) {
+                writeByte(DATE);
+                writeVarLong(zigZag(((Date) value).getTime()));
+            } else if (type == java.sql.Date.class) {
+                writeByte(SQL_DATE);
+                writeVarLong(zigZag(((Date) value).getTime()));
+            } else if (type == Time.class) {
+                writeByte(SQL_TIME);
+                writeVarLong(zigZag(((Date) value).getTime()));
+            } else if (type == Timestamp.class) {
+                Timestamp timestamp = (Timestamp) value;
+                writeByte(SQL_TIMESTAMP);
+                writeVarLong(zigZag(timestamp.getTime()));
+                writeVarInt(timestamp.getNanos());
+            } else if (type == LocalDate.class) {
+                writeByte(LOCAL_DATE);
+                writeLocalDate((LocalDate) value);
+            } else if (type == LocalTime.class) {
+                writeByte(LOCAL_TIME);
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (type == LocalDateTime.class) {
+                writeByte(LOCAL_DATE_TIME);
+                writeLocalDateTime((LocalDateTime) value);
+            } else if (type == Instant.class) {
+                Instant instant = (Instant) value;
+                writeByte(INSTANT);
+                writeVarLong(zigZag(instant.getEpochSecond()));
+                writeVarInt(instant.getNano());
+            } else if (type == OffsetDateTime.class) {
+                OffsetDateTime dateTime = (OffsetDateTime) value;
+                writeByte(OFFSET_DATE_TIME);
+                writeLocalDateTime(dateTime.toLocalDateTime());
+                writeVarInt(zigZag(dateTime.getOffset().getTotalSeconds()));
+            } else if (type == ZonedDateTime.class) {
+                ZonedDateTime dateTime = (ZonedDateTime) value;
+                writeByte(ZONED_DATE_TIME);
+                writeLocalDateTime(dateTime.toLocalDateTime());
+                writeVarInt(zigZag(dateTime.getOffset().getTotalSeconds()));
+                writeRawString(dateTime.getZone().getId());
+            } else if (type == UUID.class) {
+                UUID uuid = (UUID) value;
+                writeByte(UUID_VALUE);
+                writeLong(uuid.getMostSignificantBits());
+                writeLong(uuid.getLeastSignificantBits());
+            } else if (value instanceof Enum) {
+                writeByte(ENUM);
+                writeClass(((Enum<?>) value).getDeclaringClass());
+                writeString(((Enum<?>) value).name());
+            } else if (type == Class.class) {
+                writeByte(CLASS);
+                writeClass((Class<?>) value);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private void writeReference(Class<?> type, Object value) throws IOException {
+            Integer handle = handles.get(value);
+            if (handle != null) {
+                writeByte(REF);
+                writeVarInt(handle);
+                return;
+            }
+            handles.put(value, handles.size());
+            if (type == byte[].class) {
+                writeByte(BYTE_ARRAY);
+                writeBytes((byte[]) value);
+            } else if (type.isArray()) {
+                writeByte(ARRAY);
+                writeClass(type);
+                writeArray(type.getComponentType(), value);
+            } else if (type == ArrayList.class) {
+                writeCollection(ARRAY_LIST, (Collection<?>) value);
+            } else if (type == LinkedList.class) {
+                writeCollection(LINKED_LIST, (Collection<?>) value);
+            } else if (type == HashSet.class) {
+                writeCollection(HASH_SET, (Collection<?>) value);
+            } else if (type == LinkedHashSet.class) {
+                writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+            } else if (type == TreeSet.class && isCollectionWithoutComparator(value)) {
+                writeCollection(TREE_SET, (Collection<?>) value);
+            } else if (type == HashMap.class) {
+                writeMap(HASH_MAP, (Map<?, ?>) value);
+            } else if (type == LinkedHashMap.class) {
+                writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+            } else if (type == TreeMap.class && isCollectionWithoutComparator(value)) {
+                writeMap(TREE_MAP, (Map<?, ?>) value);
+            } else {
+                BeanCodec codec = BEAN_CODECS.get(type);
+                if (codec.isSupported()) {
+                    writeByte(BEAN);
+                    if (writeClass(type)) {
+                        writeInt(codec.fingerprint);
+                    }
+                    codec.write(this, value);
+                } else {
+                    writeByte(JAVA);
+                    writeBytes(javaSerialize(value));
+                }
+            }
+        }
+
+        private byte[] javaSerialize(Object value) throws IOException {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            }
+            return bos.toByteArray();
+        }
+
+        private void writeArray(Class<?> componentType, Object array) throws IOException {
+            int length = Array.getLength(array);
+            writeVarInt(length);
+            if (!componentType.isPrimitive()) {
+                for (Object element : (Object[]) array) {
+                    writeObject(element);
+                }
+            } else if (componentType == int.class) {
+                for (int element : (int[]) array) {
+                    writeVarInt(zigZag(element));
+                }
+            } else if (componentType == long.class) {
+                for (long element : (long[]) array) {
+                    writeVarLong(zigZag(element));
+                }
+            } else if (componentType == double.class) {
+                for (double element : (double[]) array) {
+                    writeLong(Double.doubleToRawLongBits(element));
+                }
+            } else if (componentType == float.class) {
+                for (float element : (float[]) array) {
+                    writeInt(Float.floatToRawIntBits(element));
+                }
+            } else if (componentType == boolean.class) {
+                for (boolean element : (boolean[]) array) {
+                    writeByte(element ? 1 : 0);
+                }
+            } else if (componentType == short.class) {
+                for (short element : (short[]) array) {
+                    writeVarInt(zigZag(element));
+                }
+            } else {
+                for (char element : (char[]) array) {
+                    writeVarInt(element);
+                }
+            }
+        }
+
+        private void writeCollection(int tag, Collection<?> collection) throws IOException {
+            writeByte(tag);
+            writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeObject(element);
+            }
+        }
+
+        private void writeMap(int tag, Map<?, ?> map) throws IOException {
+            writeByte(tag);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        }
+
+        private void writeLocalDate(LocalDate date) {
+            writeVarInt(zigZag(date.getYear()));
+            writeByte(date.getMonthValue());
+            writeByte(date.getDayOfMonth());
+        }
+
+        private void writeLocalDateTime(LocalDateTime dateTime) {
+            writeLocalDate(dateTime.toLocalDate());
+            writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+        }
+
+        /**
+         * 类名在同一个流中只写一次，之后写序号
+         * @return 是否第一次写入该类
+         */
+        private boolean writeClass(Class<?> type) {
+            Integer index = classes.get(type);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return false;
+            }
+            classes.put(type, classes.size());
+            writeVarInt(0);
+            writeRawString(type.getName());
+            return true;
+        }
+
+        private void writeString(String value) {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeByte(STRING_REF);
+                writeVarInt(index);
+            } else {
+                strings.put(value, strings.size());
+                writeByte(STRING);
+                writeRawString(value);
+            }
+        }
+
+        private void writeRawString(String value) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+            // 纯 ASCII 时直接写入，避免额外的数组分配
+            writeVarInt(length);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buf[pos++] = (byte) value.charAt(i);
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buf[pos++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            buf[pos++] = (byte) (value >>> 24);
+            buf[pos++] = (byte) (value >>> 16);
+            buf[pos++] = (byte) (value >>> 8);
+            buf[pos++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void ensureCapacity(int length) {
+            if (pos + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + length));
+            }
+        }
+    }
+
+    /**
+     * 读取端，每次反序列化新建一个
+     */
+    private static final class Input {
+
+        private final byte[] buf;
+        private int pos = 1;
+        private final List<Object> handles = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+
+        Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object readObject() throws IOException, ClassNotFoundException {
+            int tag = readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REF:
+                    return handles.get(readVarInt());
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case BYTE:
+                    return (byte) readByte();
+                case SHORT:
+                    return (short) unZigZag(readVarInt());
+                case CHAR:
+                    return (char) readVarInt();
+                case INT:
+                    return unZigZag(readVarInt());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case FLOAT:
+                    return Float.intBitsToFloat(readInt());
+                case DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case STRING: {
+                    String value = readRawString();
+                    strings.add(value);
+                    return value;
+                }
+                case STRING_REF:
+                    return strings.get(readVarInt());
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case BIG_DECIMAL:
+                    return new BigDecimal(new BigInteger(readBytes()), unZigZag(readVarInt()));
+                case DATE:
+                    return new Date(unZigZag(readVarLong()));
+                case SQL_DATE:
+                    return new java.sql.Date(unZigZag(readVarLong()));
+                case SQL_TIME:
+                    return new Time(unZigZag(readVarLong()));
+                case SQL_TIMESTAMP: {
+                    Timestamp timestamp = new Timestamp(unZigZag(readVarLong()));
+                    timestamp.setNanos(readVarInt());
+                    return timestamp;
+                }
+                case LOCAL_DATE:
+                    return readLocalDate();
+                case LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case LOCAL_DATE_TIME:
+                    return readLocalDateTime();
+                case INSTANT:
+                    return Instant.ofEpochSecond(unZigZag(readVarLong()), readVarInt());
+                case OFFSET_DATE_TIME:
+                    return OffsetDateTime.of(readLocalDateTime(), ZoneOffset.ofTotalSeconds(unZigZag(readVarInt())));
+                case ZONED_DATE_TIME: {
+                    LocalDateTime dateTime = readLocalDateTime();
+                    ZoneOffset offset = ZoneOffset.ofTotalSeconds(unZigZag(readVarInt()));
+                    return ZonedDateTime.ofLocal(dateTime, ZoneId.of(readRawString()), offset);
+                }
+                case UUID_VALUE:
+                    return new UUID(readLong(), readLong());
+                case ENUM:
+                    return Enum.valueOf((Class) readClass(), (String) readObject());
+                case CLASS:
+                    return readClass();
+                case BYTE_ARRAY: {
+                    byte[] value = readBytes();
+                    handles.add(value);
+                    return value;
+                }
+                case ARRAY:
+                    return readArray(readClass());
+                case ARRAY_LIST: {
+                    int size = readVarInt();
+                    return readCollection(new ArrayList<>(size), size);
+                }
+                case LINKED_LIST:
+                    return readCollection(new LinkedList<>(), readVarInt());
+                case HASH_SET: {
+                    int size = readVarInt();
+                    return readCollection(new HashSet<>(capacity(size)), size);
+                }
+                case LINKED_HASH_SET: {
+                    int size = readVarInt();
+                    return readCollection(new LinkedHashSet<>(capacity(size)), size);
+                }
+                case TREE_SET:
+                    return readCollection(new TreeSet<>(), readVarInt());
+                case HASH_MAP: {
+                    int size = readVarInt();
+                    return readMap(new HashMap<>(capacity(size)), size);
+                }
+                case LINKED_HASH_MAP: {
+                    int size = readVarInt();
+                    return readMap(new LinkedHashMap<>(capacity(size)), size);
+                }
+                case TREE_MAP:
+                    return readMap(new TreeMap<>(), readVarInt());
+                case BEAN:
+                    return readBean();
+                case JAVA:
+                    return readJava();
+                default:
+                    throw new StreamCorruptedException("Unknown type tag " + tag);
+            }
+        }
+
+        private Object readArray(Class<?> arrayType) throws IOException, ClassNotFoundException {
+            Class<?> componentType = arrayType.getComponentType();
+            int length = readVarInt();
+            Object array = Array.newInstance(componentType, length);
+            handles.add(array);
+            if (!componentType.isPrimitive()) {
+                Object[] elements = (Object[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = readObject();
+                }
+            } else if (componentType == int.class) {
+                int[] elements = (int[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = unZigZag(readVarInt());
+                }
+            } else if (componentType == long.class) {
+                long[] elements = (long[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = unZigZag(readVarLong());
+                }
+            } else if (componentType == double.class) {
+                double[] elements = (double[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = Double.longBitsToDouble(readLong());
+                }
+            } else if (componentType == float.class) {
+                float[] elements = (float[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = Float.intBitsToFloat(readInt());
+                }
+            } else if (componentType == boolean.class) {
+                boolean[] elements = (boolean[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = readByte() != 0;
+                }
+            } else if (componentType == short.class) {
+                short[] elements = (short[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = (short) unZigZag(readVarInt());
+                }
+            } else if (componentType == char.class) {
+                char[] elements = (char[]) array;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = (char) readVarInt();
+                }
+            } else {
+                throw new InvalidClassException(arrayType.getName(), "Unsupported array type");
+            }
+            return array;
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection, int size) throws IOException, ClassNotFoundException {
+            handles.add(collection);
+            for (int i = 0; i < size; i++) {
+                collection.add(readObject());
+            }
+            return collection;
+        }
+
+        private Map<Object, Object> readMap(Map<Object, Object> map, int size) throws IOException, ClassNotFoundException {
+            handles.add(map);
+            for (int i = 0; i < size; i++) {
+                Object key = readObject();
+                map.put(key, readObject());
+            }
+            return map;
+        }
+
+        private Object readBean() throws IOException, ClassNotFoundException {
+            int index = readVarInt();
+            Class<?> type;
+            BeanCodec codec;
+            if (index == 0) {
+                type = resolveClass(readRawString());
+                classes.add(type);
+                codec = BEAN_CODECS.get(type);
+                if (!codec.isSupported() || codec.fingerprint != readInt()) {
+                    throw new InvalidClassException(type.getName(), "Incompatible class definition");
+                }
+            } else {
+                type = classes.get(index - 1);
+                codec = BEAN_CODECS.get(type);
+                if (!codec.isSupported()) {
+                    throw new InvalidClassException(type.getName(), "Incompatible class definition");
+                }
+            }
+            return codec.read(this);
+        }
+
+        private Object readJava() throws IOException, ClassNotFoundException {
+            int handle = handles.size();
+            handles.add(null);
+            int length = readVarInt();
+            SerialFilterChecker.check();
+            Object value;
+            try (ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(new ByteArrayInputStream(buf, pos, length))) {
+                value = ois.readObject();
+            }
+            pos += length;
+            handles.set(handle, value);
+            return value;
+        }
+
+        private LocalDate readLocalDate() {
+            int year = unZigZag(readVarInt());
+            int month = readByte();
+            return LocalDate.of(year, month, readByte());
+        }
+
+        private LocalDateTime readLocalDateTime() {
+            LocalDate date = readLocalDate();
+            return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException {
+            int index = readVarInt();
+            if (index > 0) {
+                return classes.get(index - 1);
+            }
+            Class<?> type = resolveClass(readRawString());
+            classes.add(type);
+            return type;
+        }
+
+        private String readRawString() {
+            int length = readVarInt();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private byte[] readBytes() {
+            int length = readVarInt();
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        int readByte() {
+            return buf[pos++] & 0xFF;
+        }
+
+        int readInt() {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = buf[pos++];
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed variable length int");
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed variable length long");
+        }
+
+        private static int capacity(int size) {
+            return Math.max((int) (size / .75f) + 1, 16);
+        }
+    }
+
+    /**
+     * 按字段读写 bean，字段顺序固定为父类在前、同一类中按名称排序
+     */
+    private static final class BeanCodec {
+
+        private static final BeanCodec UNSUPPORTED = new BeanCodec(null, new Field[0], new Field[0]);
+
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final Field[] transientFields;
+        private final int fingerprint;
+
+        private BeanCodec(Constructor<?> constructor, Field[] fields, Field[] transientFields) {
+            this.constructor = constructor;
+            this.fields = fields;
+            this.transientFields = transientFields;
+            int hash = constructor == null ? 0 : constructor.getDeclaringClass().getName().hashCode();
+            for (Field field : fields) {
+                hash = 31 * (31 * hash + field.getName().hashCode()) + field.getType().getName().hashCode();
+            }
+            this.fingerprint = hash;
+        }
+
+        static BeanCodec forClass(Class<?> type) {
+            if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+                    || type.isArray() || isPlatformClass(type) || hasCustomSerialization(type)) {
+                return UNSUPPORTED;
+            }
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                List<Class<?>> hierarchy = new ArrayList<>();
+                for (Class<?> current = type; current != null && Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+                    hierarchy.add(0, current);
+                }
+                List<Field> fields = new ArrayList<>();
+                List<Field> transientFields = new ArrayList<>();
+                for (Class<?> current : hierarchy) {
+                    Field[] declaredFields = current.getDeclaredFields();
+                    Arrays.sort(declaredFields, Comparator.comparing(Field::getName));
+                    for (Field field : declaredFields) {
+                        int modifiers = field.getModifiers();
+                        if (Modifier.isStatic(modifiers)) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        (Modifier.isTransient(modifiers) ? transientFields : fields).add(field);
+                    }
+                }
+                return new BeanCodec(constructor, fields.toArray(new Field[0]), transientFields.toArray(new Field[0]));
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // 没有无参构造方法或无法访问字段时交给 Java 序列化处理
+                return UNSUPPORTED;
+            }
+        }
+
+        private static boolean isPlatformClass(Class<?> type) {
+            String name = type.getName();
+            return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                    || name.startsWith("sun.") || name.startsWith("com.sun.");
+        }
+
+        private static boolean hasCustomSerialization(Class<?> type) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    String name = method.getName();
+                    int parameterCount = method.getParameterCount();
+                    if (parameterCount == 0 && ("writeReplace".equals(name) || "readResolve".equals(name) || "readObjectNoData".equals(name))
+                            || parameterCount == 1 && ("writeObject".equals(name) || "readObject".equals(name))
+                            && (method.getParameterTypes()[0] == ObjectOutputStream.class || method.getParameterTypes()[0] == ObjectInputStream.class)) {
+                        return true;
+                    }
+                }
+                try {
+                    current.getDeclaredField("serialPersistentFields");
+                    return true;
+                } catch (NoSuchFieldException e) {
+                    // 没有自定义序列化字段
+                }
+            }
+            return false;
+        }
+
+        boolean isSupported() {
+            return constructor != null;
+        }
+
+        void write(Output out, Object bean) throws IOException {
+            try {
+                for (Field field : fields) {
+                    Class<?> type = field.getType();
+                    if (!type.isPrimitive()) {
+                        out.writeObject(field.get(bean));
+                    } else if (type == int.class) {
+                        out.writeVarInt(zigZag(field.getInt(bean)));
+                    } else if (type == long.class) {
+                        out.writeVarLong(zigZag(field.getLong(bean)));
+                    } else if (type == boolean.class) {
+                        out.writeByte(field.getBoolean(bean) ? 1 : 0);
+                    } else if (type == double.class) {
+                        out.writeLong(Double.doubleToRawLongBits(field.getDouble(bean)));
+                    } else if (type == float.class) {
+                        out.writeInt(Float.floatToRawIntBits(field.getFloat(bean)));
+                    } else if (type == short.class) {
+                        out.writeVarInt(zigZag(field.getShort(bean)));
+                    } else if (type == byte.class) {
+                        out.writeByte(field.getByte(bean));
+                    } else {
+                        out.writeVarInt(field.getChar(bean));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException("Error writing field of " + bean.getClass().getName() + ". Cause: " + e, e);
+            }
+        }
+
+        Object read(Input in) throws IOException, ClassNotFoundException {
+            try {
+                Object bean = constructor.newInstance();
+                in.handles.add(bean);
+                for (Field field : transientFields) {
+                    Class<?> type = field.getType();
+                    if (!type.isPrimitive()) {
+                        field.set(bean, null);
+                    } else if (type == boolean.class) {
+                        field.setBoolean(bean, false);
+                    } else if (type == char.class) {
+                        field.setChar(bean, (char) 0);
+                    } else {
+                        field.set(bean, (byte) 0);
+                    }
+                }
+                for (Field field : fields) {
+                    Class<?> type = field.getType();
+                    if (!type.isPrimitive()) {
+                        field.set(bean, in.readObject());
+                    } else if (type == int.class) {
+                        field.setInt(bean, unZigZag(in.readVarInt()));
+                    } else if (type == long.class) {
+                        field.setLong(bean, unZigZag(in.readVarLong()));
+                    } else if (type == boolean.class) {
+                        field.setBoolean(bean, in.readByte() != 0);
+                    } else if (type == double.class) {
+                        field.setDouble(bean, Double.longBitsToDouble(in.readLong()));
+                    } else if (type == float.class) {
+                        field.setFloat(bean, Float.intBitsToFloat(in.readInt()));
+                    } else if (type == short.class) {
+                        field.setShort(bean, (short) unZigZag(in.readVarInt()));
+                    } else if (type == byte.class) {
+                        field.setByte(bean, (byte) in.readByte());
+                    } else {
+                        field.setChar(bean, (char) in.readVarInt());
+                    }
+                }
+                return bean;
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw (InvalidClassException) new InvalidClassException(constructor.getDeclaringClass().getName(),
+                        "Error reading bean. Cause: " + e).initCause(e);
+            }
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -18,6 +18,9 @@ package org.apache.ibatis.io;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
+import java.io.InvalidClassException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.security.Security;
 
 public final class SerialFilterChecker {
@@ -27,16 +30,34 @@ public final class SerialFilterChecker {
     private static final boolean SERIAL_FILTER_MISSING;
     private static boolean firstInvocation = true;
 
+    /**
+     * Java 9 及以上的进程级过滤器，Java 8 上为 null，此时不检查类
+     */
+    private static final Object SERIAL_FILTER;
+    private static final Class<?> FILTER_INFO;
+    private static final Method CHECK_INPUT;
+
     static {
         Object serialFilter;
+        Object objectInputFilter = null;
+        Class<?> filterInfo = null;
+        Method checkInput = null;
         try {
             Class<?> objectFilterConfig = Class.forName("java.io.ObjectInputFilter$Config");
             serialFilter = objectFilterConfig.getMethod("getSerialFilter").invoke(null);
+            if (serialFilter != null) {
+                filterInfo = Class.forName("java.io.ObjectInputFilter$FilterInfo");
+                checkInput = Class.forName("java.io.ObjectInputFilter").getMethod("checkInput", filterInfo);
+                objectInputFilter = serialFilter;
+            }
         } catch (ReflectiveOperationException e) {
             // Java 1.8
             serialFilter = System.getProperty(JDK_SERIAL_FILTER, Security.getProperty(JDK_SERIAL_FILTER));
         }
         SERIAL_FILTER_MISSING = serialFilter == null;
+        SERIAL_FILTER = objectInputFilter;
+        FILTER_INFO = filterInfo;
+        CHECK_INPUT = checkInput;
     }
 
     public static void check() {
@@ -48,6 +69,49 @@ public final class SerialFilterChecker {
         }
     }
 
+    /**
+     * Checks a class named in a stream that is not read by an {@link java.io.ObjectInputStream} against the
+     * process-wide JEP-290 serial filter, the same check an {@code ObjectInputStream} applies. Nothing is checked
+     * when no filter is configured or on Java 8.
+     *
+     * @param type the class about to be instantiated
+     * @throws InvalidClassException if the filter rejects the class
+     * @since 3.5.9
+     */
+    static void checkClass(Class<?> type) throws InvalidClassException {
+        if (SERIAL_FILTER == null) {
+            return;
+        }
+        Object filterInfo = Proxy.newProxyInstance(FILTER_INFO.getClassLoader(), new Class<?>[]{FILTER_INFO}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "serialClass":
+                    return type;
+                case "arrayLength":
+                    return -1L;
+                case "depth":
+                    return 1L;
+                case "references":
+                case "streamBytes":
+                    return 0L;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return "FilterInfo[" + type.getName() + "]";
+            }
+        });
+        Object status;
+        try {
+            status = CHECK_INPUT.invoke(SERIAL_FILTER, filterInfo);
+        } catch (ReflectiveOperationException e) {
+            throw (InvalidClassException) new InvalidClassException(type.getName(), "Could not check the serial filter").initCause(e);
+        }
+        if (status instanceof Enum && "REJECTED".equals(((Enum<?>) status).name())) {
+            throw new InvalidClassException(type.getName(), "Rejected by the serial filter");
+        }
+    }
+
     private SerialFilterChecker() {
     }
 }
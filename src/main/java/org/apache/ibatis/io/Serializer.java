@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.IOException;
+
+/**
+ * Converts objects to bytes and back. Used by the read-write second level cache
+ * ({@link org.apache.ibatis.cache.decorators.SerializedCache}) to copy cached values and by lazy loading proxies
+ * to serialize their state.
+ * <p>
+ * Implementations must be thread safe and must have a public no-arg constructor.
+ *
+ * @since 3.5.9
+ * @see JavaSerializer
+ * @see CompactSerializer
+ */
+public interface Serializer {
+
+    /**
+     * Serializes an object graph.
+     * @param value the object to serialize, may be {@code null}
+     * @return the serialized form
+     * @throws IOException if the object graph cannot be serialized
+     */
+    byte[] serialize(Object value) throws IOException;
+
+    /**
+     * Restores an object graph produced by {@link #serialize(Object)}.
+     * @param bytes the serialized form
+     * @return a copy of the serialized object graph
+     * @throws IOException if the bytes cannot be read
+     * @throws ClassNotFoundException if a class of the object graph cannot be found
+     */
+    Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException;
+
+}
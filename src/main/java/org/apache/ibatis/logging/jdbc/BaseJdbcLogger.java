@@ -24,10 +24,14 @@ import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
- * Base class for proxies to do logging.
+ * Base class for JDBC wrappers to do logging.
+ * <p>
+ * With a slow threshold the messages of an execution are kept until the statement returns and are only written
+ * if the execution took at least the threshold.
  * @author Clinton Begin
  * @author Eduardo Macarron
  */
@@ -44,16 +48,37 @@ public abstract class BaseJdbcLogger {
     protected final Log statementLog;
     protected final int queryStack;
 
+    /**
+     * 执行时间达到这个值的语句才输出日志，0 表示立即输出
+     */
+    protected final long slowThresholdNanos;
+
+    /**
+     * 等待语句执行完成的日志
+     */
+    private final List<String> deferredMessages = new ArrayList<>();
+
     /*
      * Default constructor
      */
     public BaseJdbcLogger(Log log, int queryStack) {
+        this(log, queryStack, 0);
+    }
+
+    /**
+     * @param log                the statement log
+     * @param queryStack         the query stack
+     * @param slowThresholdNanos the minimum execution time of a logged statement, 0 to log every statement
+     * @since 3.5.9
+     */
+    protected BaseJdbcLogger(Log log, int queryStack, long slowThresholdNanos) {
         this.statementLog = log;
         if (queryStack == 0) {
             this.queryStack = 1;
         } else {
             this.queryStack = queryStack;
         }
+        this.slowThresholdNanos = slowThresholdNanos;
     }
 
     static {
@@ -137,6 +162,53 @@ public abstract class BaseJdbcLogger {
         }
     }
 
+    /**
+     * Writes a debug message now or, with a slow threshold, when the execution turns out to be slow.
+     */
+    protected void deferredDebug(String text, boolean input) {
+        if (slowThresholdNanos == 0) {
+            debug(text, input);
+        } else if (statementLog.isDebugEnabled()) {
+            deferredMessages.add(prefix(input) + text);
+        }
+    }
+
+    protected long startExecution() {
+        return slowThresholdNanos == 0 ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Writes the deferred messages if the execution took at least the slow threshold. The messages are dropped
+     * otherwise, it must also be called when the execution fails.
+     *
+     * @param start the value returned by {@link #startExecution()}
+     * @return whether the execution is logged
+     */
+    protected boolean endExecution(long start) {
+        if (slowThresholdNanos == 0) {
+            return true;
+        }
+        long elapsed = System.nanoTime() - start;
+        boolean slow = elapsed >= slowThresholdNanos;
+        if (slow && statementLog.isDebugEnabled()) {
+            for (String message : deferredMessages) {
+                statementLog.debug(message);
+            }
+            debug("   Elapsed: " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms", false);
+        }
+        deferredMessages.clear();
+        return slow;
+    }
+
+    /**
+     * Drops the deferred messages, e.g. when a batch is cleared without being executed.
+     *
+     * @since 3.5.9
+     */
+    protected void discardDeferredMessages() {
+        deferredMessages.clear();
+    }
+
     private String prefix(boolean isInput) {
         char[] buffer = new char[queryStack * 2 + 2];
         Arrays.fill(buffer, '=');
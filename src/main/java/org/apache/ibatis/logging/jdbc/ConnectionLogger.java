@@ -16,55 +16,111 @@
 package org.apache.ibatis.logging.jdbc;
 
 import org.apache.ibatis.logging.Log;
-import org.apache.ibatis.reflection.ExceptionUtil;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Connection proxy to add logging.
+ * Connection wrapper to add logging.
  * @author Clinton Begin
  * @author Eduardo Macarron
  */
-public final class ConnectionLogger extends BaseJdbcLogger implements InvocationHandler {
+public final class ConnectionLogger extends BaseJdbcLogger implements Connection {
 
     private final Connection connection;
 
-    private ConnectionLogger(Connection conn, Log statementLog, int queryStack) {
-        super(statementLog, queryStack);
+    private ConnectionLogger(Connection conn, Log statementLog, int queryStack, long slowThresholdNanos) {
+        super(statementLog, queryStack, slowThresholdNanos);
         this.connection = conn;
     }
 
     @Override
-    public Object invoke(Object proxy, Method method, Object[] params)
-            throws Throwable {
-        try {
-            if (Object.class.equals(method.getDeclaringClass())) {
-                return method.invoke(this, params);
-            }
-            if ("prepareStatement".equals(method.getName()) || "prepareCall".equals(method.getName())) {
-                if (isDebugEnabled()) {
-                    debug(" Preparing: " + removeExtraWhitespace((String) params[0]), true);
-                }
-                PreparedStatement stmt = (PreparedStatement) method.invoke(connection, params);
-                stmt = PreparedStatementLogger.newInstance(stmt, statementLog, queryStack);
-                return stmt;
-            } else if ("createStatement".equals(method.getName())) {
-                Statement stmt = (Statement) method.invoke(connection, params);
-                stmt = StatementLogger.newInstance(stmt, statementLog, queryStack);
-                return stmt;
-            } else {
-                return method.invoke(connection, params);
-            }
-        } catch (Throwable t) {
-            throw ExceptionUtil.unwrapThrowable(t);
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql, columnIndexes), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareStatement(sql, columnNames), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareCall(sql), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareCall(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        beforePrepare(sql);
+        return newPreparedStatementLogger(connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return newStatementLogger(connection.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return newStatementLogger(connection.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return newStatementLogger(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    private void beforePrepare(String sql) {
+        // 慢语句模式下由语句在执行完成后输出
+        if (slowThresholdNanos == 0 && isDebugEnabled()) {
+            debug(" Preparing: " + removeExtraWhitespace(sql), true);
         }
     }
 
+    private PreparedStatementLogger newPreparedStatementLogger(PreparedStatement stmt, String sql) {
+        return new PreparedStatementLogger(stmt, statementLog, queryStack, slowThresholdNanos, slowThresholdNanos == 0 ? null : sql);
+    }
+
+    private Statement newStatementLogger(Statement stmt) {
+        return new StatementLogger(stmt, statementLog, queryStack, slowThresholdNanos);
+    }
+
     /**
      * Creates a logging version of a connection.
      * @param conn         the original connection
@@ -73,9 +129,21 @@ public final class ConnectionLogger extends BaseJdbcLogger implements Invocation
      * @return the connection with logging
      */
     public static Connection newInstance(Connection conn, Log statementLog, int queryStack) {
-        InvocationHandler handler = new ConnectionLogger(conn, statementLog, queryStack);
-        ClassLoader cl = Connection.class.getClassLoader();
-        return (Connection) Proxy.newProxyInstance(cl, new Class[]{Connection.class}, handler);
+        return newInstance(conn, statementLog, queryStack, 0);
+    }
+
+    /**
+     * Creates a logging version of a connection that only logs the statements whose execution took at least the
+     * given time. The messages of a statement are written when its execution completes.
+     * @param conn                the original connection
+     * @param statementLog        the statement log
+     * @param queryStack          the query stack
+     * @param slowThresholdMillis the minimum execution time in milliseconds, 0 to log every statement
+     * @return the connection with logging
+     * @since 3.5.9
+     */
+    public static Connection newInstance(Connection conn, Log statementLog, int queryStack, long slowThresholdMillis) {
+        return new ConnectionLogger(conn, statementLog, queryStack, TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis));
     }
 
     /**
@@ -86,4 +154,216 @@ public final class ConnectionLogger extends BaseJdbcLogger implements Invocation
         return connection;
     }
 
+    // 其余方法直接委托，不经过反射
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return connection.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return connection.isWrapperFor(iface);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return connection.nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return connection.getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        connection.commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return connection.isClosed();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return connection.getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        connection.setReadOnly(readOnly);
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return connection.isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        connection.setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return connection.getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        connection.setTransactionIsolation(level);
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return connection.getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return connection.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        connection.clearWarnings();
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return connection.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        connection.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        connection.setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return connection.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return connection.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return connection.setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        connection.rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        connection.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return connection.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return connection.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return connection.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return connection.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return connection.isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        connection.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        connection.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return connection.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return connection.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return connection.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return connection.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        connection.setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return connection.getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        connection.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        connection.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return connection.getNetworkTimeout();
+    }
+
 }
@@ -16,68 +16,215 @@
 package org.apache.ibatis.logging.jdbc;
 
 import org.apache.ibatis.logging.Log;
-import org.apache.ibatis.reflection.ExceptionUtil;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.sql.CallableStatement;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+import java.util.Map;
 
 /**
- * PreparedStatement proxy to add logging.
+ * PreparedStatement wrapper to add logging. It also implements {@link CallableStatement}, those methods fail if the
+ * wrapped statement is not callable.
  * @author Clinton Begin
  * @author Eduardo Macarron
  */
-public final class PreparedStatementLogger extends BaseJdbcLogger implements InvocationHandler {
+public final class PreparedStatementLogger extends BaseJdbcLogger implements CallableStatement {
 
     private final PreparedStatement statement;
 
-    private PreparedStatementLogger(PreparedStatement stmt, Log statementLog, int queryStack) {
-        super(statementLog, queryStack);
+    /**
+     * 慢语句模式下每次执行都要重新输出 SQL，否则为 null
+     */
+    private final String preparedSql;
+
+    /**
+     * 最近一次执行是否输出了日志，慢语句模式下只有输出了日志的执行才记录结果集和更新行数
+     */
+    private boolean logged = true;
+
+    PreparedStatementLogger(PreparedStatement stmt, Log statementLog, int queryStack, long slowThresholdNanos, String preparedSql) {
+        super(statementLog, queryStack, slowThresholdNanos);
         this.statement = stmt;
+        this.preparedSql = preparedSql;
     }
 
     @Override
-    public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+    public ResultSet executeQuery() throws SQLException {
+        long start = beforeExecute();
+        ResultSet rs;
         try {
-            if (Object.class.equals(method.getDeclaringClass())) {
-                return method.invoke(this, params);
-            }
-            if (EXECUTE_METHODS.contains(method.getName())) {
-                if (isDebugEnabled()) {
-                    debug("Parameters: " + getParameterValueString(), true);
-                }
-                clearColumnInfo();
-                if ("executeQuery".equals(method.getName())) {
-                    ResultSet rs = (ResultSet) method.invoke(statement, params);
-                    return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
-                } else {
-                    return method.invoke(statement, params);
-                }
-            } else if (SET_METHODS.contains(method.getName())) {
-                if ("setNull".equals(method.getName())) {
-                    setColumn(params[0], null);
-                } else {
-                    setColumn(params[0], params[1]);
-                }
-                return method.invoke(statement, params);
-            } else if ("getResultSet".equals(method.getName())) {
-                ResultSet rs = (ResultSet) method.invoke(statement, params);
-                return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
-            } else if ("getUpdateCount".equals(method.getName())) {
-                int updateCount = (Integer) method.invoke(statement, params);
-                if (updateCount != -1) {
-                    debug("   Updates: " + updateCount, false);
-                }
-                return updateCount;
-            } else {
-                return method.invoke(statement, params);
+            rs = statement.executeQuery();
+        } finally {
+            afterExecute(start);
+        }
+        return newResultSetLogger(rs);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long start = beforeExecute();
+        ResultSet rs;
+        try {
+            rs = statement.executeQuery(sql);
+        } finally {
+            afterExecute(start);
+        }
+        return newResultSetLogger(rs);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.executeUpdate();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.executeUpdate(sql);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.executeUpdate(sql, autoGeneratedKeys);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.executeUpdate(sql, columnIndexes);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.executeUpdate(sql, columnNames);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.execute();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.execute(sql);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.execute(sql, autoGeneratedKeys);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.execute(sql, columnIndexes);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long start = beforeExecute();
+        try {
+            return statement.execute(sql, columnNames);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        logExecution();
+        statement.addBatch();
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        logExecution();
+        statement.addBatch(sql);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return newResultSetLogger(statement.getResultSet());
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        int updateCount = statement.getUpdateCount();
+        if (updateCount != -1 && logged) {
+            debug("   Updates: " + updateCount, false);
+        }
+        return updateCount;
+    }
+
+    private long beforeExecute() {
+        logExecution();
+        return startExecution();
+    }
+
+    /**
+     * 慢语句模式下批处理的日志一直保留到 executeBatch 返回，由整个批处理的耗时决定是否输出
+     */
+    private void logExecution() {
+        if (isDebugEnabled()) {
+            if (preparedSql != null) {
+                deferredDebug(" Preparing: " + removeExtraWhitespace(preparedSql), true);
             }
-        } catch (Throwable t) {
-            throw ExceptionUtil.unwrapThrowable(t);
+            deferredDebug("Parameters: " + getParameterValueString(), true);
         }
+        clearColumnInfo();
+    }
+
+    private void afterExecute(long start) {
+        logged = endExecution(start);
+    }
+
+    private ResultSet newResultSetLogger(ResultSet rs) {
+        return rs == null || !logged ? rs : ResultSetLogger.newInstance(rs, statementLog, queryStack);
     }
 
     /**
@@ -85,12 +232,10 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
      * @param stmt         - the statement
      * @param statementLog - the statement log
      * @param queryStack   - the query stack
-     * @return - the proxy
+     * @return - the statement with logging
      */
     public static PreparedStatement newInstance(PreparedStatement stmt, Log statementLog, int queryStack) {
-        InvocationHandler handler = new PreparedStatementLogger(stmt, statementLog, queryStack);
-        ClassLoader cl = PreparedStatement.class.getClassLoader();
-        return (PreparedStatement) Proxy.newProxyInstance(cl, new Class[]{PreparedStatement.class, CallableStatement.class}, handler);
+        return new PreparedStatementLogger(stmt, statementLog, queryStack, 0, null);
     }
 
     /**
@@ -101,4 +246,1191 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
         return statement;
     }
 
+    // 其余方法直接委托，不经过反射
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return statement.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return statement.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return statement.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        statement.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return statement.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        statement.setMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        statement.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return statement.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        statement.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        statement.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return statement.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        statement.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        statement.setCursorName(name);
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return statement.getMoreResults();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        statement.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return statement.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        statement.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return statement.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return statement.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return statement.getResultSetType();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        statement.clearBatch();
+        discardDeferredMessages();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = startExecution();
+        try {
+            return statement.executeBatch();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return statement.getConnection();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return statement.getMoreResults(current);
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return statement.getGeneratedKeys();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return statement.getResultSetHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return statement.isClosed();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        statement.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return statement.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        statement.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return statement.isCloseOnCompletion();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return statement.getLargeUpdateCount();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        statement.setLargeMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return statement.getLargeMaxRows();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        long start = startExecution();
+        try {
+            return statement.executeLargeBatch();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return statement.executeLargeUpdate(sql);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return statement.executeLargeUpdate(sql, columnIndexes);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return statement.executeLargeUpdate(sql, columnNames);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        setColumn(parameterIndex, null);
+        statement.setNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBoolean(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setByte(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setShort(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setInt(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setFloat(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBigDecimal(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setString(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBytes(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setDate(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setTime(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setTimestamp(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Deprecated
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setUnicodeStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        statement.clearParameters();
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setObject(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setRef(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setArray(parameterIndex, x);
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return statement.getMetaData();
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setDate(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setTime(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setTimestamp(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        setColumn(parameterIndex, null);
+        statement.setNull(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setURL(parameterIndex, x);
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return statement.getParameterMetaData();
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setRowId(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        setColumn(parameterIndex, value);
+        statement.setNString(parameterIndex, value);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        setColumn(parameterIndex, value);
+        statement.setNCharacterStream(parameterIndex, value, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        setColumn(parameterIndex, value);
+        statement.setNClob(parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        setColumn(parameterIndex, inputStream);
+        statement.setBlob(parameterIndex, inputStream, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setNClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        setColumn(parameterIndex, xmlObject);
+        statement.setSQLXML(parameterIndex, xmlObject);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setAsciiStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setBinaryStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setCharacterStream(parameterIndex, reader);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        setColumn(parameterIndex, value);
+        statement.setNCharacterStream(parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        setColumn(parameterIndex, inputStream);
+        statement.setBlob(parameterIndex, inputStream);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        setColumn(parameterIndex, reader);
+        statement.setNClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        setColumn(parameterIndex, x);
+        statement.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return statement.executeLargeUpdate();
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, scale);
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        return ((CallableStatement) statement).wasNull();
+    }
+
+    @Override
+    public String getString(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getString(parameterIndex);
+    }
+
+    @Override
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getBoolean(parameterIndex);
+    }
+
+    @Override
+    public byte getByte(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getByte(parameterIndex);
+    }
+
+    @Override
+    public short getShort(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getShort(parameterIndex);
+    }
+
+    @Override
+    public int getInt(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getInt(parameterIndex);
+    }
+
+    @Override
+    public long getLong(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getLong(parameterIndex);
+    }
+
+    @Override
+    public float getFloat(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getFloat(parameterIndex);
+    }
+
+    @Override
+    public double getDouble(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getDouble(parameterIndex);
+    }
+
+    @Deprecated
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        return ((CallableStatement) statement).getBigDecimal(parameterIndex, scale);
+    }
+
+    @Override
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getBytes(parameterIndex);
+    }
+
+    @Override
+    public Date getDate(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getDate(parameterIndex);
+    }
+
+    @Override
+    public Time getTime(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getTime(parameterIndex);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getTimestamp(parameterIndex);
+    }
+
+    @Override
+    public Object getObject(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterIndex);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getBigDecimal(parameterIndex);
+    }
+
+    @Override
+    public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterIndex, map);
+    }
+
+    @Override
+    public Ref getRef(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getRef(parameterIndex);
+    }
+
+    @Override
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getBlob(parameterIndex);
+    }
+
+    @Override
+    public Clob getClob(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getClob(parameterIndex);
+    }
+
+    @Override
+    public Array getArray(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getArray(parameterIndex);
+    }
+
+    @Override
+    public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getDate(parameterIndex, cal);
+    }
+
+    @Override
+    public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getTime(parameterIndex, cal);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getTimestamp(parameterIndex, cal);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, scale);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, typeName);
+    }
+
+    @Override
+    public URL getURL(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getURL(parameterIndex);
+    }
+
+    @Override
+    public void setURL(String parameterName, URL val) throws SQLException {
+        setColumn(parameterName, val);
+        ((CallableStatement) statement).setURL(parameterName, val);
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType) throws SQLException {
+        setColumn(parameterName, null);
+        ((CallableStatement) statement).setNull(parameterName, sqlType);
+    }
+
+    @Override
+    public void setBoolean(String parameterName, boolean x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBoolean(parameterName, x);
+    }
+
+    @Override
+    public void setByte(String parameterName, byte x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setByte(parameterName, x);
+    }
+
+    @Override
+    public void setShort(String parameterName, short x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setShort(parameterName, x);
+    }
+
+    @Override
+    public void setInt(String parameterName, int x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setInt(parameterName, x);
+    }
+
+    @Override
+    public void setLong(String parameterName, long x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setLong(parameterName, x);
+    }
+
+    @Override
+    public void setFloat(String parameterName, float x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setFloat(parameterName, x);
+    }
+
+    @Override
+    public void setDouble(String parameterName, double x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setDouble(parameterName, x);
+    }
+
+    @Override
+    public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBigDecimal(parameterName, x);
+    }
+
+    @Override
+    public void setString(String parameterName, String x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setString(parameterName, x);
+    }
+
+    @Override
+    public void setBytes(String parameterName, byte[] x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBytes(parameterName, x);
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setDate(parameterName, x);
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setTime(parameterName, x);
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setTimestamp(parameterName, x);
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setAsciiStream(parameterName, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBinaryStream(parameterName, x, length);
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setObject(parameterName, x, targetSqlType, scale);
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setObject(parameterName, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setObject(parameterName, x);
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setCharacterStream(parameterName, reader, length);
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x, Calendar cal) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setDate(parameterName, x, cal);
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x, Calendar cal) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setTime(parameterName, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setTimestamp(parameterName, x, cal);
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+        setColumn(parameterName, null);
+        ((CallableStatement) statement).setNull(parameterName, sqlType, typeName);
+    }
+
+    @Override
+    public String getString(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getString(parameterName);
+    }
+
+    @Override
+    public boolean getBoolean(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getBoolean(parameterName);
+    }
+
+    @Override
+    public byte getByte(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getByte(parameterName);
+    }
+
+    @Override
+    public short getShort(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getShort(parameterName);
+    }
+
+    @Override
+    public int getInt(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getInt(parameterName);
+    }
+
+    @Override
+    public long getLong(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getLong(parameterName);
+    }
+
+    @Override
+    public float getFloat(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getFloat(parameterName);
+    }
+
+    @Override
+    public double getDouble(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getDouble(parameterName);
+    }
+
+    @Override
+    public byte[] getBytes(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getBytes(parameterName);
+    }
+
+    @Override
+    public Date getDate(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getDate(parameterName);
+    }
+
+    @Override
+    public Time getTime(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getTime(parameterName);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getTimestamp(parameterName);
+    }
+
+    @Override
+    public Object getObject(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterName);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getBigDecimal(parameterName);
+    }
+
+    @Override
+    public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterName, map);
+    }
+
+    @Override
+    public Ref getRef(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getRef(parameterName);
+    }
+
+    @Override
+    public Blob getBlob(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getBlob(parameterName);
+    }
+
+    @Override
+    public Clob getClob(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getClob(parameterName);
+    }
+
+    @Override
+    public Array getArray(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getArray(parameterName);
+    }
+
+    @Override
+    public Date getDate(String parameterName, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getDate(parameterName, cal);
+    }
+
+    @Override
+    public Time getTime(String parameterName, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getTime(parameterName, cal);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        return ((CallableStatement) statement).getTimestamp(parameterName, cal);
+    }
+
+    @Override
+    public URL getURL(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getURL(parameterName);
+    }
+
+    @Override
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getRowId(parameterIndex);
+    }
+
+    @Override
+    public RowId getRowId(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getRowId(parameterName);
+    }
+
+    @Override
+    public void setRowId(String parameterName, RowId x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setRowId(parameterName, x);
+    }
+
+    @Override
+    public void setNString(String parameterName, String value) throws SQLException {
+        setColumn(parameterName, value);
+        ((CallableStatement) statement).setNString(parameterName, value);
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
+        setColumn(parameterName, value);
+        ((CallableStatement) statement).setNCharacterStream(parameterName, value, length);
+    }
+
+    @Override
+    public void setNClob(String parameterName, NClob value) throws SQLException {
+        setColumn(parameterName, value);
+        ((CallableStatement) statement).setNClob(parameterName, value);
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setClob(parameterName, reader, length);
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
+        setColumn(parameterName, inputStream);
+        ((CallableStatement) statement).setBlob(parameterName, inputStream, length);
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setNClob(parameterName, reader, length);
+    }
+
+    @Override
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getNClob(parameterIndex);
+    }
+
+    @Override
+    public NClob getNClob(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getNClob(parameterName);
+    }
+
+    @Override
+    public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
+        setColumn(parameterName, xmlObject);
+        ((CallableStatement) statement).setSQLXML(parameterName, xmlObject);
+    }
+
+    @Override
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getSQLXML(parameterIndex);
+    }
+
+    @Override
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getSQLXML(parameterName);
+    }
+
+    @Override
+    public String getNString(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getNString(parameterIndex);
+    }
+
+    @Override
+    public String getNString(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getNString(parameterName);
+    }
+
+    @Override
+    public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getNCharacterStream(parameterIndex);
+    }
+
+    @Override
+    public Reader getNCharacterStream(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getNCharacterStream(parameterName);
+    }
+
+    @Override
+    public Reader getCharacterStream(int parameterIndex) throws SQLException {
+        return ((CallableStatement) statement).getCharacterStream(parameterIndex);
+    }
+
+    @Override
+    public Reader getCharacterStream(String parameterName) throws SQLException {
+        return ((CallableStatement) statement).getCharacterStream(parameterName);
+    }
+
+    @Override
+    public void setBlob(String parameterName, Blob x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBlob(parameterName, x);
+    }
+
+    @Override
+    public void setClob(String parameterName, Clob x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setClob(parameterName, x);
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setAsciiStream(parameterName, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBinaryStream(parameterName, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setCharacterStream(parameterName, reader, length);
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setAsciiStream(parameterName, x);
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setBinaryStream(parameterName, x);
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setCharacterStream(parameterName, reader);
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
+        setColumn(parameterName, value);
+        ((CallableStatement) statement).setNCharacterStream(parameterName, value);
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setClob(parameterName, reader);
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
+        setColumn(parameterName, inputStream);
+        ((CallableStatement) statement).setBlob(parameterName, inputStream);
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader) throws SQLException {
+        setColumn(parameterName, reader);
+        ((CallableStatement) statement).setNClob(parameterName, reader);
+    }
+
+    @Override
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterIndex, type);
+    }
+
+    @Override
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        return ((CallableStatement) statement).getObject(parameterName, type);
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setObject(parameterName, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, SQLType targetSqlType) throws SQLException {
+        setColumn(parameterName, x);
+        ((CallableStatement) statement).setObject(parameterName, x, targetSqlType);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, SQLType sqlType) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, SQLType sqlType, int scale) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, scale);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, SQLType sqlType, String typeName) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, SQLType sqlType) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, SQLType sqlType, int scale) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, scale);
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, SQLType sqlType, String typeName) throws SQLException {
+        ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, typeName);
+    }
+
 }
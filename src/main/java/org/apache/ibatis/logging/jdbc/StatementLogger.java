@@ -16,66 +16,162 @@
 package org.apache.ibatis.logging.jdbc;
 
 import org.apache.ibatis.logging.Log;
-import org.apache.ibatis.reflection.ExceptionUtil;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.sql.ResultSet;
-import java.sql.Statement;
+import java.sql.*;
 
 /**
- * Statement proxy to add logging.
+ * Statement wrapper to add logging.
  * @author Clinton Begin
  * @author Eduardo Macarron
  */
-public final class StatementLogger extends BaseJdbcLogger implements InvocationHandler {
+public final class StatementLogger extends BaseJdbcLogger implements Statement {
 
     private final Statement statement;
 
-    private StatementLogger(Statement stmt, Log statementLog, int queryStack) {
-        super(statementLog, queryStack);
+    /**
+     * 最近一次执行是否输出了日志，慢语句模式下只有输出了日志的执行才记录结果集
+     */
+    private boolean logged = true;
+
+    StatementLogger(Statement stmt, Log statementLog, int queryStack, long slowThresholdNanos) {
+        super(statementLog, queryStack, slowThresholdNanos);
         this.statement = stmt;
     }
 
     @Override
-    public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long start = beforeExecute(sql);
+        ResultSet rs;
+        try {
+            rs = statement.executeQuery(sql);
+        } finally {
+            afterExecute(start);
+        }
+        return newResultSetLogger(rs);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.executeUpdate(sql);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.executeUpdate(sql, autoGeneratedKeys);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long start = beforeExecute(sql);
         try {
-            if (Object.class.equals(method.getDeclaringClass())) {
-                return method.invoke(this, params);
-            }
-            if (EXECUTE_METHODS.contains(method.getName())) {
-                if (isDebugEnabled()) {
-                    debug(" Executing: " + removeExtraWhitespace((String) params[0]), true);
-                }
-                if ("executeQuery".equals(method.getName())) {
-                    ResultSet rs = (ResultSet) method.invoke(statement, params);
-                    return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
-                } else {
-                    return method.invoke(statement, params);
-                }
-            } else if ("getResultSet".equals(method.getName())) {
-                ResultSet rs = (ResultSet) method.invoke(statement, params);
-                return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
-            } else {
-                return method.invoke(statement, params);
-            }
-        } catch (Throwable t) {
-            throw ExceptionUtil.unwrapThrowable(t);
+            return statement.executeUpdate(sql, columnIndexes);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.executeUpdate(sql, columnNames);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.execute(sql);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.execute(sql, autoGeneratedKeys);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.execute(sql, columnIndexes);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long start = beforeExecute(sql);
+        try {
+            return statement.execute(sql, columnNames);
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        logExecution(sql);
+        statement.addBatch(sql);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return newResultSetLogger(statement.getResultSet());
+    }
+
+    private long beforeExecute(String sql) {
+        logExecution(sql);
+        return startExecution();
+    }
+
+    /**
+     * 慢语句模式下批处理的日志一直保留到 executeBatch 返回，由整个批处理的耗时决定是否输出
+     */
+    private void logExecution(String sql) {
+        if (isDebugEnabled()) {
+            deferredDebug(" Executing: " + removeExtraWhitespace(sql), true);
         }
     }
 
+    private void afterExecute(long start) {
+        logged = endExecution(start);
+    }
+
+    private ResultSet newResultSetLogger(ResultSet rs) {
+        return rs == null || !logged ? rs : ResultSetLogger.newInstance(rs, statementLog, queryStack);
+    }
+
     /**
      * Creates a logging version of a Statement.
      * @param stmt         the statement
      * @param statementLog the statement log
      * @param queryStack   the query stack
-     * @return the proxy
+     * @return the statement with logging
      */
     public static Statement newInstance(Statement stmt, Log statementLog, int queryStack) {
-        InvocationHandler handler = new StatementLogger(stmt, statementLog, queryStack);
-        ClassLoader cl = Statement.class.getClassLoader();
-        return (Statement) Proxy.newProxyInstance(cl, new Class[]{Statement.class}, handler);
+        return new StatementLogger(stmt, statementLog, queryStack, 0);
     }
 
     /**
@@ -86,4 +182,222 @@ public final class StatementLogger extends BaseJdbcLogger implements InvocationH
         return statement;
     }
 
+    // 其余方法直接委托，不经过反射
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return statement.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return statement.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return statement.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        statement.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return statement.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        statement.setMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        statement.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return statement.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        statement.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        statement.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return statement.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        statement.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        statement.setCursorName(name);
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return statement.getUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return statement.getMoreResults();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        statement.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return statement.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        statement.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return statement.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return statement.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return statement.getResultSetType();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        statement.clearBatch();
+        discardDeferredMessages();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = startExecution();
+        try {
+            return statement.executeBatch();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return statement.getConnection();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return statement.getMoreResults(current);
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return statement.getGeneratedKeys();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return statement.getResultSetHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return statement.isClosed();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        statement.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return statement.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        statement.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return statement.isCloseOnCompletion();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return statement.getLargeUpdateCount();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        statement.setLargeMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return statement.getLargeMaxRows();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        long start = startExecution();
+        try {
+            return statement.executeLargeBatch();
+        } finally {
+            afterExecute(start);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return statement.executeLargeUpdate(sql);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return statement.executeLargeUpdate(sql, columnIndexes);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return statement.executeLargeUpdate(sql, columnNames);
+    }
+
 }
@@ -48,6 +48,27 @@ public class BoundSql {
         this.metaParameters = configuration.newMetaObject(additionalParameters);
     }
 
+    private BoundSql(String sql, List<ParameterMapping> parameterMappings, BoundSql source) {
+        this.sql = sql;
+        this.parameterMappings = parameterMappings;
+        this.parameterObject = source.parameterObject;
+        this.additionalParameters = source.additionalParameters;
+        this.metaParameters = source.metaParameters;
+    }
+
+    /**
+     * Creates a bound SQL with a rewritten SQL string that shares the parameter object and additional parameters of
+     * this one.
+     *
+     * @param sql               the rewritten SQL
+     * @param parameterMappings the parameter mappings of the rewritten SQL
+     * @return the rewritten bound SQL
+     * @since 3.5.9
+     */
+    public BoundSql withSql(String sql, List<ParameterMapping> parameterMappings) {
+        return new BoundSql(sql, parameterMappings, this);
+    }
+
     public String getSql() {
         return sql;
     }
@@ -61,6 +82,9 @@ public class BoundSql {
     }
 
     public boolean hasAdditionalParameter(String name) {
+        if (additionalParameters.isEmpty()) {
+            return false;
+        }
         String paramName = new PropertyTokenizer(name).getName();
         return additionalParameters.containsKey(paramName);
     }
@@ -19,7 +19,10 @@ import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.cache.decorators.*;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -41,6 +44,7 @@ public class CacheBuilder {
     private boolean readWrite;
     private Properties properties;
     private boolean blocking;
+    private Serializer serializer;
 
     public CacheBuilder(String id) {
         this.id = id;
@@ -79,6 +83,17 @@ public class CacheBuilder {
         return this;
     }
 
+    /**
+     * Sets the serializer used by a read-write cache to copy the cached objects.
+     * @param serializer the serializer, {@code null} means Java serialization
+     * @return this builder
+     * @since 3.5.9
+     */
+    public CacheBuilder serializer(Serializer serializer) {
+        this.serializer = serializer;
+        return this;
+    }
+
     public CacheBuilder properties(Properties properties) {
         this.properties = properties;
         return this;
@@ -89,7 +104,7 @@ public class CacheBuilder {
         Cache cache = newBaseCacheInstance(implementation, id);
         setCacheProperties(cache);
         // issue #352, do not apply decorators to custom caches
-        if (PerpetualCache.class.equals(cache.getClass())) {
+        if (isBuiltInBaseCache(cache)) {
             for (Class<? extends Cache> decorator : decorators) {
                 cache = newCacheDecoratorInstance(decorator, cache);
                 setCacheProperties(cache);
@@ -101,6 +116,12 @@ public class CacheBuilder {
         return cache;
     }
 
+    private boolean isBuiltInBaseCache(Cache cache) {
+        return PerpetualCache.class.equals(cache.getClass())
+                || ConcurrentPerpetualCache.class.equals(cache.getClass())
+                || OffHeapCache.class.equals(cache.getClass());
+    }
+
     private void setDefaultImplementations() {
         if (implementation == null) {
             implementation = PerpetualCache.class;
@@ -121,10 +142,13 @@ public class CacheBuilder {
                 ((ScheduledCache) cache).setClearInterval(clearInterval);
             }
             if (readWrite) {
-                cache = new SerializedCache(cache);
+                cache = new SerializedCache(cache, serializer);
             }
             cache = new LoggingCache(cache);
-            cache = new SynchronizedCache(cache);
+            // 整个装饰链都是线程安全的，就不需要再加同步锁了
+            if (!cache.isThreadSafe()) {
+                cache = new SynchronizedCache(cache);
+            }
             if (blocking) {
                 cache = new BlockingCache(cache);
             }
@@ -45,6 +45,7 @@ public class ResultMapping {
     private String resultSet;
     private String foreignColumn;
     private boolean lazy;
+    private Integer batchSize;
 
     ResultMapping() {
     }
@@ -132,6 +133,19 @@ public class ResultMapping {
             return this;
         }
 
+        /**
+         * Sets the number of keys loaded with one query by a nested select.
+         *
+         * @param batchSize the number of keys, 0 loads each key separately, {@code null} uses
+         *     {@link Configuration#getDefaultNestedSelectBatchSize()}
+         * @return this builder
+         * @since 3.5.9
+         */
+        public Builder batchSize(Integer batchSize) {
+            resultMapping.batchSize = batchSize;
+            return this;
+        }
+
         public ResultMapping build() {
             // lock down collections
             resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -251,6 +265,16 @@ public class ResultMapping {
         this.lazy = lazy;
     }
 
+    /**
+     * Gets the number of keys loaded with one query by a nested select.
+     *
+     * @return the number of keys, {@code null} if not specified
+     * @since 3.5.9
+     */
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
     public boolean isSimple() {
         return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
     }
@@ -298,6 +322,7 @@ public class ResultMapping {
         sb.append(", resultSet='").append(resultSet).append('\'');
         sb.append(", foreignColumn='").append(foreignColumn).append('\'');
         sb.append(", lazy=").append(lazy);
+        sb.append(", batchSize=").append(batchSize);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Retrieves the execution plan of a slow statement, see {@link SlowQueryRecorder#setExplainHandler(ExplainHandler)}.
+ *
+ * @since 3.5.9
+ * @see SqlExplainHandler
+ */
+@FunctionalInterface
+public interface ExplainHandler {
+
+    /**
+     * Retrieves the execution plan of a statement. It is called right after the slow execution, on the connection
+     * and in the transaction of the statement. When the connection is in a transaction the call runs inside a
+     * savepoint that is rolled back afterwards, so a failing command does not abort the transaction. With
+     * auto-commit there is no such protection, the handler must never execute the statement itself.
+     *
+     * @param connection the connection the statement was executed on
+     * @param sql        the executed SQL
+     * @param parameters the values bound to the placeholders of the SQL
+     * @return the execution plan
+     * @throws SQLException if the plan cannot be retrieved
+     */
+    String explain(Connection connection, String sql, List<Object> parameters) throws SQLException;
+
+}
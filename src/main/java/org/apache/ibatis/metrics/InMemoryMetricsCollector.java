@@ -0,0 +1,185 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.MappedStatement;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics collector that keeps all measurements in memory so that they can be queried by the application,
+ * e.g. to expose them to a monitoring system or to assert on them in tests.
+ * <p>
+ * Statement latencies and pool times are recorded in {@link Histogram}s in nanoseconds.
+ *
+ * @since 3.5.9
+ */
+public class InMemoryMetricsCollector implements MetricsCollector {
+
+    private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+    private final Histogram connectionWaitTimes = new Histogram();
+    private final Histogram connectionCheckoutTimes = new Histogram();
+
+    @Override
+    public void statementExecuted(MappedStatement ms, long elapsedNanos, int rows) {
+        StatementMetrics metrics = statements.get(ms.getId());
+        if (metrics == null) {
+            metrics = statements.computeIfAbsent(ms.getId(), k -> new StatementMetrics());
+        }
+        metrics.latency.record(elapsedNanos);
+        metrics.rows.add(Math.max(rows, 0));
+    }
+
+    @Override
+    public void cacheAccessed(Cache cache, boolean hit) {
+        CacheMetrics metrics = caches.get(cache.getId());
+        if (metrics == null) {
+            metrics = caches.computeIfAbsent(cache.getId(), k -> new CacheMetrics());
+        }
+        (hit ? metrics.hits : metrics.misses).increment();
+    }
+
+    @Override
+    public void connectionAcquired(long waitNanos) {
+        connectionWaitTimes.record(waitNanos);
+    }
+
+    @Override
+    public void connectionReleased(long checkoutNanos) {
+        connectionCheckoutTimes.record(checkoutNanos);
+    }
+
+    /**
+     * Gets the metrics of a statement.
+     *
+     * @param statementId the id of the mapped statement
+     * @return the metrics, {@code null} if the statement has not been executed
+     */
+    public StatementMetrics getStatementMetrics(String statementId) {
+        return statements.get(statementId);
+    }
+
+    /**
+     * Gets the metrics of all executed statements.
+     *
+     * @return the metrics by statement id
+     */
+    public Map<String, StatementMetrics> getStatementMetrics() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    /**
+     * Gets the number of results found in the second level cache of a namespace.
+     *
+     * @param namespace the namespace (the id of the cache)
+     * @return the number of hits
+     */
+    public long getCacheHitCount(String namespace) {
+        CacheMetrics metrics = caches.get(namespace);
+        return metrics == null ? 0 : metrics.hits.sum();
+    }
+
+    /**
+     * Gets the number of results not found in the second level cache of a namespace.
+     *
+     * @param namespace the namespace (the id of the cache)
+     * @return the number of misses
+     */
+    public long getCacheMissCount(String namespace) {
+        CacheMetrics metrics = caches.get(namespace);
+        return metrics == null ? 0 : metrics.misses.sum();
+    }
+
+    public Histogram getConnectionWaitTimes() {
+        return connectionWaitTimes;
+    }
+
+    public Histogram getConnectionCheckoutTimes() {
+        return connectionCheckoutTimes;
+    }
+
+    /**
+     * Removes all measurements.
+     */
+    public void reset() {
+        statements.clear();
+        caches.clear();
+        connectionWaitTimes.reset();
+        connectionCheckoutTimes.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        new TreeMap<>(statements).forEach((id, metrics) ->
+            builder.append("statement ").append(id).append(": ").append(metrics).append('\n'));
+        new TreeMap<>(caches).forEach((id, metrics) ->
+            builder.append("cache ").append(id).append(": hits=").append(metrics.hits.sum())
+                .append(", misses=").append(metrics.misses.sum()).append('\n'));
+        builder.append("connection wait: ").append(connectionWaitTimes).append('\n');
+        builder.append("connection checkout: ").append(connectionCheckoutTimes);
+        return builder.toString();
+    }
+
+    /**
+     * Metrics of a mapped statement.
+     */
+    public static class StatementMetrics {
+
+        private final Histogram latency = new Histogram();
+        private final LongAdder rows = new LongAdder();
+
+        /**
+         * Gets the execution times of the statement in nanoseconds.
+         *
+         * @return the latency histogram
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public long getExecutionCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * Gets the total number of mapped rows or updated rows.
+         *
+         * @return the number of rows
+         */
+        public long getRowCount() {
+            return rows.sum();
+        }
+
+        @Override
+        public String toString() {
+            return latency + ", rows=" + getRowCount();
+        }
+    }
+
+    private static class CacheMetrics {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Receives measurements of statement executions, second level cache lookups and pooled connections.
+ * <p>
+ * A collector is registered with {@link org.apache.ibatis.session.Configuration#setMetricsCollector(MetricsCollector)}
+ * and is called from the threads executing statements, so implementations must be thread safe and should not block.
+ * All methods do nothing by default.
+ *
+ * @since 3.5.9
+ * @see InMemoryMetricsCollector
+ */
+public interface MetricsCollector {
+
+    /**
+     * Called after a statement has been executed successfully. Cursor queries are not reported because their
+     * rows are fetched after the statement returns.
+     *
+     * @param ms           the executed statement
+     * @param elapsedNanos the time spent executing the statement and mapping its results
+     * @param rows         the number of mapped result objects of a query, or the update count of an insert, update
+     *                     or delete ({@code 0} for queries handled by a result handler and batched updates)
+     */
+    default void statementExecuted(MappedStatement ms, long elapsedNanos, int rows) {
+    }
+
+    /**
+     * Called after a select statement looked up the second level cache of its namespace.
+     *
+     * @param cache the cache, its id is the namespace
+     * @param hit   whether the result was found in the cache
+     */
+    default void cacheAccessed(Cache cache, boolean hit) {
+    }
+
+    /**
+     * Called when a connection has been taken from a {@link org.apache.ibatis.datasource.pooled.PooledDataSource}.
+     *
+     * @param waitNanos the time spent waiting for the connection
+     */
+    default void connectionAcquired(long waitNanos) {
+    }
+
+    /**
+     * Called when a connection is returned to a {@link org.apache.ibatis.datasource.pooled.PooledDataSource}.
+     *
+     * @param checkoutNanos the time the connection has been checked out
+     */
+    default void connectionReleased(long checkoutNanos) {
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A statement execution that took at least the threshold of the {@link SlowQueryRecorder}.
+ *
+ * @since 3.5.9
+ */
+public class SlowQuery {
+
+    private final String statementId;
+    private final String sql;
+    private final List<Object> parameters;
+    private final int rows;
+    private final long elapsedNanos;
+    private final long timestamp;
+    private final String plan;
+
+    public SlowQuery(String statementId, String sql, List<Object> parameters, int rows, long elapsedNanos,
+                     long timestamp, String plan) {
+        this.statementId = statementId;
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+        this.timestamp = timestamp;
+        this.plan = plan;
+    }
+
+    /**
+     * Gets the id of the mapped statement.
+     *
+     * @return the statement id
+     */
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the values bound to the placeholders of the SQL, in order. Output parameters of callable statements are
+     * {@code null}.
+     *
+     * @return the parameter values
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Gets the number of mapped result objects of a query or the update count of an update.
+     *
+     * @return the number of rows, -1 if unknown (cursors, batched statements and queries handled by a result handler)
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the time at which the execution completed.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the execution plan returned by the {@link ExplainHandler}.
+     *
+     * @return the plan, {@code null} if there is no explain handler or it failed
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return statementId + " took " + elapsedNanos / 1_000_000 + " ms, rows=" + rows + ", sql=" + sql
+            + ", parameters=" + parameters;
+    }
+
+}
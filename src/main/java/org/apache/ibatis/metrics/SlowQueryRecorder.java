@@ -0,0 +1,240 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the most recent statement executions that took at least a threshold, with their SQL, parameter values and
+ * row count, and optionally their execution plan.
+ * <p>
+ * The recorder of a configuration is returned by {@link Configuration#getSlowQueryRecorder()} and is disabled until
+ * a threshold is set. Executions are timed around the JDBC call and the mapping of the results; only slow executions
+ * pay for resolving the parameter values.
+ *
+ * @since 3.5.9
+ */
+public class SlowQueryRecorder {
+
+    private static final Log log = LogFactory.getLog(SlowQueryRecorder.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private final LongAdder recordedCount = new LongAdder();
+    private volatile long thresholdNanos;
+    private volatile int capacity = 100;
+    private volatile ExplainHandler explainHandler;
+
+    public boolean isEnabled() {
+        return thresholdNanos > 0;
+    }
+
+    /**
+     * Returns whether an execution took at least the threshold.
+     *
+     * @param elapsedNanos the execution time
+     * @return whether the execution is recorded
+     */
+    public boolean isSlow(long elapsedNanos) {
+        long threshold = thresholdNanos;
+        return threshold > 0 && elapsedNanos >= threshold;
+    }
+
+    public long getThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * Sets the minimum execution time of a recorded statement.
+     *
+     * @param threshold the threshold in milliseconds, 0 disables the recorder
+     */
+    public void setThreshold(long threshold) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the number of slow executions that are kept, older executions are dropped.
+     *
+     * @param capacity the number of executions
+     */
+    public void setCapacity(int capacity) {
+        lock.lock();
+        try {
+            this.capacity = Math.max(1, capacity);
+            while (slowQueries.size() > this.capacity) {
+                slowQueries.removeFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ExplainHandler getExplainHandler() {
+        return explainHandler;
+    }
+
+    /**
+     * Sets the handler that retrieves the execution plan of slow statements.
+     *
+     * @param explainHandler the explain handler, {@code null} to not retrieve plans
+     */
+    public void setExplainHandler(ExplainHandler explainHandler) {
+        this.explainHandler = explainHandler;
+    }
+
+    /**
+     * Records a slow execution.
+     *
+     * @param ms           the executed statement
+     * @param boundSql     the executed SQL
+     * @param connection   the connection the statement was executed on, used by the explain handler inside a
+     *                     savepoint that is rolled back afterwards when the connection is in a transaction
+     * @param elapsedNanos the execution time
+     * @param rows         the number of rows, -1 if unknown
+     */
+    public void record(MappedStatement ms, BoundSql boundSql, Connection connection, long elapsedNanos, int rows) {
+        List<Object> parameters = getParameterValues(ms.getConfiguration(), boundSql);
+        String plan = null;
+        ExplainHandler handler = explainHandler;
+        if (handler != null && connection != null) {
+            plan = explain(handler, ms, boundSql, connection, parameters);
+        }
+        SlowQuery slowQuery = new SlowQuery(ms.getId(), boundSql.getSql(), parameters, rows, elapsedNanos,
+            System.currentTimeMillis(), plan);
+        recordedCount.increment();
+        lock.lock();
+        try {
+            if (slowQueries.size() >= capacity) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(slowQuery);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在调用方的事务中执行时先设置保存点，结束后回滚到保存点，失败的 EXPLAIN 不会让整个事务失效
+     */
+    private String explain(ExplainHandler handler, MappedStatement ms, BoundSql boundSql, Connection connection,
+                           List<Object> parameters) {
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            return handler.explain(connection, boundSql.getSql(), parameters);
+        } catch (Exception e) {
+            log.warn("Could not explain statement " + ms.getId() + ". Cause: " + e);
+            return null;
+        } finally {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                    log.warn("Could not roll back the explain of statement " + ms.getId() + ". Cause: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the kept slow executions.
+     *
+     * @return the executions, oldest first
+     */
+    public List<SlowQuery> getSlowQueries() {
+        lock.lock();
+        try {
+            return new ArrayList<>(slowQueries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of slow executions recorded since the creation of the recorder, including the dropped ones.
+     *
+     * @return the number of slow executions
+     */
+    public long getRecordedCount() {
+        return recordedCount.sum();
+    }
+
+    /**
+     * Removes the kept slow executions.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            slowQueries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static List<Object> getParameterValues(Configuration configuration, BoundSql boundSql) {
+        // 与 DefaultParameterHandler 取值的方式相同
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        Object parameterObject = boundSql.getParameterObject();
+        List<Object> values = new ArrayList<>(parameterMappings.size());
+        MetaObject metaObject = null;
+        for (ParameterMapping parameterMapping : parameterMappings) {
+            String propertyName = parameterMapping.getProperty();
+            Object value;
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                value = null;
+            } else if (boundSql.hasAdditionalParameter(propertyName)) {
+                value = boundSql.getAdditionalParameter(propertyName);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(propertyName);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+}
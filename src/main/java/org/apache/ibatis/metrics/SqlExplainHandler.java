@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Explain handler that executes the SQL of the statement prefixed by a database specific command, e.g.
+ * {@code EXPLAIN } for MySQL and PostgreSQL or {@code EXPLAIN PLAN FOR } for HSQLDB. The rows returned by the
+ * command are joined into the plan, one line per row. The parameter values are only bound if the command declares
+ * parameters.
+ * <p>
+ * The prefix must only plan the statement and never execute it: commands like {@code EXPLAIN ANALYZE} would run
+ * inserts, updates and deletes a second time.
+ *
+ * @since 3.5.9
+ */
+public class SqlExplainHandler implements ExplainHandler {
+
+    private final String prefix;
+
+    /**
+     * @param prefix the command that returns the plan of the SQL appended to it, it must not execute the SQL
+     */
+    public SqlExplainHandler(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public String explain(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(prefix + sql)) {
+            int parameterCount = Math.min(getParameterCount(ps, parameters.size()), parameters.size());
+            for (int i = 0; i < parameterCount; i++) {
+                ps.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                int columnCount = rs.getMetaData().getColumnCount();
+                StringJoiner plan = new StringJoiner("\n");
+                while (rs.next()) {
+                    StringJoiner row = new StringJoiner(" | ");
+                    for (int i = 1; i <= columnCount; i++) {
+                        row.add(String.valueOf(rs.getObject(i)));
+                    }
+                    plan.add(row.toString());
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private int getParameterCount(PreparedStatement ps, int defaultCount) {
+        // 有的数据库的 EXPLAIN 语句不接受参数
+        try {
+            return ps.getParameterMetaData().getParameterCount();
+        } catch (SQLException e) {
+            return defaultCount;
+        }
+    }
+
+}
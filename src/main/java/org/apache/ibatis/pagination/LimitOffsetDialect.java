@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.util.List;
+
+/**
+ * Limits rows with {@code LIMIT ? OFFSET ?}, used by MySQL, MariaDB, PostgreSQL, HSQLDB, H2 and SQLite.
+ *
+ * @since 3.5.9
+ */
+public class LimitOffsetDialect implements PaginationDialect {
+
+    @Override
+    public String getLimitSql(String sql, int offset, int limit, List<Integer> parameters) {
+        StringBuilder limitSql = new StringBuilder(sql.length() + 16).append(sql).append(" LIMIT ?");
+        parameters.add(limit);
+        if (offset > 0) {
+            limitSql.append(" OFFSET ?");
+            parameters.add(offset);
+        }
+        return limitSql.toString();
+    }
+
+}
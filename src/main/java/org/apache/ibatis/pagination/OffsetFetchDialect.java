@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.util.List;
+
+/**
+ * Limits rows with the standard {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY}, used by Oracle 12c, SQL Server 2012,
+ * DB2 and Derby. SQL Server only accepts it after an {@code ORDER BY} clause.
+ *
+ * @since 3.5.9
+ */
+public class OffsetFetchDialect implements PaginationDialect {
+
+    @Override
+    public String getLimitSql(String sql, int offset, int limit, List<Integer> parameters) {
+        parameters.add(offset);
+        parameters.add(limit);
+        return sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+}
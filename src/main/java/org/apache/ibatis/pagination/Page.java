@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.util.List;
+
+/**
+ * A slice of an offset {@link PageRequest} that also knows the total number of rows, which is selected by an
+ * additional count query.
+ *
+ * @param <T> the type of the rows
+ * @since 3.5.9
+ */
+public class Page<T> extends Slice<T> {
+
+    private final long totalElements;
+
+    public Page(List<T> content, PageRequest request, PageRequest nextRequest, long totalElements) {
+        super(content, request, nextRequest);
+        this.totalElements = totalElements;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getTotalPages() {
+        int pageSize = getRequest().getLimit();
+        return (int) ((totalElements + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the zero based number of this page, see {@link PageRequest#ofPage(int, int)}.
+     *
+     * @return the page number
+     */
+    public int getNumber() {
+        return getRequest().getOffset() / getRequest().getLimit();
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Row bounds that are applied in the database instead of skipping rows of the result set.
+ * <p>
+ * An offset request ({@link #of(int, int)}, {@link #ofPage(int, int)}) adds the limit and offset of the
+ * {@link PaginationDialect} to the statement. A keyset request ({@link #keyset(String, int)}) continues after the key
+ * of the last row of the previous slice ({@code WHERE key > ?}), so the database does not have to read the skipped
+ * rows at all. Both kinds of requests can be continued with the token of a {@link Slice}, see
+ * {@link #after(String)}.
+ * <p>
+ * The request can be passed wherever {@link RowBounds} are accepted, or to
+ * {@link org.apache.ibatis.session.SqlSession#selectSlice(String, Object, PageRequest)} and
+ * {@link org.apache.ibatis.session.SqlSession#selectPage(String, Object, PageRequest)}.
+ *
+ * @since 3.5.9
+ */
+public class PageRequest extends RowBounds {
+
+    private final String keyColumn;
+    private final String keyProperty;
+    private final boolean descending;
+    private final Object key;
+
+    private PageRequest(int offset, int limit, String keyColumn, String keyProperty, boolean descending, Object key) {
+        super(offset, limit);
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset must not be negative but was " + offset);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive but was " + limit);
+        }
+        this.keyColumn = keyColumn;
+        this.keyProperty = keyProperty;
+        this.descending = descending;
+        this.key = key;
+    }
+
+    /**
+     * Requests the rows after the given offset.
+     *
+     * @param offset the number of rows to skip
+     * @param limit  the maximum number of rows
+     * @return the request
+     */
+    public static PageRequest of(int offset, int limit) {
+        return new PageRequest(offset, limit, null, null, false, null);
+    }
+
+    /**
+     * Requests a page of rows.
+     *
+     * @param pageNumber the zero based page number
+     * @param pageSize   the number of rows of each page
+     * @return the request
+     */
+    public static PageRequest ofPage(int pageNumber, int pageSize) {
+        return of(Math.multiplyExact(pageNumber, pageSize), pageSize);
+    }
+
+    /**
+     * Requests the first rows ordered by a key column, the key property of the result objects has the same name.
+     *
+     * @param keyColumn the column of the statement that has a unique value for each row
+     * @param limit     the maximum number of rows
+     * @return the request
+     * @see #keyset(String, String, int)
+     */
+    public static PageRequest keyset(String keyColumn, int limit) {
+        return keyset(keyColumn, keyColumn, limit);
+    }
+
+    /**
+     * Requests the first rows ordered by a key column. The column name is added to the {@code WHERE} and
+     * {@code ORDER BY} clauses of the statement as is, so it must not come from user input.
+     *
+     * @param keyColumn   the column of the statement that has a unique value for each row
+     * @param keyProperty the property of the result objects that holds the key
+     * @param limit       the maximum number of rows
+     * @return the request
+     */
+    public static PageRequest keyset(String keyColumn, String keyProperty, int limit) {
+        if (keyColumn == null || keyColumn.isEmpty() || keyProperty == null || keyProperty.isEmpty()) {
+            throw new IllegalArgumentException("A keyset request requires a key column and a key property");
+        }
+        return new PageRequest(NO_ROW_OFFSET, limit, keyColumn, keyProperty, false, null);
+    }
+
+    /**
+     * Orders the rows of a keyset request by descending key.
+     *
+     * @return the request in descending order
+     */
+    public PageRequest descending() {
+        if (!isKeyset()) {
+            throw new IllegalStateException("Only keyset requests can be ordered by descending key");
+        }
+        return new PageRequest(getOffset(), getLimit(), keyColumn, keyProperty, true, key);
+    }
+
+    /**
+     * Continues this request after the rows that were returned with the given token.
+     *
+     * @param token the token of a slice ({@link Slice#getNextToken()}), {@code null} or empty to start from the
+     *              beginning
+     * @return the request of the next rows
+     * @throws IllegalArgumentException if the token is malformed or was created by a different kind of request
+     */
+    public PageRequest after(String token) {
+        if (token == null || token.isEmpty()) {
+            return isKeyset() ? new PageRequest(NO_ROW_OFFSET, getLimit(), keyColumn, keyProperty, descending, null) : of(NO_ROW_OFFSET, getLimit());
+        }
+        Object value = SeekToken.decode(token);
+        if (isKeyset()) {
+            return next(value);
+        }
+        if (!(value instanceof Integer)) {
+            throw new IllegalArgumentException("The token '" + token + "' does not belong to an offset request");
+        }
+        return of((Integer) value, getLimit());
+    }
+
+    /**
+     * Returns whether the rows are continued after a key instead of an offset.
+     *
+     * @return {@code true} for a keyset request
+     */
+    public boolean isKeyset() {
+        return keyColumn != null;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public String getKeyProperty() {
+        return keyProperty;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Returns the key of the last row of the previous slice.
+     *
+     * @return the key, {@code null} for the first slice or an offset request
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    PageRequest withLimit(int limit) {
+        return new PageRequest(getOffset(), limit, keyColumn, keyProperty, descending, key);
+    }
+
+    PageRequest next(Object key) {
+        return new PageRequest(getOffset(), getLimit(), keyColumn, keyProperty, descending, key);
+    }
+
+}
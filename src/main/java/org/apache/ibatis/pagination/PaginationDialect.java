@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.util.List;
+
+/**
+ * Adds the SQL that limits the rows of a select statement, which differs between databases.
+ * <p>
+ * The dialect used by a statement is the one registered for the current database id (see
+ * {@link org.apache.ibatis.session.Configuration#addPaginationDialect(String, PaginationDialect)}), or else the
+ * {@code defaultPaginationDialect} setting.
+ *
+ * @since 3.5.9
+ */
+public interface PaginationDialect {
+
+    /**
+     * Limits the rows returned by a select statement. The offset and the limit are bound as parameters, so that the
+     * same prepared statement serves every page: the returned SQL has a {@code ?} placeholder for each value added to
+     * {@code parameters}, in the same order.
+     *
+     * @param sql        the select statement
+     * @param offset     the number of rows to skip, 0 if no rows are skipped
+     * @param limit      the maximum number of rows to return
+     * @param parameters the values of the placeholders added to the statement
+     * @return the select statement that only returns the requested rows
+     */
+    String getLimitSql(String sql, int offset, int limit, List<Integer> parameters);
+
+}
@@ -0,0 +1,280 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites statements for {@link PageRequest}s and creates {@link Slice}s of their results.
+ *
+ * @since 3.5.9
+ */
+public final class Paginator {
+
+    public static final String SEEK_KEY_PARAMETER = "_seekKey";
+    public static final String LIMIT_PARAMETER_PREFIX = "_limit";
+    public static final String COUNT_STATEMENT_SUFFIX = "!count";
+
+    private static final Pattern ORDER_BY = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AFTER_ORDER_BY = Pattern.compile("\\b(LIMIT|OFFSET|FETCH|FOR)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOT_APPENDABLE = Pattern.compile(
+            "\\b(GROUP\\s+BY|HAVING|UNION|INTERSECT|EXCEPT|MINUS|WINDOW|LIMIT|OFFSET|FETCH|FOR)\\b", Pattern.CASE_INSENSITIVE);
+
+    private Paginator() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * Adds the keyset condition and the limit of the request to the SQL of a statement. Without a
+     * {@link PaginationDialect} the limit is left to the returned row bounds of
+     * {@link #getRemainingRowBounds(Configuration, PageRequest)}.
+     * <p>
+     * The keyset condition is appended to the {@code WHERE} clause of the statement and its {@code ORDER BY} clause
+     * is replaced by the key order. Statements with clauses that do not allow this, such as {@code GROUP BY} or
+     * {@code UNION}, are wrapped in a derived table instead. The offset and limit are bound as parameters.
+     *
+     * @param configuration the configuration
+     * @param boundSql      the SQL of the statement
+     * @param pageRequest   the request
+     * @return the paginated SQL
+     */
+    public static BoundSql paginate(Configuration configuration, BoundSql boundSql, PageRequest pageRequest) {
+        PaginationDialect dialect = configuration.getPaginationDialect();
+        if (dialect == null && !pageRequest.isKeyset()) {
+            return boundSql;
+        }
+        String sql = boundSql.getSql();
+        List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+        Object key = pageRequest.getKey();
+        if (pageRequest.isKeyset()) {
+            sql = seek(sql, pageRequest);
+            if (key != null) {
+                parameterMappings.add(new ParameterMapping.Builder(configuration, SEEK_KEY_PARAMETER, key.getClass()).build());
+            }
+        }
+        List<Integer> limitParameters = new ArrayList<>(2);
+        if (dialect != null) {
+            sql = dialect.getLimitSql(sql, pageRequest.getOffset(), pageRequest.getLimit(), limitParameters);
+            for (int i = 0; i < limitParameters.size(); i++) {
+                parameterMappings.add(new ParameterMapping.Builder(configuration, LIMIT_PARAMETER_PREFIX + i, Integer.class).build());
+            }
+        }
+        BoundSql paginatedSql = boundSql.withSql(sql, parameterMappings);
+        if (key != null) {
+            paginatedSql.setAdditionalParameter(SEEK_KEY_PARAMETER, key);
+        }
+        for (int i = 0; i < limitParameters.size(); i++) {
+            paginatedSql.setAdditionalParameter(LIMIT_PARAMETER_PREFIX + i, limitParameters.get(i));
+        }
+        return paginatedSql;
+    }
+
+    private static String seek(String sql, PageRequest pageRequest) {
+        String keyColumn = pageRequest.getKeyColumn();
+        String seekCondition = keyColumn + (pageRequest.isDescending() ? " < ?" : " > ?");
+        String masked = maskNested(sql);
+        int orderBy = findTrailingOrderBy(masked);
+        // 原来的排序由键的排序代替
+        String body = orderBy < 0 ? sql : trimEnd(sql.substring(0, orderBy));
+        String maskedBody = masked.substring(0, body.length());
+        StringBuilder seekSql = new StringBuilder(sql.length() + 64);
+        if (NOT_APPENDABLE.matcher(maskedBody).find()) {
+            // 分组、集合运算等语句不能直接追加条件，包一层子查询
+            seekSql.append("SELECT * FROM (").append(body).append(") seek_");
+            if (pageRequest.getKey() != null) {
+                seekSql.append(" WHERE ").append(seekCondition);
+            }
+        } else if (pageRequest.getKey() == null) {
+            seekSql.append(body);
+        } else {
+            Matcher where = WHERE.matcher(maskedBody);
+            if (where.find()) {
+                // 原来的条件加上括号，避免其中的 OR 改变追加条件的含义
+                seekSql.append(body, 0, where.end()).append(" (").append(body.substring(where.end()).trim())
+                        .append(") AND ").append(seekCondition);
+            } else {
+                seekSql.append(body).append(" WHERE ").append(seekCondition);
+            }
+        }
+        seekSql.append(" ORDER BY ").append(keyColumn);
+        if (pageRequest.isDescending()) {
+            seekSql.append(" DESC");
+        }
+        return seekSql.toString();
+    }
+
+    /**
+     * Removes the {@code ORDER BY} clause that ends a statement, which does not change the number of its rows and
+     * is rejected in a derived table by some databases.
+     *
+     * @param sql the statement
+     * @return the statement without its final {@code ORDER BY} clause
+     */
+    static String removeOrderBy(String sql) {
+        int orderBy = findTrailingOrderBy(maskNested(sql));
+        return orderBy < 0 ? sql : trimEnd(sql.substring(0, orderBy));
+    }
+
+    private static String trimEnd(String sql) {
+        int end = sql.length();
+        while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * 返回结尾的 ORDER BY 子句的位置，没有或者其后还有 LIMIT 等依赖排序的子句时返回 -1
+     */
+    private static int findTrailingOrderBy(String masked) {
+        Matcher matcher = ORDER_BY.matcher(masked);
+        int start = -1;
+        while (matcher.find()) {
+            start = matcher.start();
+        }
+        if (start >= 0 && AFTER_ORDER_BY.matcher(masked).region(start, masked.length()).find()) {
+            return -1;
+        }
+        return start;
+    }
+
+    /**
+     * 把引号和括号中的内容替换为空格，只留下最外层的子句，字符的位置保持不变
+     */
+    private static String maskNested(String sql) {
+        char[] masked = sql.toCharArray();
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < masked.length; i++) {
+            char c = masked[i];
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                masked[i] = ' ';
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                masked[i] = ' ';
+            } else if (c == '(') {
+                depth++;
+                masked[i] = ' ';
+            } else if (c == ')') {
+                depth--;
+                masked[i] = ' ';
+            } else if (depth > 0) {
+                masked[i] = ' ';
+            }
+        }
+        return new String(masked);
+    }
+
+    /**
+     * Returns the row bounds that still have to be applied to the result set of a paginated statement.
+     *
+     * @param configuration the configuration
+     * @param pageRequest   the request
+     * @return the row bounds
+     */
+    public static RowBounds getRemainingRowBounds(Configuration configuration, PageRequest pageRequest) {
+        if (configuration.getPaginationDialect() != null) {
+            return RowBounds.DEFAULT;
+        }
+        // 没有方言时由 DefaultResultSetHandler 跳过和截断行
+        return new RowBounds(pageRequest.getOffset(), pageRequest.getLimit());
+    }
+
+    /**
+     * Returns the request that selects one more row, which tells whether there is a next slice.
+     *
+     * @param pageRequest the request
+     * @return the request with a larger limit
+     */
+    public static PageRequest probe(PageRequest pageRequest) {
+        int limit = pageRequest.getLimit();
+        return limit == Integer.MAX_VALUE ? pageRequest : pageRequest.withLimit(limit + 1);
+    }
+
+    /**
+     * Creates the slice from the rows selected with the {@link #probe(PageRequest)} of a request.
+     *
+     * @param <E>           the type of the rows
+     * @param configuration the configuration
+     * @param rows          the rows
+     * @param pageRequest   the request
+     * @return the slice
+     */
+    public static <E> Slice<E> newSlice(Configuration configuration, List<E> rows, PageRequest pageRequest) {
+        int limit = pageRequest.getLimit();
+        if (rows.size() <= limit) {
+            return new Slice<>(rows, pageRequest, null);
+        }
+        List<E> content = rows.subList(0, limit);
+        PageRequest nextRequest;
+        if (pageRequest.isKeyset()) {
+            E lastRow = content.get(limit - 1);
+            Object key = lastRow == null ? null : configuration.newMetaObject(lastRow).getValue(pageRequest.getKeyProperty());
+            if (key == null) {
+                throw new ExecutorException("Cannot continue the keyset request because the key property '"
+                        + pageRequest.getKeyProperty() + "' of the last row is null.");
+            }
+            nextRequest = pageRequest.next(key);
+        } else {
+            nextRequest = PageRequest.of(pageRequest.getOffset() + limit, limit);
+        }
+        return new Slice<>(content, pageRequest, nextRequest);
+    }
+
+    /**
+     * Creates the statement that counts the rows of a select statement. The final {@code ORDER BY} clause of the
+     * statement is removed.
+     *
+     * @param ms the select statement
+     * @return the count statement
+     */
+    public static MappedStatement newCountStatement(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        String id = ms.getId() + COUNT_STATEMENT_SUFFIX;
+        SqlSource sqlSource = parameterObject -> {
+            BoundSql boundSql = ms.getBoundSql(parameterObject);
+            return boundSql.withSql("SELECT COUNT(*) FROM (" + removeOrderBy(boundSql.getSql()) + ") count_", boundSql.getParameterMappings());
+        };
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", Long.class, new ArrayList<>(), null).build();
+        return new MappedStatement.Builder(configuration, id, sqlSource, ms.getSqlCommandType())
+                .resource(ms.getResource())
+                .statementType(ms.getStatementType())
+                .timeout(ms.getTimeout())
+                .databaseId(ms.getDatabaseId())
+                .cache(ms.getCache())
+                .useCache(ms.isUseCache())
+                .resultMaps(Collections.singletonList(resultMap))
+                .build();
+    }
+
+}
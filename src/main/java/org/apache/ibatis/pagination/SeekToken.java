@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Encodes the key (or offset) where the next slice starts as an opaque URL-safe string.
+ * <p>
+ * Only simple values are supported, so decoding a token sent back by a client never instantiates arbitrary classes.
+ *
+ * @since 3.5.9
+ */
+final class SeekToken {
+
+    private SeekToken() {
+        // Prevent Instantiation of Static Class
+    }
+
+    static String encode(Object value) {
+        final String text;
+        if (value instanceof Integer) {
+            text = "i:" + value;
+        } else if (value instanceof Long) {
+            text = "l:" + value;
+        } else if (value instanceof BigInteger) {
+            text = "I:" + value;
+        } else if (value instanceof BigDecimal) {
+            text = "D:" + value;
+        } else if (value instanceof String) {
+            text = "s:" + value;
+        } else if (value instanceof Timestamp) {
+            text = "t:" + ((Timestamp) value).toLocalDateTime();
+        } else if (value instanceof Date) {
+            text = "d:" + ((Date) value).getTime();
+        } else if (value instanceof LocalDate) {
+            text = "ld:" + value;
+        } else if (value instanceof LocalDateTime) {
+            text = "ldt:" + value;
+        } else {
+            throw new IllegalArgumentException("A key of type " + (value == null ? "null" : value.getClass().getName())
+                    + " cannot be used to continue a page request");
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Object decode(String token) {
+        final String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidToken(token, e);
+        }
+        int separator = text.indexOf(':');
+        if (separator < 0) {
+            throw invalidToken(token, null);
+        }
+        String value = text.substring(separator + 1);
+        try {
+            switch (text.substring(0, separator)) {
+                case "i":
+                    return Integer.valueOf(value);
+                case "l":
+                    return Long.valueOf(value);
+                case "I":
+                    return new BigInteger(value);
+                case "D":
+                    return new BigDecimal(value);
+                case "s":
+                    return value;
+                case "t":
+                    return Timestamp.valueOf(LocalDateTime.parse(value));
+                case "d":
+                    return new Date(Long.parseLong(value));
+                case "ld":
+                    return LocalDate.parse(value);
+                case "ldt":
+                    return LocalDateTime.parse(value);
+                default:
+                    throw invalidToken(token, null);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw invalidToken(token, e);
+        }
+    }
+
+    private static IllegalArgumentException invalidToken(String token, Exception cause) {
+        return new IllegalArgumentException("The page token '" + token + "' is invalid", cause);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The rows of a {@link PageRequest} and the request of the next rows.
+ * <p>
+ * A slice does not know how many rows there are in total, which saves a count query; it only knows whether there are
+ * more rows, because one more row than requested is selected.
+ *
+ * @param <T> the type of the rows
+ * @since 3.5.9
+ */
+public class Slice<T> implements Iterable<T> {
+
+    private final List<T> content;
+    private final PageRequest request;
+    private final PageRequest nextRequest;
+
+    public Slice(List<T> content, PageRequest request, PageRequest nextRequest) {
+        this.content = Collections.unmodifiableList(content);
+        this.request = request;
+        this.nextRequest = nextRequest;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public boolean hasContent() {
+        return !content.isEmpty();
+    }
+
+    public PageRequest getRequest() {
+        return request;
+    }
+
+    public boolean hasNext() {
+        return nextRequest != null;
+    }
+
+    /**
+     * Returns the request of the next rows.
+     *
+     * @return the request, {@code null} if this is the last slice
+     */
+    public PageRequest nextRequest() {
+        return nextRequest;
+    }
+
+    /**
+     * Returns an opaque token that continues the request after this slice, for example when the next rows are
+     * requested by a client. Pass it to {@link PageRequest#after(String)} of a request with the same kind and order.
+     *
+     * @return the token, {@code null} if this is the last slice
+     */
+    public String getNextToken() {
+        if (nextRequest == null) {
+            return null;
+        }
+        return SeekToken.encode(nextRequest.isKeyset() ? nextRequest.getKey() : nextRequest.getOffset());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return content.iterator();
+    }
+
+}
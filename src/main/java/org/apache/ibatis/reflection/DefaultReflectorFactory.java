@@ -41,10 +41,21 @@ public class DefaultReflectorFactory implements ReflectorFactory {
     public Reflector findForClass(Class<?> type) {
         if (classCacheEnabled) {
             // synchronized (type) removed see issue #461
-            return MapUtil.computeIfAbsent(reflectorMap, type, Reflector::new);
+            return MapUtil.computeIfAbsent(reflectorMap, type, this::newReflector);
         } else {
-            return new Reflector(type);
+            return newReflector(type);
         }
     }
 
+    /**
+     * Creates the reflector for a class that is not cached yet.
+     *
+     * @param type the class
+     * @return the reflector
+     * @since 3.5.9
+     */
+    protected Reflector newReflector(Class<?> type) {
+        return new Reflector(type);
+    }
+
 }
@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.reflection.invoker.MethodHandleInvokers;
+
+/**
+ * Reflector factory whose reflectors access getters, setters and fields through method handles, see
+ * {@link MethodHandleInvokers}. The handles are created once per property when the class is first described.
+ * <p>
+ * Can be configured with {@code <reflectorFactory type="org.apache.ibatis.reflection.MethodHandleReflectorFactory"/>}.
+ *
+ * @since 3.5.9
+ */
+public class MethodHandleReflectorFactory extends DefaultReflectorFactory {
+
+    @Override
+    protected Reflector newReflector(Class<?> type) {
+        return new Reflector(type, true);
+    }
+
+}
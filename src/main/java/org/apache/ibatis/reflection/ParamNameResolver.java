@@ -46,6 +46,14 @@ public class ParamNameResolver {
      */
     private final SortedMap<Integer, String> names;
 
+    /**
+     * 以下数组在构造时由 {@link #names} 预先计算，避免每次调用时遍历 TreeMap 和拼接通用参数名
+     */
+    private final int[] argIndexes;
+    private final String[] paramNames;
+    private final String[] genericParamNames;
+    private final String singleParamName;
+
     private boolean hasParamAnnotation;
 
     public ParamNameResolver(Configuration config, Method method) {
@@ -82,6 +90,21 @@ public class ParamNameResolver {
             map.put(paramIndex, name);
         }
         names = Collections.unmodifiableSortedMap(map);
+
+        final int size = names.size();
+        argIndexes = new int[size];
+        paramNames = new String[size];
+        genericParamNames = new String[size];
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            argIndexes[i] = entry.getKey();
+            paramNames[i] = entry.getValue();
+            final String genericParamName = GENERIC_NAME_PREFIX + (i + 1);
+            // ensure not to overwrite parameter named with @Param
+            genericParamNames[i] = names.containsValue(genericParamName) ? null : genericParamName;
+            i++;
+        }
+        singleParamName = useActualParamName ? names.get(0) : null;
     }
 
     private String getActualParamName(Method method, int paramIndex) {
@@ -111,24 +134,22 @@ public class ParamNameResolver {
      * @return the named params
      */
     public Object getNamedParams(Object[] args) {
-        final int paramCount = names.size();
+        final int paramCount = argIndexes.length;
         if (args == null || paramCount == 0) {
             return null;
         } else if (!hasParamAnnotation && paramCount == 1) {
-            Object value = args[names.firstKey()];
-            return wrapToMapIfCollection(value, useActualParamName ? names.get(0) : null);
+            Object value = args[argIndexes[0]];
+            return wrapToMapIfCollection(value, singleParamName);
         } else {
-            final Map<String, Object> param = new ParamMap<>();
-            int i = 0;
-            for (Map.Entry<Integer, String> entry : names.entrySet()) {
-                param.put(entry.getValue(), args[entry.getKey()]);
+            // 每个参数最多放入两个键，按最终大小预分配，避免扩容
+            final Map<String, Object> param = new ParamMap<>(paramCount * 2);
+            for (int i = 0; i < paramCount; i++) {
+                final Object value = args[argIndexes[i]];
+                param.put(paramNames[i], value);
                 // add generic param names (param1, param2, ...)
-                final String genericParamName = GENERIC_NAME_PREFIX + (i + 1);
-                // ensure not to overwrite parameter named with @Param
-                if (!names.containsValue(genericParamName)) {
-                    param.put(genericParamName, args[entry.getKey()]);
+                if (genericParamNames[i] != null) {
+                    param.put(genericParamNames[i], value);
                 }
-                i++;
             }
             return param;
         }
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 public class Reflector {
 
     private final Class<?> type;
+    private final boolean methodHandleAccessors;
     private final String[] readablePropertyNames;
     private final String[] writablePropertyNames;
     private final Map<String, Invoker> setMethods = new HashMap<>();
@@ -43,7 +44,20 @@ public class Reflector {
     private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
 
     public Reflector(Class<?> clazz) {
+        this(clazz, false);
+    }
+
+    /**
+     * Instantiates a new reflector.
+     *
+     * @param clazz the class to describe
+     * @param methodHandleAccessors whether getters, setters and fields are accessed through method handles
+     *     (see {@link MethodHandleInvokers}) instead of core reflection
+     * @since 3.5.9
+     */
+    public Reflector(Class<?> clazz, boolean methodHandleAccessors) {
         type = clazz;
+        this.methodHandleAccessors = methodHandleAccessors;
         addDefaultConstructor(clazz);
         Method[] classMethods = getClassMethods(clazz);
         addGetMethods(classMethods);
@@ -109,7 +123,7 @@ public class Reflector {
                 ? new AmbiguousMethodInvoker(method, MessageFormat.format(
                 "Illegal overloaded getter method with ambiguous type for property ''{0}'' in class ''{1}''. This breaks the JavaBeans specification and can cause unpredictable results.",
                 name, method.getDeclaringClass().getName()))
-                : new MethodInvoker(method);
+                : newMethodInvoker(method);
         getMethods.put(name, invoker);
         Type returnType = TypeParameterResolver.resolveReturnType(method, type);
         getTypes.put(name, typeToClass(returnType));
@@ -176,12 +190,24 @@ public class Reflector {
     }
 
     private void addSetMethod(String name, Method method) {
-        MethodInvoker invoker = new MethodInvoker(method);
+        MethodInvoker invoker = newMethodInvoker(method);
         setMethods.put(name, invoker);
         Type[] paramTypes = TypeParameterResolver.resolveParamTypes(method, type);
         setTypes.put(name, typeToClass(paramTypes[0]));
     }
 
+    private MethodInvoker newMethodInvoker(Method method) {
+        return methodHandleAccessors ? MethodHandleInvokers.forMethod(method) : new MethodInvoker(method);
+    }
+
+    private SetFieldInvoker newSetFieldInvoker(Field field) {
+        return methodHandleAccessors ? MethodHandleInvokers.forSetField(field) : new SetFieldInvoker(field);
+    }
+
+    private GetFieldInvoker newGetFieldInvoker(Field field) {
+        return methodHandleAccessors ? MethodHandleInvokers.forGetField(field) : new GetFieldInvoker(field);
+    }
+
     private Class<?> typeToClass(Type src) {
         Class<?> result = null;
         if (src instanceof Class) {
@@ -226,7 +252,7 @@ public class Reflector {
 
     private void addSetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            setMethods.put(field.getName(), new SetFieldInvoker(field));
+            setMethods.put(field.getName(), newSetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             setTypes.put(field.getName(), typeToClass(fieldType));
         }
@@ -234,7 +260,7 @@ public class Reflector {
 
     private void addGetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            getMethods.put(field.getName(), new GetFieldInvoker(field));
+            getMethods.put(field.getName(), newGetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             getTypes.put(field.getName(), typeToClass(fieldType));
         }
@@ -0,0 +1,263 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Creates invokers that call getters, setters and fields through {@link MethodHandle}s instead of
+ * {@link Method#invoke(Object, Object...)} and {@link Field#get(Object)}/{@link Field#set(Object, Object)}.
+ * <p>
+ * The invokers extend the reflective ones and behave the same: an exception thrown by the accessor is wrapped in an
+ * {@link InvocationTargetException} and a target or argument of the wrong type is rejected with an
+ * {@link IllegalArgumentException}. When a method handle cannot be created for a member the reflective invoker is
+ * returned instead.
+ *
+ * @since 3.5.9
+ */
+public final class MethodHandleInvokers {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private MethodHandleInvokers() {
+    }
+
+    public static MethodInvoker forMethod(Method method) {
+        int parameterCount = method.getParameterCount();
+        if (parameterCount > 1) {
+            return new MethodInvoker(method);
+        }
+        try {
+            MethodHandle handle = unreflect(method);
+            return parameterCount == 0
+                    ? new GetterInvoker(method, handle.asType(GETTER_TYPE))
+                    : new SetterInvoker(method, handle.asType(SETTER_TYPE));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new MethodInvoker(method);
+        }
+    }
+
+    public static GetFieldInvoker forGetField(Field field) {
+        try {
+            return new FieldGetterInvoker(field, unreflect(field, false).asType(GETTER_TYPE));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new GetFieldInvoker(field);
+        }
+    }
+
+    public static SetFieldInvoker forSetField(Field field) {
+        try {
+            return new FieldSetterInvoker(field, unreflect(field, true).asType(SETTER_TYPE));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new SetFieldInvoker(field);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            makeAccessible(method, e);
+            return LOOKUP.unreflect(method);
+        }
+    }
+
+    private static MethodHandle unreflect(Field field, boolean setter) throws IllegalAccessException {
+        try {
+            return setter ? LOOKUP.unreflectSetter(field) : LOOKUP.unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            makeAccessible(field, e);
+            return setter ? LOOKUP.unreflectSetter(field) : LOOKUP.unreflectGetter(field);
+        }
+    }
+
+    private static void makeAccessible(AccessibleObject member, IllegalAccessException e) throws IllegalAccessException {
+        if (!Reflector.canControlMemberAccessible()) {
+            throw e;
+        }
+        member.setAccessible(true);
+    }
+
+    /**
+     * 与 Method.invoke 和 Field.set 一样检查目标对象和参数的类型，这样调用 MethodHandle 时抛出的异常都来自被调用的方法
+     */
+    private static void checkTarget(Class<?> declaringClass, Object target) {
+        if (target == null) {
+            throw new NullPointerException();
+        }
+        if (!declaringClass.isInstance(target)) {
+            throw new IllegalArgumentException("object is not an instance of declaring class");
+        }
+    }
+
+    private static void checkArgument(Class<?> parameterType, Object[] args) {
+        if (args == null || args.length != 1) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        Object value = args[0];
+        if (parameterType.isPrimitive() ? !isWideningCompatible(parameterType, value) : value != null && !parameterType.isInstance(value)) {
+            throw new IllegalArgumentException("argument type mismatch");
+        }
+    }
+
+    private static boolean isWideningCompatible(Class<?> primitiveType, Object value) {
+        if (value == null) {
+            return false;
+        }
+        Class<?> type = value.getClass();
+        if (primitiveType == int.class) {
+            return type == Integer.class || type == Short.class || type == Byte.class || type == Character.class;
+        } else if (primitiveType == long.class) {
+            return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class || type == Character.class;
+        } else if (primitiveType == double.class) {
+            return type == Double.class || type == Float.class || type == Long.class || type == Integer.class
+                    || type == Short.class || type == Byte.class || type == Character.class;
+        } else if (primitiveType == float.class) {
+            return type == Float.class || type == Long.class || type == Integer.class || type == Short.class
+                    || type == Byte.class || type == Character.class;
+        } else if (primitiveType == boolean.class) {
+            return type == Boolean.class;
+        } else if (primitiveType == short.class) {
+            return type == Short.class || type == Byte.class;
+        } else if (primitiveType == byte.class) {
+            return type == Byte.class;
+        } else if (primitiveType == char.class) {
+            return type == Character.class;
+        }
+        return false;
+    }
+
+    private static RuntimeException unexpected(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new ReflectionException("Error accessing field. Cause: " + t, t);
+    }
+
+    private static final class GetterInvoker extends MethodInvoker {
+        private final Class<?> declaringClass;
+        private final MethodHandle handle;
+
+        GetterInvoker(Method method, MethodHandle handle) {
+            super(method);
+            this.declaringClass = method.getDeclaringClass();
+            this.handle = handle;
+        }
+
+        @Override
+        @UsesJava7
+        public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+            if (args != null && args.length != 0) {
+                throw new IllegalArgumentException("wrong number of arguments");
+            }
+            checkTarget(declaringClass, target);
+            try {
+                return (Object) handle.invokeExact(target);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+
+    private static final class SetterInvoker extends MethodInvoker {
+        private final Class<?> declaringClass;
+        private final Class<?> parameterType;
+        private final MethodHandle handle;
+
+        SetterInvoker(Method method, MethodHandle handle) {
+            super(method);
+            this.declaringClass = method.getDeclaringClass();
+            this.parameterType = method.getParameterTypes()[0];
+            this.handle = handle;
+        }
+
+        @Override
+        @UsesJava7
+        public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+            checkTarget(declaringClass, target);
+            checkArgument(parameterType, args);
+            try {
+                handle.invokeExact(target, args[0]);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+            return null;
+        }
+    }
+
+    private static final class FieldGetterInvoker extends GetFieldInvoker {
+        private final Class<?> declaringClass;
+        private final MethodHandle handle;
+
+        FieldGetterInvoker(Field field, MethodHandle handle) {
+            super(field);
+            this.declaringClass = field.getDeclaringClass();
+            this.handle = handle;
+        }
+
+        @Override
+        @UsesJava7
+        public Object invoke(Object target, Object[] args) {
+            checkTarget(declaringClass, target);
+            try {
+                return (Object) handle.invokeExact(target);
+            } catch (Throwable t) {
+                throw unexpected(t);
+            }
+        }
+    }
+
+    private static final class FieldSetterInvoker extends SetFieldInvoker {
+        private final Class<?> declaringClass;
+        private final Class<?> fieldType;
+        private final MethodHandle handle;
+
+        FieldSetterInvoker(Field field, MethodHandle handle) {
+            super(field);
+            this.declaringClass = field.getDeclaringClass();
+            this.fieldType = field.getType();
+            this.handle = handle;
+        }
+
+        @Override
+        @UsesJava7
+        public Object invoke(Object target, Object[] args) {
+            checkTarget(declaringClass, target);
+            checkArgument(fieldType, args);
+            try {
+                handle.invokeExact(target, args[0]);
+            } catch (Throwable t) {
+                throw unexpected(t);
+            }
+            return null;
+        }
+    }
+
+}
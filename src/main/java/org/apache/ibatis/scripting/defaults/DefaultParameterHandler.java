@@ -26,7 +26,6 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeException;
 import org.apache.ibatis.type.TypeHandler;
-import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -38,8 +37,6 @@ import java.util.List;
  */
 public class DefaultParameterHandler implements ParameterHandler {
 
-    private final TypeHandlerRegistry typeHandlerRegistry;
-
     private final MappedStatement mappedStatement;
     private final Object parameterObject;
     private final BoundSql boundSql;
@@ -48,7 +45,6 @@ public class DefaultParameterHandler implements ParameterHandler {
     public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
         this.mappedStatement = mappedStatement;
         this.configuration = mappedStatement.getConfiguration();
-        this.typeHandlerRegistry = mappedStatement.getConfiguration().getTypeHandlerRegistry();
         this.parameterObject = parameterObject;
         this.boundSql = boundSql;
     }
@@ -63,6 +59,8 @@ public class DefaultParameterHandler implements ParameterHandler {
         ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         if (parameterMappings != null) {
+            ParameterBindingPlan plan = configuration.getParameterBindingPlanCache().get(configuration, parameterMappings, parameterObject);
+            MetaObject metaObject = null;
             for (int i = 0; i < parameterMappings.size(); i++) {
                 ParameterMapping parameterMapping = parameterMappings.get(i);
                 if (parameterMapping.getMode() != ParameterMode.OUT) {
@@ -70,13 +68,13 @@ public class DefaultParameterHandler implements ParameterHandler {
                     String propertyName = parameterMapping.getProperty();
                     if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
                         value = boundSql.getAdditionalParameter(propertyName);
-                    } else if (parameterObject == null) {
-                        value = null;
-                    } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-                        value = parameterObject;
-                    } else {
-                        MetaObject metaObject = configuration.newMetaObject(parameterObject);
+                    } else if (plan.requiresMetaObject(i)) {
+                        if (metaObject == null) {
+                            metaObject = configuration.newMetaObject(parameterObject);
+                        }
                         value = metaObject.getValue(propertyName);
+                    } else {
+                        value = plan.getValue(i, parameterObject);
                     }
                     TypeHandler typeHandler = parameterMapping.getTypeHandler();
                     JdbcType jdbcType = parameterMapping.getJdbcType();
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves how the value of each parameter mapping is read from a parameter object of one type. The plan is built
+ * once per parameter mapping list and parameter type, so simple values, map entries and bean properties are read
+ * without creating a {@link org.apache.ibatis.reflection.MetaObject} or looking up type handlers per execution.
+ *
+ * @since 3.5.9
+ */
+public final class ParameterBindingPlan {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * 参数值的来源，META_OBJECT 表示需要通过 MetaObject 解析（嵌套属性、下标或自定义包装器）
+     */
+    private static final byte NULL_VALUE = 0;
+    private static final byte PARAMETER_OBJECT = 1;
+    private static final byte MAP_ENTRY = 2;
+    private static final byte GETTER = 3;
+    private static final byte META_OBJECT = 4;
+
+    private final byte[] sources;
+    private final String[] properties;
+    private final Invoker[] getters;
+
+    private ParameterBindingPlan(int size) {
+        this.sources = new byte[size];
+        this.properties = new String[size];
+        this.getters = new Invoker[size];
+    }
+
+    static ParameterBindingPlan build(Configuration configuration, List<ParameterMapping> parameterMappings, Object parameterObject) {
+        final ParameterBindingPlan plan = new ParameterBindingPlan(parameterMappings.size());
+        final byte objectSource = objectSource(configuration, parameterObject);
+        final Reflector reflector = objectSource == GETTER ? configuration.getReflectorFactory().findForClass(parameterObject.getClass()) : null;
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            final String property = parameterMappings.get(i).getProperty();
+            plan.properties[i] = property;
+            byte source = objectSource;
+            if (source == MAP_ENTRY || source == GETTER) {
+                // 嵌套属性和下标仍交给 MetaObject 解析
+                if (property == null || property.indexOf('.') >= 0 || property.indexOf('[') >= 0) {
+                    source = META_OBJECT;
+                } else if (source == GETTER) {
+                    if (reflector.hasGetter(property)) {
+                        plan.getters[i] = reflector.getGetInvoker(property);
+                    } else {
+                        // 由 MetaObject 抛出与原来一致的异常
+                        source = META_OBJECT;
+                    }
+                }
+            }
+            plan.sources[i] = source;
+        }
+        return plan;
+    }
+
+    private static byte objectSource(Configuration configuration, Object parameterObject) {
+        if (parameterObject == null) {
+            return NULL_VALUE;
+        } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+            return PARAMETER_OBJECT;
+        } else if (configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class
+                || parameterObject instanceof ObjectWrapper
+                || parameterObject instanceof Collection
+                || parameterObject.getClass().isArray()) {
+            return META_OBJECT;
+        } else if (parameterObject instanceof Map) {
+            return MAP_ENTRY;
+        }
+        return GETTER;
+    }
+
+    /**
+     * Returns whether the value of a parameter mapping must be resolved by a
+     * {@link org.apache.ibatis.reflection.MetaObject}.
+     */
+    boolean requiresMetaObject(int index) {
+        return sources[index] == META_OBJECT;
+    }
+
+    Object getValue(int index, Object parameterObject) {
+        switch (sources[index]) {
+            case PARAMETER_OBJECT:
+                return parameterObject;
+            case MAP_ENTRY:
+                return ((Map<?, ?>) parameterObject).get(properties[index]);
+            case GETTER:
+                return getProperty(index, parameterObject);
+            default:
+                return null;
+        }
+    }
+
+    private Object getProperty(int index, Object parameterObject) {
+        try {
+            try {
+                return getters[index].invoke(parameterObject, NO_ARGUMENTS);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectionException("Could not get property '" + properties[index] + "' from " + parameterObject.getClass() + ".  Cause: " + t.toString(), t);
+        }
+    }
+
+}
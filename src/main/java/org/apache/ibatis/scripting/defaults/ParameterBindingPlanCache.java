@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the parameter binding plans across statement executions. A plan is kept per parameter mapping list and
+ * parameter type, so dynamic SQL and statements called with different parameter types each reuse their own plan.
+ *
+ * @since 3.5.9
+ */
+public class ParameterBindingPlanCache {
+
+    /**
+     * 关闭动态 SQL 计划缓存时每次执行都会生成新的参数映射列表，超过上限后不再缓存新的组合
+     */
+    private static final int MAX_PLANS = 4096;
+
+    private final ConcurrentMap<PlanKey, ParameterBindingPlan> plans = new ConcurrentHashMap<>();
+
+    ParameterBindingPlan get(Configuration configuration, List<ParameterMapping> parameterMappings, Object parameterObject) {
+        PlanKey key = new PlanKey(parameterMappings, parameterObject == null ? null : parameterObject.getClass());
+        ParameterBindingPlan plan = plans.get(key);
+        if (plan == null) {
+            plan = ParameterBindingPlan.build(configuration, parameterMappings, parameterObject);
+            if (plans.size() < MAX_PLANS) {
+                ParameterBindingPlan existing = plans.putIfAbsent(key, plan);
+                if (existing != null) {
+                    plan = existing;
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 参数映射列表按引用比较，同一条语句（或同一个动态 SQL 计划）的执行共用同一个列表
+     */
+    private static final class PlanKey {
+        private final List<ParameterMapping> parameterMappings;
+        private final Class<?> parameterType;
+        private final int hashCode;
+
+        PlanKey(List<ParameterMapping> parameterMappings, Class<?> parameterType) {
+            this.parameterMappings = parameterMappings;
+            this.parameterType = parameterType;
+            this.hashCode = 31 * System.identityHashCode(parameterMappings) + (parameterType == null ? 0 : parameterType.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey that = (PlanKey) o;
+            return parameterMappings == that.parameterMappings && parameterType == that.parameterType;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
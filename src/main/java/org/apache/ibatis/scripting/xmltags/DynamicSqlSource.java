@@ -15,11 +15,15 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.builder.SqlPlan;
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.Configuration;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Clinton Begin
  */
@@ -27,6 +31,10 @@ public class DynamicSqlSource implements SqlSource {
 
     private final Configuration configuration;
     private final SqlNode rootSqlNode;
+    /**
+     * 按生成的 SQL 和参数类型缓存 #{} 的解析结果，生成的 SQL 已经反映了走过的分支和 foreach 的长度
+     */
+    private final Map<PlanKey, SqlPlan> plans = new ConcurrentHashMap<>();
 
     public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
         this.configuration = configuration;
@@ -37,12 +45,58 @@ public class DynamicSqlSource implements SqlSource {
     public BoundSql getBoundSql(Object parameterObject) {
         DynamicContext context = new DynamicContext(configuration, parameterObject);
         rootSqlNode.apply(context);
-        SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
         Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-        SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-        BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+        SqlPlan plan = getPlan(context.getSql(), parameterType, context.getBindings());
+        BoundSql boundSql = plan.getBoundSql(parameterObject);
         context.getBindings().forEach(boundSql::setAdditionalParameter);
         return boundSql;
     }
 
+    private SqlPlan getPlan(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+        int planCacheSize = configuration.getDynamicSqlPlanCacheSize();
+        if (planCacheSize <= 0) {
+            return new SqlSourceBuilder(configuration).parsePlan(sql, parameterType, bindings);
+        }
+        PlanKey key = new PlanKey(sql, parameterType);
+        SqlPlan plan = plans.get(key);
+        if (plan != null && plan.matches(bindings)) {
+            return plan;
+        }
+        SqlPlan newPlan = new SqlSourceBuilder(configuration).parsePlan(sql, parameterType, bindings);
+        // 使用 ${} 拼接的 SQL 每次都不同，超过上限后不再缓存新的 SQL
+        if (plan != null || plans.size() < planCacheSize) {
+            plans.put(key, newPlan);
+        }
+        return newPlan;
+    }
+
+    private static final class PlanKey {
+        private final String sql;
+        private final Class<?> parameterType;
+        private final int hashCode;
+
+        PlanKey(String sql, Class<?> parameterType) {
+            this.sql = sql;
+            this.parameterType = parameterType;
+            this.hashCode = 31 * sql.hashCode() + parameterType.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey that = (PlanKey) o;
+            return parameterType == that.parameterType && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
 }
@@ -0,0 +1,362 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Runs statements asynchronously and returns their results as {@link CompletableFuture}s.
+ * <p>
+ * Every future owns its session: the work runs on a new {@link SqlSession} with its own transaction on a thread of the
+ * executor service. The transaction is created by the transaction factory of the environment, so it follows the same
+ * rules as {@link SqlSessionFactory#openSession(boolean)}, e.g. commits are left to the container with
+ * {@code MANAGED}. The work is committed when it completes normally, rolled back when it fails, and the session is closed
+ * before the future completes. Cancelling a future before it starts skips the work, cancelling a running future
+ * cancels the statements it has open ({@link Statement#cancel()}) and rolls back its session.
+ * <p>
+ * This class is thread safe. Mapper methods returning {@link CompletableFuture} or
+ * {@link java.util.concurrent.CompletionStage} are run the same way.
+ *
+ * @since 3.5.9
+ * @see Configuration#setAsyncExecutorService(ExecutorService)
+ */
+public class AsyncSqlSession {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ExecutorService executorService;
+
+    /**
+     * Creates an instance that uses the executor service of the configuration.
+     *
+     * @param sqlSessionFactory the factory of the sessions
+     */
+    public AsyncSqlSession(SqlSessionFactory sqlSessionFactory) {
+        this(sqlSessionFactory, null);
+    }
+
+    /**
+     * @param sqlSessionFactory the factory of the sessions
+     * @param executorService the executor service that runs the statements, {@code null} uses the one of the configuration
+     */
+    public AsyncSqlSession(SqlSessionFactory sqlSessionFactory, ExecutorService executorService) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Runs work on its own session.
+     *
+     * @param <T> the result type
+     * @param work the work, the session must not be used after it returns
+     * @return the result of the work
+     */
+    public <T> CompletableFuture<T> execute(Function<SqlSession, T> work) {
+        AsyncTask<T> task = new AsyncTask<>(work);
+        try {
+            getExecutorService().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    public <T> CompletableFuture<T> selectOneAsync(String statement) {
+        return execute(sqlSession -> sqlSession.selectOne(statement));
+    }
+
+    public <T> CompletableFuture<T> selectOneAsync(String statement, Object parameter) {
+        return execute(sqlSession -> sqlSession.selectOne(statement, parameter));
+    }
+
+    public <E> CompletableFuture<List<E>> selectListAsync(String statement) {
+        return execute(sqlSession -> sqlSession.selectList(statement));
+    }
+
+    public <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter) {
+        return execute(sqlSession -> sqlSession.selectList(statement, parameter));
+    }
+
+    public <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter, RowBounds rowBounds) {
+        return execute(sqlSession -> sqlSession.selectList(statement, parameter, rowBounds));
+    }
+
+    public <K, V> CompletableFuture<Map<K, V>> selectMapAsync(String statement, String mapKey) {
+        return execute(sqlSession -> sqlSession.selectMap(statement, mapKey));
+    }
+
+    public <K, V> CompletableFuture<Map<K, V>> selectMapAsync(String statement, Object parameter, String mapKey) {
+        return execute(sqlSession -> sqlSession.selectMap(statement, parameter, mapKey));
+    }
+
+    public CompletableFuture<Integer> insertAsync(String statement) {
+        return execute(sqlSession -> sqlSession.insert(statement));
+    }
+
+    public CompletableFuture<Integer> insertAsync(String statement, Object parameter) {
+        return execute(sqlSession -> sqlSession.insert(statement, parameter));
+    }
+
+    public CompletableFuture<Integer> updateAsync(String statement) {
+        return execute(sqlSession -> sqlSession.update(statement));
+    }
+
+    public CompletableFuture<Integer> updateAsync(String statement, Object parameter) {
+        return execute(sqlSession -> sqlSession.update(statement, parameter));
+    }
+
+    public CompletableFuture<Integer> deleteAsync(String statement) {
+        return execute(sqlSession -> sqlSession.delete(statement));
+    }
+
+    public CompletableFuture<Integer> deleteAsync(String statement, Object parameter) {
+        return execute(sqlSession -> sqlSession.delete(statement, parameter));
+    }
+
+    public Configuration getConfiguration() {
+        return sqlSessionFactory.getConfiguration();
+    }
+
+    private ExecutorService getExecutorService() {
+        if (executorService != null) {
+            return executorService;
+        }
+        ExecutorService configured = getConfiguration().getAsyncExecutorService();
+        return configured != null ? configured : DefaultExecutorServiceHolder.INSTANCE;
+    }
+
+    private class AsyncTask<T> extends CompletableFuture<T> implements Runnable {
+
+        private final Function<SqlSession, T> work;
+        private final List<Statement> statements = new ArrayList<>();
+        private final ReentrantLock statementsLock = new ReentrantLock();
+
+        AsyncTask(Function<SqlSession, T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                // 已经被取消
+                return;
+            }
+            SqlSession sqlSession = null;
+            try {
+                sqlSession = openSession();
+                T result = work.apply(sqlSession);
+                if (isCancelled()) {
+                    // 运行中被取消，关闭会话时回滚
+                    return;
+                }
+                sqlSession.commit();
+                sqlSession.close();
+                sqlSession = null;
+                complete(result);
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            } finally {
+                if (sqlSession != null) {
+                    // 没有提交的修改会被回滚
+                    sqlSession.close();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                statementsLock.lock();
+                try {
+                    for (Statement statement : statements) {
+                        try {
+                            statement.cancel();
+                        } catch (SQLException ignore) {
+                            // the statement may already be closed
+                        }
+                    }
+                } finally {
+                    statementsLock.unlock();
+                }
+            }
+            return cancelled;
+        }
+
+        /**
+         * 会话的事务仍由环境中配置的 {@link TransactionFactory} 创建（JDBC、MANAGED 或外部集成的实现），
+         * 这里只包装事务返回的连接，用来记录它创建的 Statement
+         */
+        private SqlSession openSession() {
+            final Configuration configuration = getConfiguration();
+            final Environment environment = configuration.getEnvironment();
+            if (environment == null || environment.getDataSource() == null) {
+                throw new SqlSessionException("Could not run the statements asynchronously.  DataSource was not configured.");
+            }
+            TransactionFactory transactionFactory = environment.getTransactionFactory() != null
+                    ? environment.getTransactionFactory() : new ManagedTransactionFactory();
+            Transaction tx = null;
+            try {
+                tx = new TrackingTransaction(transactionFactory.newTransaction(environment.getDataSource(), null, false));
+                final Executor executor = configuration.newExecutor(tx, configuration.getDefaultExecutorType());
+                return new DefaultSqlSession(configuration, executor, false);
+            } catch (Exception e) {
+                if (tx != null) {
+                    try {
+                        tx.close();
+                    } catch (SQLException ignore) {
+                        // Intentionally ignore. Prefer previous error.
+                    }
+                }
+                throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
+            } finally {
+                ErrorContext.instance().reset();
+            }
+        }
+
+        /**
+         * 记录连接创建的 Statement，以便取消时调用 {@link Statement#cancel()}
+         */
+        private Connection newTrackingConnection(Connection connection) {
+            InvocationHandler handler = (proxy, method, params) -> {
+                try {
+                    if (Object.class.equals(method.getDeclaringClass())) {
+                        return method.invoke(connection, params);
+                    }
+                    Object result = method.invoke(connection, params);
+                    if (result instanceof Statement) {
+                        track((Statement) result);
+                    }
+                    return result;
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+            };
+            ClassLoader cl = Connection.class.getClassLoader();
+            return (Connection) Proxy.newProxyInstance(cl, new Class[]{Connection.class}, handler);
+        }
+
+        private class TrackingTransaction implements Transaction {
+
+            private final Transaction delegate;
+            private Connection connection;
+            private Connection trackingConnection;
+
+            TrackingTransaction(Transaction delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection current = delegate.getConnection();
+                if (current != connection) {
+                    connection = current;
+                    trackingConnection = newTrackingConnection(current);
+                }
+                return trackingConnection;
+            }
+
+            @Override
+            public void commit() throws SQLException {
+                delegate.commit();
+            }
+
+            @Override
+            public void rollback() throws SQLException {
+                delegate.rollback();
+            }
+
+            @Override
+            public void close() throws SQLException {
+                delegate.close();
+            }
+
+            @Override
+            public Integer getTimeout() throws SQLException {
+                return delegate.getTimeout();
+            }
+        }
+
+        private void track(Statement statement) throws SQLException {
+            statementsLock.lock();
+            try {
+                if (isCancelled()) {
+                    statement.close();
+                    throw new SQLException("The asynchronous execution was cancelled.");
+                }
+                for (Iterator<Statement> iterator = statements.iterator(); iterator.hasNext(); ) {
+                    if (iterator.next().isClosed()) {
+                        iterator.remove();
+                    }
+                }
+                statements.add(statement);
+            } finally {
+                statementsLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 默认线程池的线程数与 PooledDataSource 默认的最大活动连接数相同，队列满时拒绝的任务以异常结束
+     */
+    private static class DefaultExecutorServiceHolder {
+
+        private static final int POOL_SIZE = 10;
+        private static final int QUEUE_CAPACITY = 1000;
+
+        private static final ExecutorService INSTANCE = newExecutorService();
+
+        private static ExecutorService newExecutorService() {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                        Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+}
@@ -25,10 +25,15 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.*;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -36,10 +41,15 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapperCache;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.SlowQueryStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.CompactSerializer;
+import org.apache.ibatis.io.JavaSerializer;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -51,6 +61,13 @@ import org.apache.ibatis.logging.nologging.NoLoggingImpl;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.logging.stdout.StdOutImpl;
 import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.metrics.MetricsCollector;
+import org.apache.ibatis.metrics.SlowQueryRecorder;
+import org.apache.ibatis.pagination.LimitOffsetDialect;
+import org.apache.ibatis.pagination.OffsetFetchDialect;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.PaginationDialect;
+import org.apache.ibatis.pagination.Paginator;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
@@ -63,6 +80,7 @@ import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
+import org.apache.ibatis.scripting.defaults.ParameterBindingPlanCache;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.transaction.Transaction;
@@ -74,6 +92,8 @@ import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 
 /**
@@ -99,6 +119,21 @@ public class Configuration {
     protected boolean returnInstanceForEmptyRow;
     protected boolean shrinkWhitespacesInSql;
     protected boolean nullableOnForEach;
+    protected int dynamicSqlPlanCacheSize = 64;
+    protected boolean compiledRowMappingEnabled;
+    protected final CompiledRowMapperCache compiledRowMapperCache = new CompiledRowMapperCache();
+    protected final ParameterBindingPlanCache parameterBindingPlanCache = new ParameterBindingPlanCache();
+    protected int batchFlushSize;
+    protected int defaultNestedSelectBatchSize;
+    protected ExecutorService asyncExecutorService;
+    protected int parallelResultMappingChunkSize;
+    protected PaginationDialect defaultPaginationDialect;
+    protected MetricsCollector metricsCollector;
+    protected int statementLogSampleRate = 1;
+    protected int statementLogSlowThreshold;
+    protected final SlowQueryRecorder slowQueryRecorder = new SlowQueryRecorder();
+    protected boolean mapperClassGenerationEnabled;
+    protected boolean parallelMapperLoadingEnabled;
 
     protected String logPrefix;
     protected Class<? extends Log> logImpl;
@@ -121,6 +156,7 @@ public class Configuration {
 
     protected boolean lazyLoadingEnabled = false;
     protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
+    protected Serializer defaultSerializer = new JavaSerializer();
 
     protected String databaseId;
     /**
@@ -144,6 +180,8 @@ public class Configuration {
     protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
     protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
     protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
+    protected final Map<String, PaginationDialect> paginationDialects = new HashMap<>();
+    protected final Map<String, MappedStatement> countStatements = new ConcurrentHashMap<>();
 
     protected final Set<String> loadedResources = new HashSet<>();
     protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
@@ -175,13 +213,17 @@ public class Configuration {
         // 数据库连接池工厂
         typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
         typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+        typeAliasRegistry.registerAlias("POOLED_CONCURRENT", ConcurrentPooledDataSourceFactory.class);
         typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
         typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+        typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentPerpetualCache.class);
+        typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
         typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
         typeAliasRegistry.registerAlias("LRU", LruCache.class);
         typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
         typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+        typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
 
         typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -199,8 +241,23 @@ public class Configuration {
         typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
         typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+        typeAliasRegistry.registerAlias("JAVA", JavaSerializer.class);
+        typeAliasRegistry.registerAlias("COMPACT", CompactSerializer.class);
+
         languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
         languageRegistry.register(RawLanguageDriver.class);
+
+        // 分页方言，按 databaseId 选择
+        typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+        typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+        PaginationDialect limitOffsetDialect = new LimitOffsetDialect();
+        for (String databaseId : Arrays.asList("mysql", "mariadb", "postgresql", "hsqldb", "h2", "sqlite")) {
+            paginationDialects.put(databaseId, limitOffsetDialect);
+        }
+        PaginationDialect offsetFetchDialect = new OffsetFetchDialect();
+        for (String databaseId : Arrays.asList("oracle", "sqlserver", "db2", "derby")) {
+            paginationDialects.put(databaseId, offsetFetchDialect);
+        }
     }
 
     public String getLogPrefix() {
@@ -275,6 +332,381 @@ public class Configuration {
         this.returnInstanceForEmptyRow = returnEmptyInstance;
     }
 
+    /**
+     * Gets the maximum number of parsed sql plans kept per dynamic statement.
+     *
+     * @return the maximum number of plans, 0 means plans are not cached
+     * @since 3.5.9
+     */
+    public int getDynamicSqlPlanCacheSize() {
+        return dynamicSqlPlanCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of parsed sql plans kept per dynamic statement. A plan holds the result of parsing
+     * the {@code #{}} placeholders of one generated sql and is reused while the statement keeps generating it.
+     *
+     * @param dynamicSqlPlanCacheSize the maximum number of plans, 0 disables the plan cache
+     * @since 3.5.9
+     */
+    public void setDynamicSqlPlanCacheSize(int dynamicSqlPlanCacheSize) {
+        this.dynamicSqlPlanCacheSize = dynamicSqlPlanCacheSize;
+    }
+
+    /**
+     * Gets whether flat result maps are mapped with a compiled row mapper.
+     *
+     * @return {@code true} if compiled row mapping is enabled
+     * @since 3.5.9
+     */
+    public boolean isCompiledRowMappingEnabled() {
+        return compiledRowMappingEnabled;
+    }
+
+    /**
+     * Sets whether flat result maps are mapped with a compiled row mapper. The row mapper is compiled once per result
+     * map and column set, resolves column indexes, type handlers and setters before the first row and is not used for
+     * result maps with a discriminator, nested or composite mappings. Values are read by column index, so every type
+     * handler involved must implement {@link org.apache.ibatis.type.TypeHandler#getResult(java.sql.ResultSet, int)}.
+     * Disabled by default.
+     *
+     * @param compiledRowMappingEnabled {@code true} to enable compiled row mapping
+     * @since 3.5.9
+     */
+    public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+        this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+    }
+
+    /**
+     * Gets the row mappers compiled for flat result maps, shared by all statement executions.
+     *
+     * @return the compiled row mapper cache
+     * @since 3.5.9
+     */
+    public CompiledRowMapperCache getCompiledRowMapperCache() {
+        return compiledRowMapperCache;
+    }
+
+    /**
+     * Gets the parameter binding plans, shared by all statement executions.
+     *
+     * @return the parameter binding plan cache
+     * @since 3.5.9
+     */
+    public ParameterBindingPlanCache getParameterBindingPlanCache() {
+        return parameterBindingPlanCache;
+    }
+
+    /**
+     * Gets the number of updates after which the batch executor executes its pending batches.
+     *
+     * @return the number of updates, 0 means batches are executed only when statements are flushed
+     * @since 3.5.9
+     */
+    public int getBatchFlushSize() {
+        return batchFlushSize;
+    }
+
+    /**
+     * Sets the number of updates after which the batch executor executes its pending batches. The statement of the
+     * current batch stays open, its update counts are accumulated and its parameter objects are released, so large
+     * imports run with bounded memory.
+     *
+     * @param batchFlushSize the number of updates, 0 executes batches only when statements are flushed
+     * @since 3.5.9
+     */
+    public void setBatchFlushSize(int batchFlushSize) {
+        this.batchFlushSize = batchFlushSize;
+    }
+
+    /**
+     * Gets the number of keys loaded with one query by nested selects that do not specify a batch size.
+     *
+     * @return the number of keys, 0 means each key is loaded separately
+     * @since 3.5.9
+     */
+    public int getDefaultNestedSelectBatchSize() {
+        return defaultNestedSelectBatchSize;
+    }
+
+    /**
+     * Sets the number of keys loaded with one query by nested selects that do not specify a batch size. A batched
+     * nested select receives a collection of keys, so this should only be enabled if all nested selects accept one.
+     *
+     * @param defaultNestedSelectBatchSize the number of keys, 0 loads each key separately
+     * @since 3.5.9
+     * @see org.apache.ibatis.executor.loader.BatchResultLoader
+     */
+    public void setDefaultNestedSelectBatchSize(int defaultNestedSelectBatchSize) {
+        this.defaultNestedSelectBatchSize = defaultNestedSelectBatchSize;
+    }
+
+    /**
+     * Gets the number of rows that are mapped together by a task of the common fork-join pool.
+     *
+     * @return the number of rows, 0 means rows are mapped on the calling thread
+     * @since 3.5.9
+     */
+    public int getParallelResultMappingChunkSize() {
+        return parallelResultMappingChunkSize;
+    }
+
+    /**
+     * Sets the number of rows that are mapped together by a task of the common fork-join pool. The rows are still
+     * read from the driver on the calling thread, but the result objects of flat result maps are created and
+     * populated in parallel, and their order is preserved. Result sets with fewer rows are mapped on the calling
+     * thread. Only result maps mapped with a compiled row mapper are mapped in parallel, see
+     * {@link #setCompiledRowMappingEnabled(boolean)}.
+     *
+     * @param parallelResultMappingChunkSize the number of rows, 0 maps all rows on the calling thread
+     * @since 3.5.9
+     */
+    public void setParallelResultMappingChunkSize(int parallelResultMappingChunkSize) {
+        this.parallelResultMappingChunkSize = parallelResultMappingChunkSize;
+    }
+
+    /**
+     * Gets the pagination dialect used when no dialect is registered for the database id.
+     *
+     * @return the default pagination dialect, {@code null} if none
+     * @since 3.5.9
+     */
+    public PaginationDialect getDefaultPaginationDialect() {
+        return defaultPaginationDialect;
+    }
+
+    /**
+     * Sets the pagination dialect used when no dialect is registered for the database id. Without a dialect a
+     * {@link PageRequest} skips and limits rows of the result set like plain {@link RowBounds}.
+     *
+     * @param defaultPaginationDialect the default pagination dialect
+     * @since 3.5.9
+     */
+    public void setDefaultPaginationDialect(PaginationDialect defaultPaginationDialect) {
+        this.defaultPaginationDialect = defaultPaginationDialect;
+    }
+
+    /**
+     * Gets the collector that receives statement, cache and connection pool measurements.
+     *
+     * @return the metrics collector, {@code null} if none
+     * @since 3.5.9
+     */
+    public MetricsCollector getMetricsCollector() {
+        return metricsCollector;
+    }
+
+    /**
+     * Sets the collector that receives statement, cache and connection pool measurements. The collector is also
+     * registered with the {@link PooledDataSource} of the environment.
+     *
+     * @param metricsCollector the metrics collector, {@code null} to disable the instrumentation
+     * @since 3.5.9
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+        bindMetricsCollector();
+    }
+
+    /**
+     * Gets how many statement executions share one logged execution when the statement log is debug enabled.
+     *
+     * @return the sample rate
+     * @since 3.5.9
+     */
+    public int getStatementLogSampleRate() {
+        return statementLogSampleRate;
+    }
+
+    /**
+     * Sets how many statement executions share one logged execution when the statement log is debug enabled. The
+     * executions are picked at random, the JDBC objects of the other executions are not wrapped for logging.
+     *
+     * @param statementLogSampleRate log 1 in N executions, 1 logs every execution
+     * @since 3.5.9
+     */
+    public void setStatementLogSampleRate(int statementLogSampleRate) {
+        this.statementLogSampleRate = statementLogSampleRate;
+    }
+
+    /**
+     * Gets the minimum execution time of a logged statement.
+     *
+     * @return the threshold in milliseconds, 0 if every statement is logged
+     * @since 3.5.9
+     */
+    public int getStatementLogSlowThreshold() {
+        return statementLogSlowThreshold;
+    }
+
+    /**
+     * Sets the minimum execution time of a logged statement. The SQL and parameters of a statement are written
+     * after it has been executed, together with the elapsed time, and only if it was slow.
+     *
+     * @param statementLogSlowThreshold the threshold in milliseconds, 0 logs every statement
+     * @since 3.5.9
+     */
+    public void setStatementLogSlowThreshold(int statementLogSlowThreshold) {
+        this.statementLogSlowThreshold = statementLogSlowThreshold;
+    }
+
+    /**
+     * Gets the recorder that keeps the slow statement executions.
+     *
+     * @return the slow query recorder
+     * @since 3.5.9
+     */
+    public SlowQueryRecorder getSlowQueryRecorder() {
+        return slowQueryRecorder;
+    }
+
+    /**
+     * Gets the minimum execution time of a statement kept by the slow query recorder.
+     *
+     * @return the threshold in milliseconds, 0 if slow queries are not recorded
+     * @since 3.5.9
+     */
+    public long getSlowQueryThreshold() {
+        return slowQueryRecorder.getThreshold();
+    }
+
+    /**
+     * Sets the minimum execution time of a statement kept by the slow query recorder.
+     *
+     * @param slowQueryThreshold the threshold in milliseconds, 0 disables the recorder
+     * @since 3.5.9
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        slowQueryRecorder.setThreshold(slowQueryThreshold);
+    }
+
+    /**
+     * Gets the number of slow executions kept by the slow query recorder.
+     *
+     * @return the number of executions
+     * @since 3.5.9
+     */
+    public int getSlowQueryCapacity() {
+        return slowQueryRecorder.getCapacity();
+    }
+
+    /**
+     * Sets the number of slow executions kept by the slow query recorder, older executions are dropped.
+     *
+     * @param slowQueryCapacity the number of executions
+     * @since 3.5.9
+     */
+    public void setSlowQueryCapacity(int slowQueryCapacity) {
+        slowQueryRecorder.setCapacity(slowQueryCapacity);
+    }
+
+    /**
+     * Gets whether mappers are implemented by generated classes instead of JDK proxies.
+     *
+     * @return true if mapper classes are generated
+     * @since 3.5.9
+     */
+    public boolean isMapperClassGenerationEnabled() {
+        return mapperClassGenerationEnabled;
+    }
+
+    /**
+     * Sets whether mappers are implemented by generated classes instead of JDK proxies. A generated class calls the
+     * statement of each mapper method directly, without the reflective dispatch of a proxy. Requires Javassist, mappers
+     * fall back to JDK proxies when their class cannot be generated.
+     *
+     * @param mapperClassGenerationEnabled true to generate mapper classes
+     * @since 3.5.9
+     */
+    public void setMapperClassGenerationEnabled(boolean mapperClassGenerationEnabled) {
+        this.mapperClassGenerationEnabled = mapperClassGenerationEnabled;
+    }
+
+    /**
+     * Gets whether the mapper XML files of the configuration file are read and parsed concurrently.
+     *
+     * @return true if mapper files are parsed concurrently
+     * @since 3.5.9
+     */
+    public boolean isParallelMapperLoadingEnabled() {
+        return parallelMapperLoadingEnabled;
+    }
+
+    /**
+     * Sets whether the mapper XML files of the configuration file are read and parsed concurrently. The mappers are
+     * still built one after another in the declared order, so the resulting configuration is the same.
+     *
+     * @param parallelMapperLoadingEnabled true to parse mapper files concurrently
+     * @since 3.5.9
+     */
+    public void setParallelMapperLoadingEnabled(boolean parallelMapperLoadingEnabled) {
+        this.parallelMapperLoadingEnabled = parallelMapperLoadingEnabled;
+    }
+
+    /**
+     * Registers the pagination dialect of a database id. Dialects are registered for {@code mysql},
+     * {@code mariadb}, {@code postgresql}, {@code hsqldb}, {@code h2}, {@code sqlite}, {@code oracle},
+     * {@code sqlserver}, {@code db2} and {@code derby}.
+     *
+     * @param databaseId the database id
+     * @param dialect    the pagination dialect
+     * @since 3.5.9
+     */
+    public void addPaginationDialect(String databaseId, PaginationDialect dialect) {
+        paginationDialects.put(databaseId, dialect);
+    }
+
+    /**
+     * Gets the pagination dialect of the current database id, or the default pagination dialect.
+     *
+     * @return the pagination dialect, {@code null} if none
+     * @since 3.5.9
+     */
+    public PaginationDialect getPaginationDialect() {
+        PaginationDialect dialect = databaseId == null ? null : paginationDialects.get(databaseId);
+        return dialect == null ? defaultPaginationDialect : dialect;
+    }
+
+    /**
+     * Gets the statement that counts the rows of a select statement, see {@link SqlSession#selectPage(String, Object, PageRequest)}.
+     *
+     * @param id the id of the select statement
+     * @return the count statement
+     * @since 3.5.9
+     */
+    public MappedStatement getCountStatement(String id) {
+        MappedStatement countStatement = countStatements.get(id);
+        if (countStatement == null) {
+            countStatement = countStatements.computeIfAbsent(id, k -> Paginator.newCountStatement(getMappedStatement(k)));
+        }
+        return countStatement;
+    }
+
+    /**
+     * Gets the executor service that runs asynchronous statements.
+     *
+     * @return the executor service, {@code null} means a shared pool of 10 daemon threads is used
+     * @since 3.5.9
+     * @see AsyncSqlSession
+     */
+    public ExecutorService getAsyncExecutorService() {
+        return asyncExecutorService;
+    }
+
+    /**
+     * Sets the executor service that runs asynchronous statements, e.g. a virtual thread per task executor on
+     * runtimes that support it. The executor service is not shut down by MyBatis. The shared default pool runs 10
+     * statements at a time and queues up to 1000 more, further statements fail with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param asyncExecutorService the executor service, {@code null} uses the shared default pool
+     * @since 3.5.9
+     * @see AsyncSqlSession
+     */
+    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+
     public boolean isShrinkWhitespacesInSql() {
         return shrinkWhitespacesInSql;
     }
@@ -357,6 +789,14 @@ public class Configuration {
 
     public void setEnvironment(Environment environment) {
         this.environment = environment;
+        bindMetricsCollector();
+    }
+
+    private void bindMetricsCollector() {
+        // 连接池不持有 Configuration，由这里把收集器传给它
+        if (metricsCollector != null && environment != null && environment.getDataSource() instanceof PooledDataSource) {
+            ((PooledDataSource) environment.getDataSource()).setMetricsCollector(metricsCollector);
+        }
     }
 
     public AutoMappingBehavior getAutoMappingBehavior() {
@@ -404,6 +844,29 @@ public class Configuration {
         this.proxyFactory = proxyFactory;
     }
 
+    /**
+     * Gets the serializer used by read-write caches that do not specify one and by lazy loading proxies.
+     *
+     * @return the default serializer
+     * @since 3.5.9
+     */
+    public Serializer getDefaultSerializer() {
+        return defaultSerializer;
+    }
+
+    /**
+     * Sets the serializer used by read-write caches that do not specify one and by lazy loading proxies.
+     *
+     * @param defaultSerializer the default serializer, {@code null} means Java serialization
+     * @since 3.5.9
+     */
+    public void setDefaultSerializer(Serializer defaultSerializer) {
+        if (defaultSerializer == null) {
+            defaultSerializer = new JavaSerializer();
+        }
+        this.defaultSerializer = defaultSerializer;
+    }
+
     public boolean isAggressiveLazyLoading() {
         return aggressiveLazyLoading;
     }
@@ -652,6 +1115,10 @@ public class Configuration {
                                                 ResultHandler resultHandler, BoundSql boundSql) {
         StatementHandler statementHandler = new RoutingStatementHandler(executor, mappedStatement, parameterObject, rowBounds, resultHandler, boundSql);
         statementHandler = (StatementHandler) interceptorChain.pluginAll(statementHandler);
+        // 在插件之外计时，插件看到的仍然是 RoutingStatementHandler
+        if (slowQueryRecorder.isEnabled()) {
+            statementHandler = new SlowQueryStatementHandler(statementHandler, mappedStatement, slowQueryRecorder);
+        }
         return statementHandler;
     }
 
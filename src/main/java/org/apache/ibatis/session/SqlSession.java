@@ -17,6 +17,9 @@ package org.apache.ibatis.session;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Slice;
 
 import java.io.Closeable;
 import java.sql.Connection;
@@ -142,6 +145,29 @@ public interface SqlSession extends Closeable {
      */
     <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+    /**
+     * Retrieve a slice of mapped objects, the limit (and keyset condition) of the request is applied by the database.
+     * @param <E>         the returned slice element type
+     * @param statement   Unique identifier matching the statement to use.
+     * @param parameter   A parameter object to pass to the statement.
+     * @param pageRequest The rows to retrieve
+     * @return Slice of mapped objects and the request of the next slice
+     * @since 3.5.9
+     */
+    <E> Slice<E> selectSlice(String statement, Object parameter, PageRequest pageRequest);
+
+    /**
+     * Retrieve a page of mapped objects like {@link #selectSlice(String, Object, PageRequest)}, and the total number
+     * of rows of the statement by a count query if it cannot be told from the page itself.
+     * @param <E>         the returned page element type
+     * @param statement   Unique identifier matching the statement to use.
+     * @param parameter   A parameter object to pass to the statement.
+     * @param pageRequest The rows to retrieve, must be an offset request
+     * @return Page of mapped objects
+     * @since 3.5.9
+     */
+    <E> Page<E> selectPage(String statement, Object parameter, PageRequest pageRequest);
+
     /**
      * Retrieve a single row mapped from the statement key and parameter
      * using a {@code ResultHandler}.
@@ -17,6 +17,9 @@ package org.apache.ibatis.session;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Slice;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 import java.io.InputStream;
@@ -196,6 +199,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
         return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
     }
 
+    @Override
+    public <E> Slice<E> selectSlice(String statement, Object parameter, PageRequest pageRequest) {
+        return sqlSessionProxy.selectSlice(statement, parameter, pageRequest);
+    }
+
+    @Override
+    public <E> Page<E> selectPage(String statement, Object parameter, PageRequest pageRequest) {
+        return sqlSessionProxy.selectPage(statement, parameter, pageRequest);
+    }
+
     @Override
     public <E> List<E> selectList(String statement) {
         return sqlSessionProxy.selectList(statement);
@@ -25,11 +25,16 @@ import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Paginator;
+import org.apache.ibatis.pagination.Slice;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -129,6 +134,40 @@ public class DefaultSqlSession implements SqlSession {
         }
     }
 
+    @Override
+    public <E> Slice<E> selectSlice(String statement, Object parameter, PageRequest pageRequest) {
+        List<E> rows = selectList(statement, parameter, Paginator.probe(pageRequest));
+        return Paginator.newSlice(configuration, rows, pageRequest);
+    }
+
+    @Override
+    public <E> Page<E> selectPage(String statement, Object parameter, PageRequest pageRequest) {
+        if (pageRequest.isKeyset()) {
+            throw new SqlSessionException("A page with the total number of rows requires an offset request, use selectSlice for keyset requests.");
+        }
+        Slice<E> slice = selectSlice(statement, parameter, pageRequest);
+        long totalElements;
+        if (slice.hasNext() || (!slice.hasContent() && pageRequest.getOffset() > 0)) {
+            totalElements = selectCount(statement, parameter);
+        } else {
+            // 最后一页，不需要 count 查询
+            totalElements = (long) pageRequest.getOffset() + slice.getNumberOfElements();
+        }
+        return new Page<>(slice.getContent(), pageRequest, slice.nextRequest(), totalElements);
+    }
+
+    private long selectCount(String statement, Object parameter) {
+        try {
+            MappedStatement ms = configuration.getCountStatement(statement);
+            List<Number> counts = executor.query(ms, wrapCollection(parameter), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+            return counts.isEmpty() || counts.get(0) == null ? 0 : counts.get(0).longValue();
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
     @Override
     public <E> List<E> selectList(String statement) {
         return this.selectList(statement, null);
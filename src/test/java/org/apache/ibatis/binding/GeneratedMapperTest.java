@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeneratedMapperTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        DataSource dataSource = BaseDataTest.createUnpooledDataSource(BaseDataTest.BLOG_PROPERTIES);
+        BaseDataTest.runScript(dataSource, "org/apache/ibatis/binding/paramtest-schema.sql");
+        Configuration configuration = new Configuration(new Environment("Production", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapperClassGenerationEnabled(true);
+        configuration.addMapper(Mapper.class);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    void shouldImplementMapperWithGeneratedClass() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Mapper mapper = session.getMapper(Mapper.class);
+            assertThat(Proxy.isProxyClass(mapper.getClass())).isFalse();
+            assertThat(mapper).isInstanceOf(GeneratedMapper.class);
+            assertThat(mapper.getClass().getPackage()).isEqualTo(Mapper.class.getPackage());
+            assertThat(session.getMapper(Mapper.class).getClass()).isSameAs(mapper.getClass());
+        }
+    }
+
+    @Test
+    void shouldBindParametersAndConvertResults() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Mapper mapper = session.getMapper(Mapper.class);
+            mapper.insert("generated-1", 10L);
+            mapper.insert("generated-2", 20L);
+            assertThat(mapper.selectSize("generated-1")).isEqualTo(10L);
+            assertThat(mapper.selectSizes(Arrays.asList("generated-1", "generated-2"))).containsExactly(10L, 20L);
+            assertThat(mapper.selectOptionalSize("generated-2")).contains(20L);
+            assertThat(mapper.selectOptionalSize("missing")).isEmpty();
+            assertThat(mapper.resize(new String[]{"generated-1", "generated-2"}, 30L)).isEqualTo(2);
+            assertThat(mapper.doubleSize("generated-1")).isEqualTo(60L);
+            session.rollback();
+        }
+    }
+
+    @Test
+    void shouldFailOnlyWhenUnboundMethodIsCalled() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Mapper mapper = session.getMapper(Mapper.class);
+            assertThatThrownBy(mapper::unbound).isInstanceOf(BindingException.class)
+                    .hasMessageContaining("Invalid bound statement (not found)");
+        }
+    }
+
+    @Test
+    void shouldUseProxyWhenGenerationIsDisabled() {
+        Configuration configuration = new Configuration(sqlSessionFactory.getConfiguration().getEnvironment());
+        configuration.addMapper(Mapper.class);
+        try (SqlSession session = new SqlSessionFactoryBuilder().build(configuration).openSession()) {
+            assertThat(Proxy.isProxyClass(session.getMapper(Mapper.class).getClass())).isTrue();
+        }
+    }
+
+    interface Mapper {
+        @Insert("INSERT INTO param_test (id, size) VALUES(#{id}, #{size})")
+        void insert(@Param("id") String id, @Param("size") long size);
+
+        @Select("SELECT size FROM param_test WHERE id = #{id}")
+        long selectSize(String id);
+
+        @Select({"<script>SELECT size FROM param_test WHERE id IN",
+                "<foreach item='id' collection='list' open='(' separator=',' close=')'>#{id}</foreach>",
+                "ORDER BY id</script>"})
+        List<Long> selectSizes(List<String> ids);
+
+        @Select("SELECT size FROM param_test WHERE id = #{id}")
+        Optional<Long> selectOptionalSize(String id);
+
+        @Update({"<script>UPDATE param_test SET size = #{param2} WHERE id IN",
+                "<foreach item='id' collection='param1' open='(' separator=',' close=')'>#{id}</foreach></script>"})
+        int resize(String[] ids, long size);
+
+        default long doubleSize(String id) {
+            return selectSize(id) * 2;
+        }
+
+        void unbound();
+    }
+
+}
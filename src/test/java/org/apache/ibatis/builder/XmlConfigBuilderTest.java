@@ -26,11 +26,15 @@ import org.apache.ibatis.domain.blog.mappers.NestedBlogMapper;
 import org.apache.ibatis.domain.jpetstore.Cart;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.io.CompactSerializer;
 import org.apache.ibatis.io.JBoss6VFS;
+import org.apache.ibatis.io.JavaSerializer;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.metrics.InMemoryMetricsCollector;
+import org.apache.ibatis.pagination.OffsetFetchDialect;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.*;
@@ -93,6 +97,20 @@ class XmlConfigBuilderTest {
             assertThat(config.isShrinkWhitespacesInSql()).isFalse();
             assertThat(config.getDefaultSqlProviderType()).isNull();
             assertThat(config.isNullableOnForEach()).isFalse();
+            assertThat(config.getDefaultSerializer()).isInstanceOf(JavaSerializer.class);
+            assertThat(config.getDynamicSqlPlanCacheSize()).isEqualTo(64);
+            assertThat(config.isCompiledRowMappingEnabled()).isFalse();
+            assertThat(config.getBatchFlushSize()).isZero();
+            assertThat(config.getDefaultNestedSelectBatchSize()).isZero();
+            assertThat(config.getParallelResultMappingChunkSize()).isZero();
+            assertThat(config.getDefaultPaginationDialect()).isNull();
+            assertThat(config.getMetricsCollector()).isNull();
+            assertThat(config.getStatementLogSampleRate()).isEqualTo(1);
+            assertThat(config.getStatementLogSlowThreshold()).isZero();
+            assertThat(config.getSlowQueryThreshold()).isZero();
+            assertThat(config.getSlowQueryCapacity()).isEqualTo(100);
+            assertThat(config.isMapperClassGenerationEnabled()).isFalse();
+            assertThat(config.isParallelMapperLoadingEnabled()).isFalse();
         }
     }
 
@@ -191,6 +209,20 @@ class XmlConfigBuilderTest {
             assertThat(config.isShrinkWhitespacesInSql()).isTrue();
             assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
             assertThat(config.isNullableOnForEach()).isTrue();
+            assertThat(config.getDefaultSerializer()).isInstanceOf(CompactSerializer.class);
+            assertThat(config.getDynamicSqlPlanCacheSize()).isEqualTo(16);
+            assertThat(config.isCompiledRowMappingEnabled()).isTrue();
+            assertThat(config.getBatchFlushSize()).isEqualTo(1000);
+            assertThat(config.getDefaultNestedSelectBatchSize()).isEqualTo(25);
+            assertThat(config.getParallelResultMappingChunkSize()).isEqualTo(512);
+            assertThat(config.getDefaultPaginationDialect()).isInstanceOf(OffsetFetchDialect.class);
+            assertThat(config.getMetricsCollector()).isInstanceOf(InMemoryMetricsCollector.class);
+            assertThat(config.getStatementLogSampleRate()).isEqualTo(10);
+            assertThat(config.getStatementLogSlowThreshold()).isEqualTo(500);
+            assertThat(config.getSlowQueryThreshold()).isEqualTo(1000);
+            assertThat(config.getSlowQueryCapacity()).isEqualTo(20);
+            assertThat(config.isMapperClassGenerationEnabled()).isTrue();
+            assertThat(config.isParallelMapperLoadingEnabled()).isTrue();
 
             assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
             assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -16,16 +16,22 @@
 package org.apache.ibatis.builder;
 
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.TypeHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
 import static com.googlecode.catchexception.apis.BDDCatchException.caughtException;
@@ -174,6 +180,30 @@ class XmlMapperBuilderTest {
                 .hasMessage("The mapper element requires a namespace attribute to be specified.");
     }
 
+    @Test
+    void shouldNotSynchronizeConcurrentCacheWithDefaultEviction() throws Exception {
+        Configuration configuration = new Configuration();
+        String mapper = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+                + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n"
+                + "<mapper namespace=\"org.apache.ibatis.builder.ConcurrentCacheMapper\">\n"
+                + "    <cache type=\"CONCURRENT\"/>\n"
+                + "</mapper>\n";
+        try (InputStream inputStream = new ByteArrayInputStream(mapper.getBytes(StandardCharsets.UTF_8))) {
+            XMLMapperBuilder builder = new XMLMapperBuilder(inputStream, configuration, "ConcurrentCacheMapper.xml", configuration.getSqlFragments());
+            builder.parse();
+        }
+        Cache cache = configuration.getCache("org.apache.ibatis.builder.ConcurrentCacheMapper");
+        for (Cache current = cache; current != null; current = delegateOf(current)) {
+            assertThat(current).isNotInstanceOf(SynchronizedCache.class);
+        }
+        assertThat(cache.isThreadSafe()).isTrue();
+    }
+
+    private static Cache delegateOf(Cache cache) {
+        MetaObject metaCache = SystemMetaObject.forObject(cache);
+        return metaCache.hasGetter("delegate") ? (Cache) metaCache.getValue("delegate") : null;
+    }
+
     @Test
     void useCacheRefNamespaceIsNull() {
         MapperBuilderAssistant builder = new MapperBuilderAssistant(new Configuration(), "resource");
@@ -31,6 +31,8 @@ import java.sql.SQLException;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class DynamicSqlSourceTest extends BaseDataTest {
 
@@ -364,6 +366,44 @@ class DynamicSqlSourceTest extends BaseDataTest {
         assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
     }
 
+    @Test
+    void shouldReuseParsedPlanForSameGeneratedSql() throws Exception {
+        DynamicSqlSource source = createDynamicSqlSource(
+                new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+                new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", null, "item", "(", ")", ","));
+        BoundSql first = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+        BoundSql second = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(3, 4)));
+        BoundSql third = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(5, 6, 7)));
+        assertSame(first.getParameterMappings(), second.getParameterMappings());
+        assertEquals(4, second.getAdditionalParameter("__frch_item_1"));
+        assertEquals("SELECT * FROM BLOG WHERE ID in (  ? , ? , ? )", third.getSql());
+        assertEquals(3, third.getParameterMappings().size());
+    }
+
+    @Test
+    void shouldNotReusePlanWhenAdditionalParameterTypeChanges() throws Exception {
+        DynamicSqlSource source = createDynamicSqlSource(
+                new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+                new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", null, "item", "(", ")", ","));
+        BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(1)));
+        BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList("one")));
+        assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+        assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+        assertEquals(Integer.class, source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(2)))
+                .getParameterMappings().get(0).getJavaType());
+    }
+
+    @Test
+    void shouldNotCachePlansWhenDisabled() throws Exception {
+        DynamicSqlSource source = createDynamicSqlSource(new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}"));
+        Bean parameterObject = new Bean("1");
+        assertSame(source.getBoundSql(parameterObject).getParameterMappings(), source.getBoundSql(parameterObject).getParameterMappings());
+        Configuration configuration = new Configuration();
+        configuration.setDynamicSqlPlanCacheSize(0);
+        source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+        assertNotSame(source.getBoundSql(parameterObject).getParameterMappings(), source.getBoundSql(parameterObject).getParameterMappings());
+    }
+
     private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
         createBlogDataSource();
         final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
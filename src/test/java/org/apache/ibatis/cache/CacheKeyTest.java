@@ -102,6 +102,44 @@ class CacheKeyTest {
         assertEquals(cacheKey.hashCode(), clonedCacheKey.hashCode());
     }
 
+    @Test
+    void shouldNotShareUpdatesBetweenClones() throws Exception {
+        CacheKey key = new CacheKey(new Object[]{"statement", 0, Integer.MAX_VALUE, "select 1"});
+        CacheKey clonedKey = key.clone();
+        clonedKey.update("parent");
+        key.update("other");
+        assertEquals(5, key.getUpdateCount());
+        assertEquals(5, clonedKey.getUpdateCount());
+        assertNotEquals(key, clonedKey);
+        assertEquals(new CacheKey(new Object[]{"statement", 0, Integer.MAX_VALUE, "select 1", "parent"}), clonedKey);
+        assertEquals(new CacheKey(new Object[]{"statement", 0, Integer.MAX_VALUE, "select 1", "other"}), key);
+    }
+
+    @Test
+    void shouldGrowBeyondDefaultCapacity() {
+        CacheKey key1 = new CacheKey();
+        CacheKey key2 = new CacheKey();
+        for (int i = 0; i < 100; i++) {
+            key1.update(i);
+            key2.update(i);
+        }
+        assertEquals(100, key1.getUpdateCount());
+        assertEquals(key1, key2);
+        key2.update(100);
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    void shouldUpdateDeserializedKey() throws Exception {
+        CacheKey cacheKey = new CacheKey(new Object[]{"statement", 1, "select 1"});
+        CacheKey deserialized = serialize(cacheKey);
+        assertEquals(cacheKey, deserialized);
+        assertEquals(cacheKey.toString(), deserialized.toString());
+        cacheKey.update("param");
+        deserialized.update("param");
+        assertEquals(cacheKey, deserialized);
+    }
+
     @Test
     void serializationExceptionTest() {
         CacheKey cacheKey = new CacheKey();
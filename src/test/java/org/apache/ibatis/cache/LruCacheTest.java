@@ -16,9 +16,14 @@
 package org.apache.ibatis.cache;
 
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class LruCacheTest {
@@ -58,4 +63,34 @@ class LruCacheTest {
         assertNull(cache.getObject(4));
     }
 
+    @Test
+    void shouldNotBlockReadsWhileAnotherThreadHoldsTheLock() throws Exception {
+        CountDownLatch putStarted = new CountDownLatch(1);
+        CountDownLatch releasePut = new CountDownLatch(1);
+        Cache cache = new LruCache(new ConcurrentPerpetualCache("default") {
+            @Override
+            public void putObject(Object key, Object value) {
+                super.putObject(key, value);
+                if ("slow".equals(key)) {
+                    putStarted.countDown();
+                    try {
+                        releasePut.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        cache.putObject(0, 0);
+        CompletableFuture<Void> put = CompletableFuture.runAsync(() -> cache.putObject("slow", 1));
+        try {
+            assertTrue(putStarted.await(5, TimeUnit.SECONDS));
+            assertEquals(0, CompletableFuture.supplyAsync(() -> cache.getObject(0)).get(5, TimeUnit.SECONDS));
+        } finally {
+            releasePut.countDown();
+        }
+        put.get(5, TimeUnit.SECONDS);
+        assertEquals(1, cache.getObject("slow"));
+    }
+
 }
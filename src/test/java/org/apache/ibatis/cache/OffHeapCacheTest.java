@@ -0,0 +1,173 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCacheTest {
+
+    @Test
+    void shouldReturnCopiesOfCachedObjects() {
+        OffHeapCache cache = new OffHeapCache("default");
+        Author author = new Author(1, "username", "password", "email", "bio", Section.NEWS);
+        cache.putObject(1, author);
+        Object cached = cache.getObject(1);
+        assertEquals(author, cached);
+        assertNotSame(author, cached);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void shouldStoreSerializedValuesAsIs() {
+        Cache cache = new SerializedCache(new OffHeapCache("default"));
+        List<String> list = new ArrayList<>();
+        list.add("a");
+        list.add("b");
+        cache.putObject("key", list);
+        assertEquals(list, cache.getObject("key"));
+    }
+
+    @Test
+    void shouldEvictOldestEntriesWhenMemoryIsExhausted() {
+        OffHeapCache cache = new OffHeapCache("default");
+        cache.setSegmentSize(1024);
+        cache.setMaxMemory(2048);
+        cache.initialize();
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, new byte[100]);
+        }
+        // 2 segments of 1024 bytes are carved into 128 bytes chunks
+        assertEquals(16, cache.getSize());
+        assertEquals(2048, cache.getReservedMemory());
+        assertNull(cache.getObject(0));
+        assertNotNull(cache.getObject(99));
+    }
+
+    @Test
+    void shouldReclaimSegmentsOfOtherChunkSizes() {
+        OffHeapCache cache = new OffHeapCache("default");
+        cache.setSegmentSize(1024);
+        cache.setMaxMemory(2048);
+        cache.initialize();
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, new byte[100]);
+        }
+        for (int i = 100; i < 103; i++) {
+            cache.putObject(i, new byte[500]);
+        }
+        // every segment was carved into 128 bytes chunks, one of them is emptied for the 512 bytes chunks
+        assertNotNull(cache.getObject(101));
+        assertNotNull(cache.getObject(102));
+        assertNull(cache.getObject(100));
+        assertEquals(10, cache.getSize());
+        assertEquals(2048, cache.getReservedMemory());
+    }
+
+    @Test
+    void shouldNotCacheValuesLargerThanASegment() {
+        OffHeapCache cache = new OffHeapCache("default");
+        cache.setSegmentSize(1024);
+        cache.initialize();
+        cache.putObject(1, new byte[2048]);
+        assertNull(cache.getObject(1));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void shouldReuseFreedChunks() {
+        OffHeapCache cache = new OffHeapCache("default");
+        cache.setSegmentSize(1024);
+        cache.setMaxMemory(1024);
+        cache.initialize();
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, new byte[100]);
+            cache.removeObject(i);
+        }
+        cache.putObject(1, new byte[]{1, 2, 3});
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) cache.getObject(1));
+        assertEquals(1024, cache.getReservedMemory());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertNull(cache.getObject(1));
+    }
+
+    @Test
+    void shouldRemoveEntriesWithoutDeserializingThem() {
+        Cache cache = new FifoCache(new OffHeapCache("default"));
+        ((FifoCache) cache).setSize(1);
+        cache.putObject(1, new UnreadableValue());
+        // evicts the first entry
+        cache.putObject(2, "value");
+        assertNull(cache.getObject(1));
+        assertNull(cache.removeObject(2));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void shouldUseMemoryMappedFile(@TempDir File directory) {
+        OffHeapCache cache = new OffHeapCache("default");
+        cache.setDirectory(directory.getAbsolutePath());
+        cache.setSegmentSize(4096);
+        cache.setMaxMemory(8192);
+        cache.initialize();
+        for (int i = 0; i < 10; i++) {
+            cache.putObject(i, "value" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value" + i, cache.getObject(i));
+        }
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    void shouldBeBuiltWithStandardDecorators() {
+        Properties props = new Properties();
+        props.setProperty("segmentSize", "65536");
+        props.setProperty("maxMemory", "1048576");
+        Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).readWrite(true)
+                .properties(props).build();
+        assertTrue(cache instanceof LoggingCache);
+        cache.putObject("key", "value");
+        assertEquals("value", cache.getObject("key"));
+    }
+
+    static class UnreadableValue implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new IOException("must not be deserialized");
+        }
+    }
+
+}
@@ -17,12 +17,14 @@ package org.apache.ibatis.cache;
 
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.CompactSerializer;
 import org.junit.jupiter.api.Test;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class SerializedCacheTest {
@@ -49,6 +51,16 @@ class SerializedCacheTest {
         }
     }
 
+    @Test
+    void shouldCopyObjectsWithCustomSerializer() {
+        SerializedCache cache = new SerializedCache(new PerpetualCache("default"), new CompactSerializer());
+        CachingObject value = new CachingObject(1);
+        cache.putObject(0, value);
+        Object copy = cache.getObject(0);
+        assertEquals(value, copy);
+        assertNotSame(value, copy);
+    }
+
     @Test
     void throwExceptionWhenTryingToCacheNonSerializableObject() {
         SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void shouldNotExceedSize() {
+        TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+        cache.setSize(5);
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, i);
+        }
+        assertEquals(5, cache.getSize());
+        assertEquals(95, cache.getEvictionCount());
+    }
+
+    @Test
+    void shouldKeepFrequentlyUsedItemsDuringScan() {
+        TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+        cache.setSize(100);
+        for (int i = 0; i < 50; i++) {
+            cache.putObject(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, cache.getObject(i));
+            }
+        }
+        // hot keys are read once per 100 scanned keys, an LruCache would lose all of them
+        for (int block = 0; block < 100; block++) {
+            for (int i = 0; i < 100; i++) {
+                int key = 1000 + block * 100 + i;
+                assertNull(cache.getObject(key));
+                cache.putObject(key, key);
+            }
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, cache.getObject(i));
+            }
+        }
+        assertEquals(100, cache.getSize());
+    }
+
+    @Test
+    void shouldEvictByWeight() {
+        TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+        cache.setMaxWeight(1000);
+        for (int i = 0; i < 20; i++) {
+            cache.putObject(i, new byte[100]);
+        }
+        assertEquals(10, cache.getSize());
+        assertEquals(1000, cache.getWeight());
+        cache.putObject(100, new byte[5000]);
+        assertTrue(cache.getWeight() <= 1000);
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+        cache.putObject(0, 0);
+        cache.getObject(0);
+        cache.getObject(0);
+        cache.getObject(1);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3.0, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void shouldRemoveItemOnDemand() {
+        TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+        cache.putObject(0, new byte[10]);
+        assertNotNull(cache.getObject(0));
+        cache.removeObject(0);
+        assertNull(cache.getObject(0));
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void shouldFlushAllItemsOnDemand() {
+        Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+        for (int i = 0; i < 5; i++) {
+            cache.putObject(i, i);
+        }
+        assertNotNull(cache.getObject(0));
+        assertNotNull(cache.getObject(4));
+        cache.clear();
+        assertNull(cache.getObject(0));
+        assertNull(cache.getObject(4));
+    }
+
+    @Test
+    void shouldBeThreadSafeOverConcurrentDelegate() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache(new ConcurrentPerpetualCache("default"));
+        cache.setSize(64);
+        assertTrue(cache.isThreadSafe());
+        assertFalse(new TinyLfuCache(new PerpetualCache("default")).isThreadSafe());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    int key = i % 200;
+                    if (cache.getObject(key) == null) {
+                        cache.putObject(key, key);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(cache.getSize() <= 64);
+    }
+
+}
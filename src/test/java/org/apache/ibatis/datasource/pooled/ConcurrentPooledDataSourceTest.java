@@ -0,0 +1,220 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrentPooledDataSourceTest {
+
+    private ConcurrentPooledDataSource ds;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+        ds = new ConcurrentPooledDataSource();
+        ds.setDriver(props.getProperty("driver"));
+        ds.setUrl(props.getProperty("url"));
+        ds.setUsername(props.getProperty("username"));
+        ds.setPassword(props.getProperty("password"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ds.forceCloseAll();
+    }
+
+    @Test
+    void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+        ds.setPoolMaximumActiveConnections(3);
+        ds.setPoolMaximumIdleConnections(2);
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            connections.add(ds.getConnection());
+        }
+        assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+        for (Connection c : connections) {
+            c.close();
+        }
+        assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+        assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+        assertEquals(3, ds.getPoolState().getRequestCount());
+        assertEquals(0, ds.getPoolState().getBadConnectionCount());
+        assertEquals(0, ds.getPoolState().getHadToWaitCount());
+    }
+
+    @Test
+    void shouldReuseConnectionReturnedByTheSameThread() throws Exception {
+        Connection c1 = ds.getConnection();
+        Connection real = PooledDataSource.unwrapConnection(c1);
+        c1.close();
+        Connection c2 = ds.getConnection();
+        assertNotSame(c1, c2);
+        assertSame(real, PooledDataSource.unwrapConnection(c2));
+        c2.close();
+    }
+
+    @Test
+    void shouldRejectClosedProxy() throws Exception {
+        Connection c = ds.getConnection();
+        c.close();
+        assertThrows(SQLException.class, c::createStatement);
+        c.close();
+        assertEquals(1, ds.getPoolState().getBadConnectionCount());
+        assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    }
+
+    @Test
+    void shouldHandOffConnectionToWaitingThread() throws Exception {
+        ds.setPoolMaximumActiveConnections(1);
+        ds.setPoolTimeToWait(5000);
+        Connection c = ds.getConnection();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> waiting = executor.submit(() -> ds.getConnection());
+            while (ds.getPoolState().getHadToWaitCount() == 0) {
+                Thread.sleep(10);
+            }
+            c.close();
+            Connection handedOff = waiting.get(5, TimeUnit.SECONDS);
+            assertSame(PooledDataSource.unwrapConnection(c), PooledDataSource.unwrapConnection(handedOff));
+            handedOff.close();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, ds.getPoolState().getHadToWaitCount());
+        assertEquals(2, ds.getPoolState().getRequestCount());
+    }
+
+    @Test
+    void shouldClaimOverdueConnection() throws Exception {
+        ds.setPoolMaximumActiveConnections(1);
+        ds.setPoolMaximumCheckoutTime(10);
+        Connection leaked = ds.getConnection();
+        Thread.sleep(50);
+        Connection c = ds.getConnection();
+        assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+        assertThrows(SQLException.class, leaked::createStatement);
+        assertFalse(c.isClosed());
+        c.close();
+    }
+
+    @Test
+    void shouldKeepStatisticsAccurateUnderContention() throws Exception {
+        ds.setPoolMaximumActiveConnections(4);
+        ds.setPoolMaximumIdleConnections(4);
+        int threads = 16;
+        int iterations = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < iterations; j++) {
+                    try (Connection c = ds.getConnection()) {
+                        assertFalse(c.isClosed());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        PoolState state = ds.getPoolState();
+        assertEquals((long) threads * iterations, state.getRequestCount());
+        assertEquals(0, state.getActiveConnectionCount());
+        assertTrue(state.getIdleConnectionCount() <= 4);
+        assertEquals(0, state.getBadConnectionCount());
+        assertEquals(0, state.getClaimedOverdueConnectionCount());
+    }
+
+    @Test
+    void shouldDiscardConnectionThatCannotBeRolledBackOnReturn() throws Exception {
+        Connection broken = mock(Connection.class);
+        when(broken.getAutoCommit()).thenReturn(true).thenThrow(new SQLException("broken"));
+        ds = new ConcurrentPooledDataSource(new FixedConnectionsDataSource(broken));
+        Connection c = ds.getConnection();
+        assertThrows(SQLException.class, c::close);
+        verify(broken).close();
+        assertEquals(1, ds.getPoolState().getBadConnectionCount());
+        assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+        assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    }
+
+    @Test
+    void shouldDiscardConnectionThatCannotBeRolledBackOnCheckout() throws Exception {
+        Connection broken = mock(Connection.class);
+        when(broken.getAutoCommit()).thenThrow(new SQLException("broken"));
+        Connection good = mock(Connection.class);
+        when(good.getAutoCommit()).thenReturn(true);
+        ds = new ConcurrentPooledDataSource(new FixedConnectionsDataSource(broken, good));
+        ds.setPoolMaximumActiveConnections(1);
+        Connection c = ds.getConnection();
+        assertSame(good, PooledDataSource.unwrapConnection(c));
+        verify(broken).close();
+        assertEquals(1, ds.getPoolState().getBadConnectionCount());
+        assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+        c.close();
+    }
+
+    private static class FixedConnectionsDataSource extends UnpooledDataSource {
+
+        private final Deque<Connection> connections;
+
+        FixedConnectionsDataSource(Connection... connections) {
+            this.connections = new ArrayDeque<>(Arrays.asList(connections));
+        }
+
+        @Override
+        public Connection getConnection() {
+            return connections.remove();
+        }
+    }
+
+}
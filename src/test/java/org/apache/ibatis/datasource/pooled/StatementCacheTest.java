@@ -0,0 +1,221 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private static final String SQL = "SELECT USER_NAME FROM INFORMATION_SCHEMA.SYSTEM_USERS WHERE USER_NAME = ?";
+
+    private PooledDataSource ds;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ds = createDataSource(new PooledDataSource());
+        ds.setPoolMaximumCachedStatements(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ds.forceCloseAll();
+    }
+
+    @Test
+    void shouldReuseStatementAfterConnectionIsReturned() throws Exception {
+        PreparedStatement first;
+        PreparedStatement real;
+        try (Connection c = ds.getConnection()) {
+            first = c.prepareStatement(SQL);
+            real = first.unwrap(PreparedStatement.class);
+            assertUserFound(first);
+            first.close();
+            assertTrue(first.isClosed());
+        }
+        try (Connection c = ds.getConnection(); PreparedStatement second = c.prepareStatement(SQL)) {
+            assertNotSame(first, second);
+            assertSame(real, second.unwrap(PreparedStatement.class));
+            assertTrue(first.isClosed());
+            assertFalse(second.isClosed());
+            assertSame(c, second.getConnection());
+            assertUserFound(second);
+        }
+        assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+        assertEquals(1, ds.getPoolState().getStatementCacheMissCount());
+    }
+
+    @Test
+    void shouldReuseStatementOfConcurrentPool() throws Exception {
+        ConcurrentPooledDataSource concurrentDs = createDataSource(new ConcurrentPooledDataSource());
+        try {
+            concurrentDs.setPoolMaximumCachedStatements(2);
+            PreparedStatement real;
+            try (Connection c = concurrentDs.getConnection(); PreparedStatement ps = c.prepareStatement(SQL)) {
+                real = ps.unwrap(PreparedStatement.class);
+            }
+            try (Connection c = concurrentDs.getConnection(); PreparedStatement ps = c.prepareStatement(SQL)) {
+                assertSame(real, ps.unwrap(PreparedStatement.class));
+                assertUserFound(ps);
+            }
+            assertEquals(1, concurrentDs.getPoolState().getStatementCacheHitCount());
+        } finally {
+            concurrentDs.forceCloseAll();
+        }
+    }
+
+    @Test
+    void shouldNotShareOpenStatements() throws Exception {
+        try (Connection c = ds.getConnection()) {
+            PreparedStatement first = c.prepareStatement(SQL);
+            PreparedStatement second = c.prepareStatement(SQL);
+            assertNotSame(first, second);
+            first.close();
+            second.close();
+            assertEquals(1, getStatementCache(c).getSize());
+        }
+        assertEquals(2, ds.getPoolState().getStatementCacheMissCount());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedStatement() throws Exception {
+        try (Connection c = ds.getConnection()) {
+            c.prepareStatement(SQL).close();
+            c.prepareStatement(SQL + " OR USER_NAME = 'A'").close();
+            c.prepareStatement(SQL).close();
+            c.prepareStatement(SQL + " OR USER_NAME = 'B'").close();
+            assertEquals(2, getStatementCache(c).getSize());
+            c.prepareStatement(SQL).close();
+            c.prepareStatement(SQL + " OR USER_NAME = 'A'").close();
+        }
+        assertEquals(2, ds.getPoolState().getStatementCacheHitCount());
+        assertEquals(4, ds.getPoolState().getStatementCacheMissCount());
+    }
+
+    @Test
+    void shouldRestoreStatementSettings() throws Exception {
+        try (Connection c = ds.getConnection()) {
+            PreparedStatement ps = c.prepareStatement(SQL);
+            int fetchSize = ps.getFetchSize();
+            ps.setMaxRows(1);
+            ps.setFetchSize(fetchSize + 10);
+            ps.close();
+            ps = c.prepareStatement(SQL);
+            assertEquals(0, ps.getMaxRows());
+            assertEquals(fetchSize, ps.getFetchSize());
+            ps.close();
+        }
+    }
+
+    @Test
+    void shouldCloseStatementClosedAfterItsConnection() throws Exception {
+        Connection c = ds.getConnection();
+        PreparedStatement ps = c.prepareStatement(SQL);
+        c.close();
+        ps.close();
+        try (Connection other = ds.getConnection()) {
+            assertEquals(0, getStatementCache(other).getSize());
+            assertNotSame(ps, other.prepareStatement(SQL));
+        }
+    }
+
+    @Test
+    void shouldKeepStatementCacheOfClaimedOverdueConnection() throws Exception {
+        ds.setPoolMaximumActiveConnections(1);
+        ds.setPoolMaximumCheckoutTime(10);
+        Connection overdue = ds.getConnection();
+        PreparedStatement first = overdue.prepareStatement(SQL);
+        PreparedStatement real = first.unwrap(PreparedStatement.class);
+        first.close();
+        Thread.sleep(50);
+        try (Connection c = ds.getConnection()) {
+            assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+            assertSame(getStatementCache(overdue), getStatementCache(c));
+            try (PreparedStatement second = c.prepareStatement(SQL)) {
+                assertSame(real, second.unwrap(PreparedStatement.class));
+            }
+        }
+        overdue.close();
+    }
+
+    @Test
+    void shouldNotLetStaleStatementReachTheNextCheckout() throws Exception {
+        try (Connection c = ds.getConnection()) {
+            PreparedStatement stale = c.prepareStatement(SQL);
+            stale.close();
+            try (PreparedStatement current = c.prepareStatement(SQL)) {
+                assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+                assertTrue(stale.isClosed());
+                assertThrows(SQLException.class, () -> stale.setMaxRows(1));
+                stale.close();
+                assertFalse(current.isClosed());
+                assertEquals(0, current.getMaxRows());
+                assertUserFound(current);
+            }
+        }
+    }
+
+    @Test
+    void shouldNotCacheByDefault() throws Exception {
+        PooledDataSource uncached = createDataSource(new PooledDataSource());
+        try (Connection c = uncached.getConnection()) {
+            PreparedStatement first = c.prepareStatement(SQL);
+            first.close();
+            assertNotSame(first, c.prepareStatement(SQL));
+            assertEquals(0, uncached.getPoolState().getStatementCacheMissCount());
+        } finally {
+            uncached.forceCloseAll();
+        }
+    }
+
+    private static <T extends PooledDataSource> T createDataSource(T dataSource) throws Exception {
+        Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+        dataSource.setDriver(props.getProperty("driver"));
+        dataSource.setUrl(props.getProperty("url"));
+        dataSource.setUsername(props.getProperty("username"));
+        dataSource.setPassword(props.getProperty("password"));
+        return dataSource;
+    }
+
+    private static StatementCache getStatementCache(Connection connection) {
+        return ((PooledConnection) Proxy.getInvocationHandler(connection)).getStatementCache();
+    }
+
+    private static void assertUserFound(PreparedStatement ps) throws Exception {
+        ps.setString(1, "SA");
+        try (ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+        }
+    }
+
+}
@@ -15,15 +15,73 @@
  */
 package org.apache.ibatis.executor;
 
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
 class BatchExecutorTest extends BaseExecutorTest {
 
     @Test
     void dummy() {
     }
 
+    @Test
+    void shouldExecuteBatchWhenBatchFlushSizeIsReached() throws Exception {
+        config.setBatchFlushSize(2);
+        Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+        try {
+            MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+            Author last = null;
+            for (int id = 201; id <= 205; id++) {
+                last = new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS);
+                executor.update(insertStatement, last);
+            }
+            List<BatchResult> results = executor.flushStatements();
+            assertEquals(1, results.size());
+            assertArrayEquals(new int[]{1, 1, 1, 1, 1}, results.get(0).getUpdateCounts());
+            // parameter objects of executed chunks are released
+            assertEquals(1, results.get(0).getParameterObjects().size());
+            assertSame(last, results.get(0).getParameterObjects().get(0));
+        } finally {
+            executor.rollback(true);
+            executor.close(false);
+        }
+    }
+
+    @Test
+    void shouldExecutePendingBatchesInOrderWhenBatchFlushSizeIsReached() throws Exception {
+        config.setBatchFlushSize(2);
+        Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+        try {
+            MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+            MappedStatement deleteStatement = ExecutorTestHelper.prepareDeleteAuthorMappedStatement(config);
+            Author author = new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS);
+            executor.update(insertStatement, author);
+            executor.update(deleteStatement, author);
+            // reaches the batch flush size of the delete statement, the insert has to be executed first
+            executor.update(deleteStatement, new Author(301));
+            executor.update(deleteStatement, new Author(302));
+            List<BatchResult> results = executor.flushStatements();
+            assertEquals(2, results.size());
+            assertEquals("insertAuthor", results.get(0).getMappedStatement().getId());
+            assertArrayEquals(new int[]{1}, results.get(0).getUpdateCounts());
+            assertEquals("deleteAuthor", results.get(1).getMappedStatement().getId());
+            assertArrayEquals(new int[]{1, 0, 0}, results.get(1).getUpdateCounts());
+        } finally {
+            executor.rollback(true);
+            executor.close(false);
+        }
+    }
+
     @Override
     protected Executor createExecutor(Transaction transaction) {
         return new BatchExecutor(config, transaction);
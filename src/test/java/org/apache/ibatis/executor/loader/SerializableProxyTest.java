@@ -18,7 +18,9 @@ package org.apache.ibatis.executor.loader;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Section;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.CompactSerializer;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -26,6 +28,8 @@ import org.junit.jupiter.api.Test;
 import java.io.*;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -170,6 +174,65 @@ public abstract class SerializableProxyTest {
         assertEquals(999, author2.getId());
     }
 
+    @Test
+    void shouldNotLetReadUnloadedPropertyAfterSerializationWithCompactSerializer() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setDefaultSerializer(new CompactSerializer());
+        configuration.setConfigurationFactory(CompactConfigurationFactory.class);
+        ResultLoaderMap loader = new ResultLoaderMap();
+        loader.addLoader("id", null, null);
+        Object proxy = proxyFactory.createProxy(author, loader, configuration, new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+        Author author2 = (Author) deserialize(serialize((Serializable) proxy));
+        assertEquals(author.getUsername(), author2.getUsername());
+        assertEquals(author.getFavouriteSection(), author2.getFavouriteSection());
+        Assertions.assertThrows(ExecutorException.class, author2::getId);
+    }
+
+    @Test
+    void shouldNotInstantiateUnregisteredSerializerClassNamedInTheStream() throws Exception {
+        NotASerializer.created = false;
+        byte[] data = serializerState(NotASerializer.class.getName(), CompactConfigurationFactory.class);
+        assertThrows(InvalidClassException.class, () -> readSerialState(data));
+        assertFalse(NotASerializer.created);
+    }
+
+    @Test
+    void shouldNotAcceptSerializerOtherThanTheConfiguredOne() throws Exception {
+        byte[] data = serializerState(CompactSerializer.class.getName(), JavaConfigurationFactory.class);
+        assertThrows(InvalidClassException.class, () -> readSerialState(data));
+    }
+
+    @Test
+    void shouldNotAcceptSerializerWithoutConfigurationFactory() throws Exception {
+        byte[] data = serializerState(CompactSerializer.class.getName(), null);
+        assertThrows(InvalidClassException.class, () -> readSerialState(data));
+    }
+
+    private byte[] serializerState(String serializerClassName, Class<?> configurationFactory) throws Exception {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(serializerClassName);
+            oos.writeObject(configurationFactory);
+            oos.writeObject(new byte[0]);
+            oos.flush();
+            return bos.toByteArray();
+        }
+    }
+
+    private void readSerialState(byte[] data) throws Exception {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            AbstractSerialStateHolder holder = new AbstractSerialStateHolder() {
+                @Override
+                protected Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+                                                            ObjectFactory objectFactory,
+                                                            List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+                    return target;
+                }
+            };
+            holder.readExternal(ois);
+        }
+    }
+
     byte[] serialize(Serializable value) throws Exception {
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
              ObjectOutputStream oos = new ObjectOutputStream(bos)) {
@@ -186,6 +249,31 @@ public abstract class SerializableProxyTest {
         }
     }
 
+    public static class CompactConfigurationFactory {
+
+        public static Configuration getConfiguration() {
+            Configuration configuration = new Configuration();
+            configuration.setDefaultSerializer(new CompactSerializer());
+            return configuration;
+        }
+    }
+
+    public static class JavaConfigurationFactory {
+
+        public static Configuration getConfiguration() {
+            return new Configuration();
+        }
+    }
+
+    public static class NotASerializer {
+
+        static boolean created;
+
+        public NotASerializer() {
+            created = true;
+        }
+    }
+
     public static class AuthorWithWriteReplaceMethod extends Author {
 
         public AuthorWithWriteReplaceMethod() {
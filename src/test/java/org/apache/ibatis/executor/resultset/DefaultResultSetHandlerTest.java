@@ -33,13 +33,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -118,6 +124,181 @@ class DefaultResultSetHandlerTest {
         }
     }
 
+    @Test
+    void shouldMapFlatResultMapByColumnIndex() throws Exception {
+        final Configuration config = new Configuration();
+        config.setCompiledRowMappingEnabled(true);
+        final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null/*executor*/, getPersonMappedStatement(config),
+                null/*parameterHandler*/, null/*resultHandler*/, null/*boundSql*/, new RowBounds(0, 100));
+        stubPersonResultSet();
+        when(rs.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+        when(rs.getInt(1)).thenReturn(1).thenReturn(2);
+        when(rs.getString(2)).thenReturn("foo").thenReturn(null);
+
+        final List<Object> results = resultSetHandler.handleResultSets(stmt);
+        assertEquals(2, results.size());
+        assertEquals(1, ((Person) results.get(0)).getId());
+        assertEquals("foo", ((Person) results.get(0)).getName());
+        assertEquals(2, ((Person) results.get(1)).getId());
+        assertNull(((Person) results.get(1)).getName());
+        verify(rs, never()).getInt("id");
+        verify(rs, never()).getString("NAME");
+    }
+
+    @Test
+    void shouldReuseCompiledRowMapperAcrossExecutions() throws Exception {
+        final Configuration config = new Configuration();
+        config.setCompiledRowMappingEnabled(true);
+        final MappedStatement ms = getPersonMappedStatement(config);
+        stubPersonResultSet();
+        when(rs.next()).thenReturn(true).thenReturn(false).thenReturn(true).thenReturn(false);
+        when(rs.getInt(1)).thenReturn(1).thenReturn(2);
+        when(rs.getString(2)).thenReturn("foo").thenReturn("bar");
+
+        new DefaultResultSetHandler(null/*executor*/, ms, null/*parameterHandler*/, null/*resultHandler*/, null/*boundSql*/,
+                new RowBounds(0, 100)).handleResultSets(stmt);
+        final String key = CompiledRowMapperCache.key(new ResultSetWrapper(rs, config), ms.getResultMaps().get(0));
+        final CompiledRowMapper rowMapper = config.getCompiledRowMapperCache().get(key).orElse(null);
+        assertNotNull(rowMapper);
+
+        final List<Object> results = new DefaultResultSetHandler(null/*executor*/, ms, null/*parameterHandler*/,
+                null/*resultHandler*/, null/*boundSql*/, new RowBounds(0, 100)).handleResultSets(stmt);
+        assertEquals("bar", ((Person) results.get(0)).getName());
+        assertSame(rowMapper, config.getCompiledRowMapperCache().get(key).orElse(null));
+    }
+
+    @Test
+    void shouldMapFlatResultMapByColumnNameWhenCompiledRowMappingIsDisabled() throws Exception {
+        final Configuration config = new Configuration();
+        final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null/*executor*/, getPersonMappedStatement(config),
+                null/*parameterHandler*/, null/*resultHandler*/, null/*boundSql*/, new RowBounds(0, 100));
+        stubPersonResultSet();
+        when(rs.next()).thenReturn(true).thenReturn(false);
+        when(rs.getInt("id")).thenReturn(1);
+        when(rs.getString("NAME")).thenReturn("foo");
+
+        final List<Object> results = resultSetHandler.handleResultSets(stmt);
+        assertEquals(1, results.size());
+        assertEquals(1, ((Person) results.get(0)).getId());
+        assertEquals("foo", ((Person) results.get(0)).getName());
+        verify(rs, never()).getInt(1);
+    }
+
+    @Test
+    void shouldMapConstructorArgsByColumnIndex() throws Exception {
+        final Configuration config = new Configuration();
+        config.setCompiledRowMappingEnabled(true);
+        final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+        final ResultMap resultMap = new ResultMap.Builder(config, "immutablePersonMap", ImmutablePerson.class, Arrays.asList(
+                new ResultMapping.Builder(config, null, "id", registry.getTypeHandler(int.class)).javaType(int.class)
+                        .flags(Collections.singletonList(ResultFlag.CONSTRUCTOR)).build(),
+                new ResultMapping.Builder(config, null, "name", registry.getTypeHandler(String.class)).javaType(String.class)
+                        .flags(Collections.singletonList(ResultFlag.CONSTRUCTOR)).build())).build();
+        final MappedStatement ms = new MappedStatement.Builder(config, "selectImmutablePerson", new StaticSqlSource(config, "select person"), SqlCommandType.SELECT)
+                .resultMaps(Collections.singletonList(resultMap)).build();
+        final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null/*executor*/, ms,
+                null/*parameterHandler*/, null/*resultHandler*/, null/*boundSql*/, new RowBounds(0, 100));
+        stubPersonResultSet();
+        when(rs.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+        when(rs.getInt(1)).thenReturn(1).thenReturn(2);
+        when(rs.getString(2)).thenReturn("foo").thenReturn("bar");
+
+        final List<Object> results = resultSetHandler.handleResultSets(stmt);
+        assertEquals(2, results.size());
+        assertEquals(1, ((ImmutablePerson) results.get(0)).getId());
+        assertEquals("foo", ((ImmutablePerson) results.get(0)).getName());
+        assertEquals(2, ((ImmutablePerson) results.get(1)).getId());
+        assertEquals("bar", ((ImmutablePerson) results.get(1)).getName());
+        verify(rs, never()).getInt("id");
+        verify(rs, never()).getString("name");
+    }
+
+    @Test
+    void shouldMapAutomapConstructorByColumnIndex() throws Exception {
+        final Configuration config = new Configuration();
+        config.setCompiledRowMappingEnabled(true);
+        final ResultMap resultMap = new ResultMap.Builder(config, "immutablePersonMap", ImmutablePerson.class, Collections.emptyList()).build();
+        final MappedStatement ms = new MappedStatement.Builder(config, "selectImmutablePerson", new StaticSqlSource(config, "select person"), SqlCommandType.SELECT)
+                .resultMaps(Collections.singletonList(resultMap)).build();
+        final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null/*executor*/, ms,
+                null/*parameterHandler*/, null/*resultHandler*/, null/*boundSql*/, new RowBounds(0, 100));
+        stubPersonResultSet();
+        when(rs.next()).thenReturn(true).thenReturn(false);
+        when(rs.getInt(1)).thenReturn(1);
+        when(rs.getString(2)).thenReturn("foo");
+
+        final List<Object> results = resultSetHandler.handleResultSets(stmt);
+        assertEquals(1, results.size());
+        assertEquals(1, ((ImmutablePerson) results.get(0)).getId());
+        assertEquals("foo", ((ImmutablePerson) results.get(0)).getName());
+        verify(rs, never()).getInt("ID");
+        verify(rs, never()).getString("NAME");
+    }
+
+    private void stubPersonResultSet() throws SQLException {
+        when(stmt.getResultSet()).thenReturn(rs);
+        when(rs.getMetaData()).thenReturn(rsmd);
+        when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+        when(rsmd.getColumnCount()).thenReturn(2);
+        when(rsmd.getColumnLabel(1)).thenReturn("ID");
+        when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+        when(rsmd.getColumnLabel(2)).thenReturn("NAME");
+        when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(rsmd.getColumnClassName(2)).thenReturn(String.class.getCanonicalName());
+        when(stmt.getConnection()).thenReturn(conn);
+        when(conn.getMetaData()).thenReturn(dbmd);
+        when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+    }
+
+    private MappedStatement getPersonMappedStatement(Configuration config) {
+        final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+        // id is mapped explicitly, name is auto-mapped
+        final ResultMap resultMap = new ResultMap.Builder(config, "personMap", Person.class, Collections.singletonList(
+                new ResultMapping.Builder(config, "id", "id", registry.getTypeHandler(Integer.class)).build())).build();
+        return new MappedStatement.Builder(config, "selectPerson", new StaticSqlSource(config, "select person"), SqlCommandType.SELECT)
+                .resultMaps(Collections.singletonList(resultMap)).build();
+    }
+
+    static class Person {
+        private int id;
+        private String name;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    static class ImmutablePerson {
+        private final int id;
+        private final String name;
+
+        public ImmutablePerson(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
     MappedStatement getMappedStatement() {
         final Configuration config = new Configuration();
         final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
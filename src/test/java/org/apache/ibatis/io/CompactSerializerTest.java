@@ -0,0 +1,223 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactSerializerTest {
+
+    private final CompactSerializer serializer = new CompactSerializer();
+
+    @Test
+    void shouldCopyScalarValues() throws Exception {
+        Timestamp timestamp = new Timestamp(1234567890123L);
+        timestamp.setNanos(123456789);
+        List<Object> values = Arrays.asList(null, 1, -1, Integer.MIN_VALUE, Long.MAX_VALUE, (short) -3, (byte) 7, 'x',
+                true, false, 1.5f, Double.NaN, "", "ascii", "中文", new BigDecimal("-12345.6789"),
+                new BigInteger("123456789012345678901234567890"), new Date(1000L), new java.sql.Date(86400000L),
+                new Time(3600000L), timestamp, LocalDate.of(-5, 2, 28), LocalTime.of(23, 59, 59, 999999999),
+                LocalDateTime.of(2021, 12, 31, 8, 30), Instant.ofEpochSecond(-100, 5),
+                OffsetDateTime.of(2021, 1, 2, 3, 4, 5, 6, ZoneOffset.ofHours(-7)),
+                ZonedDateTime.of(2021, 3, 28, 2, 30, 0, 0, ZoneId.of("Europe/Paris")), UUID.randomUUID(),
+                Section.NEWS, Author.class, int.class);
+        for (Object value : values) {
+            Object copy = copy(value);
+            assertEquals(value, copy);
+            if (value != null) {
+                assertEquals(value.getClass(), copy.getClass());
+            }
+        }
+    }
+
+    @Test
+    void shouldCopyCollectionsAndArrays() throws Exception {
+        List<Object> values = Arrays.asList(new ArrayList<>(Arrays.asList(1, "a", null)), new LinkedList<>(Arrays.asList(1, 2)),
+                new HashSet<>(Arrays.asList("x", "y")), new LinkedHashSet<>(Arrays.asList(3, 1, 2)), new TreeSet<>(Arrays.asList(3, 1, 2)),
+                new TreeMap<>(Collections.singletonMap("k", 1L)), new HashMap<>(Collections.singletonMap(1, Section.IMAGES)));
+        for (Object value : values) {
+            Object copy = copy(value);
+            assertEquals(value, copy);
+            assertEquals(value.getClass(), copy.getClass());
+        }
+
+        LinkedHashMap<String, Integer> ordered = new LinkedHashMap<>();
+        ordered.put("z", 1);
+        ordered.put("a", 2);
+        assertEquals(Arrays.asList("z", "a"), new ArrayList<>(((Map<?, ?>) copy(ordered)).keySet()));
+
+        assertArrayEquals(new byte[]{1, -1, 127}, (byte[]) copy(new byte[]{1, -1, 127}));
+        assertArrayEquals(new int[]{0, -1, Integer.MAX_VALUE}, (int[]) copy(new int[]{0, -1, Integer.MAX_VALUE}));
+        assertArrayEquals(new char[]{'a', '￿'}, (char[]) copy(new char[]{'a', '￿'}));
+        assertArrayEquals(new double[]{1.5, -0.0}, (double[]) copy(new double[]{1.5, -0.0}));
+        assertArrayEquals(new String[]{"a", null}, (String[]) copy(new String[]{"a", null}));
+        long[][] matrix = (long[][]) copy(new long[][]{{1L}, {2L, 3L}});
+        assertArrayEquals(new long[]{2L, 3L}, matrix[1]);
+    }
+
+    @Test
+    void shouldCopyBeans() throws Exception {
+        Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "Something...", Section.NEWS);
+        Author copy = (Author) copy(author);
+        assertNotSame(author, copy);
+        assertEquals(author, copy);
+        assertEquals(author.getFavouriteSection(), copy.getFavouriteSection());
+    }
+
+    @Test
+    void shouldPreserveSharedAndCyclicReferences() throws Exception {
+        Node node = new Node("root");
+        node.next = node;
+        node.children.add(new Node("child"));
+        node.children.add(node.children.get(0));
+        Node copy = (Node) copy(node);
+        assertSame(copy, copy.next);
+        assertSame(copy.children.get(0), copy.children.get(1));
+        assertEquals("child", copy.children.get(0).name);
+    }
+
+    @Test
+    void shouldResetTransientFieldsAndRestoreFinalFields() throws Exception {
+        Node node = new Node("root");
+        node.cached = "value";
+        node.id = 42L;
+        Node copy = (Node) copy(node);
+        assertEquals("root", copy.name);
+        assertEquals(42L, copy.id);
+        assertNull(copy.cached);
+    }
+
+    @Test
+    void shouldUseJavaSerializationForOtherObjects() throws Exception {
+        CustomSerialization custom = new CustomSerialization();
+        custom.value = 3;
+        List<Object> list = new ArrayList<>();
+        list.add(custom);
+        list.add(custom);
+        list.add(Collections.unmodifiableList(Arrays.asList(1, 2)));
+        list.add(new TreeSet<>(Collections.reverseOrder()));
+        @SuppressWarnings("unchecked")
+        List<Object> copy = (List<Object>) copy(list);
+        assertEquals(4, ((CustomSerialization) copy.get(0)).value);
+        assertSame(copy.get(0), copy.get(1));
+        assertEquals(Arrays.asList(1, 2), copy.get(2));
+        assertNotNull(((TreeSet<?>) copy.get(3)).comparator());
+    }
+
+    @Test
+    void shouldFailOnNonSerializableObject() {
+        assertThrows(IOException.class, () -> serializer.serialize(new Object()));
+    }
+
+    @Test
+    void shouldRejectCorruptedStream() throws Exception {
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[]{1, 2}));
+        byte[] bytes = serializer.serialize(new ArrayList<>(Arrays.asList("a", "b")));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test
+    void shouldProduceSmallerPayloadThanJavaSerialization() throws Exception {
+        // stands in for a benchmark: the size of the copy drives the cost of a read-write cache hit
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            authors.add(new Author(i, "user" + i, "********", "user" + i + "@mybatis.org", "Bio", Section.values()[i % Section.values().length]));
+        }
+        byte[] compact = serializer.serialize(authors);
+        byte[] java = new JavaSerializer().serialize(authors);
+        assertTrue(compact.length * 4 < java.length * 3, "compact: " + compact.length + ", java: " + java.length);
+        assertEquals(authors, serializer.deserialize(compact));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ID", i);
+            row.put("AMOUNT", new BigDecimal(i).movePointLeft(2));
+            row.put("CREATED", LocalDateTime.of(2021, 1, 1, 0, 0).plusMinutes(i));
+            rows.add(row);
+        }
+        compact = serializer.serialize(rows);
+        java = new JavaSerializer().serialize(rows);
+        assertTrue(compact.length * 4 < java.length, "compact: " + compact.length + ", java: " + java.length);
+        assertEquals(rows, serializer.deserialize(compact));
+    }
+
+    private Object copy(Object value) throws Exception {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+        private long id;
+        private Node next;
+        private final List<Node> children = new ArrayList<>();
+        private transient String cached = "initial";
+
+        Node() {
+            this(null);
+        }
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    static class CustomSerialization implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private int value;
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            value++;
+            out.defaultWriteObject();
+        }
+    }
+
+}
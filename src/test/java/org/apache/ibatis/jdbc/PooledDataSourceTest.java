@@ -24,9 +24,14 @@ import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PooledDataSourceTest extends BaseDataTest {
 
@@ -71,6 +76,64 @@ class PooledDataSourceTest extends BaseDataTest {
         }
     }
 
+    @Test
+    void shouldWakeUpWaitingThreadWhenConnectionIsReturned() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ds.setPoolMaximumActiveConnections(1);
+            ds.setPoolMaximumCheckoutTime(60000);
+            ds.setPoolTimeToWait(60000);
+            Connection connection = ds.getConnection();
+            Future<Long> waited = executor.submit(() -> {
+                long start = System.currentTimeMillis();
+                try (Connection c = ds.getConnection()) {
+                    return System.currentTimeMillis() - start;
+                }
+            });
+            Thread.sleep(100);
+            connection.close();
+            assertTrue(waited.get(10, TimeUnit.SECONDS) < 10000);
+            assertEquals(1, ds.getPoolState().getHadToWaitCount());
+        } finally {
+            executor.shutdownNow();
+            ds.forceCloseAll();
+        }
+    }
+
+    @Test
+    void shouldServeManyThreadsWithFewConnections() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            ds.setPoolMaximumActiveConnections(2);
+            ds.setPoolMaximumIdleConnections(2);
+            ds.setPoolMaximumCheckoutTime(60000);
+            ds.setPoolTimeToWait(1000);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 20; j++) {
+                        try (Connection c = ds.getConnection()) {
+                            c.getAutoCommit();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(640, ds.getPoolState().getRequestCount());
+            assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+            assertTrue(ds.getPoolState().getIdleConnectionCount() <= 2);
+            assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+        } finally {
+            executor.shutdownNow();
+            ds.forceCloseAll();
+        }
+    }
+
     @Test
     void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
         PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -19,13 +19,18 @@ import org.apache.ibatis.logging.Log;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
@@ -39,6 +44,9 @@ class ConnectionLoggerTest {
     @Mock
     PreparedStatement preparedStatement;
 
+    @Mock
+    ResultSet resultSet;
+
     @Mock
     Log log;
 
@@ -69,4 +77,83 @@ class ConnectionLoggerTest {
         conn.close();
         verify(log, times(0)).debug(anyString());
     }
+
+    @Test
+    void shouldLogSlowStatementAfterExecution() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return resultSet;
+        });
+        Connection slowLoggingConn = ConnectionLogger.newInstance(connection, log, 1, 10);
+
+        PreparedStatement ps = slowLoggingConn.prepareStatement("SELECT ?");
+        ps.setInt(1, 10);
+        verify(log, never()).debug(anyString());
+        ResultSet rs = ps.executeQuery();
+
+        InOrder inOrder = inOrder(log);
+        inOrder.verify(log).debug(contains("Preparing:"));
+        inOrder.verify(log).debug(contains("Parameters: 10(Integer)"));
+        inOrder.verify(log).debug(contains("Elapsed:"));
+        assertNotSame(resultSet, rs);
+    }
+
+    @Test
+    void shouldNotLogFastStatement() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        Connection slowLoggingConn = ConnectionLogger.newInstance(connection, log, 1, 60_000);
+
+        ResultSet rs = slowLoggingConn.prepareStatement("SELECT 1").executeQuery();
+
+        verify(log, never()).debug(anyString());
+        assertSame(resultSet, rs);
+    }
+
+    @Test
+    void shouldDropMessagesOfFailedStatement() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenThrow(new SQLException("failed")).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return resultSet;
+        });
+        Connection slowLoggingConn = ConnectionLogger.newInstance(connection, log, 1, 10);
+
+        PreparedStatement ps = slowLoggingConn.prepareStatement("SELECT ?");
+        ps.setInt(1, 1);
+        assertThrows(SQLException.class, ps::executeQuery);
+        ps.setInt(1, 2);
+        ps.executeQuery();
+
+        verify(log, never()).debug(contains("Parameters: 1(Integer)"));
+        verify(log).debug(contains("Parameters: 2(Integer)"));
+    }
+
+    @Test
+    void shouldLogSlowBatchWhenItIsExecuted() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeBatch()).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new int[]{1, 1};
+        });
+        Connection slowLoggingConn = ConnectionLogger.newInstance(connection, log, 1, 10);
+
+        PreparedStatement ps = slowLoggingConn.prepareStatement("INSERT INTO t VALUES (?)");
+        ps.setInt(1, 1);
+        ps.addBatch();
+        ps.setInt(1, 2);
+        ps.addBatch();
+        verify(log, never()).debug(anyString());
+        ps.executeBatch();
+
+        InOrder inOrder = inOrder(log);
+        inOrder.verify(log).debug(contains("Parameters: 1(Integer)"));
+        inOrder.verify(log).debug(contains("Parameters: 2(Integer)"));
+        inOrder.verify(log).debug(contains("Elapsed:"));
+    }
 }
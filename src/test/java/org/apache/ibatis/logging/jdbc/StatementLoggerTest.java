@@ -20,11 +20,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
@@ -71,4 +73,40 @@ class StatementLoggerTest {
         st.close();
         verify(log, times(0)).debug(anyString());
     }
+
+    @Test
+    void shouldLogSlowBatchWhenItIsExecuted() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new int[]{1, 1};
+        });
+        Statement slowLoggingSt = new StatementLogger(statement, log, 1, TimeUnit.MILLISECONDS.toNanos(10));
+
+        slowLoggingSt.addBatch("DELETE FROM a");
+        slowLoggingSt.addBatch("DELETE FROM b");
+        verify(log, never()).debug(anyString());
+        slowLoggingSt.executeBatch();
+
+        InOrder inOrder = inOrder(log);
+        inOrder.verify(log).debug(contains("Executing: DELETE FROM a"));
+        inOrder.verify(log).debug(contains("Executing: DELETE FROM b"));
+        inOrder.verify(log).debug(contains("Elapsed:"));
+    }
+
+    @Test
+    void shouldDropMessagesOfFailedStatement() throws SQLException {
+        when(log.isDebugEnabled()).thenReturn(true);
+        when(statement.executeUpdate(anyString())).thenThrow(new SQLException("failed")).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return 1;
+        });
+        Statement slowLoggingSt = new StatementLogger(statement, log, 1, TimeUnit.MILLISECONDS.toNanos(10));
+
+        Assertions.assertThrows(SQLException.class, () -> slowLoggingSt.executeUpdate("DELETE FROM a"));
+        slowLoggingSt.executeUpdate("DELETE FROM b");
+
+        verify(log, never()).debug(contains("DELETE FROM a"));
+        verify(log).debug(contains("Executing: DELETE FROM b"));
+    }
 }
@@ -18,6 +18,11 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -44,6 +49,29 @@ class CacheBuilderTest {
                 .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
     }
 
+    @Test
+    void shouldNotSynchronizeThreadSafeCache() {
+        Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class).readWrite(true).build();
+        Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+        Assertions.assertThat(cache.isThreadSafe()).isTrue();
+    }
+
+    @Test
+    void shouldNotSynchronizeThreadSafeCacheWithLruEviction() {
+        Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+                .addDecorator(LruCache.class).build();
+        Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+        Assertions.assertThat(cache.isThreadSafe()).isTrue();
+    }
+
+    @Test
+    void shouldSynchronizeWhenDecoratorIsNotThreadSafe() {
+        Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+                .addDecorator(FifoCache.class).build();
+        Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+        Assertions.assertThat(cache.isThreadSafe()).isTrue();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T unwrap(Cache cache) {
         Field field;
@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.pagination;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaginatorTest {
+
+    @Test
+    void shouldAddLimitOfDatabaseDialect() {
+        Configuration configuration = new Configuration();
+        configuration.setDatabaseId("postgresql");
+        BoundSql boundSql = new BoundSql(configuration, "select * from users", new ArrayList<>(), null);
+
+        BoundSql paginatedSql = Paginator.paginate(configuration, boundSql, PageRequest.ofPage(2, 10));
+
+        assertEquals("select * from users LIMIT ? OFFSET ?", paginatedSql.getSql());
+        assertEquals(2, paginatedSql.getParameterMappings().size());
+        assertEquals(10, paginatedSql.getAdditionalParameter(paginatedSql.getParameterMappings().get(0).getProperty()));
+        assertEquals(20, paginatedSql.getAdditionalParameter(paginatedSql.getParameterMappings().get(1).getProperty()));
+        assertSame(RowBounds.DEFAULT, Paginator.getRemainingRowBounds(configuration, PageRequest.ofPage(2, 10)));
+    }
+
+    @Test
+    void shouldAddOffsetFetch() {
+        Configuration configuration = new Configuration();
+        configuration.setDatabaseId("oracle");
+        BoundSql boundSql = new BoundSql(configuration, "select * from users order by id", new ArrayList<>(), null);
+
+        BoundSql paginatedSql = Paginator.paginate(configuration, boundSql, PageRequest.of(5, 10));
+
+        assertEquals("select * from users order by id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", paginatedSql.getSql());
+        assertEquals(5, paginatedSql.getAdditionalParameter(paginatedSql.getParameterMappings().get(0).getProperty()));
+        assertEquals(10, paginatedSql.getAdditionalParameter(paginatedSql.getParameterMappings().get(1).getProperty()));
+    }
+
+    @Test
+    void shouldKeepSqlAndRowBoundsWithoutDialect() {
+        Configuration configuration = new Configuration();
+        BoundSql boundSql = new BoundSql(configuration, "select * from users", new ArrayList<>(), null);
+
+        assertSame(boundSql, Paginator.paginate(configuration, boundSql, PageRequest.of(5, 10)));
+        RowBounds rowBounds = Paginator.getRemainingRowBounds(configuration, PageRequest.of(5, 10));
+        assertEquals(5, rowBounds.getOffset());
+        assertEquals(10, rowBounds.getLimit());
+    }
+
+    @Test
+    void shouldAppendSeekKeyParameter() {
+        Configuration configuration = new Configuration();
+        configuration.setDefaultPaginationDialect(new LimitOffsetDialect());
+        List<ParameterMapping> parameterMappings = new ArrayList<>();
+        parameterMappings.add(new ParameterMapping.Builder(configuration, "name", String.class).build());
+        BoundSql boundSql = new BoundSql(configuration, "select * from users where name = ?", parameterMappings, "User");
+
+        PageRequest pageRequest = PageRequest.keyset("user_id", "id", 10).descending().after(SeekToken.encode(42L));
+        BoundSql paginatedSql = Paginator.paginate(configuration, boundSql, pageRequest);
+
+        assertEquals("select * from users where (name = ?) AND user_id < ? ORDER BY user_id DESC LIMIT ?",
+                paginatedSql.getSql());
+        assertEquals(3, paginatedSql.getParameterMappings().size());
+        assertEquals(Paginator.SEEK_KEY_PARAMETER, paginatedSql.getParameterMappings().get(1).getProperty());
+        assertEquals(42L, paginatedSql.getAdditionalParameter(Paginator.SEEK_KEY_PARAMETER));
+        assertEquals(1, boundSql.getParameterMappings().size());
+    }
+
+    @Test
+    void shouldReplaceOrderByWithKeyOrder() {
+        Configuration configuration = new Configuration();
+        PageRequest pageRequest = PageRequest.keyset("id", 10).after(SeekToken.encode(42L));
+
+        assertEquals("select * from users WHERE id > ? ORDER BY id", Paginator.paginate(configuration,
+                new BoundSql(configuration, "select * from users order by name", new ArrayList<>(), null), pageRequest).getSql());
+        assertEquals("select * from users where (name = 'a' or name = 'b') AND id > ? ORDER BY id", Paginator.paginate(configuration,
+                new BoundSql(configuration, "select * from users where name = 'a' or name = 'b'", new ArrayList<>(), null), pageRequest).getSql());
+        assertEquals("select * from users where id in (select id from roles order by id) ORDER BY id", Paginator.paginate(configuration,
+                new BoundSql(configuration, "select * from users where id in (select id from roles order by id)", new ArrayList<>(), null),
+                PageRequest.keyset("id", 10)).getSql());
+    }
+
+    @Test
+    void shouldWrapStatementThatCannotTakeSeekCondition() {
+        Configuration configuration = new Configuration();
+        PageRequest pageRequest = PageRequest.keyset("id", 10).after(SeekToken.encode(42L));
+        BoundSql boundSql = new BoundSql(configuration, "select id, count(*) from users group by id order by id", new ArrayList<>(), null);
+
+        assertEquals("SELECT * FROM (select id, count(*) from users group by id) seek_ WHERE id > ? ORDER BY id",
+                Paginator.paginate(configuration, boundSql, pageRequest).getSql());
+    }
+
+    @Test
+    void shouldRemoveFinalOrderByFromCountQuery() {
+        assertEquals("select * from users where name = 'order by'", Paginator.removeOrderBy("select * from users where name = 'order by' ORDER BY id desc"));
+        assertEquals("select * from (select * from users order by id) u", Paginator.removeOrderBy("select * from (select * from users order by id) u"));
+        assertEquals("select * from users order by id limit 10", Paginator.removeOrderBy("select * from users order by id limit 10"));
+    }
+
+    @Test
+    void shouldCreateSliceFromProbedRows() {
+        Configuration configuration = new Configuration();
+        PageRequest pageRequest = PageRequest.keyset("id", 2);
+        assertEquals(3, Paginator.probe(pageRequest).getLimit());
+
+        List<Integer> ids = Arrays.asList(1, 2, 3);
+        List<Object> rows = new ArrayList<>();
+        for (Integer id : ids) {
+            rows.add(Collections.singletonMap("id", id));
+        }
+        Slice<Object> slice = Paginator.newSlice(configuration, rows, pageRequest);
+
+        assertEquals(2, slice.getNumberOfElements());
+        assertEquals(2, slice.nextRequest().getKey());
+        assertEquals(2, pageRequest.after(slice.getNextToken()).getKey());
+        assertEquals(1, Paginator.newSlice(configuration, rows.subList(0, 1), pageRequest).getNumberOfElements());
+    }
+
+    @Test
+    void shouldRoundTripTokens() {
+        for (Object value : Arrays.asList(7, 7L, new BigDecimal("1.50"), "a:b", Timestamp.valueOf("2021-03-04 05:06:07.123456"),
+                LocalDate.of(2021, 3, 4), LocalDateTime.of(2021, 3, 4, 5, 6))) {
+            assertEquals(value, SeekToken.decode(SeekToken.encode(value)));
+        }
+        assertThat(SeekToken.encode("a/b?")).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void shouldRejectInvalidTokens() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        assertThrows(IllegalArgumentException.class, () -> pageRequest.after("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> pageRequest.after(SeekToken.encode("text")));
+        assertThrows(IllegalArgumentException.class, () -> SeekToken.encode(new Object()));
+        assertEquals(30, pageRequest.after(SeekToken.encode(30)).getOffset());
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MethodHandleReflectorFactoryTest {
+
+    @Test
+    void shouldUseMethodHandleInvokers() throws Exception {
+        Reflector reflector = new MethodHandleReflectorFactory().findForClass(Bean.class);
+        Invoker getter = reflector.getGetInvoker("name");
+        Invoker setter = reflector.getSetInvoker("name");
+        assertInstanceOf(MethodInvoker.class, getter);
+        assertInstanceOf(MethodInvoker.class, setter);
+        assertNotEquals(MethodInvoker.class, getter.getClass());
+        assertInstanceOf(GetFieldInvoker.class, reflector.getGetInvoker("count"));
+        assertInstanceOf(SetFieldInvoker.class, reflector.getSetInvoker("count"));
+
+        Bean bean = new Bean();
+        setter.invoke(bean, new Object[]{"foo"});
+        assertEquals("foo", getter.invoke(bean, null));
+        reflector.getSetInvoker("count").invoke(bean, new Object[]{3});
+        assertEquals(3, reflector.getGetInvoker("count").invoke(bean, null));
+    }
+
+    @Test
+    void shouldBehaveLikeReflectionThroughMetaObject() {
+        ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+        RichType rich = new RichType();
+        MetaObject meta = MetaObject.forObject(rich, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+                SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, reflectorFactory);
+        meta.setValue("richField", "foo");
+        meta.setValue("richProperty", "bar");
+        meta.setValue("richType.richField", "baz");
+        meta.setValue("richList[0]", "list");
+        assertEquals("foo", meta.getValue("richField"));
+        assertEquals("bar", meta.getValue("richProperty"));
+        assertEquals("baz", meta.getValue("richType.richField"));
+        assertEquals("list", meta.getValue("richList[0]"));
+        assertNotNull(rich.getRichType());
+    }
+
+    @Test
+    void shouldWidenPrimitiveArguments() throws Exception {
+        Reflector reflector = new MethodHandleReflectorFactory().findForClass(Bean.class);
+        Bean bean = new Bean();
+        reflector.getSetInvoker("total").invoke(bean, new Object[]{7});
+        assertEquals(7L, reflector.getGetInvoker("total").invoke(bean, null));
+        reflector.getSetInvoker("count").invoke(bean, new Object[]{(short) 2});
+        assertEquals(2, bean.count);
+    }
+
+    @Test
+    void shouldRejectInvalidArgumentsLikeReflection() {
+        Reflector reflector = new MethodHandleReflectorFactory().findForClass(Bean.class);
+        Bean bean = new Bean();
+        assertThrows(IllegalArgumentException.class,
+                () -> reflector.getSetInvoker("total").invoke(bean, new Object[]{"x"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> reflector.getSetInvoker("total").invoke(bean, new Object[]{null}));
+        assertThrows(IllegalArgumentException.class,
+                () -> reflector.getSetInvoker("count").invoke(bean, new Object[]{1L}));
+        assertThrows(IllegalArgumentException.class,
+                () -> reflector.getGetInvoker("name").invoke("not a bean", null));
+        assertThrows(NullPointerException.class, () -> reflector.getGetInvoker("name").invoke(null, null));
+    }
+
+    @Test
+    void shouldWrapExceptionThrownByAccessor() {
+        Reflector reflector = new MethodHandleReflectorFactory().findForClass(Bean.class);
+        InvocationTargetException e = assertThrows(InvocationTargetException.class,
+                () -> reflector.getGetInvoker("broken").invoke(new Bean(), null));
+        assertEquals("broken", e.getTargetException().getMessage());
+    }
+
+    @Test
+    void shouldSetNullToReferenceProperty() throws Exception {
+        Reflector reflector = new MethodHandleReflectorFactory().findForClass(Bean.class);
+        Bean bean = new Bean();
+        bean.setName("foo");
+        reflector.getSetInvoker("name").invoke(bean, new Object[]{null});
+        assertNull(bean.getName());
+    }
+
+    @Test
+    void shouldKeepGenericTypeInformation() {
+        MetaClass metaClass = MetaClass.forClass(Bean.class, new MethodHandleReflectorFactory());
+        assertEquals(List.class, metaClass.getGetterType("tags"));
+        assertEquals(String.class, metaClass.getGetterType("tags[0]"));
+        assertEquals(Long.class, metaClass.getGetterType("ids[0]"));
+    }
+
+    @Test
+    void shouldCacheReflectors() {
+        ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+        assertSame(reflectorFactory.findForClass(Bean.class), reflectorFactory.findForClass(Bean.class));
+    }
+
+    static class Bean {
+        private String name;
+        private long total;
+        private int count;
+        private List<String> tags = Arrays.asList("a", "b");
+        private List<Long> ids;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+}
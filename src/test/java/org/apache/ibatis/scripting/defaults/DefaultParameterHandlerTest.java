@@ -15,7 +15,10 @@
  */
 package org.apache.ibatis.scripting.defaults;
 
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
@@ -28,10 +31,13 @@ import org.junit.jupiter.api.Test;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
@@ -67,6 +73,97 @@ class DefaultParameterHandlerTest {
 
     }
 
+    @Test
+    void shouldBindSimpleParameterAndReusePlan() throws SQLException {
+        final MappedStatement mappedStatement = getMappedStatement();
+        final Configuration config = mappedStatement.getConfiguration();
+        final List<ParameterMapping> parameterMappings = Collections.singletonList(
+                new ParameterMapping.Builder(config, "id", Integer.class).build());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        new DefaultParameterHandler(mappedStatement, 1, new BoundSql(config, "sql", parameterMappings, 1)).setParameters(ps);
+        ParameterBindingPlan plan = config.getParameterBindingPlanCache().get(config, parameterMappings, 1);
+        new DefaultParameterHandler(mappedStatement, 2, new BoundSql(config, "sql", parameterMappings, 2)).setParameters(ps);
+
+        assertThat(config.getParameterBindingPlanCache().get(config, parameterMappings, 2)).isSameAs(plan);
+        verify(ps).setInt(1, 1);
+        verify(ps).setInt(1, 2);
+    }
+
+    @Test
+    void shouldBindBeanPropertiesAndNestedProperties() throws SQLException {
+        final MappedStatement mappedStatement = getMappedStatement();
+        final Configuration config = mappedStatement.getConfiguration();
+        final List<ParameterMapping> parameterMappings = Arrays.asList(
+                new ParameterMapping.Builder(config, "id", Integer.class).build(),
+                new ParameterMapping.Builder(config, "username", String.class).build(),
+                new ParameterMapping.Builder(config, "favouriteSection.name", String.class).build());
+        Author author = new Author(101, "jim", "secret", "jim@example.com", null, Section.NEWS);
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        new DefaultParameterHandler(mappedStatement, author, new BoundSql(config, "sql", parameterMappings, author)).setParameters(ps);
+
+        verify(ps).setInt(1, 101);
+        verify(ps).setString(2, "jim");
+        verify(ps).setString(3, "NEWS");
+    }
+
+    @Test
+    void shouldKeepOnePlanPerParameterType() throws SQLException {
+        final MappedStatement mappedStatement = getMappedStatement();
+        final Configuration config = mappedStatement.getConfiguration();
+        final List<ParameterMapping> parameterMappings = Collections.singletonList(
+                new ParameterMapping.Builder(config, "id", Integer.class).build());
+        Author author = new Author(101);
+        ParamMap<Object> paramMap = new ParamMap<>();
+        paramMap.put("id", 102);
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        new DefaultParameterHandler(mappedStatement, author, new BoundSql(config, "sql", parameterMappings, author)).setParameters(ps);
+        new DefaultParameterHandler(mappedStatement, paramMap, new BoundSql(config, "sql", parameterMappings, paramMap)).setParameters(ps);
+        new DefaultParameterHandler(mappedStatement, author, new BoundSql(config, "sql", parameterMappings, author)).setParameters(ps);
+
+        ParameterBindingPlanCache cache = config.getParameterBindingPlanCache();
+        ParameterBindingPlan beanPlan = cache.get(config, parameterMappings, author);
+        ParameterBindingPlan mapPlan = cache.get(config, parameterMappings, paramMap);
+        assertThat(beanPlan).isNotSameAs(mapPlan);
+        assertThat(cache.get(config, parameterMappings, new Author(103))).isSameAs(beanPlan);
+        assertThat(cache.get(config, parameterMappings, new ParamMap<>())).isSameAs(mapPlan);
+        verify(ps, times(2)).setInt(1, 101);
+        verify(ps).setInt(1, 102);
+    }
+
+    @Test
+    void shouldPreferAdditionalParameters() throws SQLException {
+        final MappedStatement mappedStatement = getMappedStatement();
+        final Configuration config = mappedStatement.getConfiguration();
+        final List<ParameterMapping> parameterMappings = Collections.singletonList(
+                new ParameterMapping.Builder(config, "id", Integer.class).build());
+        Author author = new Author(101);
+        BoundSql boundSql = new BoundSql(config, "sql", parameterMappings, author);
+        boundSql.setAdditionalParameter("id", 201);
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        new DefaultParameterHandler(mappedStatement, author, boundSql).setParameters(ps);
+
+        verify(ps).setInt(1, 201);
+    }
+
+    @Test
+    void shouldReportMissingParameterOfMap() {
+        final MappedStatement mappedStatement = getMappedStatement();
+        final Configuration config = mappedStatement.getConfiguration();
+        final List<ParameterMapping> parameterMappings = Collections.singletonList(
+                new ParameterMapping.Builder(config, "missing", Integer.class).build());
+        ParamMap<Object> paramMap = new ParamMap<>();
+        paramMap.put("id", 102);
+
+        DefaultParameterHandler handler = new DefaultParameterHandler(mappedStatement, paramMap,
+                new BoundSql(config, "sql", parameterMappings, paramMap));
+        assertThatThrownBy(() -> handler.setParameters(mock(PreparedStatement.class)))
+                .hasMessageContaining("Parameter 'missing' not found");
+    }
+
     MappedStatement getMappedStatement() {
         final Configuration config = new Configuration();
         final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
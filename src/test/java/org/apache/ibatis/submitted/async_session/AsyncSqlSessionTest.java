@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncSqlSessionTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static ExecutorService executorService;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+        executorService = Executors.newFixedThreadPool(2);
+        sqlSessionFactory.getConfiguration().setAsyncExecutorService(executorService);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @BeforeEach
+    void resetData() throws Exception {
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+    }
+
+    @Test
+    void shouldSelectAsynchronously() throws Exception {
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(sqlSessionFactory);
+        CompletableFuture<List<User>> users = asyncSqlSession.selectListAsync("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync");
+        CompletableFuture<User> user = asyncSqlSession.selectOneAsync("org.apache.ibatis.submitted.async_session.Mapper.getUserAsync", 2);
+        assertEquals(3, users.get(10, TimeUnit.SECONDS).size());
+        assertEquals("User2", user.get(10, TimeUnit.SECONDS).getName());
+    }
+
+    @Test
+    void shouldRunMapperMethodsReturningFutures() throws Exception {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            CompletableFuture<List<User>> users = mapper.getUsersAsync();
+            CompletableFuture<User> user = mapper.getUserAsync(1);
+            CompletableFuture<Optional<User>> missing = mapper.findUserAsync(9).toCompletableFuture();
+            assertEquals(3, users.get(10, TimeUnit.SECONDS).size());
+            assertEquals("User1", user.get(10, TimeUnit.SECONDS).getName());
+            assertFalse(missing.get(10, TimeUnit.SECONDS).isPresent());
+        }
+    }
+
+    @Test
+    void shouldCommitEachFutureInItsOwnSession() throws Exception {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            assertEquals(Integer.valueOf(1), mapper.insertUserAsync(new User(4, "User4")).get(10, TimeUnit.SECONDS));
+            sqlSession.rollback(true);
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(4, sqlSession.getMapper(Mapper.class).countUsers());
+        }
+    }
+
+    @Test
+    void shouldRollbackWhenWorkFails() {
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(sqlSessionFactory);
+        CompletableFuture<Object> future = asyncSqlSession.execute(sqlSession -> {
+            sqlSession.insert("org.apache.ibatis.submitted.async_session.Mapper.insertUserAsync", new User(4, "User4"));
+            throw new IllegalStateException("failed");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(3, sqlSession.getMapper(Mapper.class).countUsers());
+        }
+    }
+
+    @Test
+    void shouldNotRunWorkThatWasCancelledBeforeItStarted() throws Exception {
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch blocker = new CountDownLatch(1);
+            singleThread.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            AtomicBoolean ran = new AtomicBoolean();
+            CompletableFuture<Integer> future = new AsyncSqlSession(sqlSessionFactory, singleThread).execute(sqlSession -> {
+                ran.set(true);
+                return 0;
+            });
+            assertTrue(future.cancel(true));
+            blocker.countDown();
+            singleThread.shutdown();
+            assertTrue(singleThread.awaitTermination(10, TimeUnit.SECONDS));
+            assertFalse(ran.get());
+            assertThrows(CancellationException.class, future::join);
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldStopRunningWorkWhenCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<String> threadName = new AtomicReference<>();
+        CompletableFuture<List<User>> future = new AsyncSqlSession(sqlSessionFactory).execute(sqlSession -> {
+            try {
+                threadName.set(Thread.currentThread().getName());
+                started.countDown();
+                cancelled.await();
+                return sqlSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync");
+            } catch (InterruptedException | RuntimeException e) {
+                failure.set(e);
+                return null;
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        cancelled.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof PersistenceException);
+        assertNotEquals(Thread.currentThread().getName(), threadName.get());
+    }
+
+    @Test
+    void shouldUseTheTransactionFactoryOfTheEnvironment() throws Exception {
+        PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        Configuration configuration = new Configuration(new Environment("managed", new ManagedTransactionFactory(), dataSource));
+        configuration.addMapper(Mapper.class);
+        SqlSessionFactory managedSqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(managedSqlSessionFactory, executorService);
+        assertEquals(Integer.valueOf(1), asyncSqlSession.insertAsync("org.apache.ibatis.submitted.async_session.Mapper.insertUserAsync",
+                new User(4, "User4")).get(10, TimeUnit.SECONDS));
+        assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(4, sqlSession.getMapper(Mapper.class).countUsers());
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_simple;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Flow;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorPublisherTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/cursor_simple/CreateDB.sql");
+    }
+
+    @Test
+    void shouldPublishUsersOnDemand() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.getMapper(Mapper.class).getUsersPublisher().subscribe(subscriber);
+            assertTrue(subscriber.users.isEmpty());
+
+            subscriber.subscription.request(2);
+            assertEquals(2, subscriber.users.size());
+            assertEquals("User2", subscriber.users.get(1).getName());
+            assertFalse(subscriber.completed);
+
+            subscriber.subscription.request(10);
+            assertEquals(5, subscriber.users.size());
+            assertTrue(subscriber.completed);
+            assertNull(subscriber.error);
+        }
+    }
+
+    @Test
+    void shouldCompleteWhenDemandMatchesTheNumberOfRows() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.getMapper(Mapper.class).getUsersPublisher().subscribe(subscriber);
+            subscriber.subscription.request(5);
+            assertEquals(5, subscriber.users.size());
+            assertTrue(subscriber.completed);
+        }
+    }
+
+    @Test
+    void shouldStopPublishingWhenCancelled() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            subscriber.cancelAfter = 3;
+            sqlSession.getMapper(Mapper.class).getUsersPublisher().subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertEquals(3, subscriber.users.size());
+
+            subscriber.subscription.request(1);
+            assertEquals(3, subscriber.users.size());
+            assertFalse(subscriber.completed);
+            assertNull(subscriber.error);
+        }
+    }
+
+    @Test
+    void shouldRequestMoreFromOnNext() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            subscriber.requestOnNext = true;
+            sqlSession.getMapper(Mapper.class).getUsersPublisher().subscribe(subscriber);
+            subscriber.subscription.request(1);
+            assertEquals(5, subscriber.users.size());
+            assertTrue(subscriber.completed);
+        }
+    }
+
+    @Test
+    void shouldSignalErrorOnInvalidRequest() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.getMapper(Mapper.class).getUsersPublisher().subscribe(subscriber);
+            subscriber.subscription.request(0);
+            assertTrue(subscriber.error instanceof IllegalArgumentException);
+            assertTrue(subscriber.users.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldAcceptOnlyOneSubscriber() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Flow.Publisher<User> publisher = sqlSession.getMapper(Mapper.class).getUsersPublisher();
+            RecordingSubscriber first = new RecordingSubscriber();
+            RecordingSubscriber second = new RecordingSubscriber();
+            publisher.subscribe(first);
+            publisher.subscribe(second);
+            assertNull(first.error);
+            assertTrue(second.error instanceof IllegalStateException);
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<User> {
+        private final List<User> users = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+        private int cancelAfter = -1;
+        private boolean requestOnNext;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(User item) {
+            users.add(item);
+            if (users.size() == cancelAfter) {
+                subscription.cancel();
+            }
+            if (requestOnNext) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+}
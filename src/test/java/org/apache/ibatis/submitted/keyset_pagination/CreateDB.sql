@@ -0,0 +1,27 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+DROP TABLE users IF EXISTS;
+
+CREATE TABLE users
+(
+    id   INT,
+    name VARCHAR(20)
+);
+
+INSERT INTO users (id, name)
+SELECT n, CASE WHEN MOD(n, 2) = 0 THEN 'Even' ELSE 'Odd' END || n
+FROM UNNEST(SEQUENCE_ARRAY(1, 25, 1)) AS t(n);
@@ -0,0 +1,175 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.pagination.LimitOffsetDialect;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Slice;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPaginationTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_pagination/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/keyset_pagination/CreateDB.sql");
+    }
+
+    @Test
+    void shouldUseDialectOfDatabaseId() {
+        assertEquals("hsqldb", sqlSessionFactory.getConfiguration().getDatabaseId());
+        assertTrue(sqlSessionFactory.getConfiguration().getPaginationDialect() instanceof LimitOffsetDialect);
+    }
+
+    @Test
+    void shouldSelectPageByOffset() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Page<User> page = sqlSession.getMapper(Mapper.class).getUserPage(PageRequest.ofPage(1, 10));
+            assertEquals(Arrays.asList(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), ids(page));
+            assertEquals(25, page.getTotalElements());
+            assertEquals(3, page.getTotalPages());
+            assertEquals(1, page.getNumber());
+            assertTrue(page.hasNext());
+            assertEquals(20, page.nextRequest().getOffset());
+        }
+    }
+
+    @Test
+    void shouldSelectLastPageWithoutNextRequest() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Page<User> page = sqlSession.getMapper(Mapper.class).getUserPage(PageRequest.ofPage(2, 10));
+            assertEquals(Arrays.asList(21, 22, 23, 24, 25), ids(page));
+            assertEquals(25, page.getTotalElements());
+            assertFalse(page.hasNext());
+            assertNull(page.nextRequest());
+            assertNull(page.getNextToken());
+        }
+    }
+
+    @Test
+    void shouldContinueKeysetRequestWithToken() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            PageRequest firstRequest = PageRequest.keyset("id", 10);
+            List<Integer> ids = new ArrayList<>();
+            String token = null;
+            int slices = 0;
+            do {
+                Slice<User> slice = mapper.getUsers(firstRequest.after(token));
+                ids.addAll(ids(slice));
+                token = slice.getNextToken();
+                slices++;
+            } while (token != null);
+            assertEquals(3, slices);
+            assertEquals(25, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(i + 1, ids.get(i));
+            }
+        }
+    }
+
+    @Test
+    void shouldSelectKeysetSlicesInDescendingOrder() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            Slice<User> slice = mapper.getUsers(PageRequest.keyset("id", 4).descending());
+            assertEquals(Arrays.asList(25, 24, 23, 22), ids(slice));
+            slice = mapper.getUsers(slice.nextRequest());
+            assertEquals(Arrays.asList(21, 20, 19, 18), ids(slice));
+        }
+    }
+
+    @Test
+    void shouldBindSeekKeyAfterStatementParameters() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            Slice<User> slice = mapper.getUsersByName("Even", PageRequest.keyset("id", 5));
+            assertEquals(Arrays.asList(2, 4, 6, 8, 10), ids(slice));
+            slice = mapper.getUsersByName("Even", slice.nextRequest());
+            assertEquals(Arrays.asList(12, 14, 16, 18, 20), ids(slice));
+            slice = mapper.getUsersByName("Even", slice.nextRequest());
+            assertEquals(Arrays.asList(22, 24), ids(slice));
+            assertFalse(slice.hasNext());
+        }
+    }
+
+    @Test
+    void shouldLimitResultSetWithoutDialect() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        String databaseId = configuration.getDatabaseId();
+        configuration.setDatabaseId("unknown");
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            Page<User> page = mapper.getUserPage(PageRequest.ofPage(1, 10));
+            assertEquals(Arrays.asList(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), ids(page));
+            assertEquals(25, page.getTotalElements());
+            Slice<User> slice = mapper.getUsers(PageRequest.keyset("id", 10));
+            slice = mapper.getUsers(slice.nextRequest());
+            assertEquals(Arrays.asList(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), ids(slice));
+        } finally {
+            configuration.setDatabaseId(databaseId);
+        }
+    }
+
+    @Test
+    void shouldRequirePageRequest() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            assertThrows(BindingException.class, mapper::getUsersWithoutRequest);
+        }
+    }
+
+    @Test
+    void shouldNotCountKeysetRequests() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertThrows(PersistenceException.class, () -> sqlSession.selectPage(
+                    "org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsers", null, PageRequest.keyset("id", 10)));
+        }
+    }
+
+    private static List<Integer> ids(Slice<User> slice) {
+        return slice.getContent().stream().map(User::getId).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.pagination.Page;
+import org.apache.ibatis.pagination.PageRequest;
+import org.apache.ibatis.pagination.Slice;
+
+public interface Mapper {
+
+    @Select("select id, name from users order by id")
+    Page<User> getUserPage(PageRequest pageRequest);
+
+    @Select("select id, name from users")
+    Slice<User> getUsers(PageRequest pageRequest);
+
+    @Select("select id, name from users where name like #{prefix} || '%'")
+    Slice<User> getUsersByName(@Param("prefix") String prefix, PageRequest pageRequest);
+
+    @Select("select id, name from users")
+    Slice<User> getUsersWithoutRequest();
+
+}
@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.metrics;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.metrics.InMemoryMetricsCollector;
+import org.apache.ibatis.metrics.InMemoryMetricsCollector.StatementMetrics;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    private static final String NAMESPACE = Mapper.class.getName();
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static InMemoryMetricsCollector metrics;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/metrics/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/metrics/CreateDB.sql");
+        metrics = (InMemoryMetricsCollector) sqlSessionFactory.getConfiguration().getMetricsCollector();
+    }
+
+    @BeforeEach
+    void resetMetrics() {
+        metrics.reset();
+    }
+
+    @Test
+    void shouldRecordLatencyAndMappedRowsOfSelect() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            assertEquals(10, mapper.getAllUsers().size());
+            sqlSession.clearCache();
+            assertEquals(10, mapper.getAllUsers().size());
+        }
+        StatementMetrics statementMetrics = metrics.getStatementMetrics(NAMESPACE + ".getAllUsers");
+        assertEquals(2, statementMetrics.getExecutionCount());
+        assertEquals(20, statementMetrics.getRowCount());
+        assertTrue(statementMetrics.getLatency().getMax() > 0);
+        assertTrue(statementMetrics.getLatency().getValueAtPercentile(50) <= statementMetrics.getLatency().getMax());
+    }
+
+    @Test
+    void shouldNotRecordResultsOfLocalCache() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            mapper.getAllUsers();
+            mapper.getAllUsers();
+        }
+        assertEquals(1, metrics.getStatementMetrics(NAMESPACE + ".getAllUsers").getExecutionCount());
+    }
+
+    @Test
+    void shouldRecordUpdateCount() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(2, sqlSession.getMapper(Mapper.class).renameUsers(8, "Renamed"));
+            sqlSession.rollback(true);
+        }
+        StatementMetrics statementMetrics = metrics.getStatementMetrics(NAMESPACE + ".renameUsers");
+        assertEquals(1, statementMetrics.getExecutionCount());
+        assertEquals(2, statementMetrics.getRowCount());
+    }
+
+    @Test
+    void shouldRecordCacheHitsPerNamespace() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<User> users = sqlSession.getMapper(Mapper.class).getUsers(5);
+            assertEquals(5, users.size());
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<User> users = sqlSession.getMapper(Mapper.class).getUsers(5);
+            assertEquals(5, users.size());
+        }
+        assertEquals(1, metrics.getCacheHitCount(NAMESPACE));
+        assertEquals(1, metrics.getCacheMissCount(NAMESPACE));
+        assertEquals(1, metrics.getStatementMetrics(NAMESPACE + ".getUsers").getExecutionCount());
+        assertEquals(0, metrics.getCacheHitCount("unknown"));
+    }
+
+    @Test
+    void shouldRecordPoolWaitAndCheckoutTimes() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection()) {
+                Thread.sleep(2);
+            }
+        }
+        assertEquals(3, metrics.getConnectionWaitTimes().getCount());
+        assertEquals(3, metrics.getConnectionCheckoutTimes().getCount());
+        assertTrue(metrics.getConnectionCheckoutTimes().getMax() > 0);
+    }
+
+    @Test
+    void shouldForgetMeasurementsOnReset() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.getMapper(Mapper.class).getAllUsers();
+        }
+        metrics.reset();
+        assertNull(metrics.getStatementMetrics(NAMESPACE + ".getAllUsers"));
+        assertEquals(0, metrics.getConnectionWaitTimes().getCount());
+    }
+
+}
@@ -0,0 +1,54 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+DROP TABLE order_lines IF EXISTS;
+DROP TABLE orders IF EXISTS;
+DROP TABLE customers IF EXISTS;
+
+CREATE TABLE customers
+(
+    id   INT,
+    name VARCHAR(20)
+);
+
+CREATE TABLE orders
+(
+    id          INT,
+    customer_id INT
+);
+
+CREATE TABLE order_lines
+(
+    id       INT,
+    order_id INT,
+    product  VARCHAR(20)
+);
+
+INSERT INTO customers (id, name) VALUES (1, 'Customer1');
+INSERT INTO customers (id, name) VALUES (2, 'Customer2');
+INSERT INTO customers (id, name) VALUES (3, 'Customer3');
+
+INSERT INTO orders (id, customer_id) VALUES (1, 1);
+INSERT INTO orders (id, customer_id) VALUES (2, 2);
+INSERT INTO orders (id, customer_id) VALUES (3, 1);
+INSERT INTO orders (id, customer_id) VALUES (4, 3);
+INSERT INTO orders (id, customer_id) VALUES (5, NULL);
+
+INSERT INTO order_lines (id, order_id, product) VALUES (1, 1, 'Product1');
+INSERT INTO order_lines (id, order_id, product) VALUES (2, 1, 'Product2');
+INSERT INTO order_lines (id, order_id, product) VALUES (3, 2, 'Product1');
+INSERT INTO order_lines (id, order_id, product) VALUES (4, 4, 'Product3');
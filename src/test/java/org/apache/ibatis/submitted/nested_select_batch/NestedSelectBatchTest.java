@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.nested_select_batch;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NestedSelectBatchTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static final AtomicInteger statementCount = new AtomicInteger();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/nested_select_batch/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+        sqlSessionFactory.getConfiguration().addInterceptor(new StatementCounter());
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/nested_select_batch/CreateDB.sql");
+    }
+
+    @BeforeEach
+    void resetCount() {
+        statementCount.set(0);
+    }
+
+    @Test
+    void shouldLoadNestedSelectsInBatches() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Order> orders = sqlSession.getMapper(Mapper.class).getOrders();
+            assertOrders(orders);
+            // 1 for orders, 2 for three customers with batch size 2, 1 for all lines
+            assertEquals(4, statementCount.get());
+        }
+    }
+
+    @Test
+    void shouldLoadEachKeySeparatelyWhenRowsArePassedToResultHandler() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Order> orders = new ArrayList<>();
+            sqlSession.select("org.apache.ibatis.submitted.nested_select_batch.Mapper.getOrders",
+                    context -> orders.add((Order) context.getResultObject()));
+            assertOrders(orders);
+            assertTrue(statementCount.get() > 4);
+        }
+    }
+
+    @Test
+    void shouldLoadLazyPropertiesOfSiblingsInBatches() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Order> orders = sqlSession.getMapper(Mapper.class).getOrdersLazily();
+            assertEquals(1, statementCount.get());
+            assertOrders(orders);
+            // 1 for orders, 2 for three customers with batch size 2, 1 for all lines
+            assertEquals(4, statementCount.get());
+        }
+    }
+
+    @Test
+    void shouldLoadLazyPropertiesOfSiblingsInBatchesAfterSessionIsClosed() {
+        List<Order> orders;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            orders = sqlSession.getMapper(Mapper.class).getOrdersLazily();
+        }
+        assertOrders(orders);
+        assertEquals(4, statementCount.get());
+    }
+
+    private void assertOrders(List<Order> orders) {
+        assertEquals(5, orders.size());
+        assertEquals("Customer1", orders.get(0).getCustomer().getName());
+        assertEquals("Customer2", orders.get(1).getCustomer().getName());
+        assertEquals("Customer1", orders.get(2).getCustomer().getName());
+        assertEquals("Customer3", orders.get(3).getCustomer().getName());
+        assertNull(orders.get(4).getCustomer());
+
+        assertEquals(2, orders.get(0).getLines().size());
+        assertEquals("Product1", orders.get(0).getLines().get(0).getProduct());
+        assertEquals("Product2", orders.get(0).getLines().get(1).getProduct());
+        assertEquals(1, orders.get(1).getLines().size());
+        assertEquals(Integer.valueOf(3), orders.get(1).getLines().get(0).getId());
+        assertTrue(orders.get(2).getLines().isEmpty());
+        assertEquals(1, orders.get(3).getLines().size());
+        assertTrue(orders.get(4).getLines().isEmpty());
+    }
+
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    public static class StatementCounter implements Interceptor {
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            statementCount.incrementAndGet();
+            return invocation.proceed();
+        }
+    }
+
+}
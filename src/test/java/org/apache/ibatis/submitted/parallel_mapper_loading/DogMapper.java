@@ -0,0 +1,28 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_mapper_loading;
+
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.submitted.xml_external_ref.Pet;
+
+public interface DogMapper {
+
+    @Select("SELECT pet_id, owner_id, pet_name FROM pet WHERE pet_id = #{id}")
+    @ResultMap("org.apache.ibatis.submitted.xml_external_ref.ResultMapReferencePersonMapper.dogResult")
+    Pet selectDog(int id);
+
+}
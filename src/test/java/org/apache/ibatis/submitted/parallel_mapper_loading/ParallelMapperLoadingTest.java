@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_mapper_loading;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelMapperLoadingTest {
+
+    private static final String PERSON_MAPPER = "org/apache/ibatis/submitted/xml_external_ref/PersonMapper.xml";
+
+    @Test
+    void shouldBuildSameConfigurationAsSequentialLoading() throws Exception {
+        Configuration sequential = build(false, PERSON_MAPPER);
+        Configuration parallel = build(true, PERSON_MAPPER);
+
+        assertThat(parallel.isParallelMapperLoadingEnabled()).isTrue();
+        // the references to later mappers have been resolved by the final phase
+        assertThat(parallel.getIncompleteStatements()).isEmpty();
+        assertThat(parallel.getIncompleteResultMaps()).isEmpty();
+        assertThat(parallel.getIncompleteCacheRefs()).isEmpty();
+        assertThat(new TreeSet<>(parallel.getMappedStatementNames())).isEqualTo(new TreeSet<>(sequential.getMappedStatementNames()));
+        assertThat(new TreeSet<>(parallel.getResultMapNames())).isEqualTo(new TreeSet<>(sequential.getResultMapNames()));
+        assertThat(new TreeSet<>(parallel.getParameterMapNames())).isEqualTo(new TreeSet<>(sequential.getParameterMapNames()));
+        assertThat(new TreeSet<>(parallel.getCacheNames())).isEqualTo(new TreeSet<>(sequential.getCacheNames()));
+        assertThat(parallel.getMapperRegistry().getMappers()).containsExactlyInAnyOrderElementsOf(sequential.getMapperRegistry().getMappers());
+        // short names may be ambiguous, compare the statements by their full ids
+        for (String name : fullNames(sequential.getMappedStatementNames())) {
+            MappedStatement expected = sequential.getMappedStatement(name);
+            MappedStatement actual = parallel.getMappedStatement(name);
+            assertThat(actual.getId()).isEqualTo(expected.getId());
+            assertThat(actual.getSqlSource().getClass()).isEqualTo(expected.getSqlSource().getClass());
+            assertThat(resultMapIds(actual)).isEqualTo(resultMapIds(expected));
+            assertThat(actual.getCache() == null ? null : actual.getCache().getId())
+                    .isEqualTo(expected.getCache() == null ? null : expected.getCache().getId());
+        }
+        for (String name : fullNames(sequential.getResultMapNames())) {
+            assertThat(parallel.getResultMap(name).getResultMappings())
+                    .hasSameSizeAs(sequential.getResultMap(name).getResultMappings());
+        }
+    }
+
+    @Test
+    void shouldReportMissingMapperResource() {
+        assertThatThrownBy(() -> build(true, "org/apache/ibatis/submitted/parallel_mapper_loading/Missing.xml"))
+                .isInstanceOf(PersistenceException.class)
+                .hasMessageContaining("Could not find resource org/apache/ibatis/submitted/parallel_mapper_loading/Missing.xml");
+    }
+
+    @Test
+    void shouldFindMapperResourcesWithContextClassLoaderOfCaller(@TempDir Path directory) throws Exception {
+        Path mapper = directory.resolve("context_class_loader/PersonMapper.xml");
+        Files.createDirectories(mapper.getParent());
+        try (InputStream inputStream = Resources.getResourceAsStream(PERSON_MAPPER)) {
+            Files.copy(inputStream, mapper);
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, previous)) {
+            thread.setContextClassLoader(classLoader);
+            Configuration configuration = build(true, "context_class_loader/PersonMapper.xml");
+            assertThat(configuration.hasStatement("org.apache.ibatis.submitted.xml_external_ref.PersonMapper.select")).isTrue();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    void shouldResolvePendingElementsBeforeMapperClasses() throws Exception {
+        // the annotated mapper uses a result map that extends a result map of the following XML mapper
+        for (boolean parallel : new boolean[]{false, true}) {
+            Configuration configuration = build(parallel, PERSON_MAPPER,
+                    "org/apache/ibatis/submitted/parallel_mapper_loading/mybatis-config-pending.xml");
+            assertThat(configuration.getIncompleteResultMaps()).isEmpty();
+            assertThat(configuration.getIncompleteMethods()).isEmpty();
+            MappedStatement ms = configuration.getMappedStatement(DogMapper.class.getName() + ".selectDog");
+            assertThat(resultMapIds(ms)).isEqualTo("org.apache.ibatis.submitted.xml_external_ref.ResultMapReferencePersonMapper.dogResult");
+            assertThat(ms.getResultMaps().get(0).getResultMappings()).hasSize(3);
+        }
+    }
+
+    private static Configuration build(boolean parallel, String personMapper) throws Exception {
+        return build(parallel, personMapper, "org/apache/ibatis/submitted/parallel_mapper_loading/mybatis-config.xml");
+    }
+
+    private static Configuration build(boolean parallel, String personMapper, String config) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("parallel", String.valueOf(parallel));
+        properties.setProperty("personMapper", personMapper);
+        try (Reader reader = Resources.getResourceAsReader(config)) {
+            return new SqlSessionFactoryBuilder().build(reader, properties).getConfiguration();
+        }
+    }
+
+    private static List<String> fullNames(Collection<String> names) {
+        return names.stream().filter(name -> name.contains(".")).collect(Collectors.toList());
+    }
+
+    private static String resultMapIds(MappedStatement ms) {
+        return ms.getResultMaps().stream().map(ResultMap::getId).collect(Collectors.joining(","));
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_result_mapping;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelResultMappingTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_result_mapping/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/parallel_result_mapping/CreateDB.sql");
+    }
+
+    @Test
+    void shouldMapRowsInParallelPreservingOrder() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+            assertItems(items, 1, 1000);
+        }
+    }
+
+    @Test
+    void shouldApplyRowBounds() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Item> items = sqlSession.getMapper(Mapper.class).getItemsWithRowBounds(new RowBounds(10, 200));
+            assertItems(items, 11, 200);
+        }
+    }
+
+    @Test
+    void shouldMapRowsOnCallingThreadForResultHandler() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            List<Item> items = new ArrayList<>();
+            sqlSession.getMapper(Mapper.class).getItemsWithResultHandler(context -> items.add(context.getResultObject()));
+            assertItems(items, 1, 1000);
+        }
+    }
+
+    private void assertItems(List<Item> items, int firstId, int count) {
+        assertEquals(count, items.size());
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            int id = firstId + i;
+            assertEquals(id, item.getId());
+            assertEquals("Item" + id, item.getName());
+            assertEquals(0, BigDecimal.valueOf(id, 2).compareTo(item.getPrice()));
+        }
+    }
+
+}
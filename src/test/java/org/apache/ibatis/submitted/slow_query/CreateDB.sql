@@ -0,0 +1,32 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+DROP FUNCTION sleep_millis IF EXISTS;
+DROP TABLE users IF EXISTS;
+
+CREATE FUNCTION sleep_millis(millis INT) RETURNS INT
+    LANGUAGE JAVA DETERMINISTIC NO SQL
+    EXTERNAL NAME 'CLASSPATH:org.apache.ibatis.submitted.slow_query.Functions.sleepMillis';
+
+CREATE TABLE users
+(
+    id   INT,
+    name VARCHAR(20)
+);
+
+INSERT INTO users (id, name)
+SELECT n, 'User' || n
+FROM UNNEST(SEQUENCE_ARRAY(1, 10, 1)) AS t(n);
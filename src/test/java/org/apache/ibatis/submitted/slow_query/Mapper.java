@@ -0,0 +1,32 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.slow_query;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+public interface Mapper {
+
+    @Select("select * from users where id <= #{maxId} and sleep_millis(#{delay}) = 0 order by id")
+    List<User> getUsers(@Param("maxId") int maxId, @Param("delay") int delay);
+
+    @Update("update users set name = #{name} where id = #{id} and sleep_millis(#{delay}) = 0")
+    int renameUser(@Param("id") int id, @Param("name") String name, @Param("delay") int delay);
+
+}
@@ -0,0 +1,212 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.slow_query;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.metrics.SlowQuery;
+import org.apache.ibatis.metrics.SlowQueryRecorder;
+import org.apache.ibatis.metrics.SqlExplainHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowQueryTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static SlowQueryRecorder recorder;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/slow_query/mybatis-config.xml")) {
+            sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        }
+
+        BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+                "org/apache/ibatis/submitted/slow_query/CreateDB.sql");
+        recorder = sqlSessionFactory.getConfiguration().getSlowQueryRecorder();
+    }
+
+    @BeforeEach
+    void clearRecorder() {
+        recorder.clear();
+    }
+
+    @AfterEach
+    void resetRecorder() {
+        recorder.setCapacity(100);
+        recorder.setExplainHandler(null);
+    }
+
+    @Test
+    void shouldRecordSlowQueryWithParameters() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(3, sqlSession.getMapper(Mapper.class).getUsers(3, 60).size());
+        }
+        List<SlowQuery> slowQueries = recorder.getSlowQueries();
+        assertEquals(1, slowQueries.size());
+        SlowQuery slowQuery = slowQueries.get(0);
+        assertEquals(Mapper.class.getName() + ".getUsers", slowQuery.getStatementId());
+        assertTrue(slowQuery.getSql().contains("sleep_millis(?)"));
+        assertEquals(Arrays.asList(3, 60), slowQuery.getParameters());
+        assertEquals(3, slowQuery.getRows());
+        assertTrue(slowQuery.getElapsedNanos() >= 50_000_000L);
+        assertNull(slowQuery.getPlan());
+    }
+
+    @Test
+    void shouldNotRecordFastQuery() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(3, sqlSession.getMapper(Mapper.class).getUsers(3, 0).size());
+        }
+        assertTrue(recorder.getSlowQueries().isEmpty());
+    }
+
+    @Test
+    void shouldRecordSlowUpdateWithUpdateCount() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertEquals(1, sqlSession.getMapper(Mapper.class).renameUser(2, "Renamed", 60));
+            sqlSession.rollback(true);
+        }
+        List<SlowQuery> slowQueries = recorder.getSlowQueries();
+        assertEquals(1, slowQueries.size());
+        assertEquals(Mapper.class.getName() + ".renameUser", slowQueries.get(0).getStatementId());
+        assertEquals(Arrays.asList("Renamed", 2, 60), slowQueries.get(0).getParameters());
+        assertEquals(1, slowQueries.get(0).getRows());
+    }
+
+    @Test
+    void shouldKeepMostRecentSlowQueries() {
+        recorder.setCapacity(2);
+        long recordedCount = recorder.getRecordedCount();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            for (int maxId = 1; maxId <= 3; maxId++) {
+                mapper.getUsers(maxId, 60);
+            }
+        }
+        List<SlowQuery> slowQueries = recorder.getSlowQueries();
+        assertEquals(2, slowQueries.size());
+        assertEquals(2, slowQueries.get(0).getRows());
+        assertEquals(3, slowQueries.get(1).getRows());
+        assertEquals(recordedCount + 3, recorder.getRecordedCount());
+    }
+
+    @Test
+    void shouldExplainSlowQuery() {
+        recorder.setExplainHandler(new SqlExplainHandler("EXPLAIN PLAN FOR "));
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.getMapper(Mapper.class).getUsers(3, 60);
+        }
+        String plan = recorder.getSlowQueries().get(0).getPlan();
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains("USERS"), plan);
+    }
+
+
+    @Test
+    void shouldRollBackChangesOfExplainHandler() {
+        recorder.setExplainHandler((connection, sql, parameters) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("update users set name = 'Explained' where id = 1");
+            }
+            throw new SQLException("failed");
+        });
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            assertEquals(1, mapper.renameUser(2, "Renamed", 60));
+            List<User> users = mapper.getUsers(2, 0);
+            assertEquals("User1", users.get(0).getName());
+            assertEquals("Renamed", users.get(1).getName());
+            sqlSession.rollback(true);
+        }
+        assertEquals(1, recorder.getSlowQueries().size());
+        assertNull(recorder.getSlowQueries().get(0).getPlan());
+    }
+
+    @Test
+    void shouldRecordSlowBatchWhenItIsFlushed() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            Mapper mapper = sqlSession.getMapper(Mapper.class);
+            mapper.renameUser(1, "Renamed1", 30);
+            mapper.renameUser(2, "Renamed2", 30);
+            assertTrue(recorder.getSlowQueries().isEmpty());
+            sqlSession.flushStatements();
+            sqlSession.rollback(true);
+        }
+        List<SlowQuery> slowQueries = recorder.getSlowQueries();
+        assertEquals(1, slowQueries.size());
+        assertEquals(Mapper.class.getName() + ".renameUser", slowQueries.get(0).getStatementId());
+        assertEquals(2, slowQueries.get(0).getRows());
+        assertTrue(slowQueries.get(0).getElapsedNanos() >= 50_000_000L);
+    }
+
+    @Test
+    void shouldLetPluginsInterceptTheRoutingStatementHandler() {
+        Configuration configuration = new Configuration(sqlSessionFactory.getConfiguration().getEnvironment());
+        configuration.setSlowQueryThreshold(50);
+        configuration.addMapper(Mapper.class);
+        List<Class<?>> targets = new ArrayList<>();
+        configuration.addInterceptor(new StatementTargetInterceptor(targets));
+        try (SqlSession sqlSession = new SqlSessionFactoryBuilder().build(configuration).openSession()) {
+            assertEquals(3, sqlSession.getMapper(Mapper.class).getUsers(3, 60).size());
+        }
+        assertEquals(Collections.singletonList(RoutingStatementHandler.class), targets);
+        assertEquals(1, configuration.getSlowQueryRecorder().getSlowQueries().size());
+    }
+
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    public static class StatementTargetInterceptor implements Interceptor {
+
+        private final List<Class<?>> targets;
+
+        StatementTargetInterceptor(List<Class<?>> targets) {
+            this.targets = targets;
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            targets.add(invocation.getTarget().getClass());
+            return invocation.proceed();
+        }
+    }
+}